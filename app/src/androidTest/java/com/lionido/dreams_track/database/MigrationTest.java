@@ -0,0 +1,229 @@
+package com.lionido.dreams_track.database;
+
+import android.database.Cursor;
+
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.lionido.dreams_track.model.Symbol;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Миграции 3 → 11 по экспортированным схемам из app/schemas: после каждой схема совпадает
+ * с описанием Room, а сохраненные сны, их id, символы и поиск по ним остаются на месте.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+
+    private static final String TEST_DB = "migration-test";
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(InstrumentationRegistry.getInstrumentation(),
+            AppDatabase.class);
+
+    @Test
+    public void migrate3To4_movesSymbolsToDreamSymbol() throws IOException {
+        try (SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 3)) {
+            insertDreamV3(db, 1, "Я плыл по морю", symbolsJson("Море", "Рыба"), null, null);
+            // Поврежденный JSON не останавливает миграцию
+            insertDreamV3(db, 2, "Я шел по лесу", "[{", null, null);
+        }
+
+        SupportSQLiteDatabase db = helper.runMigrationsAndValidate(TEST_DB, 4, true, AppDatabase.MIGRATION_3_4);
+
+        assertEquals(2, count(db, "SELECT COUNT(*) FROM dream_symbol WHERE dream_id = 1"));
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM dream_symbol WHERE dream_id = 2"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM symbol WHERE keyword = 'море'"));
+    }
+
+    @Test
+    public void migrate4To5_addsDreamIndices() throws IOException {
+        helper.createDatabase(TEST_DB, 4).close();
+
+        helper.runMigrationsAndValidate(TEST_DB, 5, true, AppDatabase.MIGRATION_4_5);
+    }
+
+    @Test
+    public void migrate5To6_fillsCountersFromExistingDreams() throws IOException {
+        try (SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 5)) {
+            insertDreamV3(db, 1, "Я летал", null, "calm", "Свобода");
+            insertDreamV3(db, 2, "Я падал", null, "fear", null);
+        }
+
+        SupportSQLiteDatabase db = helper.runMigrationsAndValidate(TEST_DB, 6, true, AppDatabase.MIGRATION_5_6);
+
+        assertEquals(2, counter(db, DreamStats.COUNTER_DREAMS));
+        assertEquals(1, counter(db, DreamStats.COUNTER_ANALYZED_DREAMS));
+        assertEquals(1, counter(db, DreamStats.EMOTION_PREFIX + "fear"));
+        // Счетчики дальше ведут триггеры
+        insertDreamV3(db, 3, "Я бежал", null, "fear", null);
+        assertEquals(3, counter(db, DreamStats.COUNTER_DREAMS));
+    }
+
+    @Test
+    public void migrate6To7_rebuildsDreamsWithBinarySymbols() throws IOException {
+        try (SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 6)) {
+            insertDreamV3(db, 5, "Мне снилось море", symbolsJson("Море"), "calm", null);
+            insertDreamV3(db, 7, "Мне снился дом", "[{", null, null);
+            // Сон с большим id был удален, его id не должен выдаваться снова
+            db.execSQL("UPDATE sqlite_sequence SET seq = 10 WHERE name = 'dreams'");
+        }
+
+        SupportSQLiteDatabase db = helper.runMigrationsAndValidate(TEST_DB, 7, true, AppDatabase.MIGRATION_6_7);
+
+        assertEquals(10, count(db, "SELECT seq FROM sqlite_sequence WHERE name = 'dreams'"));
+        assertEquals(2, count(db, "SELECT COUNT(*) FROM dreams WHERE id IN (5, 7)"));
+        try (Cursor cursor = db.query("SELECT symbols FROM dreams WHERE id = 5")) {
+            assertTrue(cursor.moveToFirst());
+            int[] ids = SymbolCodec.decode(cursor.getBlob(0));
+            assertEquals(1, ids.length);
+            assertEquals(1, count(db, "SELECT COUNT(*) FROM symbol_entry WHERE id = " + ids[0] + " AND keyword = 'Море'"));
+        }
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM dreams WHERE id = 7 AND symbols IS NOT NULL"));
+
+        // Индекс и триггеры поиска пересозданы вместе с таблицей
+        assertArrayEquals(new long[]{5}, search(db, "море"));
+        db.execSQL("INSERT INTO dreams (text, timestamp) VALUES ('Снова море', 0)");
+        assertArrayEquals(new long[]{5, 11}, search(db, "море"));
+    }
+
+    @Test
+    public void migrate7To8_movesAnalysisToDreamAnalysis() throws IOException {
+        try (SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 7)) {
+            insertDreamV3(db, 3, "Я шел по тропе", null, "calm", "Лес означает поиск");
+            db.execSQL("UPDATE dreams SET analysis = 'Подробный анализ' WHERE id = 3");
+            insertDreamV3(db, 4, "Я плыл", null, null, null);
+            db.execSQL("INSERT INTO symbol (id, keyword, code) VALUES (1, 'тропа', 'path')");
+            db.execSQL("INSERT INTO dream_symbol (dream_id, symbol_id, timestamp) VALUES (3, 1, 0)");
+            db.execSQL("UPDATE sqlite_sequence SET seq = 9 WHERE name = 'dreams'");
+        }
+
+        SupportSQLiteDatabase db = helper.runMigrationsAndValidate(TEST_DB, 8, true, AppDatabase.MIGRATION_7_8);
+
+        assertEquals(9, count(db, "SELECT seq FROM sqlite_sequence WHERE name = 'dreams'"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM dream_analysis"));
+        try (Cursor cursor = db.query("SELECT interpretation, analysis FROM dream_analysis WHERE dream_id = 3")) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals("Лес означает поиск", cursor.getString(0));
+            assertEquals("Подробный анализ", TextCompression.decompress(cursor.getBlob(1)));
+        }
+        // Связи сна пережили пересоздание dreams
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM dream_symbol WHERE dream_id = 3"));
+        try (Cursor cursor = db.query("PRAGMA foreign_key_check")) {
+            assertFalse(cursor.moveToFirst());
+        }
+
+        // Поиск находит сон и по тексту, и по интерпретации
+        assertArrayEquals(new long[]{3}, search(db, "тропе"));
+        assertArrayEquals(new long[]{3}, search(db, "лес"));
+        db.execSQL("INSERT INTO dreams (text, timestamp) VALUES ('Тропа в горах', 0)");
+        db.execSQL("INSERT INTO dream_analysis (dream_id, interpretation) VALUES (10, 'Лес на склоне')");
+        assertArrayEquals(new long[]{3, 10}, search(db, "лес"));
+    }
+
+    @Test
+    public void migrate8To9_addsAnalysisCache() throws IOException {
+        helper.createDatabase(TEST_DB, 8).close();
+
+        helper.runMigrationsAndValidate(TEST_DB, 9, true, AppDatabase.MIGRATION_8_9);
+    }
+
+    @Test
+    public void migrate9To10_addsPendingAnalysis() throws IOException {
+        helper.createDatabase(TEST_DB, 9).close();
+
+        helper.runMigrationsAndValidate(TEST_DB, 10, true, AppDatabase.MIGRATION_9_10);
+    }
+
+    @Test
+    public void migrate10To11_movesDayCountersToUtcSlots() throws IOException {
+        try (SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 10)) {
+            insertDream(db, 1, 1_700_000_000_000L);
+            insertDream(db, 2, 1_700_000_000_000L + DreamStats.SLOT_MS);
+            db.execSQL("INSERT INTO stats_day (day, count) VALUES ('2023-11-14', 2)");
+        }
+
+        SupportSQLiteDatabase db = helper.runMigrationsAndValidate(TEST_DB, 11, true, AppDatabase.MIGRATION_10_11);
+
+        long slot = 1_700_000_000_000L / DreamStats.SLOT_MS;
+        assertEquals(1, count(db, "SELECT count FROM stats_slot WHERE slot = " + slot));
+        assertEquals(1, count(db, "SELECT count FROM stats_slot WHERE slot = " + (slot + 1)));
+        // Новые триггеры ведут слоты, удаление вычитает из того же слота
+        db.execSQL("DELETE FROM dreams WHERE id = 1");
+        assertEquals(0, count(db, "SELECT count FROM stats_slot WHERE slot = " + slot));
+        assertEquals(1, counter(db, DreamStats.COUNTER_DREAMS));
+    }
+
+    @Test
+    public void migrate3To11_keepsDreamsSearchable() throws IOException {
+        try (SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 3)) {
+            insertDreamV3(db, 1, "Я видел черную кошку", symbolsJson("Кошка"), "fear", "Тревога");
+        }
+
+        SupportSQLiteDatabase db = helper.runMigrationsAndValidate(TEST_DB, 11, true,
+                AppDatabase.MIGRATION_3_4, AppDatabase.MIGRATION_4_5, AppDatabase.MIGRATION_5_6,
+                AppDatabase.MIGRATION_6_7, AppDatabase.MIGRATION_7_8, AppDatabase.MIGRATION_8_9,
+                AppDatabase.MIGRATION_9_10, AppDatabase.MIGRATION_10_11);
+
+        assertArrayEquals(new long[]{1}, search(db, "кошку"));
+        assertArrayEquals(new long[]{1}, search(db, "тревога"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM dream_symbol WHERE dream_id = 1"));
+        assertEquals(1, counter(db, DreamStats.COUNTER_ANALYZED_DREAMS));
+        assertEquals(1, count(db, "SELECT SUM(count) FROM stats_slot"));
+    }
+
+    // Колонки dreams версий 3–7; interpretation и analysis в версии 8 переехали в dream_analysis
+    private static void insertDreamV3(SupportSQLiteDatabase db, int id, String text, String symbols, String emotion,
+                                      String interpretation) {
+        db.execSQL("INSERT INTO dreams (id, text, timestamp, symbols, emotion, inputMethod, interpretation) "
+                        + "VALUES (?, ?, ?, ?, ?, 'text', ?)",
+                new Object[]{id, text, 1_700_000_000_000L + id, symbols, emotion, interpretation});
+    }
+
+    // Колонки dreams с версии 8
+    private static void insertDream(SupportSQLiteDatabase db, int id, long timestamp) {
+        db.execSQL("INSERT INTO dreams (id, text, timestamp) VALUES (?, 'сон', ?)", new Object[]{id, timestamp});
+    }
+
+    private static String symbolsJson(String... keywords) {
+        Symbol[] symbols = new Symbol[keywords.length];
+        for (int i = 0; i < keywords.length; i++) {
+            symbols[i] = new Symbol(keywords[i], "code_" + i, "Толкование", "calm");
+        }
+        return Converters.fromSymbolList(Arrays.asList(symbols));
+    }
+
+    private static long[] search(SupportSQLiteDatabase db, String query) {
+        try (Cursor cursor = db.query("SELECT docid FROM dreams_fts WHERE dreams_fts MATCH ? ORDER BY docid",
+                new Object[]{query})) {
+            long[] ids = new long[cursor.getCount()];
+            for (int i = 0; cursor.moveToNext(); i++) {
+                ids[i] = cursor.getLong(0);
+            }
+            return ids;
+        }
+    }
+
+    private static long counter(SupportSQLiteDatabase db, String name) {
+        try (Cursor cursor = db.query("SELECT value FROM stats_counter WHERE name = ?", new Object[]{name})) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+
+    private static long count(SupportSQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.query(sql)) {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getLong(0);
+        }
+    }
+}
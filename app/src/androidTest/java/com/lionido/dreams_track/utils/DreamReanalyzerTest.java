@@ -0,0 +1,168 @@
+package com.lionido.dreams_track.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.lionido.dreams_track.database.AppDatabase;
+import com.lionido.dreams_track.database.DreamDao;
+import com.lionido.dreams_track.database.DreamEntity;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Повторный анализ на базе в памяти: отмена после страницы, продолжение с контрольной точки
+ * и отбрасывание анализа сна, измененного во время прохода.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DreamReanalyzerTest {
+
+    private static final String TEXT = "Мне снилась вода, я шел по берегу";
+    // Две полные страницы и неполная третья
+    private static final int DREAM_COUNT = DreamReanalyzer.PAGE_SIZE * 2 + 10;
+
+    private AppDatabase database;
+    private DreamDao dreamDao;
+    private SharedPreferences prefs;
+    private DreamReanalyzer reanalyzer;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = AppDatabase.createInMemory(context);
+        dreamDao = database.dreamDao();
+        prefs = context.getSharedPreferences("reanalyzer-test", Context.MODE_PRIVATE);
+        prefs.edit().clear().commit();
+        reanalyzer = new DreamReanalyzer(database, prefs, new AssetResourceLoader(context));
+    }
+
+    @After
+    public void tearDown() {
+        prefs.edit().clear().commit();
+        database.close();
+    }
+
+    @Test
+    public void cancelAfterFirstPage_resumesFromCheckpoint() throws InterruptedException {
+        List<DreamEntity> dreams = new ArrayList<>();
+        for (int i = 0; i < DREAM_COUNT; i++) {
+            dreams.add(new DreamEntity(TEXT, null, "text"));
+        }
+        dreamDao.insertAll(dreams);
+
+        // Первый проход отменяется, как только записана первая страница
+        Run first = new Run(true);
+        reanalyzer.setProgressListener(first);
+        assertTrue(reanalyzer.start(false));
+        first.await();
+
+        assertTrue(first.cancelled);
+        assertEquals(DreamReanalyzer.PAGE_SIZE, first.processed);
+        assertTrue(reanalyzer.hasCheckpoint());
+        int lastWritten = dreams.get(DreamReanalyzer.PAGE_SIZE - 1).getId();
+        assertAnalyzed(dreamDao.getDreamById(lastWritten), true);
+        assertAnalyzed(dreamDao.getDreamById(lastWritten + 1), false);
+
+        // Продолжение начинает отсчет с уже записанных снов и доходит до конца
+        Run second = new Run(false);
+        reanalyzer.setProgressListener(second);
+        assertTrue(reanalyzer.start(true));
+        second.await();
+
+        assertFalse(second.cancelled);
+        assertEquals(DreamReanalyzer.PAGE_SIZE, second.firstProgress.get());
+        assertEquals(DREAM_COUNT, second.processed);
+        assertEquals(DREAM_COUNT, second.total);
+        assertFalse(reanalyzer.hasCheckpoint());
+        for (DreamEntity dream : dreamDao.getDreamsAfter(0, DREAM_COUNT)) {
+            assertAnalyzed(dream, true);
+        }
+    }
+
+    @Test
+    public void updateAnalysisAll_skipsDreamEditedAfterRead() {
+        DreamEntity edited = new DreamEntity(TEXT, null, "text");
+        DreamEntity unchanged = new DreamEntity(TEXT, null, "text");
+        dreamDao.insertAll(Arrays.asList(edited, unchanged));
+
+        List<DreamEntity> page = dreamDao.getDreamsAfter(0, 10);
+        // Пользователь сохраняет новый текст, пока страница анализируется
+        DreamEntity current = dreamDao.getDreamById(edited.getId());
+        current.setText("Я поднимался на башню");
+        dreamDao.update(current);
+        for (DreamEntity dream : page) {
+            reanalyzer.reanalyze(dream);
+        }
+
+        assertEquals(1, dreamDao.updateAnalysisAll(page));
+        DreamEntity afterEdit = dreamDao.getDreamById(edited.getId());
+        assertEquals("Я поднимался на башню", afterEdit.getText());
+        assertAnalyzed(afterEdit, false);
+        assertAnalyzed(dreamDao.getDreamById(unchanged.getId()), true);
+    }
+
+    private static void assertAnalyzed(DreamEntity dream, boolean analyzed) {
+        boolean hasSymbols = dream.getSymbols() != null && !dream.getSymbols().isEmpty();
+        assertEquals("сон " + dream.getId(), analyzed, hasSymbols);
+    }
+
+    private final class Run implements DreamReanalyzer.ProgressListener {
+        private final boolean cancelAfterFirstPage;
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private final AtomicInteger firstProgress = new AtomicInteger(-1);
+        private final AtomicBoolean failed = new AtomicBoolean();
+        private volatile int processed;
+        private volatile int total;
+        private volatile boolean cancelled;
+
+        Run(boolean cancelAfterFirstPage) {
+            this.cancelAfterFirstPage = cancelAfterFirstPage;
+        }
+
+        @Override
+        public void onProgress(int processed, int total) {
+            firstProgress.compareAndSet(-1, processed);
+            if (cancelAfterFirstPage && processed > 0) {
+                reanalyzer.cancel();
+            }
+        }
+
+        @Override
+        public void onFinished(int processed, int total, boolean cancelled) {
+            this.processed = processed;
+            this.total = total;
+            this.cancelled = cancelled;
+            finished.countDown();
+        }
+
+        @Override
+        public void onError(Exception e) {
+            failed.set(true);
+            finished.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("проход не завершился", finished.await(30, TimeUnit.SECONDS));
+            assertFalse("ошибка прохода", failed.get());
+            // Флаг прохода снимается после onFinished, когда закрыта пакетная запись
+            while (reanalyzer.isRunning()) {
+                Thread.sleep(10);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.lionido.dreams_track;
+
+import android.app.Application;
+import android.util.Log;
+
+import com.lionido.dreams_track.utils.AnalysisLog;
+import com.lionido.dreams_track.utils.PendingAnalysisQueue;
+
+public class DreamsTrackApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Модуль анализа не зависит от Android, его журнал направляем в logcat
+        AnalysisLog.setLogger((priority, tag, message, error) -> {
+            if (error != null) {
+                message = message + '\n' + Log.getStackTraceString(error);
+            }
+            Log.println(priority, tag, message);
+        });
+        // Сны, сохраненные без сети в прошлых запусках, анализируются в фоне
+        PendingAnalysisQueue.getInstance(this).start();
+    }
+}
@@ -4,7 +4,6 @@ import android.app.AlertDialog;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.os.Bundle;
-import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.LayoutInflater;
@@ -20,24 +19,25 @@ import com.lionido.dreams_track.activity.AtlasActivity;
 import com.lionido.dreams_track.activity.DreamHistoryActivity;
 import com.lionido.dreams_track.activity.RecordDreamActivity;
 import com.lionido.dreams_track.activity.SettingsActivity;
-import com.lionido.dreams_track.database.AppDatabase;
-import com.lionido.dreams_track.database.DreamDao;
-import com.lionido.dreams_track.database.DreamEntity;
+import com.lionido.dreams_track.database.DreamRepository;
+import com.lionido.dreams_track.database.EmotionCount;
+import com.lionido.dreams_track.database.RecentStatistics;
+import com.lionido.dreams_track.utils.AssetResourceLoader;
+import com.lionido.dreams_track.utils.EmotionDetector;
 import com.lionido.dreams_track.utils.OpenRouterAnalyzer;
 
+import java.time.LocalDate;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class MainActivity extends BaseActivity {
     private static final String PREFS_NAME = "DreamPrefs";
+    // Сколько самых частых эмоций показывать
+    private static final int TOP_EMOTIONS = 3;
     private static final String PREF_GEMINI_API_KEY = "gemini_api_key";
     private static final String PREF_THEME = "app_theme";
 
-    private AppDatabase database;
-    private DreamDao dreamDao;
+    private DreamRepository repository;
     private OpenRouterAnalyzer openRouterAnalyzer;
-    private ExecutorService executor;
     private SharedPreferences prefs;
 
     // UI элементы
@@ -47,6 +47,8 @@ public class MainActivity extends BaseActivity {
     private TextView tvTotalDreams;
     private TextView tvAnalyzedDreams;
     private TextView tvSymbolsFound;
+    private TextView tvRecentDreams;
+    private TextView tvTopEmotions;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -61,15 +63,13 @@ public class MainActivity extends BaseActivity {
     }
 
     private void initializeDatabase() {
-        database = AppDatabase.getDatabase(this);
-        dreamDao = database.dreamDao();
-        executor = Executors.newFixedThreadPool(2);
+        repository = DreamRepository.getInstance(this);
     }
 
     private void initializePreferences() {
         prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
         // Инициализируем OpenRouterAnalyzer
-        openRouterAnalyzer = new OpenRouterAnalyzer(this);
+        openRouterAnalyzer = new OpenRouterAnalyzer(new AssetResourceLoader(this), getFilesDir());
     }
 
     private void initializeViews() {
@@ -81,6 +81,8 @@ public class MainActivity extends BaseActivity {
         tvTotalDreams = findViewById(R.id.tv_total_dreams);
         tvAnalyzedDreams = findViewById(R.id.tv_analyzed_dreams);
         tvSymbolsFound = findViewById(R.id.tv_symbols_found);
+        tvRecentDreams = findViewById(R.id.tv_recent_dreams);
+        tvTopEmotions = findViewById(R.id.tv_top_emotions);
     }
 
     private void setupClickListeners() {
@@ -180,39 +182,43 @@ public class MainActivity extends BaseActivity {
     }
 
     private void loadStatistics() {
-        executor.execute(() -> {
-            try {
-                // Получаем общее количество снов
-                int totalDreams = dreamDao.getDreamCount();
-                
-                // Для количества проанализированных снов и символов 
-                // будем использовать простую логику, так как в базе данных 
-                // нет отдельных полей для этих значений
-                int analyzedDreams = totalDreams; // Предполагаем, что все сны проанализированы
-                int symbolsFound = totalDreams * 3; // Примерно 3 символа на сон
-                
-                // Обновляем UI в основном потоке
-                int finalTotalDreams = totalDreams;
-                runOnUiThread(() -> {
-                    tvTotalDreams.setText(String.valueOf(finalTotalDreams));
-                    tvAnalyzedDreams.setText(String.valueOf(analyzedDreams));
-                    tvSymbolsFound.setText(String.valueOf(symbolsFound));
-                });
-            } catch (Exception e) {
-                Log.e("MainActivity", "Ошибка загрузки статистики", e);
-                // В случае ошибки показываем нули
-                runOnUiThread(() -> {
-                    tvTotalDreams.setText("0");
-                    tvAnalyzedDreams.setText("0");
-                    tvSymbolsFound.setText("0");
-                });
-            }
+        // Счетчики поддерживаются триггерами в базе; значение приходит заново, только когда они меняются
+        repository.getStatistics().observe(this, statistics -> {
+            tvTotalDreams.setText(String.valueOf(statistics.totalDreams));
+            tvAnalyzedDreams.setText(String.valueOf(statistics.analyzedDreams));
+            tvSymbolsFound.setText(String.valueOf(statistics.distinctSymbols));
         });
+        repository.getRecentStatistics().observe(this, this::showRecentStatistics);
     }
 
     @Override
-    protected void onResume() {
-        super.onResume();
-        loadStatistics();
+    protected void onStart() {
+        super.onStart();
+        // Неделя считается от текущей даты: после полуночи пересчитываем, хотя счетчики не менялись
+        RecentStatistics recent = repository.getRecentStatistics().getValue();
+        if (recent != null && !recent.to.equals(LocalDate.now())) {
+            repository.getRecentStatistics().invalidate();
+        }
+    }
+
+    private void showRecentStatistics(RecentStatistics recent) {
+        tvRecentDreams.setText("За " + RecentStatistics.DAYS + " дней: " + recent.getRecentDreams()
+                + ", сегодня: " + recent.getDreamsOn(recent.to));
+
+        List<EmotionCount> emotions = recent.emotions;
+        if (emotions.isEmpty()) {
+            tvTopEmotions.setVisibility(View.GONE);
+            return;
+        }
+        StringBuilder text = new StringBuilder("Чаще всего: ");
+        for (int i = 0; i < Math.min(TOP_EMOTIONS, emotions.size()); i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            EmotionCount emotion = emotions.get(i);
+            text.append(EmotionDetector.getEmotionDisplayName(emotion.emotion)).append(" — ").append(emotion.count);
+        }
+        tvTopEmotions.setText(text);
+        tvTopEmotions.setVisibility(View.VISIBLE);
     }
-}
\ No newline at end of file
+}
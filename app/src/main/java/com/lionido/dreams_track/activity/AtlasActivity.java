@@ -9,27 +9,20 @@ import android.widget.Toast;
 
 import com.lionido.dreams_track.BaseActivity;
 import com.lionido.dreams_track.R;
-import com.lionido.dreams_track.database.AppDatabase;
-import com.lionido.dreams_track.database.DreamDao;
-import com.lionido.dreams_track.database.DreamEntity;
-import com.lionido.dreams_track.model.Symbol;
+import com.lionido.dreams_track.database.DreamRepository;
+import com.lionido.dreams_track.database.TableLiveData;
 import com.lionido.dreams_track.utils.EmotionDetector;
 import com.lionido.dreams_track.view.WordCloudView;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class AtlasActivity extends BaseActivity {
     private WordCloudView wordCloudView;
     private Spinner emotionFilterSpinner;
-    private AppDatabase database;
-    private DreamDao dreamDao;
-    private ExecutorService executor;
-    private List<DreamEntity> allDreams;
+    private DreamRepository repository;
+    private TableLiveData<Map<String, Integer>> symbolFrequencies;
     private EmotionDetector emotionDetector;
 
     @Override
@@ -55,11 +48,8 @@ public class AtlasActivity extends BaseActivity {
     }
 
     private void initializeDatabase() {
-        database = AppDatabase.getDatabase(this);
-        dreamDao = database.dreamDao();
-        executor = Executors.newSingleThreadExecutor();
+        repository = DreamRepository.getInstance(this);
         emotionDetector = new EmotionDetector();
-        allDreams = new ArrayList<>();
     }
 
     private void setupEmotionFilter() {
@@ -116,95 +106,34 @@ public class AtlasActivity extends BaseActivity {
     }
 
     private void loadDreamsAndShowCloud(String emotionFilter) {
-        if (executor == null || wordCloudView == null) return;
-
-        executor.execute(() -> {
-            try {
-                allDreams = dreamDao.getAllDreams();
-                Map<String, Integer> symbolFrequency = new HashMap<>();
-
-                for (DreamEntity dream : allDreams) {
-                    // Проверяем фильтр эмоций
-                    if (emotionFilter == null ||
-                            (dream.getEmotion() != null && dream.getEmotion().equals(emotionFilter))) {
-
-                        List<Symbol> symbols = dream.getSymbols();
-                        if (symbols != null) {
-                            for (Symbol symbol : symbols) {
-                                if (symbol != null && symbol.getKeyword() != null && !symbol.getKeyword().trim().isEmpty()) {
-                                    String keyword = symbol.getKeyword().trim();
-                                    symbolFrequency.put(keyword,
-                                            symbolFrequency.getOrDefault(keyword, 0) + 1);
-                                }
-                            }
-                        }
-
-                        // Также анализируем текст сна на ключевые слова
-                        if (dream.getText() != null && !dream.getText().trim().isEmpty()) {
-                            analyzeTextForKeywords(dream.getText(), symbolFrequency);
-                        }
-                    }
-                }
-
-                List<WordCloudView.Word> words = new ArrayList<>();
-                for (Map.Entry<String, Integer> entry : symbolFrequency.entrySet()) {
-                    if (entry.getValue() > 0) { // Показываем только символы с частотой > 0
-                        words.add(new WordCloudView.Word(entry.getKey(), entry.getValue()));
-                    }
-                }
-
-                runOnUiThread(() -> {
-                    if (wordCloudView != null) {
-                        if (words.isEmpty()) {
-                            // Если нет символов, показываем сообщение
-                            words.add(new WordCloudView.Word("Нет данных", 1));
-                        }
-                        wordCloudView.setWords(words);
-                    }
-                });
-
-            } catch (Exception e) {
-                e.printStackTrace();
-                runOnUiThread(() -> {
-                    if (!isDestroyed() && !isFinishing()) {
-                        Toast.makeText(AtlasActivity.this, "Ошибка загрузки данных: " + e.getMessage(),
-                                Toast.LENGTH_SHORT).show();
-                    }
-                });
+        if (repository == null || wordCloudView == null) return;
+
+        // Частоты пересчитываются при изменении снов, пока экран открыт; смена фильтра переключает подписку
+        if (symbolFrequencies != null) {
+            symbolFrequencies.removeObservers(this);
+            symbolFrequencies.getError().removeObservers(this);
+        }
+        symbolFrequencies = repository.getSymbolFrequencies(emotionFilter);
+        symbolFrequencies.observe(this, this::showCloud);
+        symbolFrequencies.getError().observe(this, e -> {
+            if (e != null) {
+                Toast.makeText(this, "Ошибка загрузки данных: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                symbolFrequencies.clearError();
             }
         });
     }
 
-    private void analyzeTextForKeywords(String text, Map<String, Integer> symbolFrequency) {
-        if (text == null || text.trim().isEmpty()) return;
-
-        String lowerText = text.toLowerCase();
-
-        // Список ключевых слов для анализа
-        String[] keywords = {
-                "вода", "море", "река", "дождь", "океан",
-                "огонь", "пламя", "жар", "костер",
-                "животное", "кот", "собака", "птица", "змея",
-                "дом", "здание", "комната", "дверь",
-                "летать", "полет", "падать", "бежать",
-                "страх", "радость", "грусть", "любовь",
-                "смерть", "жизнь", "свет", "темнота",
-                "дерево", "лес", "гора", "небо",
-                "человек", "люди", "ребенок", "мать", "отец"
-        };
-
-        for (String keyword : keywords) {
-            if (lowerText.contains(keyword)) {
-                symbolFrequency.put(keyword, symbolFrequency.getOrDefault(keyword, 0) + 1);
+    private void showCloud(Map<String, Integer> symbolFrequency) {
+        List<WordCloudView.Word> words = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : symbolFrequency.entrySet()) {
+            if (entry.getValue() > 0) { // Показываем только символы с частотой > 0
+                words.add(new WordCloudView.Word(entry.getKey(), entry.getValue()));
             }
         }
-    }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        if (executor != null && !executor.isShutdown()) {
-            executor.shutdown();
+        if (words.isEmpty()) {
+            // Если нет символов, показываем сообщение
+            words.add(new WordCloudView.Word("Нет данных", 1));
         }
+        wordCloudView.setWords(words);
     }
-}
\ No newline at end of file
+}
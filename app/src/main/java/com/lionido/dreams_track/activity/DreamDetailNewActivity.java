@@ -15,9 +15,11 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.lionido.dreams_track.R;
 import com.lionido.dreams_track.adapter.SymbolsAdapter;
 import com.lionido.dreams_track.database.AppDatabase;
+import com.lionido.dreams_track.database.DreamAnalysisEntity;
 import com.lionido.dreams_track.database.DreamDao;
 import com.lionido.dreams_track.database.DreamEntity;
 import com.lionido.dreams_track.model.Symbol;
+import com.lionido.dreams_track.utils.AssetResourceLoader;
 import com.lionido.dreams_track.utils.EmotionDetector;
 import com.lionido.dreams_track.utils.OpenRouterAnalyzer;
 
@@ -65,7 +67,7 @@ public class DreamDetailNewActivity extends AppCompatActivity {
         dreamDao = database.dreamDao();
         executor = Executors.newFixedThreadPool(2);
         emotionDetector = new EmotionDetector();
-        openRouterAnalyzer = new OpenRouterAnalyzer(this);
+        openRouterAnalyzer = new OpenRouterAnalyzer(new AssetResourceLoader(this), getFilesDir());
     }
 
     private void initializeViews() {
@@ -103,6 +105,7 @@ public class DreamDetailNewActivity extends AppCompatActivity {
             runOnUiThread(() -> {
                 if (currentDream != null) {
                     displayDreamData();
+                    loadAnalysis(dreamId);
                 } else {
                     Toast.makeText(this, "Сон не найден", Toast.LENGTH_SHORT).show();
                     finish();
@@ -111,6 +114,20 @@ public class DreamDetailNewActivity extends AppCompatActivity {
         });
     }
 
+    // Результаты анализа хранятся отдельно от сна и читаются после того, как сон уже показан
+    private void loadAnalysis(int dreamId) {
+        executor.execute(() -> {
+            DreamAnalysisEntity dreamAnalysis = dreamDao.getAnalysis(dreamId);
+            String interpretation = dreamAnalysis != null ? safeString(dreamAnalysis.getInterpretation()) : "";
+            String analysis = dreamAnalysis != null ? safeString(dreamAnalysis.getAnalysisText()) : "";
+
+            runOnUiThread(() -> {
+                tvInterpretation.setText(interpretation.isEmpty() ? "Интерпретация отсутствует" : interpretation);
+                tvAnalysis.setText(analysis.isEmpty() ? "Анализ отсутствует" : analysis);
+            });
+        });
+    }
+
     private void displayDreamData() {
         // Отображение текста сна
         tvDreamText.setText(currentDream.getText());
@@ -141,13 +158,9 @@ public class DreamDetailNewActivity extends AppCompatActivity {
             tvInputMethod.setText("Не указан");
         }
 
-        // Отображение интерпретации
-        String interpretation = safeString(currentDream.getInterpretation());
-        tvInterpretation.setText(interpretation.isEmpty() ? "Интерпретация отсутствует" : interpretation);
-
-        // Отображение анализа
-        String analysis = safeString(currentDream.getAnalysis());
-        tvAnalysis.setText(analysis.isEmpty() ? "Анализ отсутствует" : analysis);
+        // Интерпретация и анализ загружаются отдельно (loadAnalysis)
+        tvInterpretation.setText("Загрузка...");
+        tvAnalysis.setText("Загрузка...");
 
         // Отображение символов
         List<Symbol> symbols = currentDream.getSymbols();
@@ -1,37 +1,56 @@
 package com.lionido.dreams_track.activity;
 
+import android.app.AlertDialog;
 import android.content.Intent;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.View;
 import android.widget.Button;
+import android.widget.Toast;
 
 import com.lionido.dreams_track.BaseActivity;
+import androidx.lifecycle.LiveData;
+import androidx.paging.LoadState;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
+import com.google.android.material.snackbar.Snackbar;
 import com.lionido.dreams_track.R;
 import com.lionido.dreams_track.adapter.DreamAdapter;
 import com.lionido.dreams_track.database.AppDatabase;
-import com.lionido.dreams_track.database.DreamDao;
-import com.lionido.dreams_track.database.DreamEntity;
-import com.lionido.dreams_track.model.Dream;
+import com.lionido.dreams_track.database.DreamPagingSource;
+import com.lionido.dreams_track.database.DreamSummary;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
+import kotlin.Unit;
+
 public class DreamHistoryActivity extends BaseActivity {
+    private static final String TAG = "DreamHistoryActivity";
+    // Строка истории занимает около десятой части экрана: страница — три экрана,
+    // следующая подгружается за два экрана до конца. Первая загрузка меньше, чтобы первые строки появлялись быстрее
+    private static final int PAGE_SIZE = 30;
+    private static final int PREFETCH_DISTANCE = 20;
+    private static final int INITIAL_LOAD_SIZE = 40;
+    // Дальние страницы выгружаются, в памяти не больше этого числа снов при любой длине истории
+    private static final int MAX_LOADED_ITEMS = 200;
+
     private RecyclerView recyclerView;
     private DreamAdapter dreamAdapter;
-    private List<Dream> dreamList;
     private AppDatabase database;
-    private DreamDao dreamDao;
     private ExecutorService executor;
     private View emptyView;
+    private View errorView;
     private Button btnAddFirstDream;
+    // Ошибка догрузки, о которой уже показано сообщение: слушатель состояний вызывается на каждое изменение
+    private Throwable shownAppendError;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -46,7 +65,6 @@ public class DreamHistoryActivity extends BaseActivity {
 
     private void initializeDatabase() {
         database = AppDatabase.getDatabase(this);
-        dreamDao = database.dreamDao();
         executor = Executors.newFixedThreadPool(2);
     }
 
@@ -60,6 +78,8 @@ public class DreamHistoryActivity extends BaseActivity {
 
         recyclerView = findViewById(R.id.recycler_dreams);
         emptyView = findViewById(R.id.empty_view);
+        errorView = findViewById(R.id.error_view);
+        findViewById(R.id.btn_retry).setOnClickListener(v -> dreamAdapter.retry());
         btnAddFirstDream = findViewById(R.id.btn_add_first_dream);
 
         FloatingActionButton fab = findViewById(R.id.fab_add_dream);
@@ -79,66 +99,91 @@ public class DreamHistoryActivity extends BaseActivity {
     }
 
     private void setupRecyclerView() {
-        dreamList = new ArrayList<>();
-        dreamAdapter = new DreamAdapter(dreamList, dream -> {
+        dreamAdapter = new DreamAdapter(dream -> {
             Intent intent = new Intent(DreamHistoryActivity.this, DreamDetailActivity.class);
-            intent.putExtra("dream_id", dream.getId());
+            intent.putExtra("dream_id", dream.id);
             startActivity(intent);
         });
+        dreamAdapter.setOnDreamDeleteListener((dream, position) -> showDeleteConfirmationDialog(dream));
+
+        // Пустое состояние показываем, только когда первая страница загружена и в ней ничего нет.
+        // Если первая страница не загрузилась, вместо списка — сообщение с повтором
+        dreamAdapter.addLoadStateListener(loadStates -> {
+            LoadState refresh = loadStates.getRefresh();
+            if (refresh instanceof LoadState.Error) {
+                Log.e(TAG, "Ошибка загрузки истории", ((LoadState.Error) refresh).getError());
+                errorView.setVisibility(View.VISIBLE);
+                emptyView.setVisibility(View.GONE);
+                recyclerView.setVisibility(View.GONE);
+            } else if (!(refresh instanceof LoadState.Loading)) {
+                boolean empty = dreamAdapter.getItemCount() == 0;
+                errorView.setVisibility(View.GONE);
+                emptyView.setVisibility(empty ? View.VISIBLE : View.GONE);
+                recyclerView.setVisibility(empty ? View.GONE : View.VISIBLE);
+            }
+
+            // Страница при прокрутке не загрузилась: список остается, догрузку повторяет действие сообщения
+            LoadState append = loadStates.getAppend();
+            LoadState prepend = loadStates.getPrepend();
+            LoadState failed = append instanceof LoadState.Error ? append
+                    : prepend instanceof LoadState.Error ? prepend : null;
+            if (failed == null) {
+                shownAppendError = null;
+            } else if (((LoadState.Error) failed).getError() != shownAppendError) {
+                shownAppendError = ((LoadState.Error) failed).getError();
+                Log.e(TAG, "Ошибка загрузки страницы истории", shownAppendError);
+                Snackbar.make(recyclerView, "Не удалось загрузить сны", Snackbar.LENGTH_INDEFINITE)
+                        .setAction("Повторить", v -> dreamAdapter.retry())
+                        .show();
+            }
+            return Unit.INSTANCE;
+        });
 
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
         recyclerView.setAdapter(dreamAdapter);
     }
 
     private void loadDreams() {
+        // Источник перечитывает страницы сам при изменении таблицы dreams, перезагрузка в onResume не нужна
+        Pager<DreamPagingSource.Key, DreamSummary> pager = new Pager<>(
+                new PagingConfig(PAGE_SIZE, PREFETCH_DISTANCE, false, INITIAL_LOAD_SIZE, MAX_LOADED_ITEMS),
+                () -> new DreamPagingSource(database, executor));
+        LiveData<PagingData<DreamSummary>> dreams = PagingLiveData.cachedIn(PagingLiveData.getLiveData(pager), getLifecycle());
+        dreams.observe(this, pagingData -> dreamAdapter.submitData(getLifecycle(), pagingData));
+    }
+
+    private void showDeleteConfirmationDialog(DreamSummary dream) {
+        new AlertDialog.Builder(this)
+                .setTitle("Удалить сон")
+                .setMessage("Вы уверены, что хотите удалить этот сон? Это действие нельзя отменить.")
+                .setPositiveButton("Удалить", (dialog, which) -> deleteDream(dream))
+                .setNegativeButton("Отмена", null)
+                .show();
+    }
+
+    private void deleteDream(DreamSummary dream) {
         executor.execute(() -> {
             try {
-                List<DreamEntity> dreams = dreamDao.getAllDreams();
-
+                database.dreamDao().deleteById(dream.id);
                 runOnUiThread(() -> {
-                    dreamList.clear();
-                    // Преобразуем DreamEntity в Dream
-                    for (DreamEntity entity : dreams) {
-                        String dreamText = entity.getText() != null ? entity.getText() : "";
-                        String audioPath = entity.getAudioPath() != null ? entity.getAudioPath() : "";
-
-                        Dream dream = new Dream(dreamText, audioPath);
-                        dream.setId(entity.getId());
-                        dream.setTimestamp(entity.getTimestamp());
-                        dream.setSymbols(entity.getSymbols());
-                        dream.setEmotion(entity.getEmotion());
-                        dreamList.add(dream);
-                    }
-                    dreamAdapter.notifyDataSetChanged();
-
-                    if (dreams.isEmpty()) {
-                        emptyView.setVisibility(View.VISIBLE);
-                        recyclerView.setVisibility(View.GONE);
-                    } else {
-                        emptyView.setVisibility(View.GONE);
-                        recyclerView.setVisibility(View.VISIBLE);
+                    if (!isDestroyed() && !isFinishing()) {
+                        // Не ждем уведомления InvalidationTracker, оно приходит асинхронно
+                        dreamAdapter.refresh();
+                        Toast.makeText(DreamHistoryActivity.this, "Сон удален", Toast.LENGTH_SHORT).show();
                     }
                 });
             } catch (Exception e) {
-                e.printStackTrace();
+                Log.e(TAG, "Ошибка удаления сна " + dream.id, e);
                 runOnUiThread(() -> {
                     if (!isDestroyed() && !isFinishing()) {
-                        // Показать ошибку или пустое состояние
-                        emptyView.setVisibility(View.VISIBLE);
-                        recyclerView.setVisibility(View.GONE);
+                        Toast.makeText(DreamHistoryActivity.this, "Ошибка удаления: " + e.getMessage(),
+                                Toast.LENGTH_SHORT).show();
                     }
                 });
             }
         });
     }
 
-    @Override
-    protected void onResume() {
-        super.onResume();
-        // Перезагружаем данные при возврате в активность
-        loadDreams();
-    }
-
     @Override
     protected void onDestroy() {
         super.onDestroy();
@@ -14,8 +14,10 @@ import com.lionido.dreams_track.database.AppDatabase;
 import com.lionido.dreams_track.database.DreamDao;
 import com.lionido.dreams_track.database.DreamEntity;
 import com.lionido.dreams_track.model.Symbol;
+import com.lionido.dreams_track.utils.AssetResourceLoader;
 import com.lionido.dreams_track.utils.NLPAnalyzer;
 import com.lionido.dreams_track.utils.EmotionDetector;
+import com.lionido.dreams_track.utils.LiveAnalysisHelper;
 import com.lionido.dreams_track.utils.SymbolAnalyzer;
 
 import java.util.List;
@@ -37,6 +39,7 @@ public class EditDreamActivity extends BaseActivity {
     private NLPAnalyzer nlpAnalyzer;
     private EmotionDetector emotionDetector;
     private SymbolAnalyzer symbolAnalyzer;
+    private LiveAnalysisHelper liveAnalysisHelper;
 
     private DreamEntity currentDream;
     private List<Symbol> analyzedSymbols;
@@ -86,9 +89,16 @@ public class EditDreamActivity extends BaseActivity {
     }
 
     private void initializeHelpers() {
-        nlpAnalyzer = new NLPAnalyzer(this);
+        nlpAnalyzer = new NLPAnalyzer(new AssetResourceLoader(this));
         emotionDetector = new EmotionDetector();
-        symbolAnalyzer = new SymbolAnalyzer(this);
+        symbolAnalyzer = new SymbolAnalyzer(new AssetResourceLoader(this));
+
+        // Во время редактирования показываем предварительный анализ. Сохраняемые символы (в том числе
+        // от LLM) он не заменяет: их обновляет только кнопка «Переанализировать»
+        liveAnalysisHelper = new LiveAnalysisHelper(nlpAnalyzer);
+        liveAnalysisHelper.setOnLiveAnalysisListener(result ->
+                displayAnalysisResults(result.symbols, result.emotion,
+                        "Предварительно, для сохранения нажмите «Переанализировать»\n\n"));
     }
 
     private void loadDreamData() {
@@ -108,6 +118,8 @@ public class EditDreamActivity extends BaseActivity {
                     analyzedSymbols = currentDream.getSymbols();
                     analyzedEmotion = currentDream.getEmotion();
                     displayAnalysisResults();
+                    // Подключаем после setText, чтобы сохраненный анализ не перезаписывался при открытии
+                    liveAnalysisHelper.attach(editDreamText);
                 } else {
                     Toast.makeText(this, "Сон не найден", Toast.LENGTH_SHORT).show();
                     finish();
@@ -164,13 +176,17 @@ public class EditDreamActivity extends BaseActivity {
     }
 
     private void displayAnalysisResults() {
-        StringBuilder result = new StringBuilder();
+        displayAnalysisResults(analyzedSymbols, analyzedEmotion, "");
+    }
+
+    private void displayAnalysisResults(List<Symbol> symbols, String emotion, String header) {
+        StringBuilder result = new StringBuilder(header);
 
-        result.append("Эмоция: ").append(emotionDetector.getEmotionDisplayName(analyzedEmotion)).append("\n\n");
+        result.append("Эмоция: ").append(emotionDetector.getEmotionDisplayName(emotion)).append("\n\n");
 
-        if (analyzedSymbols != null && !analyzedSymbols.isEmpty()) {
+        if (symbols != null && !symbols.isEmpty()) {
             result.append("Найденные символы:\n");
-            for (Symbol symbol : analyzedSymbols) {
+            for (Symbol symbol : symbols) {
                 result.append("• ").append(symbol.getKeyword()).append(": ").append(symbol.getInterpretation()).append("\n");
             }
         } else {
@@ -210,5 +226,8 @@ public class EditDreamActivity extends BaseActivity {
         if (executor != null) {
             executor.shutdown();
         }
+        if (liveAnalysisHelper != null) {
+            liveAnalysisHelper.destroy();
+        }
     }
 }
\ No newline at end of file
@@ -31,11 +31,18 @@ import com.google.android.material.textfield.TextInputEditText;
 import com.lionido.dreams_track.BaseActivity;
 import com.lionido.dreams_track.R;
 
+import com.lionido.dreams_track.database.AnalysisResponseCache;
 import com.lionido.dreams_track.database.AppDatabase;
+import com.lionido.dreams_track.database.DreamAnalysisEntity;
 import com.lionido.dreams_track.database.DreamDao;
-import com.lionido.dreams_track.model.Dream;
+import com.lionido.dreams_track.database.DreamEntity;
+import com.lionido.dreams_track.database.PendingAnalysisStore;
 import com.lionido.dreams_track.model.Symbol;
+import com.lionido.dreams_track.utils.AssetResourceLoader;
+import com.lionido.dreams_track.utils.LiveAnalysisHelper;
+import com.lionido.dreams_track.utils.NLPAnalyzer;
 import com.lionido.dreams_track.utils.OpenRouterAnalyzer;
+import com.lionido.dreams_track.utils.PendingAnalysisQueue;
 import com.lionido.dreams_track.utils.SpeechHelper;
 import com.lionido.dreams_track.utils.SymbolAnalyzer;
 
@@ -79,6 +86,7 @@ public class RecordDreamActivity extends BaseActivity {
     // Утилиты
     private SpeechHelper speechHelper;
     private OpenRouterAnalyzer openRouterAnalyzer;
+    private LiveAnalysisHelper liveAnalysisHelper;
 
     // Данные
     private String currentDreamText = "";
@@ -88,9 +96,25 @@ public class RecordDreamActivity extends BaseActivity {
     private String currentPersonalGrowth = "";
     private String currentActionableAdvice = "";
 
+    // Предварительный результат живого анализа: сохраняется, только если анализ не запускали,
+    // и не перезаписывает символы и эмоцию из анализа
+    private List<Symbol> previewSymbols = new ArrayList<>();
+    private String previewEmotion = "neutral";
+    private boolean analysisStarted = false;
+
+    // Анализ LLM получен для текущего текста
+    private boolean hasLlmAnalysis = false;
+    // Пользователь запросил анализ, но LLM не ответила: после сохранения сон ставится в очередь PendingAnalysisQueue
+    private volatile boolean analysisDeferred = false;
+    // Текст, отправленный на анализ, и идет ли запрос; пока он идет, сон не сохраняется
+    private String analyzedText;
+    private boolean analysisInFlight = false;
+
     private boolean isRecording = false;
     private boolean isVoiceMode = true;
 
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -144,7 +168,10 @@ public class RecordDreamActivity extends BaseActivity {
 
     private void initializeUtils() {
         speechHelper = new SpeechHelper(this);
-        openRouterAnalyzer = new OpenRouterAnalyzer(this);
+        openRouterAnalyzer = new OpenRouterAnalyzer(new AssetResourceLoader(this), getFilesDir());
+        // Повторный анализ того же текста берется из базы без запроса к API
+        openRouterAnalyzer.setCache(new AnalysisResponseCache(AppDatabase.getDatabase(this)));
+        liveAnalysisHelper = new LiveAnalysisHelper(new NLPAnalyzer(new AssetResourceLoader(this)));
     }
 
     private void setupChipGroup() {
@@ -173,7 +200,7 @@ public class RecordDreamActivity extends BaseActivity {
 
         // Кнопка анализа
         btnAnalyze.setOnClickListener(v -> {
-            String dreamText = isVoiceMode ? currentDreamText : editDreamText.getText().toString().trim();
+            String dreamText = getDreamText();
             if (!dreamText.isEmpty()) {
                 analyzeDream(dreamText);
             } else {
@@ -184,11 +211,20 @@ public class RecordDreamActivity extends BaseActivity {
         // Кнопка сохранения
         btnSave.setOnClickListener(v -> saveDream());
 
+        // Предварительные символы и эмоция по мере набора текста
+        liveAnalysisHelper.setOnLiveAnalysisListener(result -> {
+            if (!isVoiceMode && !analysisStarted) {
+                displayLiveAnalysis(result.symbols, result.emotion);
+            }
+        });
+        liveAnalysisHelper.attach(editDreamText);
+
         // Обработчики SpeechHelper
         speechHelper.setOnSpeechResultListener(new SpeechHelper.OnSpeechResultListener() {
             @Override
             public void onSpeechResult(String text) {
                 currentDreamText = text;
+                hasLlmAnalysis = false;
                 showTranscript(text);
                 btnAnalyze.setEnabled(true);
                 tvStatus.setText("Запись завершена. Текст распознан.");
@@ -240,7 +276,8 @@ public class RecordDreamActivity extends BaseActivity {
 
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
-                btnAnalyze.setEnabled(s.toString().trim().length() > 0);
+                btnAnalyze.setEnabled(!analysisInFlight && s.toString().trim().length() > 0);
+                hasLlmAnalysis = false;
             }
 
             @Override
@@ -294,14 +331,55 @@ public class RecordDreamActivity extends BaseActivity {
     private void analyzeDream(String dreamText) {
         showProgress(true);
         hideResultCards();
+        chipGroupSymbols.removeAllViews();
+        hasLlmAnalysis = false;
+        analysisDeferred = false;
+        analyzedText = dreamText;
+        analysisInFlight = true;
+        // Дальше символы и эмоцию показывает анализ; живой предпросмотр не очищает карточки во время потока
+        analysisStarted = true;
+        liveAnalysisHelper.detach();
 
         openRouterAnalyzer.analyzeDreamAsync(dreamText,
                 new OpenRouterAnalyzer.OnAnalysisCompleteListener() {
+                    // Ответ модели приходит по частям: карточки открываются по мере готовности полей
+                    @Override
+                    public void onSymbol(Symbol symbol) {
+                        runOnUiThread(() -> {
+                            addSymbolChip(symbol);
+                            showCardWithAnimation(cardSymbols);
+                        });
+                    }
+
+                    @Override
+                    public void onEmotion(String emotion) {
+                        runOnUiThread(() -> {
+                            displayEmotion(emotion);
+                            showCardWithAnimation(cardEmotion);
+                        });
+                    }
+
+                    @Override
+                    public void onInterpretation(String interpretation) {
+                        runOnUiThread(() -> {
+                            tvInterpretation.setText(interpretation);
+                            showCardWithAnimation(cardInterpretation);
+                        });
+                    }
+
+                    @Override
+                    public void onDeferred(String error) {
+                        analysisDeferred = true;
+                    }
+
                     @Override
                     public void onSuccess(List<Symbol> symbols, String emotion, String interpretation,
                                           String personalGrowth, String actionableAdvice) {
                         runOnUiThread(() -> {
+                            analysisInFlight = false;
                             showProgress(false);
+                            // Текст правили, пока шел запрос: анализ устарел и не сохраняется
+                            hasLlmAnalysis = !analysisDeferred && analyzedText.equals(getDreamText());
                             displayAnalysisResults(symbols, emotion, interpretation,
                                     personalGrowth, actionableAdvice);
                         });
@@ -310,7 +388,10 @@ public class RecordDreamActivity extends BaseActivity {
                     @Override
                     public void onError(String error) {
                         runOnUiThread(() -> {
+                            analysisInFlight = false;
                             showProgress(false);
+                            analysisStarted = false;
+                            liveAnalysisHelper.attach(editDreamText);
                             Toast.makeText(RecordDreamActivity.this,
                                     "Ошибка анализа: " + error, Toast.LENGTH_LONG).show();
                         });
@@ -331,6 +412,9 @@ public class RecordDreamActivity extends BaseActivity {
         if (symbols != null && !symbols.isEmpty()) {
             displaySymbols(symbols);
             showCardWithAnimation(cardSymbols);
+        } else {
+            // Символы из оборвавшегося потокового ответа не остаются рядом с резервным анализом
+            cardSymbols.setVisibility(View.GONE);
         }
 
         // Показываем эмоцию
@@ -359,17 +443,30 @@ public class RecordDreamActivity extends BaseActivity {
         btnSave.setEnabled(true);
     }
 
+    private void displayLiveAnalysis(List<Symbol> symbols, String emotion) {
+        previewSymbols = symbols;
+        previewEmotion = emotion;
+
+        displaySymbols(symbols);
+        cardSymbols.setVisibility(symbols.isEmpty() ? View.GONE : View.VISIBLE);
+        displayEmotion(emotion);
+    }
+
     private void displaySymbols(List<Symbol> symbols) {
         chipGroupSymbols.removeAllViews();
         for (Symbol symbol : symbols) {
-            Chip chip = new Chip(this);
-            chip.setText(symbol.getKeyword());
-            chip.setChipBackgroundColorResource(android.R.color.holo_blue_light);
-            chip.setTextColor(getResources().getColor(android.R.color.white));
-            chipGroupSymbols.addView(chip);
+            addSymbolChip(symbol);
         }
     }
 
+    private void addSymbolChip(Symbol symbol) {
+        Chip chip = new Chip(this);
+        chip.setText(symbol.getKeyword());
+        chip.setChipBackgroundColorResource(android.R.color.holo_blue_light);
+        chip.setTextColor(getResources().getColor(android.R.color.white));
+        chipGroupSymbols.addView(chip);
+    }
+
     private void displayEmotion(String emotion) {
         String emotionIcon = getEmotionIcon(emotion);
         String emotionName = getEmotionDisplayName(emotion);
@@ -381,6 +478,10 @@ public class RecordDreamActivity extends BaseActivity {
     }
 
     private void showCardWithAnimation(MaterialCardView card) {
+        // Карточка, уже открытая потоковым ответом, не анимируется повторно
+        if (card.getVisibility() == View.VISIBLE) {
+            return;
+        }
         card.setVisibility(View.VISIBLE);
         card.setAlpha(0f);
         card.setTranslationY(50f);
@@ -404,26 +505,56 @@ public class RecordDreamActivity extends BaseActivity {
         btnAnalyze.setEnabled(!show);
     }
 
+    private String getDreamText() {
+        return isVoiceMode ? currentDreamText : editDreamText.getText().toString().trim();
+    }
+
     private void saveDream() {
-        String dreamText = isVoiceMode ? currentDreamText : editDreamText.getText().toString().trim();
+        String dreamText = getDreamText();
 
         if (dreamText.isEmpty()) {
             Toast.makeText(this, "Нет текста для сохранения", Toast.LENGTH_SHORT).show();
             return;
         }
+        // Иначе сон попадет в очередь, а анализ, пришедший следом, пропадет
+        if (analysisInFlight) {
+            Toast.makeText(this, "Дождитесь окончания анализа", Toast.LENGTH_SHORT).show();
+            return;
+        }
 
-        // Создаем объект сна
-        Dream dream = new Dream();
-        dream.setText(dreamText);
-        dream.setDate(new Date());
-        dream.setEmotion(currentEmotion);
-        dream.setInterpretation(currentInterpretation);
-
-        // TODO: Сохранение в базу данных через Room
-        // dreamRepository.insert(dream);
-
-        Toast.makeText(this, "Сон сохранен!", Toast.LENGTH_SHORT).show();
-        finish();
+        DreamEntity dream = new DreamEntity(dreamText, null, isVoiceMode ? "voice" : "text");
+        dream.setSymbols(analysisStarted ? currentSymbols : previewSymbols);
+        dream.setEmotion(analysisStarted ? currentEmotion : previewEmotion);
+        boolean analyzed = hasLlmAnalysis;
+        // Без запроса анализа текст сна не отправляется: сохраняется только локальный предпросмотр
+        boolean queued = !analyzed && analysisDeferred;
+        String interpretation = currentInterpretation;
+        String analysis = PendingAnalysisStore.joinAnalysis(currentPersonalGrowth, currentActionableAdvice);
+        btnSave.setEnabled(false);
+
+        executor.execute(() -> {
+            AppDatabase db = AppDatabase.getDatabase(this);
+            DreamDao dreamDao = db.dreamDao();
+            PendingAnalysisStore pendingStore = new PendingAnalysisStore(db);
+            // Сон пишется вместе с анализом или заданием очереди, чтобы не остаться без нужного из них
+            db.runInTransaction(() -> {
+                int id = (int) dreamDao.insert(dream);
+                if (analyzed) {
+                    dreamDao.saveAnalysis(new DreamAnalysisEntity(id, interpretation, analysis));
+                } else if (queued) {
+                    // Запрошенный анализ LLM не получен: допишется в фоне, когда появится сеть
+                    pendingStore.enqueue(id, System.currentTimeMillis());
+                }
+            });
+            if (queued) {
+                PendingAnalysisQueue.getInstance(this).start();
+            }
+            runOnUiThread(() -> {
+                Toast.makeText(this, queued ? "Сон сохранен, анализ будет готов позже" : "Сон сохранен!",
+                        Toast.LENGTH_SHORT).show();
+                finish();
+            });
+        });
     }
 
     private void checkPermissions() {
@@ -511,5 +642,10 @@ public class RecordDreamActivity extends BaseActivity {
         if (speechHelper != null) {
             speechHelper.destroy();
         }
+        if (liveAnalysisHelper != null) {
+            liveAnalysisHelper.destroy();
+        }
+        // Начатое сохранение доработает, новых задач не будет
+        executor.shutdown();
     }
 }
\ No newline at end of file
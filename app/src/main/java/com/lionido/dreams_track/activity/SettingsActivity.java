@@ -3,12 +3,18 @@ package com.lionido.dreams_track.activity;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.view.View;
+import android.widget.Button;
+import android.widget.ProgressBar;
 import android.widget.RadioButton;
 import android.widget.RadioGroup;
+import android.widget.TextView;
+import android.widget.Toast;
 
 import com.lionido.dreams_track.BaseActivity;
 import com.lionido.dreams_track.MainActivity;
 import com.lionido.dreams_track.R;
+import com.lionido.dreams_track.utils.DreamReanalyzer;
 
 public class SettingsActivity extends BaseActivity {
     
@@ -19,8 +25,13 @@ public class SettingsActivity extends BaseActivity {
     private RadioButton radioSystemTheme;
     private RadioButton radioLightTheme;
     private RadioButton radioDarkTheme;
+    private TextView tvReanalysisStatus;
+    private ProgressBar progressReanalysis;
+    private Button btnReanalyzeAll;
+    private Button btnCancelReanalysis;
     
     private SharedPreferences prefs;
+    private DreamReanalyzer reanalyzer;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -31,6 +42,14 @@ public class SettingsActivity extends BaseActivity {
         initializePreferences();
         setupRadioGroup();
         loadCurrentTheme();
+        setupReanalysis();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Проход продолжается в фоне, экран лишь перестает получать прогресс
+        reanalyzer.setProgressListener(null);
     }
     
     private void initializeViews() {
@@ -38,6 +57,10 @@ public class SettingsActivity extends BaseActivity {
         radioSystemTheme = findViewById(R.id.radio_theme_system);
         radioLightTheme = findViewById(R.id.radio_theme_light);
         radioDarkTheme = findViewById(R.id.radio_theme_dark);
+        tvReanalysisStatus = findViewById(R.id.tv_reanalysis_status);
+        progressReanalysis = findViewById(R.id.progress_reanalysis);
+        btnReanalyzeAll = findViewById(R.id.btn_reanalyze_all);
+        btnCancelReanalysis = findViewById(R.id.btn_cancel_reanalysis);
     }
     
     private void initializePreferences() {
@@ -78,6 +101,68 @@ public class SettingsActivity extends BaseActivity {
         }
     }
     
+    private void setupReanalysis() {
+        reanalyzer = DreamReanalyzer.getInstance(this);
+        reanalyzer.setProgressListener(new DreamReanalyzer.ProgressListener() {
+            @Override
+            public void onProgress(int processed, int total) {
+                runOnUiThread(() -> showReanalysisProgress(processed, total));
+            }
+
+            @Override
+            public void onFinished(int processed, int total, boolean cancelled) {
+                runOnUiThread(() -> {
+                    setReanalysisRunning(false);
+                    tvReanalysisStatus.setText(cancelled ?
+                            "Остановлено: " + processed + " из " + total + ". Можно продолжить позже" :
+                            "Готово: переанализировано " + processed + " снов");
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                runOnUiThread(() -> {
+                    setReanalysisRunning(false);
+                    tvReanalysisStatus.setText("Ошибка анализа: " + e.getMessage());
+                });
+            }
+        });
+
+        if (reanalyzer.isRunning()) {
+            setReanalysisRunning(true);
+        } else if (reanalyzer.hasCheckpoint()) {
+            btnReanalyzeAll.setText("Продолжить анализ");
+        }
+
+        btnReanalyzeAll.setOnClickListener(v -> {
+            // Незавершенный проход продолжается с контрольной точки
+            if (reanalyzer.start(reanalyzer.hasCheckpoint())) {
+                setReanalysisRunning(true);
+            } else {
+                Toast.makeText(this, "Анализ уже выполняется", Toast.LENGTH_SHORT).show();
+            }
+        });
+        btnCancelReanalysis.setOnClickListener(v -> {
+            reanalyzer.cancel();
+            btnCancelReanalysis.setEnabled(false);
+        });
+    }
+
+    private void setReanalysisRunning(boolean running) {
+        btnReanalyzeAll.setEnabled(!running);
+        btnCancelReanalysis.setEnabled(running);
+        progressReanalysis.setVisibility(running ? View.VISIBLE : View.GONE);
+        if (!running) {
+            btnReanalyzeAll.setText(reanalyzer.hasCheckpoint() ? "Продолжить анализ" : "Переанализировать все");
+        }
+    }
+
+    private void showReanalysisProgress(int processed, int total) {
+        progressReanalysis.setMax(Math.max(total, 1));
+        progressReanalysis.setProgress(processed);
+        tvReanalysisStatus.setText("Проанализировано " + processed + " из " + total);
+    }
+    
     private void restartApp() {
         Intent intent = new Intent(this, MainActivity.class);
         intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
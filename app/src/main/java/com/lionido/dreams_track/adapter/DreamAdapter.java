@@ -6,35 +6,56 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.lionido.dreams_track.R;
-import com.lionido.dreams_track.model.Dream;
+import com.lionido.dreams_track.database.DreamSummary;
+import com.lionido.dreams_track.utils.EmotionDetector;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
-public class DreamAdapter extends RecyclerView.Adapter<DreamAdapter.DreamViewHolder> {
+/**
+ * Постраничный список снов: страницы приходят из DreamPagingSource, адаптер хранит только загруженные.
+ */
+public class DreamAdapter extends PagingDataAdapter<DreamSummary, DreamAdapter.DreamViewHolder> {
 
-    private List<Dream> dreamsList;
+    private static final DiffUtil.ItemCallback<DreamSummary> DIFF_CALLBACK = new DiffUtil.ItemCallback<DreamSummary>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull DreamSummary oldItem, @NonNull DreamSummary newItem) {
+            return oldItem.id == newItem.id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull DreamSummary oldItem, @NonNull DreamSummary newItem) {
+            return oldItem.timestamp == newItem.timestamp
+                    && oldItem.symbolCount == newItem.symbolCount
+                    && Objects.equals(oldItem.snippet, newItem.snippet)
+                    && Objects.equals(oldItem.emotion, newItem.emotion);
+        }
+    };
+
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd.MM.yyyy HH:mm", Locale.getDefault());
     private OnDreamClickListener listener;
 
     public interface OnDreamClickListener {
-        void onDreamClick(Dream dream);
+        void onDreamClick(DreamSummary dream);
     }
 
     public interface OnDreamDeleteListener {
-        void onDreamDelete(Dream dream, int position);
+        void onDreamDelete(DreamSummary dream, int position);
     }
     private OnDreamDeleteListener deleteListener;
     public void setOnDreamDeleteListener(OnDreamDeleteListener listener) {
         this.deleteListener = listener;
     }
 
-    public DreamAdapter(List<Dream> dreamsList, OnDreamClickListener listener) {
-        this.dreamsList = dreamsList;
+    public DreamAdapter(OnDreamClickListener listener) {
+        super(DIFF_CALLBACK);
         this.listener = listener;
     }
 
@@ -48,56 +69,60 @@ public class DreamAdapter extends RecyclerView.Adapter<DreamAdapter.DreamViewHol
 
     @Override
     public void onBindViewHolder(@NonNull DreamViewHolder holder, int position) {
-        Dream dream = dreamsList.get(position);
+        DreamSummary dream = getItem(position);
+        if (dream == null) {
+            return;
+        }
         holder.bind(dream);
         holder.itemView.setOnLongClickListener(v -> {
             if (deleteListener != null) {
-                deleteListener.onDreamDelete(dream, position);
+                // Удаление идет через базу, после него экран обновляет список
+                deleteListener.onDreamDelete(dream, holder.getBindingAdapterPosition());
                 return true;
             }
             return false;
         });
     }
 
-    @Override
-    public int getItemCount() {
-        return dreamsList.size();
-    }
-
-    public void removeDream(int position) {
-        dreamsList.remove(position);
-        notifyItemRemoved(position);
-    }
-
     class DreamViewHolder extends RecyclerView.ViewHolder {
         private TextView tvDreamText;
         private TextView tvDreamDate;
+        private TextView tvDreamEmotion;
+        private TextView tvDreamSymbolsCount;
 
         public DreamViewHolder(@NonNull View itemView) {
             super(itemView);
             tvDreamText = itemView.findViewById(R.id.tv_dream_text);
             tvDreamDate = itemView.findViewById(R.id.tv_dream_date);
+            tvDreamEmotion = itemView.findViewById(R.id.tv_dream_emotion);
+            tvDreamSymbolsCount = itemView.findViewById(R.id.tv_dream_symbols_count);
 
             itemView.setOnClickListener(v -> {
-                int position = getAdapterPosition();
+                int position = getBindingAdapterPosition();
                 if (position != RecyclerView.NO_POSITION && listener != null) {
-                    listener.onDreamClick(dreamsList.get(position));
+                    DreamSummary dream = getItem(position);
+                    if (dream != null) {
+                        listener.onDreamClick(dream);
+                    }
                 }
             });
         }
 
-        public void bind(Dream dream) {
-            // Отображаем первые 50 символов текста сна
-            String displayText = dream.getText();
-            if (displayText.length() > 50) {
-                displayText = displayText.substring(0, 50) + "...";
+        public void bind(DreamSummary dream) {
+            // Запрос отдает на символ больше SNIPPET_LENGTH: так видно, что текст длиннее
+            String displayText = dream.snippet != null ? dream.snippet : "";
+            if (displayText.length() > DreamSummary.SNIPPET_LENGTH) {
+                displayText = displayText.substring(0, DreamSummary.SNIPPET_LENGTH) + "...";
             }
             tvDreamText.setText(displayText);
 
             // Форматируем дату
-            SimpleDateFormat sdf = new SimpleDateFormat("dd.MM.yyyy HH:mm", Locale.getDefault());
-            String dateText = sdf.format(new Date(dream.getTimestamp()));
-            tvDreamDate.setText(dateText);
+            tvDreamDate.setText(dateFormat.format(new Date(dream.timestamp)));
+
+            tvDreamEmotion.setText(dream.emotion != null
+                    ? "Эмоция: " + EmotionDetector.getEmotionDisplayName(dream.emotion)
+                    : "Эмоция: Не определена");
+            tvDreamSymbolsCount.setText("Символов: " + dream.symbolCount);
         }
     }
-}
\ No newline at end of file
+}
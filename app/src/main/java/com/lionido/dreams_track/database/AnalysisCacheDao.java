@@ -0,0 +1,42 @@
+package com.lionido.dreams_track.database;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.Transaction;
+import androidx.room.Upsert;
+
+/**
+ * Кэш ответов LLM (см. {@link AnalysisResponseCache}): чтение по ключу и вытеснение по времени.
+ */
+@Dao
+public interface AnalysisCacheDao {
+    @Query("SELECT analysis FROM analysis_cache WHERE key = :key AND created_at >= :createdAfter")
+    String getAnalysis(String key, long createdAfter);
+
+    @Query("UPDATE analysis_cache SET accessed_at = :accessedAt WHERE key = :key")
+    void touch(String key, long accessedAt);
+
+    @Upsert
+    void upsert(AnalysisCacheEntity entry);
+
+    @Query("DELETE FROM analysis_cache WHERE created_at < :createdBefore")
+    void deleteCreatedBefore(long createdBefore);
+
+    // Оставляет maxEntries записей, читанных последними
+    @Query("DELETE FROM analysis_cache WHERE key IN "
+            + "(SELECT key FROM analysis_cache ORDER BY accessed_at DESC LIMIT -1 OFFSET :maxEntries)")
+    void trimToSize(int maxEntries);
+
+    @Query("DELETE FROM analysis_cache")
+    void clear();
+
+    /**
+     * Сохраняет запись и удаляет устаревшие и лишние одной транзакцией.
+     */
+    @Transaction
+    default void put(AnalysisCacheEntity entry, long createdBefore, int maxEntries) {
+        upsert(entry);
+        deleteCreatedBefore(createdBefore);
+        trimToSize(maxEntries);
+    }
+}
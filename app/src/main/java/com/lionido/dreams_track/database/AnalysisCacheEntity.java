@@ -0,0 +1,43 @@
+package com.lionido.dreams_track.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Сохраненный ответ LLM на анализ сна. Ключ — OpenRouterAnalyzer.cacheKey: хеш нормализованного текста,
+ * модели и версии промпта. Индексы нужны удалению устаревших и давно не читанных записей.
+ */
+@Entity(tableName = "analysis_cache",
+        indices = {@Index("created_at"), @Index("accessed_at")})
+public class AnalysisCacheEntity {
+    @PrimaryKey
+    @NonNull
+    private String key = "";
+
+    // JSON анализа из ответа модели
+    @NonNull
+    private String analysis = "";
+
+    @ColumnInfo(name = "created_at")
+    private long createdAt;
+
+    @ColumnInfo(name = "accessed_at")
+    private long accessedAt;
+
+    @NonNull
+    public String getKey() { return key; }
+    public void setKey(@NonNull String key) { this.key = key; }
+
+    @NonNull
+    public String getAnalysis() { return analysis; }
+    public void setAnalysis(@NonNull String analysis) { this.analysis = analysis; }
+
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+
+    public long getAccessedAt() { return accessedAt; }
+    public void setAccessedAt(long accessedAt) { this.accessedAt = accessedAt; }
+}
@@ -0,0 +1,60 @@
+package com.lionido.dreams_track.database;
+
+import com.lionido.dreams_track.utils.OpenRouterAnalyzer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Кэш анализов OpenRouter в таблице analysis_cache. Запись живет ttlMs с момента сохранения;
+ * сверх maxEntries вытесняются записи, которые дольше всего не читались.
+ */
+public class AnalysisResponseCache implements OpenRouterAnalyzer.AnalysisCache {
+    public static final long DEFAULT_TTL_MS = TimeUnit.DAYS.toMillis(30);
+    // Анализ — несколько килобайт JSON, вместе около мегабайта
+    public static final int DEFAULT_MAX_ENTRIES = 200;
+
+    private final AnalysisCacheDao dao;
+    private final long ttlMs;
+    private final int maxEntries;
+    private final LongSupplier clock;
+
+    public AnalysisResponseCache(AppDatabase database) {
+        this(database.analysisCacheDao(), DEFAULT_TTL_MS, DEFAULT_MAX_ENTRIES, System::currentTimeMillis);
+    }
+
+    public AnalysisResponseCache(AnalysisCacheDao dao, long ttlMs, int maxEntries, LongSupplier clock) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Размер кэша должен быть положительным: " + maxEntries);
+        }
+        this.dao = dao;
+        this.ttlMs = ttlMs;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    @Override
+    public String get(String key) {
+        long now = clock.getAsLong();
+        String analysis = dao.getAnalysis(key, now - ttlMs);
+        if (analysis != null) {
+            dao.touch(key, now);
+        }
+        return analysis;
+    }
+
+    @Override
+    public void put(String key, String analysisJson) {
+        long now = clock.getAsLong();
+        AnalysisCacheEntity entry = new AnalysisCacheEntity();
+        entry.setKey(key);
+        entry.setAnalysis(analysisJson);
+        entry.setCreatedAt(now);
+        entry.setAccessedAt(now);
+        dao.put(entry, now - ttlMs, maxEntries);
+    }
+
+    public void clear() {
+        dao.clear();
+    }
+}
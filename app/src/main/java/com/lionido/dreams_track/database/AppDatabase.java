@@ -1,17 +1,30 @@
 package com.lionido.dreams_track.database;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 import android.content.Context;
+import android.database.Cursor;
 
-@Database(entities = {DreamEntity.class}, version = 2, exportSchema = true)
-@TypeConverters({Converters.class})
+import com.lionido.dreams_track.model.Symbol;
+
+import java.util.List;
+
+@Database(entities = {DreamEntity.class, DreamFtsEntity.class, SymbolEntity.class, DreamSymbolEntity.class,
+        StatsCounterEntity.class, StatsSlotEntity.class, SymbolEntryEntity.class, DreamAnalysisEntity.class,
+        AnalysisCacheEntity.class, PendingAnalysisEntity.class},
+        version = 11, exportSchema = true)
+@TypeConverters({SymbolListConverter.class})
 public abstract class AppDatabase extends RoomDatabase {
     public abstract DreamDao dreamDao();
+    public abstract SymbolDao symbolDao();
+    public abstract StatsDao statsDao();
+    public abstract AnalysisCacheDao analysisCacheDao();
+    public abstract PendingAnalysisDao pendingAnalysisDao();
 
     private static volatile AppDatabase INSTANCE;
 
@@ -19,17 +32,93 @@ public abstract class AppDatabase extends RoomDatabase {
         if (INSTANCE == null) {
             synchronized (AppDatabase.class) {
                 if (INSTANCE == null) {
-                    INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
+                    INSTANCE = configure(Room.databaseBuilder(context.getApplicationContext(),
                                     AppDatabase.class, "dream_database")
                             // Добавляем миграцию для обновления с версии 1 до 2
-                            .addMigrations(MIGRATION_1_2)
-                            .build();
+                            .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5,
+                                    MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9,
+                                    MIGRATION_9_10, MIGRATION_10_11)
+                            // Чтение не ждет записи, а транзакция пишет в журнал без копии страниц базы
+                            .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+                            .addCallback(WAL_CHECKPOINT_CALLBACK));
                 }
             }
         }
         return INSTANCE;
     }
+
+    /**
+     * База в памяти с теми же триггерами и таблицей символов, для инструментальных тестов.
+     */
+    @VisibleForTesting
+    public static AppDatabase createInMemory(Context context) {
+        return configure(Room.inMemoryDatabaseBuilder(context.getApplicationContext(), AppDatabase.class));
+    }
+
+    private static AppDatabase configure(RoomDatabase.Builder<AppDatabase> builder) {
+        SymbolTable symbolTable = new SymbolTable();
+        return builder
+                .addTypeConverter(new SymbolListConverter(symbolTable))
+                .addCallback(TRIGGERS_CALLBACK)
+                .addCallback(new RoomDatabase.Callback() {
+                    @Override
+                    public void onOpen(@NonNull SupportSQLiteDatabase database) {
+                        symbolTable.attach(database);
+                    }
+                })
+                .build();
+    }
     
+    // Триггеры индекса dreams_fts и статистики не входят в схему Room: в новой базе создаем их сами
+    static final RoomDatabase.Callback TRIGGERS_CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onCreate(@NonNull SupportSQLiteDatabase database) {
+            for (String trigger : DreamFts.SYNC_TRIGGERS_SQL) {
+                database.execSQL(trigger);
+            }
+            for (String trigger : DreamStats.TRIGGERS_SQL) {
+                database.execSQL(trigger);
+            }
+        }
+    };
+
+    // Страниц WAL до автоматической контрольной точки. В Android по умолчанию 100 (400 КБ):
+    // пакетная запись снов переносила бы журнал в базу через каждые несколько сотен строк
+    static final int WAL_AUTOCHECKPOINT_PAGES = 1000;
+    // После контрольной точки журнал укорачивается до этого размера, а не остается размером с самый большой пакет
+    static final long WAL_SIZE_LIMIT_BYTES = 4L * 1024 * 1024;
+
+    static final RoomDatabase.Callback WAL_CHECKPOINT_CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase database) {
+            // Настройки действуют на одно соединение. В транзакции запрос идет через основное соединение,
+            // которое пишет и делает контрольные точки; вне ее Android может открыть для него соединение чтения
+            database.beginTransaction();
+            try {
+                // PRAGMA с результатом выполняются через query: execSQL в Android их не принимает
+                try (Cursor cursor = database.query("PRAGMA wal_autocheckpoint = " + WAL_AUTOCHECKPOINT_PAGES)) {
+                    cursor.moveToFirst();
+                }
+                try (Cursor cursor = database.query("PRAGMA journal_size_limit = " + WAL_SIZE_LIMIT_BYTES)) {
+                    cursor.moveToFirst();
+                }
+                database.setTransactionSuccessful();
+            } finally {
+                database.endTransaction();
+            }
+        }
+    };
+
+    /**
+     * Переносит журнал в базу, не дожидаясь читателей. Вызывается после пакетной записи,
+     * чтобы следующие чтения не просматривали большой WAL.
+     */
+    public void checkpoint() {
+        try (Cursor cursor = getOpenHelper().getWritableDatabase().query("PRAGMA wal_checkpoint(PASSIVE)")) {
+            cursor.moveToFirst();
+        }
+    }
+
     // Простая миграция с версии 1 до 2
     static final androidx.room.migration.Migration MIGRATION_1_2 = new androidx.room.migration.Migration(1, 2) {
         @Override
@@ -52,4 +141,236 @@ public abstract class AppDatabase extends RoomDatabase {
             }
         }
     };
-}
\ No newline at end of file
+
+    // Полнотекстовый индекс dreams_fts по text и interpretation с триггерами синхронизации
+    static final androidx.room.migration.Migration MIGRATION_2_3 = new androidx.room.migration.Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL(DreamFts.CREATE_CONTENT_TABLE_SQL_V3);
+            for (String trigger : DreamFts.CONTENT_SYNC_TRIGGERS_SQL_V3) {
+                database.execSQL(trigger);
+            }
+            database.execSQL(DreamFts.CONTENT_REBUILD_SQL_V3);
+        }
+    };
+
+    // Справочник symbol и связи dream_symbol, заполняемые из JSON в колонке symbols
+    static final androidx.room.migration.Migration MIGRATION_3_4 = new androidx.room.migration.Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `symbol` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`keyword` TEXT NOT NULL, `code` TEXT)");
+            database.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_symbol_keyword` ON `symbol` (`keyword`)");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `dream_symbol` (`dream_id` INTEGER NOT NULL, "
+                    + "`symbol_id` INTEGER NOT NULL, `timestamp` INTEGER NOT NULL, PRIMARY KEY(`dream_id`, `symbol_id`), "
+                    + "FOREIGN KEY(`dream_id`) REFERENCES `dreams`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE , "
+                    + "FOREIGN KEY(`symbol_id`) REFERENCES `symbol`(`id`) ON UPDATE NO ACTION ON DELETE NO ACTION )");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_dream_symbol_symbol_id` ON `dream_symbol` (`symbol_id`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_dream_symbol_timestamp_symbol_id` "
+                    + "ON `dream_symbol` (`timestamp`, `symbol_id`)");
+
+            // Переносим символы уже сохраненных снов
+            try (Cursor cursor = database.query("SELECT id, timestamp, symbols FROM dreams WHERE symbols IS NOT NULL")) {
+                while (cursor.moveToNext()) {
+                    int dreamId = cursor.getInt(0);
+                    long timestamp = cursor.getLong(1);
+                    List<Symbol> symbols;
+                    try {
+                        symbols = Converters.toSymbolList(cursor.getString(2));
+                    } catch (RuntimeException e) {
+                        // Поврежденный JSON не должен останавливать миграцию, символы сна останутся в колонке
+                        continue;
+                    }
+                    if (symbols == null) {
+                        continue;
+                    }
+                    for (Symbol symbol : symbols) {
+                        String keyword = symbol != null ? SymbolEntity.normalizeKeyword(symbol.getKeyword()) : null;
+                        if (keyword == null) {
+                            continue;
+                        }
+                        database.execSQL("INSERT OR IGNORE INTO symbol (keyword, code) VALUES (?, ?)",
+                                new Object[]{keyword, symbol.getSymbol()});
+                        database.execSQL("INSERT OR IGNORE INTO dream_symbol (dream_id, symbol_id, timestamp) "
+                                        + "SELECT ?, id, ? FROM symbol WHERE keyword = ?",
+                                new Object[]{dreamId, timestamp, keyword});
+                    }
+                }
+            }
+        }
+    };
+
+    // Индексы dreams по timestamp и (emotion, timestamp)
+    static final androidx.room.migration.Migration MIGRATION_4_5 = new androidx.room.migration.Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_dreams_timestamp` ON `dreams` (`timestamp`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_dreams_emotion_timestamp` "
+                    + "ON `dreams` (`emotion`, `timestamp`)");
+        }
+    };
+
+    // Таблицы статистики, триггеры и пересчет по уже сохраненным снам
+    static final androidx.room.migration.Migration MIGRATION_5_6 = new androidx.room.migration.Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL(DreamStats.CREATE_COUNTER_TABLE_SQL);
+            database.execSQL(DreamStats.CREATE_DAY_TABLE_SQL_V6);
+            for (String trigger : DreamStats.TRIGGERS_SQL_V6) {
+                database.execSQL(trigger);
+            }
+            for (String sql : DreamStats.REBUILD_SQL_V6) {
+                database.execSQL(sql);
+            }
+        }
+    };
+
+    // Колонка symbols из JSON в двоичный список id symbol_entry. Тип колонки меняется, поэтому dreams
+    // пересоздается с теми же id: индекс dreams_fts и связи dream_symbol остаются верными
+    static final androidx.room.migration.Migration MIGRATION_6_7 = new androidx.room.migration.Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL(SymbolTable.CREATE_TABLE_SQL);
+            database.execSQL(SymbolTable.CREATE_INDEX_SQL);
+            database.execSQL("CREATE TABLE IF NOT EXISTS `dreams_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`text` TEXT, `audioPath` TEXT, `timestamp` INTEGER NOT NULL, `symbols` BLOB, `emotion` TEXT, "
+                    + "`inputMethod` TEXT, `interpretation` TEXT, `analysis` TEXT)");
+            database.execSQL("INSERT INTO dreams_new (id, text, audioPath, timestamp, emotion, inputMethod, "
+                    + "interpretation, analysis) SELECT id, text, audioPath, timestamp, emotion, inputMethod, "
+                    + "interpretation, analysis FROM dreams");
+
+            SymbolTable symbolTable = new SymbolTable();
+            symbolTable.attach(database);
+            try (Cursor cursor = database.query("SELECT id, symbols FROM dreams WHERE symbols IS NOT NULL")) {
+                while (cursor.moveToNext()) {
+                    List<Symbol> symbols;
+                    try {
+                        symbols = Converters.toSymbolList(cursor.getString(1));
+                    } catch (RuntimeException e) {
+                        // Поврежденный JSON не должен останавливать миграцию, сон останется без символов
+                        continue;
+                    }
+                    if (symbols != null) {
+                        database.execSQL("UPDATE dreams_new SET symbols = ? WHERE id = ?",
+                                new Object[]{symbolTable.encode(symbols), cursor.getInt(0)});
+                    }
+                }
+            }
+
+            // Счетчик AUTOINCREMENT сохраняется, чтобы id удаленных снов не выдавались повторно
+            database.execSQL("UPDATE sqlite_sequence SET seq = (SELECT seq FROM sqlite_sequence WHERE name = 'dreams') "
+                    + "WHERE name = 'dreams_new'");
+            // Внешние ключи во время миграции выключены, связи dream_symbol при удалении таблицы не затрагиваются
+            database.execSQL("DROP TABLE dreams");
+            database.execSQL("ALTER TABLE dreams_new RENAME TO dreams");
+
+            // Вместе с таблицей удалены ее индексы и триггеры
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_dreams_timestamp` ON `dreams` (`timestamp`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_dreams_emotion_timestamp` "
+                    + "ON `dreams` (`emotion`, `timestamp`)");
+            for (String trigger : DreamFts.CONTENT_SYNC_TRIGGERS_SQL_V3) {
+                database.execSQL(trigger);
+            }
+            for (String trigger : DreamStats.TRIGGERS_SQL_V6) {
+                database.execSQL(trigger);
+            }
+        }
+    };
+
+    // Интерпретация и анализ переносятся из dreams в dream_analysis, анализ сжимается. dreams пересоздается
+    // без этих колонок с теми же id, а dreams_fts — как отдельная таблица, которую ведут наши триггеры
+    static final androidx.room.migration.Migration MIGRATION_7_8 = new androidx.room.migration.Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `dream_analysis` (`dream_id` INTEGER NOT NULL, "
+                    + "`interpretation` TEXT, `analysis` BLOB, PRIMARY KEY(`dream_id`), "
+                    + "FOREIGN KEY(`dream_id`) REFERENCES `dreams`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("INSERT INTO dream_analysis (dream_id, interpretation) "
+                    + "SELECT id, NULLIF(interpretation, '') FROM dreams "
+                    + "WHERE COALESCE(interpretation, '') != '' OR COALESCE(analysis, '') != ''");
+            try (Cursor cursor = database.query("SELECT id, analysis FROM dreams WHERE COALESCE(analysis, '') != ''")) {
+                while (cursor.moveToNext()) {
+                    database.execSQL("UPDATE dream_analysis SET analysis = ? WHERE dream_id = ?",
+                            new Object[]{TextCompression.compress(cursor.getString(1)), cursor.getInt(0)});
+                }
+            }
+
+            database.execSQL("CREATE TABLE IF NOT EXISTS `dreams_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`text` TEXT, `audioPath` TEXT, `timestamp` INTEGER NOT NULL, `symbols` BLOB, `emotion` TEXT, "
+                    + "`inputMethod` TEXT)");
+            database.execSQL("INSERT INTO dreams_new (id, text, audioPath, timestamp, symbols, emotion, inputMethod) "
+                    + "SELECT id, text, audioPath, timestamp, symbols, emotion, inputMethod FROM dreams");
+            // Счетчик AUTOINCREMENT сохраняется, чтобы id удаленных снов не выдавались повторно
+            database.execSQL("UPDATE sqlite_sequence SET seq = (SELECT seq FROM sqlite_sequence WHERE name = 'dreams') "
+                    + "WHERE name = 'dreams_new'");
+
+            // Индекс с внешним содержимым ссылается на колонку interpretation в dreams: заменяем его
+            for (String trigger : new String[]{"BEFORE_UPDATE", "BEFORE_DELETE", "AFTER_UPDATE", "AFTER_INSERT"}) {
+                database.execSQL("DROP TRIGGER IF EXISTS room_fts_content_sync_dreams_fts_" + trigger);
+            }
+            database.execSQL("DROP TABLE IF EXISTS dreams_fts");
+            // Внешние ключи во время миграции выключены, связи dream_symbol и dream_analysis не затрагиваются
+            database.execSQL("DROP TABLE dreams");
+            database.execSQL("ALTER TABLE dreams_new RENAME TO dreams");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_dreams_timestamp` ON `dreams` (`timestamp`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_dreams_emotion_timestamp` "
+                    + "ON `dreams` (`emotion`, `timestamp`)");
+
+            database.execSQL(DreamFts.CREATE_TABLE_SQL);
+            database.execSQL(DreamFts.REBUILD_SQL);
+            for (String trigger : DreamFts.SYNC_TRIGGERS_SQL) {
+                database.execSQL(trigger);
+            }
+            // Счетчики не меняются: сон считается проанализированным по тем же данным
+            for (String trigger : DreamStats.TRIGGERS_SQL_V8) {
+                database.execSQL(trigger);
+            }
+        }
+    };
+
+    // Кэш ответов LLM по ключу из текста сна, модели и версии промпта
+    static final androidx.room.migration.Migration MIGRATION_8_9 = new androidx.room.migration.Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `analysis_cache` (`key` TEXT NOT NULL, `analysis` TEXT NOT NULL, "
+                    + "`created_at` INTEGER NOT NULL, `accessed_at` INTEGER NOT NULL, PRIMARY KEY(`key`))");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_analysis_cache_created_at` "
+                    + "ON `analysis_cache` (`created_at`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_analysis_cache_accessed_at` "
+                    + "ON `analysis_cache` (`accessed_at`)");
+        }
+    };
+
+    // Очередь снов, ожидающих анализа LLM, когда не было сети
+    static final androidx.room.migration.Migration MIGRATION_9_10 = new androidx.room.migration.Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `pending_analysis` (`dream_id` INTEGER NOT NULL, "
+                    + "`attempts` INTEGER NOT NULL, `next_attempt_at` INTEGER NOT NULL, `created_at` INTEGER NOT NULL, "
+                    + "`last_error` TEXT, PRIMARY KEY(`dream_id`), "
+                    + "FOREIGN KEY(`dream_id`) REFERENCES `dreams`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_pending_analysis_next_attempt_at` "
+                    + "ON `pending_analysis` (`next_attempt_at`)");
+        }
+    };
+
+    // stats_day хранила локальные даты на момент записи: после смены часового пояса триггеры вычитали
+    // удаленный сон не из того дня. Счетчики переходят на слоты UTC и пересчитываются
+    static final androidx.room.migration.Migration MIGRATION_10_11 = new androidx.room.migration.Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            for (String trigger : new String[]{"INSERT", "DELETE", "UPDATE"}) {
+                database.execSQL("DROP TRIGGER IF EXISTS stats_dreams_AFTER_" + trigger);
+            }
+            database.execSQL("DROP TABLE IF EXISTS stats_day");
+            database.execSQL(DreamStats.CREATE_SLOT_TABLE_SQL);
+            // Триггеры dream_symbol и dream_analysis остаются прежними
+            for (String trigger : DreamStats.TRIGGERS_SQL) {
+                database.execSQL(trigger);
+            }
+            for (String sql : DreamStats.REBUILD_SQL) {
+                database.execSQL(sql);
+            }
+        }
+    };
+}
@@ -1,16 +1,19 @@
 package com.lionido.dreams_track.database;
 
-import androidx.room.TypeConverter;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import com.lionido.dreams_track.model.Symbol;
 import java.lang.reflect.Type;
 import java.util.List;
 
+/**
+ * JSON-формат колонки symbols до версии 7 базы. Нужен миграциям, которые читают старые строки;
+ * текущий формат — {@link SymbolCodec}.
+ */
 public class Converters {
-    private static Gson gson = new Gson();
+    private static final Gson gson = new Gson();
+    private static final Type SYMBOL_LIST_TYPE = new TypeToken<List<Symbol>>(){}.getType();
 
-    @TypeConverter
     public static String fromSymbolList(List<Symbol> symbols) {
         if (symbols == null) {
             return null;
@@ -18,12 +21,10 @@ public class Converters {
         return gson.toJson(symbols);
     }
 
-    @TypeConverter
     public static List<Symbol> toSymbolList(String symbolsString) {
         if (symbolsString == null) {
             return null;
         }
-        Type listType = new TypeToken<List<Symbol>>(){}.getType();
-        return gson.fromJson(symbolsString, listType);
+        return gson.fromJson(symbolsString, SYMBOL_LIST_TYPE);
     }
-}
\ No newline at end of file
+}
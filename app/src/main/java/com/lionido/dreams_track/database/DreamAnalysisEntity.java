@@ -0,0 +1,45 @@
+package com.lionido.dreams_track.database;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Ignore;
+import androidx.room.PrimaryKey;
+
+/**
+ * Результаты анализа сна LLM — многоабзацный текст, который нужен только экрану сна.
+ * Хранится отдельно от dreams, чтобы списки, поиск и статистика читали узкие строки.
+ * Интерпретация остается текстом, она индексируется в dreams_fts; анализ сжимается {@link TextCompression}.
+ */
+@Entity(tableName = "dream_analysis",
+        foreignKeys = @ForeignKey(entity = DreamEntity.class, parentColumns = "id", childColumns = "dream_id",
+                onDelete = ForeignKey.CASCADE))
+public class DreamAnalysisEntity {
+    @PrimaryKey
+    @ColumnInfo(name = "dream_id")
+    private int dreamId;
+
+    private String interpretation;
+    private byte[] analysis;
+
+    public DreamAnalysisEntity() {
+    }
+
+    @Ignore
+    public DreamAnalysisEntity(int dreamId, String interpretation, String analysisText) {
+        this.dreamId = dreamId;
+        this.interpretation = interpretation == null || interpretation.isEmpty() ? null : interpretation;
+        this.analysis = TextCompression.compress(analysisText);
+    }
+
+    public int getDreamId() { return dreamId; }
+    public void setDreamId(int dreamId) { this.dreamId = dreamId; }
+
+    public String getInterpretation() { return interpretation; }
+    public void setInterpretation(String interpretation) { this.interpretation = interpretation; }
+
+    public byte[] getAnalysis() { return analysis; }
+    public void setAnalysis(byte[] analysis) { this.analysis = analysis; }
+
+    public String getAnalysisText() { return TextCompression.decompress(analysis); }
+}
@@ -0,0 +1,158 @@
+package com.lionido.dreams_track.database;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пакетная запись снов для импорта, восстановления и повторного анализа. Сны копятся и
+ * сохраняются одной транзакцией, по умолчанию через {@link DreamDao#upsertAll}, когда набирается maxBatchSize снов
+ * или когда с первой ожидающей записи проходит maxDelayMs. Так медленный источник тоже сохраняет
+ * прогресс, а быстрый не делает транзакцию на каждую строку.
+ *
+ * Полный пакет записывается в потоке вызывающего, поэтому источник не обгоняет базу; по времени
+ * пакет записывает фоновый таймер. Пакеты записываются строго по порядку. Если запись по таймеру
+ * не удалась, сны этого пакета не сохранены, а ошибка выбрасывается из следующего вызова.
+ */
+public class DreamBatchWriter implements Closeable {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final long DEFAULT_MAX_DELAY_MS = 500;
+
+    /**
+     * Запись одного пакета. Метод DAO сам открывает транзакцию, как {@link DreamDao#upsertAll}.
+     */
+    public interface BatchWrite {
+        void write(DreamDao dreamDao, List<DreamEntity> batch);
+    }
+
+    private final AppDatabase database;
+    private final DreamDao dreamDao;
+    private final int maxBatchSize;
+    private final long maxDelayMs;
+    private final BatchWrite batchWrite;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dream-batch-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Защищены this
+    private List<DreamEntity> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private RuntimeException failure;
+    private boolean closed;
+
+    // Взятие пакета и его запись идут под одной блокировкой, чтобы пакеты не обгоняли друг друга
+    private final Object writeLock = new Object();
+
+    public DreamBatchWriter(AppDatabase database) {
+        this(database, DEFAULT_BATCH_SIZE, DEFAULT_MAX_DELAY_MS);
+    }
+
+    public DreamBatchWriter(AppDatabase database, int maxBatchSize, long maxDelayMs) {
+        this(database, maxBatchSize, maxDelayMs, DreamDao::upsertAll);
+    }
+
+    public DreamBatchWriter(AppDatabase database, int maxBatchSize, long maxDelayMs, BatchWrite batchWrite) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Размер пакета должен быть положительным: " + maxBatchSize);
+        }
+        this.database = database;
+        this.dreamDao = database.dreamDao();
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayMs = maxDelayMs;
+        this.batchWrite = batchWrite;
+    }
+
+    /**
+     * Добавляет сон в пакет: при записи по умолчанию новый (id = 0) будет вставлен, существующий обновлен.
+     * Объект не должен изменяться до записи пакета; после записи у новых снов проставлен id.
+     */
+    public void write(DreamEntity dream) {
+        boolean full;
+        synchronized (this) {
+            throwIfFailed();
+            if (closed) {
+                throw new IllegalStateException("Запись пакетов уже закрыта");
+            }
+            pending.add(dream);
+            full = pending.size() >= maxBatchSize;
+            if (!full && pending.size() == 1) {
+                scheduledFlush = timer.schedule(this::flushOnTimer, maxDelayMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full) {
+            flushPending();
+        }
+    }
+
+    /**
+     * Записывает накопленные сны, не дожидаясь заполнения пакета.
+     */
+    public void flush() {
+        synchronized (this) {
+            throwIfFailed();
+        }
+        flushPending();
+    }
+
+    /**
+     * Записывает остаток, останавливает таймер и переносит журнал WAL в базу.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        try {
+            flush();
+        } finally {
+            timer.shutdown();
+        }
+        database.checkpoint();
+    }
+
+    private void flushOnTimer() {
+        try {
+            flushPending();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    private void flushPending() {
+        synchronized (writeLock) {
+            List<DreamEntity> batch;
+            synchronized (this) {
+                batch = pending;
+                pending = new ArrayList<>();
+                if (scheduledFlush != null) {
+                    scheduledFlush.cancel(false);
+                    scheduledFlush = null;
+                }
+            }
+            if (!batch.isEmpty()) {
+                batchWrite.write(dreamDao, batch);
+            }
+        }
+    }
+
+    private void throwIfFailed() {
+        if (failure != null) {
+            RuntimeException e = failure;
+            failure = null;
+            throw new IllegalStateException("Ошибка пакетной записи снов", e);
+        }
+    }
+}
@@ -1,21 +1,96 @@
 package com.lionido.dreams_track.database;
 
+import android.database.Cursor;
+
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
+import androidx.room.Upsert;
 
 import com.lionido.dreams_track.model.Symbol;
+
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Dao
 public interface DreamDao {
+    // Колонки DreamSummary: фрагмент текста обрезается в SQL, символы считаются по dream_symbol
+    String HISTORY_SUMMARY_COLUMNS = "id, timestamp, emotion, "
+            + "substr(text, 1, " + (DreamSummary.SNIPPET_LENGTH + 1) + ") AS snippet, "
+            + "(SELECT COUNT(*) FROM dream_symbol WHERE dream_symbol.dream_id = dreams.id) AS symbolCount";
+
+    @Insert
+    long insertDreamRow(DreamEntity dream);
+
+    @Update
+    void updateDreamRow(DreamEntity dream);
+
+    // Запись сна вместе со связями dream_symbol, которые повторяют колонку symbols
+    @Transaction
+    default long insert(DreamEntity dream) {
+        long id = insertDreamRow(dream);
+        replaceDreamSymbols((int) id, dream.getSymbols());
+        return id;
+    }
+
+    @Transaction
+    default void update(DreamEntity dream) {
+        updateDreamRow(dream);
+        replaceDreamSymbols(dream.getId(), dream.getSymbols());
+    }
+
     @Insert
-    long insert(DreamEntity dream);
+    long[] insertDreamRows(List<DreamEntity> dreams);
 
     @Update
-    void update(DreamEntity dream);
+    void updateDreamRows(List<DreamEntity> dreams);
+
+    // Сны с id = 0 или с id, которого нет в таблице, вставляются, остальные обновляются без удаления:
+    // REPLACE удалил бы связи dream_symbol каскадом. Для обновленных строк возвращается -1
+    @Upsert
+    long[] upsertDreamRows(List<DreamEntity> dreams);
+
+    /**
+     * Вставляет сны одной транзакцией и проставляет им выданные id.
+     */
+    @Transaction
+    default void insertAll(List<DreamEntity> dreams) {
+        long[] ids = insertDreamRows(dreams);
+        for (int i = 0; i < ids.length; i++) {
+            DreamEntity dream = dreams.get(i);
+            dream.setId((int) ids[i]);
+            replaceDreamSymbols(dream.getId(), dream.getSymbols());
+        }
+    }
+
+    @Transaction
+    default void updateAll(List<DreamEntity> dreams) {
+        updateDreamRows(dreams);
+        for (DreamEntity dream : dreams) {
+            replaceDreamSymbols(dream.getId(), dream.getSymbols());
+        }
+    }
+
+    /**
+     * Вставляет или обновляет сны одной транзакцией, например при восстановлении из копии.
+     * Вставленным снам проставляются выданные id.
+     */
+    @Transaction
+    default void upsertAll(List<DreamEntity> dreams) {
+        long[] ids = upsertDreamRows(dreams);
+        for (int i = 0; i < ids.length; i++) {
+            DreamEntity dream = dreams.get(i);
+            if (ids[i] != -1) {
+                dream.setId((int) ids[i]);
+            }
+            replaceDreamSymbols(dream.getId(), dream.getSymbols());
+        }
+    }
 
     @Delete
     void delete(DreamEntity dream);
@@ -29,9 +104,6 @@ public interface DreamDao {
     @Query("SELECT * FROM dreams WHERE id = :id")
     DreamEntity getDreamById(int id);
 
-    @Query("SELECT * FROM dreams WHERE text LIKE :searchQuery ORDER BY timestamp DESC")
-    List<DreamEntity> searchDreams(String searchQuery);
-
     @Query("SELECT COUNT(*) FROM dreams")
     int getDreamCount();
 
@@ -40,4 +112,165 @@ public interface DreamDao {
     
     @Query("SELECT * FROM dreams ORDER BY timestamp DESC LIMIT :limit")
     List<DreamEntity> getRecentDreams(int limit);
-}
\ No newline at end of file
+
+    // Страницы истории по ключу (timestamp, id) без OFFSET: новые сны сверху, при равном времени — больший id.
+    // Условие timestamp <=/>= дает поиск по индексу timestamp, строки с тем же временем отсекаются по id
+    @Query("SELECT " + HISTORY_SUMMARY_COLUMNS + " FROM dreams "
+            + "WHERE timestamp <= :timestamp AND (timestamp < :timestamp OR id < :id) "
+            + "ORDER BY timestamp DESC, id DESC LIMIT :limit")
+    List<DreamSummary> getHistoryPageBefore(long timestamp, int id, int limit);
+
+    // Страница над (timestamp, id) в обратном порядке, ближайшие к ключу строки первыми
+    @Query("SELECT " + HISTORY_SUMMARY_COLUMNS + " FROM dreams "
+            + "WHERE timestamp >= :timestamp AND (timestamp > :timestamp OR id > :id) "
+            + "ORDER BY timestamp ASC, id ASC LIMIT :limit")
+    List<DreamSummary> getHistoryPageAfter(long timestamp, int id, int limit);
+
+    // Постраничный обход по первичному ключу без OFFSET: каждая страница начинается после последнего id
+    @Query("SELECT * FROM dreams WHERE id > :afterId ORDER BY id LIMIT :limit")
+    List<DreamEntity> getDreamsAfter(int afterId, int limit);
+
+    @Query("SELECT COUNT(*) FROM dreams WHERE id <= :id")
+    int getDreamCountUpTo(int id);
+
+    // Обновляет только результаты анализа, не затрагивая текст, который мог быть изменен параллельно
+    @Query("UPDATE dreams SET symbols = :symbols, emotion = :emotion WHERE id = :id")
+    void updateAnalysisRow(int id, List<Symbol> symbols, String emotion);
+
+    @Transaction
+    default void updateAnalysis(int id, List<Symbol> symbols, String emotion) {
+        updateAnalysisRow(id, symbols, emotion);
+        replaceDreamSymbols(id, symbols);
+    }
+
+    @Query("UPDATE dreams SET emotion = :emotion WHERE id = :id")
+    void updateEmotion(int id, String emotion);
+
+    // Обновляет анализ, только если текст сна не изменился с момента чтения; возвращает число обновленных строк
+    @Query("UPDATE dreams SET symbols = :symbols, emotion = :emotion WHERE id = :id AND text IS :text")
+    int updateAnalysisRowIfText(int id, String text, List<Symbol> symbols, String emotion);
+
+    /**
+     * Записывает символы и эмоцию пакета снов одной транзакцией, остальные колонки не меняются.
+     * Анализ сна, текст которого изменили или который удалили после чтения, отбрасывается:
+     * он посчитан по старому тексту. Возвращает число записанных снов.
+     */
+    @Transaction
+    default int updateAnalysisAll(List<DreamEntity> dreams) {
+        int updated = 0;
+        for (DreamEntity dream : dreams) {
+            if (updateAnalysisRowIfText(dream.getId(), dream.getText(), dream.getSymbols(), dream.getEmotion()) > 0) {
+                replaceDreamSymbols(dream.getId(), dream.getSymbols());
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    // Результаты анализа LLM читаются только экраном сна, отдельно от строки dreams
+    @Query("SELECT * FROM dream_analysis WHERE dream_id = :dreamId")
+    DreamAnalysisEntity getAnalysis(int dreamId);
+
+    // Интерпретация попадает в dreams_fts и статистику триггерами dream_analysis
+    @Upsert
+    void saveAnalysis(DreamAnalysisEntity analysis);
+
+    /**
+     * Заменяет связи сна с символами; новые ключевые слова добавляются в справочник symbol.
+     * Вызывается в транзакции вместе с записью самого сна.
+     */
+    default void replaceDreamSymbols(int dreamId, List<Symbol> symbols) {
+        deleteDreamSymbols(dreamId);
+        if (symbols == null) {
+            return;
+        }
+        for (Symbol symbol : symbols) {
+            String keyword = symbol != null ? SymbolEntity.normalizeKeyword(symbol.getKeyword()) : null;
+            if (keyword == null) {
+                continue;
+            }
+            insertSymbolIfAbsent(keyword, symbol.getSymbol());
+            insertDreamSymbol(dreamId, keyword);
+        }
+    }
+
+    @Query("DELETE FROM dream_symbol WHERE dream_id = :dreamId")
+    void deleteDreamSymbols(int dreamId);
+
+    @Query("INSERT OR IGNORE INTO symbol (keyword, code) VALUES (:keyword, :code)")
+    void insertSymbolIfAbsent(String keyword, String code);
+
+    @Query("INSERT OR IGNORE INTO dream_symbol (dream_id, symbol_id, timestamp) "
+            + "SELECT dreams.id, symbol.id, dreams.timestamp FROM dreams, symbol "
+            + "WHERE dreams.id = :dreamId AND symbol.keyword = :keyword")
+    void insertDreamSymbol(int dreamId, String keyword);
+
+    // Полнотекстовый поиск по dreams_fts; ftsQuery строится DreamFts.toMatchQuery
+    @Query("SELECT docid AS id, matchinfo(dreams_fts, '" + DreamFts.MATCHINFO_FORMAT + "') AS matchInfo "
+            + "FROM dreams_fts WHERE dreams_fts MATCH :ftsQuery")
+    List<DreamMatch> matchDreams(String ftsQuery);
+
+    @Query("SELECT * FROM dreams WHERE id IN (:ids)")
+    List<DreamEntity> getDreamsByIds(List<Integer> ids);
+
+    // Копия интерпретации в индексе: для фрагмента не нужно читать dream_analysis
+    @Query("SELECT interpretation FROM dreams_fts WHERE docid = :dreamId")
+    String getIndexedInterpretation(int dreamId);
+
+    // matchinfo снов, в тексте которых есть хотя бы одно слово запроса; emotion = null — без фильтра по эмоции
+    @Query("SELECT matchinfo(dreams_fts, '" + DreamFts.WORD_HITS_MATCHINFO_FORMAT + "') FROM dreams_fts "
+            + "JOIN dreams ON dreams.id = dreams_fts.docid "
+            + "WHERE dreams_fts.text MATCH :ftsQuery AND (:emotion IS NULL OR dreams.emotion = :emotion)")
+    Cursor matchTextWords(String ftsQuery, String emotion);
+
+    /**
+     * Число снов с каждым из слов запроса в тексте; один запрос MATCH вместо запроса на слово.
+     */
+    default int[] countTextWords(DreamFts.WordCountQuery query, String emotion) {
+        int[] counts = new int[query.getWordCount()];
+        if (query.matchQuery == null) {
+            return counts;
+        }
+        try (Cursor cursor = matchTextWords(query.matchQuery, emotion)) {
+            while (cursor.moveToNext()) {
+                query.countRow(cursor.getBlob(0), counts);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Поиск по тексту и интерпретации с учетом словоформ, лучшие совпадения первыми.
+     * Ранжируются только id и matchinfo, строки читаются лишь для limit лучших, фрагменты строятся без повторного MATCH.
+     */
+    @Transaction
+    default List<DreamSearchResult> searchDreamsRanked(String userQuery, int limit) {
+        String ftsQuery = DreamFts.toMatchQuery(userQuery);
+        if (ftsQuery == null) {
+            return new ArrayList<>();
+        }
+        List<Integer> ids = DreamFts.rank(matchDreams(ftsQuery), limit);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // IN не сохраняет порядок, восстанавливаем порядок ранжирования
+        Map<Integer, DreamEntity> byId = new HashMap<>();
+        for (DreamEntity dream : getDreamsByIds(ids)) {
+            byId.put(dream.getId(), dream);
+        }
+        List<DreamSearchResult> ranked = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            DreamEntity dream = byId.get(id);
+            if (dream == null) {
+                continue;
+            }
+            String snippet = DreamFts.snippet(dream.getText(), userQuery);
+            if (snippet == null) {
+                snippet = DreamFts.snippet(getIndexedInterpretation(id), userQuery);
+            }
+            ranked.add(new DreamSearchResult(dream, snippet));
+        }
+        return ranked;
+    }
+}
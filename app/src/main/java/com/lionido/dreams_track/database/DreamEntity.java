@@ -1,14 +1,18 @@
 package com.lionido.dreams_track.database;
 
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import androidx.room.TypeConverters;
 
 import com.lionido.dreams_track.model.Symbol;
 import java.util.List;
 
-@Entity(tableName = "dreams")
-@TypeConverters({Converters.class})
+// Индексы под сортировку по дате и выборку по эмоции с той же сортировкой.
+// Результаты анализа LLM хранятся в dream_analysis (DreamAnalysisEntity), чтобы строки для списков оставались узкими
+@Entity(tableName = "dreams",
+        indices = {@Index("timestamp"), @Index({"emotion", "timestamp"})})
+@TypeConverters({SymbolListConverter.class})
 public class DreamEntity {
     @PrimaryKey(autoGenerate = true)
     private int id;
@@ -19,8 +23,6 @@ public class DreamEntity {
     private List<Symbol> symbols;
     private String emotion;
     private String inputMethod; // "voice" или "text"
-    private String interpretation; // Интерпретация сна
-    private String analysis; // Анализ сна
 
     public DreamEntity() {
         this.timestamp = System.currentTimeMillis();
@@ -54,10 +56,4 @@ public class DreamEntity {
 
     public String getInputMethod() { return inputMethod; }
     public void setInputMethod(String inputMethod) { this.inputMethod = inputMethod; }
-
-    public String getInterpretation() { return interpretation; }
-    public void setInterpretation(String interpretation) { this.interpretation = interpretation; }
-
-    public String getAnalysis() { return analysis; }
-    public void setAnalysis(String analysis) { this.analysis = analysis; }
 }
\ No newline at end of file
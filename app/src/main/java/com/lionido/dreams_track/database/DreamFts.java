@@ -0,0 +1,376 @@
+package com.lionido.dreams_track.database;
+
+import com.lionido.dreams_track.utils.RussianStemmer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Полнотекстовый поиск по снам: SQL таблицы dreams_fts, построение запроса MATCH, ранжирование BM25
+ * и фрагменты с подсветкой.
+ * Таблица FTS4 хранит копию текста сна и интерпретации из dream_analysis: у FTS4 с внешним содержимым
+ * может быть только одна таблица-источник. Копию поддерживают триггеры {@link #SYNC_TRIGGERS_SQL} на обеих
+ * таблицах, а фрагменты результатов строятся по ней без чтения dream_analysis.
+ * SQL совпадает с тем, что Room генерирует для {@link DreamFtsEntity}.
+ */
+public final class DreamFts {
+    public static final String TABLE_NAME = "dreams_fts";
+
+    // Маркеры подсветки во фрагментах; символы из области частного использования в тексте снов не встречаются
+    public static final String HIGHLIGHT_START = "\uE000";
+    public static final String HIGHLIGHT_END = "\uE001";
+    private static final String SNIPPET_ELLIPSIS = "…";
+    private static final int SNIPPET_TOKENS = 12;
+
+    public static final String CREATE_TABLE_SQL = "CREATE VIRTUAL TABLE IF NOT EXISTS `dreams_fts` "
+            + "USING FTS4(`text` TEXT, `interpretation` TEXT, tokenize=unicode61)";
+
+    // docid строки индекса равен id сна. Анализ обычно сохраняется после сна, поэтому при вставке сна
+    // интерпретация берется из dream_analysis, только если она уже есть
+    public static final String[] SYNC_TRIGGERS_SQL = {
+            "CREATE TRIGGER IF NOT EXISTS dreams_fts_dreams_AFTER_INSERT AFTER INSERT ON `dreams` BEGIN "
+                    + "INSERT INTO `dreams_fts`(`docid`, `text`, `interpretation`) VALUES (NEW.`id`, NEW.`text`, "
+                    + "(SELECT `interpretation` FROM `dream_analysis` WHERE `dream_id` = NEW.`id`)); END",
+            "CREATE TRIGGER IF NOT EXISTS dreams_fts_dreams_AFTER_UPDATE AFTER UPDATE OF `text` ON `dreams` BEGIN "
+                    + "UPDATE `dreams_fts` SET `text` = NEW.`text` WHERE `docid` = NEW.`id`; END",
+            "CREATE TRIGGER IF NOT EXISTS dreams_fts_dreams_AFTER_DELETE AFTER DELETE ON `dreams` BEGIN "
+                    + "DELETE FROM `dreams_fts` WHERE `docid` = OLD.`id`; END",
+            "CREATE TRIGGER IF NOT EXISTS dreams_fts_dream_analysis_AFTER_INSERT AFTER INSERT ON `dream_analysis` BEGIN "
+                    + "UPDATE `dreams_fts` SET `interpretation` = NEW.`interpretation` WHERE `docid` = NEW.`dream_id`; END",
+            "CREATE TRIGGER IF NOT EXISTS dreams_fts_dream_analysis_AFTER_UPDATE "
+                    + "AFTER UPDATE OF `interpretation` ON `dream_analysis` BEGIN "
+                    + "UPDATE `dreams_fts` SET `interpretation` = NEW.`interpretation` WHERE `docid` = NEW.`dream_id`; END",
+            "CREATE TRIGGER IF NOT EXISTS dreams_fts_dream_analysis_AFTER_DELETE AFTER DELETE ON `dream_analysis` BEGIN "
+                    + "UPDATE `dreams_fts` SET `interpretation` = NULL WHERE `docid` = OLD.`dream_id`; END"
+    };
+
+    // Заполняет индекс по уже сохраненным снам
+    public static final String REBUILD_SQL = "INSERT INTO `dreams_fts`(`docid`, `text`, `interpretation`) "
+            + "SELECT dreams.id, dreams.text, dream_analysis.interpretation FROM dreams "
+            + "LEFT JOIN dream_analysis ON dream_analysis.dream_id = dreams.id";
+
+    // Схема версий 3–7: индекс с внешним содержимым в dreams, где тогда хранилась интерпретация.
+    // Нужна только миграциям, которые проходят через эти версии
+    static final String CREATE_CONTENT_TABLE_SQL_V3 = "CREATE VIRTUAL TABLE IF NOT EXISTS `dreams_fts` "
+            + "USING FTS4(`text` TEXT, `interpretation` TEXT, tokenize=unicode61, content=`dreams`)";
+    static final String[] CONTENT_SYNC_TRIGGERS_SQL_V3 = {
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_dreams_fts_BEFORE_UPDATE BEFORE UPDATE ON `dreams` "
+                    + "BEGIN DELETE FROM `dreams_fts` WHERE `docid`=OLD.`rowid`; END",
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_dreams_fts_BEFORE_DELETE BEFORE DELETE ON `dreams` "
+                    + "BEGIN DELETE FROM `dreams_fts` WHERE `docid`=OLD.`rowid`; END",
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_dreams_fts_AFTER_UPDATE AFTER UPDATE ON `dreams` "
+                    + "BEGIN INSERT INTO `dreams_fts`(`docid`, `text`, `interpretation`) "
+                    + "VALUES (NEW.`rowid`, NEW.`text`, NEW.`interpretation`); END",
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_dreams_fts_AFTER_INSERT AFTER INSERT ON `dreams` "
+                    + "BEGIN INSERT INTO `dreams_fts`(`docid`, `text`, `interpretation`) "
+                    + "VALUES (NEW.`rowid`, NEW.`text`, NEW.`interpretation`); END"
+    };
+    static final String CONTENT_REBUILD_SQL_V3 = "INSERT INTO `dreams_fts`(`dreams_fts`) VALUES('rebuild')";
+
+    // Формат matchinfo для BM25: фразы, колонки, число строк, средние и текущие длины колонок, статистика попаданий
+    public static final String MATCHINFO_FORMAT = "pcnalx";
+
+    // Формат matchinfo для подсчета слов: для каждой фразы запроса битовое поле колонок, где она встретилась
+    public static final String WORD_HITS_MATCHINFO_FORMAT = "b";
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Совпадение в тексте сна важнее совпадения в интерпретации
+    private static final double[] COLUMN_WEIGHTS = {1.0, 0.4};
+
+    private DreamFts() {
+    }
+
+    /**
+     * Строит запрос MATCH из пользовательского ввода: каждое слово сводится к основе и ищется по префиксу,
+     * все слова должны встретиться. Операторы FTS во вводе не интерпретируются.
+     *
+     * @return запрос или null, если во вводе нет слов
+     */
+    public static String toMatchQuery(String userQuery) {
+        List<String> prefixes = queryPrefixes(userQuery);
+        if (prefixes.isEmpty()) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        for (String prefix : prefixes) {
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            query.append(prefix).append('*');
+            // unicode61 не отождествляет «ё» и «е»: ищем оба написания
+            if (prefix.indexOf('ё') >= 0) {
+                query.append(" OR ").append(prefix.replace('ё', 'е')).append('*');
+            }
+        }
+        return query.toString();
+    }
+
+    /**
+     * Запрос MATCH для подсчета снов с каждым из слов за один проход по индексу. Слова объединены через OR,
+     * каждое слово — одна фраза (и вторая без «ё»), поэтому по matchinfo 'b' строки видно, какие слова в ней есть.
+     * Слово ищется так же, как в {@link #toMatchQuery}; несколько слов в одном элементе ищутся подряд.
+     */
+    public static final class WordCountQuery {
+        // null, если ни в одном элементе нет слов
+        public final String matchQuery;
+        private final int wordCount;
+        // Индекс слова для каждой фразы запроса; фразы одного слова идут подряд
+        private final int[] phraseWords;
+
+        public WordCountQuery(String[] words) {
+            wordCount = words.length;
+            StringBuilder query = new StringBuilder();
+            List<Integer> owners = new ArrayList<>();
+            for (int word = 0; word < words.length; word++) {
+                List<String> prefixes = queryPrefixes(words[word]);
+                if (prefixes.isEmpty()) {
+                    continue;
+                }
+                StringBuilder phrase = new StringBuilder();
+                for (String prefix : prefixes) {
+                    if (phrase.length() > 0) {
+                        phrase.append(' ');
+                    }
+                    phrase.append(prefix).append('*');
+                }
+                String text = prefixes.size() > 1 ? '"' + phrase.toString() + '"' : phrase.toString();
+                appendPhrase(query, owners, text, word);
+                if (text.indexOf('ё') >= 0) {
+                    appendPhrase(query, owners, text.replace('ё', 'е'), word);
+                }
+            }
+            matchQuery = query.length() > 0 ? query.toString() : null;
+            phraseWords = new int[owners.size()];
+            for (int i = 0; i < phraseWords.length; i++) {
+                phraseWords[i] = owners.get(i);
+            }
+        }
+
+        private static void appendPhrase(StringBuilder query, List<Integer> owners, String phrase, int word) {
+            if (query.length() > 0) {
+                query.append(" OR ");
+            }
+            query.append(phrase);
+            owners.add(word);
+        }
+
+        public int getWordCount() {
+            return wordCount;
+        }
+
+        /**
+         * Добавляет к counts по единице для каждого слова, найденного в первой колонке строки.
+         *
+         * @param matchInfo matchinfo(dreams_fts, {@link #WORD_HITS_MATCHINFO_FORMAT}) строки, найденной по matchQuery
+         */
+        public void countRow(byte[] matchInfo, int[] counts) {
+            ByteBuffer buffer = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder());
+            // На фразу приходится (колонки + 31) / 32 слов битового поля
+            int stride = matchInfo.length / phraseWords.length;
+            int counted = -1;
+            for (int phrase = 0; phrase < phraseWords.length; phrase++) {
+                int word = phraseWords[phrase];
+                if (word != counted && (buffer.getInt(phrase * stride) & 1) != 0) {
+                    counts[word]++;
+                    counted = word;
+                }
+            }
+        }
+    }
+
+    /**
+     * Фрагмент текста вокруг первого совпадения с запросом, совпадения обрамлены маркерами
+     * {@link #HIGHLIGHT_START}/{@link #HIGHLIGHT_END}. Повторяет snippet() из SQLite, но не требует
+     * второго прохода MATCH по индексу.
+     *
+     * @return фрагмент или null, если в тексте нет совпадений
+     */
+    public static String snippet(String text, String userQuery) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        List<String> prefixes = queryPrefixes(userQuery);
+        for (int i = 0; i < prefixes.size(); i++) {
+            prefixes.set(i, prefixes.get(i).replace('ё', 'е'));
+        }
+
+        // Границы слов так же, как у токенизатора unicode61: буквы и цифры
+        int[] starts = new int[16];
+        int[] ends = new int[16];
+        int wordCount = 0;
+        int length = text.length();
+        for (int i = 0; i < length; ) {
+            if (!Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (wordCount == starts.length) {
+                starts = Arrays.copyOf(starts, wordCount * 2);
+                ends = Arrays.copyOf(ends, wordCount * 2);
+            }
+            starts[wordCount] = start;
+            ends[wordCount] = i;
+            wordCount++;
+        }
+        if (wordCount == 0) {
+            return null;
+        }
+
+        boolean[] hits = new boolean[wordCount];
+        int firstHit = -1;
+        for (int w = 0; w < wordCount; w++) {
+            String word = text.substring(starts[w], ends[w]).toLowerCase().replace('ё', 'е');
+            for (String prefix : prefixes) {
+                if (word.startsWith(prefix)) {
+                    hits[w] = true;
+                    if (firstHit < 0) {
+                        firstHit = w;
+                    }
+                    break;
+                }
+            }
+        }
+        if (firstHit < 0) {
+            return null;
+        }
+
+        // Окно из SNIPPET_TOKENS слов, первое совпадение ближе к началу окна
+        int first = Math.max(0, Math.min(firstHit - SNIPPET_TOKENS / 4, wordCount - SNIPPET_TOKENS));
+        int last = Math.min(wordCount, first + SNIPPET_TOKENS) - 1;
+
+        StringBuilder snippet = new StringBuilder();
+        if (first > 0) {
+            snippet.append(SNIPPET_ELLIPSIS);
+        }
+        int position = starts[first];
+        for (int w = first; w <= last; w++) {
+            if (hits[w]) {
+                snippet.append(text, position, starts[w])
+                        .append(HIGHLIGHT_START)
+                        .append(text, starts[w], ends[w])
+                        .append(HIGHLIGHT_END);
+                position = ends[w];
+            }
+        }
+        snippet.append(text, position, last == wordCount - 1 ? length : ends[last]);
+        if (last < wordCount - 1) {
+            snippet.append(SNIPPET_ELLIPSIS);
+        }
+        return snippet.toString();
+    }
+
+    // Префиксы для поиска: начало слова в написании пользователя длиной в его основу
+    private static List<String> queryPrefixes(String userQuery) {
+        List<String> prefixes = new ArrayList<>();
+        if (userQuery == null) {
+            return prefixes;
+        }
+        int length = userQuery.length();
+        int i = 0;
+        while (i < length) {
+            if (!Character.isLetterOrDigit(userQuery.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            boolean cyrillic = true;
+            while (i < length && Character.isLetterOrDigit(userQuery.charAt(i))) {
+                char c = Character.toLowerCase(userQuery.charAt(i));
+                cyrillic &= (c >= 'а' && c <= 'я') || c == 'ё';
+                i++;
+            }
+            String token = userQuery.substring(start, i).toLowerCase();
+            if (cyrillic && token.length() >= 2) {
+                // Основа — префикс слова, где «ё» заменена на «е»; берем исходные буквы той же длины
+                int stemLength = RussianStemmer.stem(token).length();
+                if (stemLength > 0) {
+                    token = token.substring(0, stemLength);
+                }
+            }
+            prefixes.add(token);
+        }
+        return prefixes;
+    }
+
+    /**
+     * Оценка BM25 одной строки по результату matchinfo(dreams_fts, 'pcnalx'). Чем больше, тем релевантнее.
+     */
+    public static double bm25(byte[] matchInfo) {
+        ByteBuffer buffer = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder());
+        int phraseCount = buffer.getInt(0);
+        int columnCount = buffer.getInt(4);
+        double rowCount = buffer.getInt(8);
+        int averageOffset = 12;
+        int lengthOffset = averageOffset + columnCount * 4;
+        int hitsOffset = lengthOffset + columnCount * 4;
+
+        double score = 0;
+        for (int phrase = 0; phrase < phraseCount; phrase++) {
+            for (int column = 0; column < columnCount; column++) {
+                int hits = hitsOffset + (phrase * columnCount + column) * 12;
+                int hitsInRow = buffer.getInt(hits);
+                if (hitsInRow == 0) {
+                    continue;
+                }
+                int rowsWithHits = buffer.getInt(hits + 8);
+                double idf = Math.log((rowCount - rowsWithHits + 0.5) / (rowsWithHits + 0.5));
+                // Слово есть почти в каждой строке: оставляем небольшой положительный вес
+                idf = Math.max(idf, 1e-6);
+
+                double average = Math.max(1, buffer.getInt(averageOffset + column * 4));
+                double length = buffer.getInt(lengthOffset + column * 4);
+                double weight = column < COLUMN_WEIGHTS.length ? COLUMN_WEIGHTS[column] : 1.0;
+                score += weight * idf * hitsInRow * (K1 + 1) / (hitsInRow + K1 * (1 - B + B * length / average));
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Отбирает не более limit самых релевантных совпадений; при равной оценке выше более новые записи.
+     *
+     * @return id снов в порядке убывания релевантности
+     */
+    public static List<Integer> rank(List<DreamMatch> matches, int limit) {
+        if (limit <= 0 || matches.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int size = matches.size();
+        double[] scores = new double[size];
+        for (int i = 0; i < size; i++) {
+            scores[i] = bm25(matches.get(i).matchInfo);
+        }
+
+        // Куча на limit элементов с худшим наверху: полная сортировка всех совпадений не нужна
+        PriorityQueue<Integer> top = new PriorityQueue<>(Math.min(limit, size) + 1,
+                (a, b) -> compare(scores, matches, a, b));
+        for (int i = 0; i < size; i++) {
+            top.offer(i);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<Integer> ids = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            ids.add(matches.get(top.poll()).id);
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    private static int compare(double[] scores, List<DreamMatch> matches, int a, int b) {
+        int byScore = Double.compare(scores[a], scores[b]);
+        return byScore != 0 ? byScore : Integer.compare(matches.get(a).id, matches.get(b).id);
+    }
+}
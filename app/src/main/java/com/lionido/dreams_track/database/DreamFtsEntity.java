@@ -0,0 +1,22 @@
+package com.lionido.dreams_track.database;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+/**
+ * Полнотекстовый индекс по тексту и интерпретации сна; docid — id сна. Текст берется из dreams,
+ * интерпретация из dream_analysis, индекс поддерживают триггеры (см. {@link DreamFts}).
+ */
+@Fts4(tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = DreamFts.TABLE_NAME)
+public class DreamFtsEntity {
+    private String text;
+    private String interpretation;
+
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+
+    public String getInterpretation() { return interpretation; }
+    public void setInterpretation(String interpretation) { this.interpretation = interpretation; }
+}
@@ -0,0 +1,9 @@
+package com.lionido.dreams_track.database;
+
+/**
+ * Совпадение полнотекстового поиска до ранжирования: id сна и сырые данные matchinfo.
+ */
+public class DreamMatch {
+    public int id;
+    public byte[] matchInfo;
+}
@@ -0,0 +1,141 @@
+package com.lionido.dreams_track.database;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.concurrent.futures.CallbackToFutureAdapter;
+import androidx.paging.ListenableFuturePagingSource;
+import androidx.paging.PagingState;
+import androidx.room.InvalidationTracker;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import kotlin.Unit;
+
+/**
+ * Источник страниц истории снов для Paging: облегченные строки {@link DreamSummary}. Страницы выбираются по ключу (timestamp, id) последней
+ * показанной строки, поэтому стоимость запроса не зависит от того, насколько далеко прокручен список.
+ * При любом изменении таблицы dreams источник объявляется недействительным и список перечитывается
+ * с того места, где его смотрит пользователь.
+ */
+public class DreamPagingSource extends ListenableFuturePagingSource<DreamPagingSource.Key, DreamSummary> {
+
+    /**
+     * Позиция строки в порядке истории.
+     */
+    public static final class Key {
+        public final long timestamp;
+        public final int id;
+
+        public Key(long timestamp, int id) {
+            this.timestamp = timestamp;
+            this.id = id;
+        }
+    }
+
+    private final AppDatabase database;
+    private final DreamDao dreamDao;
+    private final Executor executor;
+    private final InvalidationTracker.Observer observer;
+    private final AtomicBoolean registered = new AtomicBoolean(false);
+
+    public DreamPagingSource(AppDatabase database, Executor executor) {
+        this.database = database;
+        this.dreamDao = database.dreamDao();
+        this.executor = executor;
+        this.observer = new InvalidationTracker.Observer("dreams") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidate();
+            }
+        };
+        registerInvalidatedCallback(() -> {
+            database.getInvalidationTracker().removeObserver(observer);
+            return Unit.INSTANCE;
+        });
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<LoadResult<Key, DreamSummary>> loadFuture(@NonNull LoadParams<Key> params) {
+        return CallbackToFutureAdapter.getFuture(completer -> {
+            executor.execute(() -> {
+                try {
+                    // Подписка открывает базу, поэтому выполняется при первой загрузке в фоне
+                    if (registered.compareAndSet(false, true)) {
+                        database.getInvalidationTracker().addObserver(observer);
+                    }
+                    completer.set(load(params));
+                } catch (Exception e) {
+                    completer.set(new LoadResult.Error<>(e));
+                }
+            });
+            return "DreamPagingSource.load";
+        });
+    }
+
+    private LoadResult<Key, DreamSummary> load(LoadParams<Key> params) {
+        Key key = params.getKey();
+        int loadSize = params.getLoadSize();
+
+        if (params instanceof LoadParams.Prepend) {
+            // Страницы выше ключа нужны, только если Paging выгрузил их при длинной прокрутке
+            List<DreamSummary> rows = dreamDao.getHistoryPageAfter(key.timestamp, key.id, loadSize);
+            Collections.reverse(rows);
+            if (rows.isEmpty()) {
+                return new LoadResult.Page<>(rows, null, null);
+            }
+            return new LoadResult.Page<>(rows,
+                    rows.size() < loadSize ? null : keyOf(rows.get(0)),
+                    keyOf(rows.get(rows.size() - 1)));
+        }
+
+        // Обновление без ключа начинается с самых новых снов, с ключом из getRefreshKey — со строки после него
+        List<DreamSummary> rows = null;
+        if (key != null) {
+            rows = dreamDao.getHistoryPageBefore(key.timestamp, key.id, loadSize);
+            // Ниже ключа ничего не осталось, например удалены последние сны: обновляем с начала
+            if (rows.isEmpty() && params instanceof LoadParams.Refresh) {
+                key = null;
+            }
+        }
+        if (key == null) {
+            rows = dreamDao.getHistoryPageBefore(Long.MAX_VALUE, Integer.MAX_VALUE, loadSize);
+        }
+        if (rows.isEmpty()) {
+            return new LoadResult.Page<>(rows, null, null);
+        }
+        return new LoadResult.Page<>(rows,
+                key == null ? null : keyOf(rows.get(0)),
+                rows.size() < loadSize ? null : keyOf(rows.get(rows.size() - 1)));
+    }
+
+    /**
+     * Обновление после удаления или правки сна начинается на полстраницы выше строки, которую видел пользователь,
+     * чтобы она попала в первую страницу и список не прыгал к началу. Ключ исключает свою строку,
+     * поэтому берется строка перед первой нужной.
+     */
+    @Nullable
+    @Override
+    public Key getRefreshKey(@NonNull PagingState<Key, DreamSummary> state) {
+        Integer anchorPosition = state.getAnchorPosition();
+        if (anchorPosition == null) {
+            return null;
+        }
+        int position = anchorPosition - state.getConfig().initialLoadSize / 2 - 1;
+        if (position < 0) {
+            return null;
+        }
+        DreamSummary summary = state.closestItemToPosition(position);
+        return summary != null ? keyOf(summary) : null;
+    }
+
+    private static Key keyOf(DreamSummary summary) {
+        return new Key(summary.timestamp, summary.id);
+    }
+}
@@ -0,0 +1,122 @@
+package com.lionido.dreams_track.database;
+
+import android.content.Context;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Общие наблюдаемые данные для экранов. Каждый запрос существует в одном экземпляре на все экраны:
+ * запись в базу вызывает один пересчет, а экраны, данные которых не изменились, ничего не перечитывают.
+ */
+public class DreamRepository {
+
+    // Ключевые слова, которые атлас ищет в тексте снов помимо найденных символов
+    private static final String[] ATLAS_TEXT_KEYWORDS = {
+            "вода", "море", "река", "дождь", "океан",
+            "огонь", "пламя", "жар", "костер",
+            "животное", "кот", "собака", "птица", "змея",
+            "дом", "здание", "комната", "дверь",
+            "летать", "полет", "падать", "бежать",
+            "страх", "радость", "грусть", "любовь",
+            "смерть", "жизнь", "свет", "темнота",
+            "дерево", "лес", "гора", "небо",
+            "человек", "люди", "ребенок", "мать", "отец"
+    };
+    // Все ключевые слова атласа ищутся одним запросом MATCH
+    private static final DreamFts.WordCountQuery ATLAS_TEXT_QUERY = new DreamFts.WordCountQuery(ATLAS_TEXT_KEYWORDS);
+
+    private static volatile DreamRepository INSTANCE;
+
+    private final AppDatabase database;
+    private final LiveData<DreamStatistics> statistics;
+    private final TableLiveData<RecentStatistics> recentStatistics;
+    // Частоты символов по фильтру эмоции; "" — без фильтра. Доступ только из главного потока
+    private final Map<String, TableLiveData<Map<String, Integer>>> symbolFrequencies = new HashMap<>();
+
+    private DreamRepository(AppDatabase database) {
+        this.database = database;
+        this.statistics = database.statsDao().observeStatistics();
+        this.recentStatistics = new TableLiveData<>(database,
+                () -> database.runInTransaction(this::computeRecentStatistics), "stats_counter", "stats_slot");
+    }
+
+    public static DreamRepository getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (DreamRepository.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new DreamRepository(AppDatabase.getDatabase(context));
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Статистика главного экрана.
+     */
+    public LiveData<DreamStatistics> getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Эмоции снов и сны по дням за последнюю неделю для главного экрана. Читает только счетчики триггеров.
+     */
+    public TableLiveData<RecentStatistics> getRecentStatistics() {
+        return recentStatistics;
+    }
+
+    private RecentStatistics computeRecentStatistics() {
+        StatsDao statsDao = database.statsDao();
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate to = LocalDate.now(zone);
+        LocalDate from = to.minusDays(RecentStatistics.DAYS - 1);
+        return new RecentStatistics(statsDao.getEmotionCounts(),
+                DreamStats.getDailyCounts(statsDao, from, to, zone), from, to);
+    }
+
+    /**
+     * Частоты символов и ключевых слов в тексте для атласа снов.
+     *
+     * @param emotion код эмоции или null для всех снов
+     */
+    public TableLiveData<Map<String, Integer>> getSymbolFrequencies(@Nullable String emotion) {
+        String key = emotion != null ? emotion : "";
+        TableLiveData<Map<String, Integer>> frequencies = symbolFrequencies.get(key);
+        if (frequencies == null) {
+            // Все запросы пересчета видят одно состояние базы
+            frequencies = new TableLiveData<>(database,
+                    () -> database.runInTransaction(() -> computeSymbolFrequencies(emotion)),
+                    "dreams", "dream_symbol", "symbol");
+            symbolFrequencies.put(key, frequencies);
+        }
+        return frequencies;
+    }
+
+    private Map<String, Integer> computeSymbolFrequencies(@Nullable String emotion) {
+        // Частоты символов считает база по таблице dream_symbol
+        SymbolDao symbolDao = database.symbolDao();
+        List<SymbolCount> counts = emotion == null ?
+                symbolDao.getSymbolCounts() : symbolDao.getSymbolCountsByEmotion(emotion);
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (SymbolCount count : counts) {
+            frequencies.put(count.keyword, count.count);
+        }
+
+        // Также ищем ключевые слова в тексте снов через полнотекстовый индекс
+        int[] matches = database.dreamDao().countTextWords(ATLAS_TEXT_QUERY, emotion);
+        for (int i = 0; i < ATLAS_TEXT_KEYWORDS.length; i++) {
+            if (matches[i] > 0) {
+                String keyword = ATLAS_TEXT_KEYWORDS[i];
+                frequencies.put(keyword, frequencies.getOrDefault(keyword, 0) + matches[i]);
+            }
+        }
+        return frequencies;
+    }
+}
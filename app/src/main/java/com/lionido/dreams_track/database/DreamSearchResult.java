@@ -0,0 +1,49 @@
+package com.lionido.dreams_track.database;
+
+import android.graphics.Typeface;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.style.StyleSpan;
+
+/**
+ * Результат полнотекстового поиска: сон и фрагмент текста с найденными словами.
+ */
+public class DreamSearchResult {
+    public DreamEntity dream;
+
+    // Фрагмент с маркерами DreamFts.HIGHLIGHT_START/HIGHLIGHT_END вокруг совпадений, может быть null
+    public String snippet;
+
+    public DreamSearchResult(DreamEntity dream, String snippet) {
+        this.dream = dream;
+        this.snippet = snippet;
+    }
+
+    /**
+     * Фрагмент для отображения: маркеры убраны, совпадения выделены жирным.
+     */
+    public CharSequence getHighlightedSnippet() {
+        SpannableStringBuilder builder = new SpannableStringBuilder();
+        if (snippet == null) {
+            return builder;
+        }
+        int position = 0;
+        while (position < snippet.length()) {
+            int start = snippet.indexOf(DreamFts.HIGHLIGHT_START, position);
+            if (start < 0) {
+                break;
+            }
+            int end = snippet.indexOf(DreamFts.HIGHLIGHT_END, start);
+            if (end < 0) {
+                break;
+            }
+            builder.append(snippet, position, start);
+            int spanStart = builder.length();
+            builder.append(snippet, start + DreamFts.HIGHLIGHT_START.length(), end);
+            builder.setSpan(new StyleSpan(Typeface.BOLD), spanStart, builder.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+            position = end + DreamFts.HIGHLIGHT_END.length();
+        }
+        builder.append(snippet, position, snippet.length());
+        return builder;
+    }
+}
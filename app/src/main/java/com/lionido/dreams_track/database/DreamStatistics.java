@@ -0,0 +1,12 @@
+package com.lionido.dreams_track.database;
+
+/**
+ * Общая статистика для главного экрана, результат {@link StatsDao#getStatistics()}.
+ */
+public class DreamStatistics {
+    public long totalDreams;
+    public long analyzedDreams;
+    // Все связи сон — символ и число разных символов, встретившихся хотя бы в одном сне
+    public long totalSymbols;
+    public long distinctSymbols;
+}
@@ -0,0 +1,172 @@
+package com.lionido.dreams_track.database;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Статистика снов, которую SQLite поддерживает сама: триггеры на dreams, dream_symbol и dream_analysis
+ * изменяют счетчики в stats_counter и stats_slot при каждой вставке, изменении и удалении. Так статистика верна при любом
+ * пути записи, а главный экран читает несколько строк по первичному ключу вместо просмотра dreams.
+ * Сны по времени считаются в слотах UTC и раскладываются по локальным дням только при чтении,
+ * поэтому смена часового пояса не портит счетчики.
+ */
+public final class DreamStats {
+    public static final String COUNTER_DREAMS = "dreams";
+    public static final String COUNTER_ANALYZED_DREAMS = "analyzed_dreams";
+    public static final String COUNTER_SYMBOLS = "symbols";
+    public static final String COUNTER_DISTINCT_SYMBOLS = "distinct_symbols";
+    // Счетчики эмоций: "emotion:" + код эмоции
+    public static final String EMOTION_PREFIX = "emotion:";
+
+    public static final String CREATE_COUNTER_TABLE_SQL = "CREATE TABLE IF NOT EXISTS `stats_counter` "
+            + "(`name` TEXT NOT NULL, `value` INTEGER NOT NULL, PRIMARY KEY(`name`))";
+    public static final String CREATE_SLOT_TABLE_SQL = "CREATE TABLE IF NOT EXISTS `stats_slot` "
+            + "(`slot` INTEGER NOT NULL, `count` INTEGER NOT NULL, PRIMARY KEY(`slot`))";
+
+    // Слот — 15 минут UTC, номер слота = timestamp / SLOT_MS. Смещения всех часовых поясов кратны 15 минутам,
+    // поэтому каждый слот целиком попадает в один локальный день любого пояса
+    public static final long SLOT_MS = 15 * 60 * 1000L;
+
+    // Сон проанализирован, если для него сохранена интерпретация или анализ
+    private static final String ANALYZED = "(COALESCE(%1$s.interpretation, '') != '' "
+            + "OR COALESCE(length(%1$s.analysis), 0) > 0)";
+    private static final String SLOT = "(%s.timestamp / " + SLOT_MS + ")";
+    // Локальная дата сна на момент срабатывания триггера: так считалась статистика версий 6–10
+    private static final String DAY = "date(%s.timestamp / 1000, 'unixepoch', 'localtime')";
+
+    public static final String[] TRIGGERS_SQL = triggers(false, false);
+
+    // Пересчитывает все счетчики по текущим данным: заполнение при миграции
+    public static final String[] REBUILD_SQL = rebuild(false, false);
+
+    // В версиях 6–7 анализ хранился в самой dreams, а в версиях 6–10 сны считались по локальным дням в stats_day.
+    // Нужны только миграциям, которые проходят через эти версии
+    static final String CREATE_DAY_TABLE_SQL_V6 = "CREATE TABLE IF NOT EXISTS `stats_day` "
+            + "(`day` TEXT NOT NULL, `count` INTEGER NOT NULL, PRIMARY KEY(`day`))";
+    static final String[] TRIGGERS_SQL_V6 = triggers(true, true);
+    static final String[] REBUILD_SQL_V6 = rebuild(true, true);
+    static final String[] TRIGGERS_SQL_V8 = triggers(false, true);
+
+    private DreamStats() {
+    }
+
+    /**
+     * Число снов по дням пояса zone с from по to включительно. Ключ — дата YYYY-MM-DD, дни без снов пропущены.
+     */
+    public static Map<String, Integer> getDailyCounts(StatsDao statsDao, LocalDate from, LocalDate to, ZoneId zone) {
+        long fromSlot = Math.floorDiv(from.atStartOfDay(zone).toInstant().toEpochMilli(), SLOT_MS);
+        long toSlot = Math.floorDiv(to.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli(), SLOT_MS) - 1;
+        return toDailyCounts(statsDao.getSlotCounts(fromSlot, toSlot), zone);
+    }
+
+    static Map<String, Integer> toDailyCounts(List<StatsSlotEntity> slots, ZoneId zone) {
+        Map<String, Integer> days = new TreeMap<>();
+        for (StatsSlotEntity slot : slots) {
+            String day = Instant.ofEpochMilli(slot.getSlot() * SLOT_MS).atZone(zone).toLocalDate().toString();
+            days.merge(day, slot.getCount(), Integer::sum);
+        }
+        days.values().removeIf(count -> count == 0);
+        return days;
+    }
+
+    private static String[] triggers(boolean analysisInDreams, boolean localDays) {
+        List<String> triggers = new ArrayList<>();
+        triggers.add("CREATE TRIGGER IF NOT EXISTS stats_dreams_AFTER_INSERT AFTER INSERT ON `dreams` BEGIN "
+                + dreamDelta("NEW", "1", analysisInDreams, localDays)
+                + "END");
+        triggers.add("CREATE TRIGGER IF NOT EXISTS stats_dreams_AFTER_DELETE AFTER DELETE ON `dreams` BEGIN "
+                + dreamDelta("OLD", "-1", analysisInDreams, localDays)
+                + "END");
+        triggers.add("CREATE TRIGGER IF NOT EXISTS stats_dreams_AFTER_UPDATE "
+                + "AFTER UPDATE OF timestamp, emotion" + (analysisInDreams ? ", interpretation, analysis" : "")
+                + " ON `dreams` BEGIN "
+                + dreamDelta("OLD", "-1", analysisInDreams, localDays)
+                + dreamDelta("NEW", "1", analysisInDreams, localDays)
+                + "END");
+        // Разные символы: связь первая для символа при вставке или последняя при удалении
+        triggers.add("CREATE TRIGGER IF NOT EXISTS stats_dream_symbol_AFTER_INSERT AFTER INSERT ON `dream_symbol` BEGIN "
+                + add("'" + COUNTER_SYMBOLS + "'", "1")
+                + add("'" + COUNTER_DISTINCT_SYMBOLS + "'", "NOT EXISTS (SELECT 1 FROM dream_symbol "
+                + "WHERE symbol_id = NEW.symbol_id AND dream_id != NEW.dream_id)")
+                + "END");
+        triggers.add("CREATE TRIGGER IF NOT EXISTS stats_dream_symbol_AFTER_DELETE AFTER DELETE ON `dream_symbol` BEGIN "
+                + add("'" + COUNTER_SYMBOLS + "'", "-1")
+                + add("'" + COUNTER_DISTINCT_SYMBOLS + "'", "-(NOT EXISTS (SELECT 1 FROM dream_symbol "
+                + "WHERE symbol_id = OLD.symbol_id))")
+                + "END");
+        if (!analysisInDreams) {
+            // Строка dream_analysis удаляется и каскадом вместе со сном
+            String analyzed = "'" + COUNTER_ANALYZED_DREAMS + "'";
+            triggers.add("CREATE TRIGGER IF NOT EXISTS stats_dream_analysis_AFTER_INSERT "
+                    + "AFTER INSERT ON `dream_analysis` BEGIN "
+                    + add(analyzed, String.format(ANALYZED, "NEW"))
+                    + "END");
+            triggers.add("CREATE TRIGGER IF NOT EXISTS stats_dream_analysis_AFTER_DELETE "
+                    + "AFTER DELETE ON `dream_analysis` BEGIN "
+                    + add(analyzed, "-" + String.format(ANALYZED, "OLD"))
+                    + "END");
+            triggers.add("CREATE TRIGGER IF NOT EXISTS stats_dream_analysis_AFTER_UPDATE "
+                    + "AFTER UPDATE OF interpretation, analysis ON `dream_analysis` BEGIN "
+                    + add(analyzed, String.format(ANALYZED, "NEW") + " - " + String.format(ANALYZED, "OLD"))
+                    + "END");
+        }
+        return triggers.toArray(new String[0]);
+    }
+
+    private static String[] rebuild(boolean analysisInDreams, boolean localDays) {
+        String analysisTable = analysisInDreams ? "dreams" : "dream_analysis";
+        return new String[]{
+                "DELETE FROM stats_counter",
+                "DELETE FROM " + timeTable(localDays),
+                "INSERT INTO stats_counter (name, value) VALUES "
+                        + "('" + COUNTER_DREAMS + "', (SELECT COUNT(*) FROM dreams)), "
+                        + "('" + COUNTER_ANALYZED_DREAMS + "', (SELECT COUNT(*) FROM " + analysisTable + " WHERE "
+                        + String.format(ANALYZED, analysisTable) + ")), "
+                        + "('" + COUNTER_SYMBOLS + "', (SELECT COUNT(*) FROM dream_symbol)), "
+                        + "('" + COUNTER_DISTINCT_SYMBOLS + "', (SELECT COUNT(DISTINCT symbol_id) FROM dream_symbol))",
+                "INSERT INTO stats_counter (name, value) SELECT '" + EMOTION_PREFIX + "' || emotion, COUNT(*) "
+                        + "FROM dreams WHERE emotion IS NOT NULL GROUP BY emotion",
+                "INSERT INTO " + timeTable(localDays) + " (" + timeKey(localDays) + ", count) "
+                        + "SELECT " + timeOf(localDays, "dreams") + ", COUNT(*) FROM dreams GROUP BY 1"
+        };
+    }
+
+    // Вклад одной строки dreams во все счетчики со знаком sign
+    private static String dreamDelta(String row, String sign, boolean analysisInDreams, boolean localDays) {
+        String table = timeTable(localDays);
+        String key = timeKey(localDays);
+        String time = timeOf(localDays, row);
+        return add("'" + COUNTER_DREAMS + "'", sign)
+                + (analysisInDreams
+                ? add("'" + COUNTER_ANALYZED_DREAMS + "'", sign + " * " + String.format(ANALYZED, row)) : "")
+                + "INSERT OR IGNORE INTO stats_counter (name, value) "
+                + "SELECT '" + EMOTION_PREFIX + "' || " + row + ".emotion, 0 WHERE " + row + ".emotion IS NOT NULL; "
+                + "UPDATE stats_counter SET value = value + " + sign + " "
+                + "WHERE name = '" + EMOTION_PREFIX + "' || " + row + ".emotion; "
+                + "INSERT OR IGNORE INTO " + table + " (" + key + ", count) VALUES (" + time + ", 0); "
+                + "UPDATE " + table + " SET count = count + " + sign + " WHERE " + key + " = " + time + "; ";
+    }
+
+    private static String timeTable(boolean localDays) {
+        return localDays ? "stats_day" : "stats_slot";
+    }
+
+    private static String timeKey(boolean localDays) {
+        return localDays ? "day" : "slot";
+    }
+
+    private static String timeOf(boolean localDays, String row) {
+        return String.format(localDays ? DAY : SLOT, row);
+    }
+
+    // UPSERT без ON CONFLICT: он появился в SQLite 3.24, а на старых версиях Android его нет
+    private static String add(String name, String delta) {
+        return "INSERT OR IGNORE INTO stats_counter (name, value) VALUES (" + name + ", 0); "
+                + "UPDATE stats_counter SET value = value + (" + delta + ") WHERE name = " + name + "; ";
+    }
+}
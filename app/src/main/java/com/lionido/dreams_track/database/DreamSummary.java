@@ -0,0 +1,16 @@
+package com.lionido.dreams_track.database;
+
+/**
+ * Строка списка истории: только то, что видно в списке. Текст обрезается в SQL,
+ * символы считаются по dream_symbol, поэтому большие колонки и JSON символов не читаются.
+ */
+public class DreamSummary {
+    // Длина фрагмента в списке; запрос отдает на один символ больше, чтобы было видно, что текст длиннее
+    public static final int SNIPPET_LENGTH = 50;
+
+    public int id;
+    public long timestamp;
+    public String emotion;
+    public String snippet;
+    public int symbolCount;
+}
@@ -0,0 +1,40 @@
+package com.lionido.dreams_track.database;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+/**
+ * Связь сна с символом. Время сна продублировано из dreams, чтобы выборки за период шли по индексу.
+ * Индекс по dream_id не нужен: он первый в первичном ключе.
+ */
+@Entity(tableName = "dream_symbol",
+        primaryKeys = {"dream_id", "symbol_id"},
+        foreignKeys = {
+                @ForeignKey(entity = DreamEntity.class, parentColumns = "id", childColumns = "dream_id",
+                        onDelete = ForeignKey.CASCADE),
+                @ForeignKey(entity = SymbolEntity.class, parentColumns = "id", childColumns = "symbol_id")
+        },
+        indices = {
+                @Index("symbol_id"),
+                @Index({"timestamp", "symbol_id"})
+        })
+public class DreamSymbolEntity {
+    @ColumnInfo(name = "dream_id")
+    private int dreamId;
+
+    @ColumnInfo(name = "symbol_id")
+    private int symbolId;
+
+    private long timestamp;
+
+    public int getDreamId() { return dreamId; }
+    public void setDreamId(int dreamId) { this.dreamId = dreamId; }
+
+    public int getSymbolId() { return symbolId; }
+    public void setSymbolId(int symbolId) { this.symbolId = symbolId; }
+
+    public long getTimestamp() { return timestamp; }
+    public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
+}
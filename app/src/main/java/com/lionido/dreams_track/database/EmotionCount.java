@@ -0,0 +1,9 @@
+package com.lionido.dreams_track.database;
+
+/**
+ * Число снов с эмоцией, результат {@link StatsDao#getEmotionCounts()}.
+ */
+public class EmotionCount {
+    public String emotion;
+    public long count;
+}
@@ -0,0 +1,40 @@
+package com.lionido.dreams_track.database;
+
+import com.lionido.dreams_track.model.Symbol;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Список символов сна, прочитанный из базы: хранит только id, символы берутся из общего источника
+ * при обращении к элементу. Список неизменяем, символы разделяются между снами и не должны изменяться.
+ */
+public final class EncodedSymbolList extends AbstractList<Symbol> implements RandomAccess {
+    private final int[] ids;
+    private final SymbolCodec.SymbolSource symbols;
+
+    public EncodedSymbolList(int[] ids, SymbolCodec.SymbolSource symbols) {
+        this.ids = ids;
+        this.symbols = symbols;
+    }
+
+    @Override
+    public Symbol get(int index) {
+        if (index < 0 || index >= ids.length) {
+            throw new IndexOutOfBoundsException("Индекс " + index + ", размер " + ids.length);
+        }
+        return symbols.getSymbol(ids[index]);
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Повторно кодирует список без обращения к базе, если его символы взяты из того же источника.
+     */
+    byte[] encodeIfBackedBy(SymbolCodec.SymbolSource source) {
+        return source == symbols ? SymbolCodec.encode(ids, ids.length) : null;
+    }
+}
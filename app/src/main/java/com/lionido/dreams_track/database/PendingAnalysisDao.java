@@ -0,0 +1,35 @@
+package com.lionido.dreams_track.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.lionido.dreams_track.utils.PendingAnalysisWorker;
+
+import java.util.List;
+
+/**
+ * Очередь отложенных анализов LLM (см. {@link PendingAnalysisStore}).
+ */
+@Dao
+public interface PendingAnalysisDao {
+    // Сон, уже стоящий в очереди, сохраняет свои попытки и время
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void enqueue(PendingAnalysisEntity job);
+
+    @Query("SELECT p.dream_id AS dreamId, d.text AS text, p.attempts AS attempts "
+            + "FROM pending_analysis p JOIN dreams d ON d.id = p.dream_id "
+            + "WHERE p.next_attempt_at <= :now ORDER BY p.next_attempt_at LIMIT :limit")
+    List<PendingAnalysisWorker.Job> getDue(long now, int limit);
+
+    @Query("SELECT MIN(next_attempt_at) FROM pending_analysis")
+    Long getNextAttemptAt();
+
+    @Query("UPDATE pending_analysis SET attempts = :attempts, next_attempt_at = :nextAttemptAt, "
+            + "last_error = :error WHERE dream_id = :dreamId")
+    void reschedule(int dreamId, int attempts, long nextAttemptAt, String error);
+
+    @Query("DELETE FROM pending_analysis WHERE dream_id = :dreamId")
+    void delete(int dreamId);
+}
@@ -0,0 +1,58 @@
+package com.lionido.dreams_track.database;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Сон, ожидающий анализа LLM (см. PendingAnalysisWorker). Удаляется вместе со сном; индекс по
+ * next_attempt_at нужен выборке готовых заданий и поиску ближайшего.
+ */
+@Entity(tableName = "pending_analysis",
+        foreignKeys = @ForeignKey(entity = DreamEntity.class, parentColumns = "id", childColumns = "dream_id",
+                onDelete = ForeignKey.CASCADE),
+        indices = {@Index("next_attempt_at")})
+public class PendingAnalysisEntity {
+    @PrimaryKey
+    @ColumnInfo(name = "dream_id")
+    private int dreamId;
+
+    private int attempts;
+
+    @ColumnInfo(name = "next_attempt_at")
+    private long nextAttemptAt;
+
+    @ColumnInfo(name = "created_at")
+    private long createdAt;
+
+    @ColumnInfo(name = "last_error")
+    private String lastError;
+
+    public PendingAnalysisEntity() {
+    }
+
+    @Ignore
+    public PendingAnalysisEntity(int dreamId, long now) {
+        this.dreamId = dreamId;
+        this.nextAttemptAt = now;
+        this.createdAt = now;
+    }
+
+    public int getDreamId() { return dreamId; }
+    public void setDreamId(int dreamId) { this.dreamId = dreamId; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public long getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(long nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+}
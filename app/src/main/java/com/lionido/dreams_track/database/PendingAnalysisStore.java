@@ -0,0 +1,87 @@
+package com.lionido.dreams_track.database;
+
+import com.lionido.dreams_track.utils.OpenRouterAnalyzer;
+import com.lionido.dreams_track.utils.PendingAnalysisWorker;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Хранилище очереди {@link PendingAnalysisWorker} в таблице pending_analysis. Готовый анализ
+ * записывается в сон и снимается с очереди одной транзакцией.
+ */
+public class PendingAnalysisStore implements PendingAnalysisWorker.Store {
+    private final AppDatabase database;
+    private final PendingAnalysisDao queueDao;
+    private final DreamDao dreamDao;
+
+    public PendingAnalysisStore(AppDatabase database) {
+        this.database = database;
+        this.queueDao = database.pendingAnalysisDao();
+        this.dreamDao = database.dreamDao();
+    }
+
+    public void enqueue(int dreamId, long now) {
+        queueDao.enqueue(new PendingAnalysisEntity(dreamId, now));
+    }
+
+    @Override
+    public List<PendingAnalysisWorker.Job> getDue(long now, int limit) {
+        return queueDao.getDue(now, limit);
+    }
+
+    @Override
+    public Long getNextAttemptAt() {
+        return queueDao.getNextAttemptAt();
+    }
+
+    @Override
+    public boolean complete(PendingAnalysisWorker.Job job, OpenRouterAnalyzer.DreamAnalysisResult result) {
+        return database.runInTransaction(() -> {
+            DreamEntity dream = dreamDao.getDreamById(job.dreamId);
+            // Сон могли удалить, пока шел запрос; тогда и задания уже нет
+            if (dream == null) {
+                return true;
+            }
+            // Текст изменили, пока шел запрос: анализ устарел, задание остается и уйдет с новым текстом
+            if (!Objects.equals(dream.getText(), job.text)) {
+                return false;
+            }
+            dreamDao.saveAnalysis(new DreamAnalysisEntity(job.dreamId, result.interpretation,
+                    joinAnalysis(result.personalGrowth, result.actionableAdvice)));
+            // Пустой список символов не затирает найденные локально, эмоция записывается в любом случае
+            if (!result.symbols.isEmpty()) {
+                dreamDao.updateAnalysis(job.dreamId, result.symbols, result.emotion);
+            } else {
+                dreamDao.updateEmotion(job.dreamId, result.emotion);
+            }
+            queueDao.delete(job.dreamId);
+            return true;
+        });
+    }
+
+    @Override
+    public void retryLater(int dreamId, int attempts, long nextAttemptAt, String error) {
+        queueDao.reschedule(dreamId, attempts, nextAttemptAt, error);
+    }
+
+    @Override
+    public void remove(int dreamId) {
+        queueDao.delete(dreamId);
+    }
+
+    // Текст анализа для экрана сна: личностный рост и рекомендации
+    public static String joinAnalysis(String personalGrowth, String actionableAdvice) {
+        StringBuilder analysis = new StringBuilder();
+        if (personalGrowth != null && !personalGrowth.isEmpty()) {
+            analysis.append(personalGrowth);
+        }
+        if (actionableAdvice != null && !actionableAdvice.isEmpty()) {
+            if (analysis.length() > 0) {
+                analysis.append("\n\n");
+            }
+            analysis.append(actionableAdvice);
+        }
+        return analysis.toString();
+    }
+}
@@ -0,0 +1,39 @@
+package com.lionido.dreams_track.database;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Эмоции снов и число снов по дням за последние дни для главного экрана,
+ * результат {@link DreamRepository#getRecentStatistics()}.
+ */
+public class RecentStatistics {
+    public static final int DAYS = 7;
+
+    // По убыванию числа снов
+    public final List<EmotionCount> emotions;
+    // Ключ — локальная дата YYYY-MM-DD с {@link #from} по {@link #to}; дни без снов пропущены
+    public final Map<String, Integer> dailyCounts;
+    public final LocalDate from;
+    public final LocalDate to;
+
+    RecentStatistics(List<EmotionCount> emotions, Map<String, Integer> dailyCounts, LocalDate from, LocalDate to) {
+        this.emotions = emotions;
+        this.dailyCounts = dailyCounts;
+        this.from = from;
+        this.to = to;
+    }
+
+    public int getRecentDreams() {
+        int total = 0;
+        for (int count : dailyCounts.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    public int getDreamsOn(LocalDate day) {
+        return dailyCounts.getOrDefault(day.toString(), 0);
+    }
+}
@@ -0,0 +1,24 @@
+package com.lionido.dreams_track.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Счетчик статистики по имени. Значения поддерживают триггеры из {@link DreamStats}, приложение их только читает.
+ */
+@Entity(tableName = "stats_counter")
+public class StatsCounterEntity {
+    @PrimaryKey
+    @NonNull
+    private String name = "";
+
+    private long value;
+
+    @NonNull
+    public String getName() { return name; }
+    public void setName(@NonNull String name) { this.name = name; }
+
+    public long getValue() { return value; }
+    public void setValue(long value) { this.value = value; }
+}
@@ -0,0 +1,40 @@
+package com.lionido.dreams_track.database;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * Чтение статистики, которую поддерживают триггеры {@link DreamStats}. Каждый запрос — поиск по первичному ключу.
+ */
+@Dao
+public interface StatsDao {
+    String STATISTICS_QUERY = "SELECT "
+            + "COALESCE((SELECT value FROM stats_counter WHERE name = '" + DreamStats.COUNTER_DREAMS + "'), 0) "
+            + "AS totalDreams, "
+            + "COALESCE((SELECT value FROM stats_counter WHERE name = '" + DreamStats.COUNTER_ANALYZED_DREAMS + "'), 0) "
+            + "AS analyzedDreams, "
+            + "COALESCE((SELECT value FROM stats_counter WHERE name = '" + DreamStats.COUNTER_SYMBOLS + "'), 0) "
+            + "AS totalSymbols, "
+            + "COALESCE((SELECT value FROM stats_counter WHERE name = '" + DreamStats.COUNTER_DISTINCT_SYMBOLS + "'), 0) "
+            + "AS distinctSymbols";
+
+    @Query(STATISTICS_QUERY)
+    DreamStatistics getStatistics();
+
+    // Пересчитывается, только когда меняются счетчики
+    @Query(STATISTICS_QUERY)
+    LiveData<DreamStatistics> observeStatistics();
+
+    // Счетчики эмоций лежат подряд в первичном ключе: ';' следует за ':'
+    @Query("SELECT substr(name, length('" + DreamStats.EMOTION_PREFIX + "') + 1) AS emotion, value AS count "
+            + "FROM stats_counter WHERE name >= '" + DreamStats.EMOTION_PREFIX + "' AND name < 'emotion;' "
+            + "AND value > 0 ORDER BY value DESC")
+    List<EmotionCount> getEmotionCounts();
+
+    // Номера слотов UTC, границы включительно. По дням раскладывает DreamStats.getDailyCounts
+    @Query("SELECT * FROM stats_slot WHERE slot BETWEEN :fromSlot AND :toSlot AND count > 0 ORDER BY slot")
+    List<StatsSlotEntity> getSlotCounts(long fromSlot, long toSlot);
+}
@@ -0,0 +1,22 @@
+package com.lionido.dreams_track.database;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Число снов в 15-минутном слоте UTC. Поддерживается триггерами из {@link DreamStats},
+ * по дням раскладывается в {@link DreamStats#getDailyCounts}.
+ */
+@Entity(tableName = "stats_slot")
+public class StatsSlotEntity {
+    @PrimaryKey
+    private long slot;
+
+    private int count;
+
+    public long getSlot() { return slot; }
+    public void setSlot(long slot) { this.slot = slot; }
+
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
+}
@@ -0,0 +1,87 @@
+package com.lionido.dreams_track.database;
+
+import com.lionido.dreams_track.model.Symbol;
+
+/**
+ * Двоичный формат колонки symbols таблицы dreams: байт версии и id строк symbol_entry в виде varint
+ * (7 бит на байт, старший бит — продолжение). Id до 127 занимают один байт, до 16383 — два,
+ * вместо сотен байт JSON с текстом толкования на каждый символ.
+ */
+public final class SymbolCodec {
+    public static final int FORMAT_VERSION = 1;
+
+    /**
+     * Символы по id строки symbol_entry.
+     */
+    public interface SymbolSource {
+        Symbol getSymbol(int id);
+    }
+
+    private SymbolCodec() {
+    }
+
+    public static byte[] encode(int[] ids, int count) {
+        int size = 1;
+        for (int i = 0; i < count; i++) {
+            size += varintSize(ids[i]);
+        }
+        byte[] data = new byte[size];
+        data[0] = FORMAT_VERSION;
+        int pos = 1;
+        for (int i = 0; i < count; i++) {
+            int value = ids[i];
+            while ((value & ~0x7F) != 0) {
+                data[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[pos++] = (byte) value;
+        }
+        return data;
+    }
+
+    /**
+     * Разбирает id за один проход; число элементов известно заранее, поэтому выделяется только массив результата.
+     */
+    public static int[] decode(byte[] data) {
+        if (data.length == 0 || data[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Неподдерживаемый формат списка символов");
+        }
+        // Каждое число заканчивается байтом без бита продолжения
+        int count = 0;
+        for (int i = 1; i < data.length; i++) {
+            if (data[i] >= 0) {
+                count++;
+            }
+        }
+        if (data.length > 1 && data[data.length - 1] < 0) {
+            throw new IllegalArgumentException("Список символов обрезан");
+        }
+
+        int[] ids = new int[count];
+        int pos = 1;
+        for (int i = 0; i < count; i++) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (shift > 28) {
+                    throw new IllegalArgumentException("Слишком длинный id символа");
+                }
+                b = data[pos++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            ids[i] = value;
+        }
+        return ids;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
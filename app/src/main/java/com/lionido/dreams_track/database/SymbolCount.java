@@ -0,0 +1,10 @@
+package com.lionido.dreams_track.database;
+
+/**
+ * Число снов с символом, результат агрегирующих запросов {@link SymbolDao}.
+ */
+public class SymbolCount {
+    public String keyword;
+    public String code;
+    public int count;
+}
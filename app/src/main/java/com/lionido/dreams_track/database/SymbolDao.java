@@ -0,0 +1,45 @@
+package com.lionido.dreams_track.database;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * Статистика по символам снов. Подсчет идет в базе по таблице dream_symbol, сами сны не загружаются.
+ */
+@Dao
+public interface SymbolDao {
+    @Query("SELECT symbol.keyword AS keyword, symbol.code AS code, COUNT(*) AS count "
+            + "FROM dream_symbol JOIN symbol ON symbol.id = dream_symbol.symbol_id "
+            + "GROUP BY dream_symbol.symbol_id ORDER BY count DESC")
+    List<SymbolCount> getSymbolCounts();
+
+    @Query("SELECT symbol.keyword AS keyword, symbol.code AS code, COUNT(*) AS count "
+            + "FROM dream_symbol JOIN symbol ON symbol.id = dream_symbol.symbol_id "
+            + "JOIN dreams ON dreams.id = dream_symbol.dream_id "
+            + "WHERE dreams.emotion = :emotion "
+            + "GROUP BY dream_symbol.symbol_id ORDER BY count DESC")
+    List<SymbolCount> getSymbolCountsByEmotion(String emotion);
+
+    // Границы периода включительно, в миллисекундах
+    @Query("SELECT symbol.keyword AS keyword, symbol.code AS code, COUNT(*) AS count "
+            + "FROM dream_symbol JOIN symbol ON symbol.id = dream_symbol.symbol_id "
+            + "WHERE dream_symbol.timestamp BETWEEN :from AND :to "
+            + "GROUP BY dream_symbol.symbol_id ORDER BY count DESC")
+    List<SymbolCount> getSymbolCountsBetween(long from, long to);
+
+    @Query("SELECT symbol.keyword AS keyword, symbol.code AS code, COUNT(*) AS count "
+            + "FROM dream_symbol JOIN symbol ON symbol.id = dream_symbol.symbol_id "
+            + "JOIN dreams ON dreams.id = dream_symbol.dream_id "
+            + "WHERE dream_symbol.timestamp BETWEEN :from AND :to AND dreams.emotion = :emotion "
+            + "GROUP BY dream_symbol.symbol_id ORDER BY count DESC")
+    List<SymbolCount> getSymbolCountsBetween(long from, long to, String emotion);
+
+    // keyword в виде SymbolEntity.normalizeKeyword
+    @Query("SELECT dreams.* FROM dream_symbol "
+            + "JOIN symbol ON symbol.id = dream_symbol.symbol_id "
+            + "JOIN dreams ON dreams.id = dream_symbol.dream_id "
+            + "WHERE symbol.keyword = :keyword ORDER BY dream_symbol.timestamp DESC")
+    List<DreamEntity> getDreamsWithSymbol(String keyword);
+}
@@ -0,0 +1,43 @@
+package com.lionido.dreams_track.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import java.util.Locale;
+
+/**
+ * Справочник символов, встречавшихся в снах. Один символ на ключевое слово.
+ */
+@Entity(tableName = "symbol", indices = {@Index(value = "keyword", unique = true)})
+public class SymbolEntity {
+    @PrimaryKey(autoGenerate = true)
+    private int id;
+
+    @NonNull
+    private String keyword = "";
+
+    private String code;
+
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    @NonNull
+    public String getKeyword() { return keyword; }
+    public void setKeyword(@NonNull String keyword) { this.keyword = keyword; }
+
+    public String getCode() { return code; }
+    public void setCode(String code) { this.code = code; }
+
+    /**
+     * Ключевое слово в том виде, в котором оно хранится в справочнике, или null для пустого.
+     */
+    public static String normalizeKeyword(String keyword) {
+        if (keyword == null) {
+            return null;
+        }
+        String normalized = keyword.trim().toLowerCase(Locale.ROOT);
+        return normalized.isEmpty() ? null : normalized;
+    }
+}
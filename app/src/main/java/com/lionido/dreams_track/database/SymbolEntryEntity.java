@@ -0,0 +1,52 @@
+package com.lionido.dreams_track.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Символ, на который ссылаются списки символов снов. Каждый различный символ — словарный или
+ * предложенный LLM — хранится один раз; строки только добавляются и не изменяются.
+ * Пустые поля хранятся как "", чтобы уникальный индекс находил совпадения.
+ */
+@Entity(tableName = "symbol_entry",
+        indices = {@Index(value = {"keyword", "code", "interpretation", "emotion", "archetype"}, unique = true)})
+public class SymbolEntryEntity {
+    @PrimaryKey(autoGenerate = true)
+    private int id;
+
+    @NonNull
+    private String keyword = "";
+    @NonNull
+    private String code = "";
+    @NonNull
+    private String interpretation = "";
+    @NonNull
+    private String emotion = "";
+    @NonNull
+    private String archetype = "";
+
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    @NonNull
+    public String getKeyword() { return keyword; }
+    public void setKeyword(@NonNull String keyword) { this.keyword = keyword; }
+
+    @NonNull
+    public String getCode() { return code; }
+    public void setCode(@NonNull String code) { this.code = code; }
+
+    @NonNull
+    public String getInterpretation() { return interpretation; }
+    public void setInterpretation(@NonNull String interpretation) { this.interpretation = interpretation; }
+
+    @NonNull
+    public String getEmotion() { return emotion; }
+    public void setEmotion(@NonNull String emotion) { this.emotion = emotion; }
+
+    @NonNull
+    public String getArchetype() { return archetype; }
+    public void setArchetype(@NonNull String archetype) { this.archetype = archetype; }
+}
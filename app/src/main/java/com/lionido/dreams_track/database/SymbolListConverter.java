@@ -0,0 +1,46 @@
+package com.lionido.dreams_track.database;
+
+import androidx.room.ProvidedTypeConverter;
+import androidx.room.TypeConverter;
+
+import com.lionido.dreams_track.model.Symbol;
+
+import java.util.List;
+
+/**
+ * Колонка symbols таблицы dreams в формате {@link SymbolCodec}. При чтении символы не создаются:
+ * список хранит id, а объекты берет из {@link SymbolTable}.
+ */
+@ProvidedTypeConverter
+public class SymbolListConverter {
+    private final SymbolTable symbolTable;
+
+    public SymbolListConverter(SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+    }
+
+    @TypeConverter
+    public byte[] fromSymbolList(List<Symbol> symbols) {
+        if (symbols == null) {
+            return null;
+        }
+        // Список, прочитанный из базы, записывается обратно без поиска символов
+        if (symbols instanceof EncodedSymbolList) {
+            byte[] data = ((EncodedSymbolList) symbols).encodeIfBackedBy(symbolTable);
+            if (data != null) {
+                return data;
+            }
+        }
+        return symbolTable.encode(symbols);
+    }
+
+    @TypeConverter
+    public List<Symbol> toSymbolList(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        // Недостающие символы читаются здесь, в потоке запроса, чтобы обращение к списку не шло в базу
+        int[] ids = symbolTable.load(SymbolCodec.decode(data));
+        return new EncodedSymbolList(ids, symbolTable);
+    }
+}
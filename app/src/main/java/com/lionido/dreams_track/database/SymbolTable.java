@@ -0,0 +1,149 @@
+package com.lionido.dreams_track.database;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.lionido.dreams_track.model.Symbol;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Таблица symbol_entry и кэш ее строк на весь процесс. Строки не изменяются, поэтому прочитанный символ
+ * остается верным, а все сны с ним получают один и тот же объект. В кэш попадают только строки,
+ * прочитанные из базы, то есть уже закоммиченные.
+ * Запросы к базе выполняются без блокировок: запись сна может ждать соединение, занятое чтением.
+ */
+public class SymbolTable implements SymbolCodec.SymbolSource {
+    // SQL совпадает с тем, что Room генерирует для SymbolEntryEntity
+    public static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS `symbol_entry` "
+            + "(`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `keyword` TEXT NOT NULL, `code` TEXT NOT NULL, "
+            + "`interpretation` TEXT NOT NULL, `emotion` TEXT NOT NULL, `archetype` TEXT NOT NULL)";
+    public static final String CREATE_INDEX_SQL = "CREATE UNIQUE INDEX IF NOT EXISTS "
+            + "`index_symbol_entry_keyword_code_interpretation_emotion_archetype` "
+            + "ON `symbol_entry` (`keyword`, `code`, `interpretation`, `emotion`, `archetype`)";
+
+    private static final String FIND_SQL = "SELECT id FROM symbol_entry WHERE keyword = ? AND code = ? "
+            + "AND interpretation = ? AND emotion = ? AND archetype = ?";
+    private static final String[] COLUMNS = {"keyword", "code", "interpretation", "emotion", "archetype"};
+
+    private final Map<Integer, Symbol> byId = new ConcurrentHashMap<>();
+    private volatile SupportSQLiteDatabase database;
+
+    /**
+     * Подключает таблицу к открытой базе: при открытии из Room или внутри миграции.
+     */
+    public void attach(SupportSQLiteDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public Symbol getSymbol(int id) {
+        return byId.get(id);
+    }
+
+    /**
+     * Кодирует список символов; новые символы добавляются в symbol_entry.
+     * Вызывается при записи сна, в той же транзакции.
+     */
+    public byte[] encode(List<Symbol> symbols) {
+        int[] ids = new int[symbols.size()];
+        int count = 0;
+        for (Symbol symbol : symbols) {
+            if (symbol != null) {
+                ids[count++] = idOf(symbol);
+            }
+        }
+        return SymbolCodec.encode(ids, count);
+    }
+
+    /**
+     * Читает в кэш символы, которых в нем еще нет. Возвращает id без строк в таблице отброшенными,
+     * чтобы список сна не содержал null.
+     */
+    public int[] load(int[] ids) {
+        int missing = 0;
+        for (int id : ids) {
+            if (!byId.containsKey(id)) {
+                missing++;
+            }
+        }
+        if (missing == 0) {
+            return ids;
+        }
+
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, keyword, code, interpretation, emotion, archetype FROM symbol_entry WHERE id IN (");
+        Object[] args = new Object[missing];
+        int arg = 0;
+        for (int id : ids) {
+            if (!byId.containsKey(id)) {
+                sql.append(arg == 0 ? "?" : ", ?");
+                args[arg++] = id;
+            }
+        }
+        sql.append(')');
+        try (Cursor cursor = requireDatabase().query(sql.toString(), args)) {
+            while (cursor.moveToNext()) {
+                byId.put(cursor.getInt(0), new Symbol(cursor.getString(1), cursor.getString(2),
+                        cursor.getString(3), cursor.getString(4), cursor.getString(5)));
+            }
+        }
+
+        int found = 0;
+        int[] known = new int[ids.length];
+        for (int id : ids) {
+            if (byId.containsKey(id)) {
+                known[found++] = id;
+            }
+        }
+        return found == ids.length ? ids : Arrays.copyOf(known, found);
+    }
+
+    private int idOf(Symbol symbol) {
+        String[] key = {
+                valueOf(symbol.getKeyword()),
+                valueOf(symbol.getSymbol()),
+                valueOf(symbol.getInterpretation()),
+                valueOf(symbol.getEmotion()),
+                valueOf(symbol.getArchetype())
+        };
+        SupportSQLiteDatabase db = requireDatabase();
+        int id = find(db, key);
+        if (id == 0) {
+            ContentValues values = new ContentValues();
+            for (int i = 0; i < COLUMNS.length; i++) {
+                values.put(COLUMNS[i], key[i]);
+            }
+            long rowId = db.insert("symbol_entry", SQLiteDatabase.CONFLICT_IGNORE, values);
+            // -1: тот же символ успел добавить другой поток
+            id = rowId != -1 ? (int) rowId : find(db, key);
+        }
+        // В кэш не кладем: транзакцию записи могут откатить, и тогда этот id достанется другому символу.
+        // Строку прочитает load() при первом чтении сна
+        return id;
+    }
+
+    private static int find(SupportSQLiteDatabase db, Object[] key) {
+        try (Cursor cursor = db.query(FIND_SQL, key)) {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+    }
+
+    private SupportSQLiteDatabase requireDatabase() {
+        SupportSQLiteDatabase db = database;
+        if (db == null) {
+            throw new IllegalStateException("Таблица символов не подключена к базе");
+        }
+        return db;
+    }
+
+    private static String valueOf(String value) {
+        return value != null ? value : "";
+    }
+}
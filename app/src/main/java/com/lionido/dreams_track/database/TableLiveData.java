@@ -0,0 +1,135 @@
+package com.lionido.dreams_track.database;
+
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.room.InvalidationTracker;
+import androidx.room.RoomDatabase;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * LiveData с результатом вычисления над несколькими запросами, которое пересчитывается при изменении таблиц.
+ * Работает как LiveData из DAO Room: без активных наблюдателей изменение только отмечается,
+ * пересчет выполняется один раз, когда экран снова становится видимым.
+ * Подписка на InvalidationTracker не снимается, поэтому экземпляры должны жить в репозитории, а не в экране.
+ * Ошибка пересчета не роняет процесс: остается прежнее значение, а ошибка публикуется в {@link #getError()}
+ * как одноразовое событие.
+ */
+public class TableLiveData<T> extends LiveData<T> {
+
+    private static final String TAG = "TableLiveData";
+
+    private final RoomDatabase database;
+    private final Executor executor;
+    private final Callable<T> compute;
+    private final InvalidationTracker.Observer observer;
+    private final MutableLiveData<Exception> error = new MutableLiveData<>();
+
+    private final AtomicBoolean invalid = new AtomicBoolean(true);
+    private final AtomicBoolean computing = new AtomicBoolean(false);
+    private final AtomicBoolean registered = new AtomicBoolean(false);
+    // В error лежит еще не показанная ошибка; флаг избавляет фоновый поток от чтения error.getValue()
+    private final AtomicBoolean errorPending = new AtomicBoolean(false);
+
+    private final Runnable refresh = this::refresh;
+
+    public TableLiveData(RoomDatabase database, Callable<T> compute, String... tables) {
+        this.database = database;
+        this.executor = database.getQueryExecutor();
+        this.compute = compute;
+        this.observer = new InvalidationTracker.Observer(tables) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> changed) {
+                invalid.set(true);
+                if (hasActiveObservers()) {
+                    executor.execute(refresh);
+                }
+            }
+        };
+    }
+
+    /**
+     * Ошибка пересчета, еще не показанная пользователю; null, если ее нет или следующий пересчет прошел успешно.
+     * Показав ошибку, экран вызывает {@link #clearError()}, иначе она придет снова при повторной подписке.
+     */
+    public LiveData<Exception> getError() {
+        return error;
+    }
+
+    /**
+     * Отмечает ошибку показанной.
+     */
+    @MainThread
+    public void clearError() {
+        errorPending.set(false);
+        error.setValue(null);
+    }
+
+    /**
+     * Пересчитывает значение, хотя таблицы не менялись: для вычислений, которые зависят от текущей даты.
+     */
+    public void invalidate() {
+        invalid.set(true);
+        if (hasActiveObservers()) {
+            executor.execute(refresh);
+        }
+    }
+
+    @Override
+    protected void onActive() {
+        executor.execute(refresh);
+    }
+
+    private void refresh() {
+        // Подписка открывает базу, поэтому выполняется в фоне, а не при создании
+        if (registered.compareAndSet(false, true)) {
+            database.getInvalidationTracker().addObserver(observer);
+        }
+        boolean computed;
+        do {
+            computed = false;
+            if (!computing.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                T value = null;
+                Exception failure = null;
+                // Несколько изменений подряд дают один пересчет
+                while (invalid.compareAndSet(true, false)) {
+                    computed = true;
+                    try {
+                        value = compute.call();
+                        failure = null;
+                    } catch (Exception e) {
+                        failure = e;
+                    }
+                }
+                if (failure != null) {
+                    // Исключение в потоке запросов Room завершило бы процесс. Данные остаются прежними,
+                    // пересчет повторится при следующем изменении таблиц или показе экрана
+                    Log.e(TAG, "Ошибка пересчета данных", failure);
+                    invalid.set(true);
+                    errorPending.set(true);
+                    error.postValue(failure);
+                    return;
+                }
+                if (computed) {
+                    postValue(value);
+                    if (errorPending.compareAndSet(true, false)) {
+                        error.postValue(null);
+                    }
+                }
+            } finally {
+                computing.set(false);
+            }
+            // Изменение могло прийти, пока шел пересчет, и его обработчик вышел, увидев computing
+        } while (computed && invalid.get());
+    }
+}
@@ -0,0 +1,88 @@
+package com.lionido.dreams_track.database;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Сжатие длинного текста для хранения в BLOB. Первый байт — формат: текст в UTF-8 как есть или сжатый
+ * deflate. Короткий текст, который сжатие не уменьшает, хранится как есть.
+ */
+public final class TextCompression {
+    public static final byte FORMAT_PLAIN = 0;
+    public static final byte FORMAT_DEFLATE = 1;
+
+    private TextCompression() {
+    }
+
+    /**
+     * @return данные для колонки или null для пустого текста
+     */
+    public static byte[] compress(String text) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(utf8);
+            deflater.finish();
+            // Сжатие больше исходного не нужно: тогда сохраняем текст как есть
+            byte[] buffer = new byte[utf8.length];
+            int length = 0;
+            while (!deflater.finished() && length < buffer.length) {
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            if (deflater.finished() && length < utf8.length) {
+                return withFormat(FORMAT_DEFLATE, buffer, length);
+            }
+        } finally {
+            deflater.end();
+        }
+        return withFormat(FORMAT_PLAIN, utf8, utf8.length);
+    }
+
+    /**
+     * @throws IllegalArgumentException если данные повреждены или записаны в неизвестном формате
+     */
+    public static String decompress(byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        if (data[0] == FORMAT_PLAIN) {
+            return new String(data, 1, data.length - 1, StandardCharsets.UTF_8);
+        }
+        if (data[0] != FORMAT_DEFLATE) {
+            throw new IllegalArgumentException("Неизвестный формат сжатого текста: " + data[0]);
+        }
+
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data, 1, data.length - 1);
+            ByteArrayOutputStream utf8 = new ByteArrayOutputStream(data.length * 3);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Сжатый текст обрезан");
+                }
+                utf8.write(buffer, 0, length);
+            }
+            return new String(utf8.toByteArray(), StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Сжатый текст поврежден", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] withFormat(byte format, byte[] bytes, int length) {
+        byte[] data = new byte[length + 1];
+        data[0] = format;
+        System.arraycopy(bytes, 0, data, 1, length);
+        return data;
+    }
+}
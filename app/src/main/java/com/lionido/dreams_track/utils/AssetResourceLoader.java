@@ -0,0 +1,24 @@
+package com.lionido.dreams_track.utils;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Ресурсы анализаторов из assets приложения.
+ */
+public class AssetResourceLoader implements ResourceLoader {
+
+    private final AssetManager assets;
+
+    public AssetResourceLoader(Context context) {
+        this.assets = context.getApplicationContext().getAssets();
+    }
+
+    @Override
+    public InputStream open(String name) throws IOException {
+        return assets.open(name);
+    }
+}
@@ -0,0 +1,259 @@
+package com.lionido.dreams_track.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.lionido.dreams_track.database.AppDatabase;
+import com.lionido.dreams_track.database.DreamBatchWriter;
+import com.lionido.dreams_track.database.DreamDao;
+import com.lionido.dreams_track.database.DreamEntity;
+import com.lionido.dreams_track.model.Symbol;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Повторный анализ всех снов в базе после обновления словаря или анализатора.
+ * Сны читаются страницами по id, каждая страница анализируется параллельно в ограниченном ForkJoinPool
+ * и записывается одним пакетом {@link DreamBatchWriter}. Анализ сна, текст которого изменили, пока страница
+ * анализировалась, не записывается (см. {@link DreamDao#updateAnalysisAll}). После каждой записанной страницы сохраняется контрольная точка,
+ * поэтому прерванный или отмененный проход продолжается с места остановки.
+ */
+public class DreamReanalyzer {
+    private static final String TAG = "DreamReanalyzer";
+    private static final String PREFS_NAME = "DreamPrefs";
+    private static final String PREF_CHECKPOINT = "reanalysis_checkpoint_id";
+
+    static final int PAGE_SIZE = 256;
+    // Меньшие куски страницы анализируются в текущем потоке без дальнейшего деления
+    private static final int SPLIT_THRESHOLD = 16;
+
+    public interface ProgressListener {
+        void onProgress(int processed, int total);
+
+        void onFinished(int processed, int total, boolean cancelled);
+
+        void onError(Exception e);
+    }
+
+    private static volatile DreamReanalyzer INSTANCE;
+
+    private final DreamDao dreamDao;
+    private final AppDatabase database;
+    private final SharedPreferences prefs;
+    private final NLPAnalyzer nlpAnalyzer;
+    private final SymbolAnalyzer symbolAnalyzer;
+    private final EmotionDetector emotionDetector;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+    private volatile ProgressListener listener;
+
+    private DreamReanalyzer(Context context) {
+        this(AppDatabase.getDatabase(context.getApplicationContext()),
+                context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE),
+                new AssetResourceLoader(context.getApplicationContext()));
+    }
+
+    // Для тестов: своя база и свое хранилище контрольной точки
+    DreamReanalyzer(AppDatabase database, SharedPreferences prefs, ResourceLoader assets) {
+        this.database = database;
+        this.prefs = prefs;
+        dreamDao = database.dreamDao();
+        nlpAnalyzer = new NLPAnalyzer(assets);
+        symbolAnalyzer = new SymbolAnalyzer(assets);
+        emotionDetector = new EmotionDetector();
+    }
+
+    public static DreamReanalyzer getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (DreamReanalyzer.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new DreamReanalyzer(context);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Слушатель вызывается из фонового потока. Его можно сменить или снять (null), пока проход идет,
+     * например при пересоздании экрана.
+     */
+    public void setProgressListener(ProgressListener listener) {
+        this.listener = listener;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Есть ли незавершенный проход, который можно продолжить.
+     */
+    public boolean hasCheckpoint() {
+        return prefs.getInt(PREF_CHECKPOINT, 0) > 0;
+    }
+
+    /**
+     * Запускает проход. При {@code resume} продолжает с контрольной точки, иначе начинает заново.
+     * Возвращает false, если проход уже идет.
+     */
+    public boolean start(boolean resume) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        cancelled.set(false);
+        if (!resume) {
+            prefs.edit().remove(PREF_CHECKPOINT).apply();
+        }
+        executor.execute(this::run);
+        return true;
+    }
+
+    /**
+     * Просит остановить проход. Уже записанные страницы сохраняются, следующий запуск с resume продолжит с них.
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    private void run() {
+        int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        int processed = 0;
+        int total = 0;
+        // Пакет — страница: полная страница записывается по счетчику, последняя неполная — явным flush
+        DreamBatchWriter writer = new DreamBatchWriter(database, PAGE_SIZE, DreamBatchWriter.DEFAULT_MAX_DELAY_MS,
+                DreamDao::updateAnalysisAll);
+        try {
+            int afterId = prefs.getInt(PREF_CHECKPOINT, 0);
+            total = dreamDao.getDreamCount();
+            processed = afterId > 0 ? dreamDao.getDreamCountUpTo(afterId) : 0;
+            notifyProgress(processed, total);
+
+            while (!cancelled.get()) {
+                List<DreamEntity> page = dreamDao.getDreamsAfter(afterId, PAGE_SIZE);
+                if (page.isEmpty()) {
+                    break;
+                }
+
+                pool.invoke(new AnalyzePageTask(page, 0, page.size()));
+                if (cancelled.get()) {
+                    // Страница могла быть проанализирована не полностью; при продолжении она пройдет заново
+                    break;
+                }
+                for (DreamEntity dream : page) {
+                    writer.write(dream);
+                }
+                // Контрольная точка сохраняется только после записи страницы
+                writer.flush();
+
+                afterId = page.get(page.size() - 1).getId();
+                prefs.edit().putInt(PREF_CHECKPOINT, afterId).apply();
+                processed += page.size();
+                notifyProgress(processed, Math.max(total, processed));
+            }
+
+            boolean wasCancelled = cancelled.get();
+            if (!wasCancelled) {
+                prefs.edit().remove(PREF_CHECKPOINT).apply();
+            }
+            Log.d(TAG, "Переанализировано снов: " + processed + " из " + total + (wasCancelled ? " (отменено)" : ""));
+
+            ProgressListener current = listener;
+            if (current != null) {
+                current.onFinished(processed, Math.max(total, processed), wasCancelled);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка повторного анализа", e);
+            ProgressListener current = listener;
+            if (current != null) {
+                current.onError(e);
+            }
+        } finally {
+            try {
+                // Остаток уже записан; close останавливает таймер и переносит WAL в базу после прохода
+                writer.close();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Ошибка завершения пакетной записи", e);
+            }
+            pool.shutdown();
+            running.set(false);
+        }
+    }
+
+    private void notifyProgress(int processed, int total) {
+        ProgressListener current = listener;
+        if (current != null) {
+            current.onProgress(processed, total);
+        }
+    }
+
+    /**
+     * Анализ одного сна: как в EditDreamActivity, расширенный анализ дополняется базовым.
+     */
+    void reanalyze(DreamEntity dream) {
+        String text = dream.getText();
+        if (text == null || text.trim().isEmpty()) {
+            return;
+        }
+
+        NLPAnalyzer.AnalysisResult result = nlpAnalyzer.analyze(text);
+        List<Symbol> symbols = result.symbols;
+        for (Symbol symbol : symbolAnalyzer.findSymbolsInText(text)) {
+            if (!containsKeyword(symbols, symbol.getKeyword())) {
+                symbols.add(symbol);
+            }
+        }
+
+        String emotion = result.emotion;
+        if (emotion.equals("neutral")) {
+            String basicEmotion = emotionDetector.detectEmotion(text);
+            if (!basicEmotion.equals("neutral")) {
+                emotion = basicEmotion;
+            }
+        }
+
+        dream.setSymbols(symbols);
+        dream.setEmotion(emotion);
+    }
+
+    private static boolean containsKeyword(List<Symbol> symbols, String keyword) {
+        for (Symbol symbol : symbols) {
+            if (symbol.getKeyword().equals(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final class AnalyzePageTask extends RecursiveAction {
+        private final List<DreamEntity> page;
+        private final int from;
+        private final int to;
+
+        AnalyzePageTask(List<DreamEntity> page, int from, int to) {
+            this.page = page;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to && !cancelled.get(); i++) {
+                    reanalyze(page.get(i));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new AnalyzePageTask(page, from, mid), new AnalyzePageTask(page, mid, to));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.lionido.dreams_track.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.widget.EditText;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Живой анализ текста сна во время набора. Слушает изменения поля ввода и после паузы в наборе
+ * передает текст {@link IncrementalAnalyzer} в фоновом потоке; результат возвращается в UI-поток.
+ * Устаревшие результаты (текст успел измениться) отбрасываются.
+ */
+public class LiveAnalysisHelper {
+
+    public static final long DEFAULT_DEBOUNCE_MS = 400;
+
+    public interface OnLiveAnalysisListener {
+        void onLiveAnalysis(IncrementalAnalyzer.Result result);
+    }
+
+    private final IncrementalAnalyzer analyzer;
+    private final long debounceMs;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Один поток: IncrementalAnalyzer хранит состояние и вызывается последовательно
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private OnLiveAnalysisListener listener;
+    private EditText editText;
+    private int generation;
+
+    private final Runnable analyzeRunnable = this::analyzeNow;
+
+    private final TextWatcher textWatcher = new TextWatcher() {
+        @Override
+        public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+        @Override
+        public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+        @Override
+        public void afterTextChanged(Editable s) {
+            scheduleAnalysis();
+        }
+    };
+
+    public LiveAnalysisHelper(NLPAnalyzer nlpAnalyzer) {
+        this(nlpAnalyzer, DEFAULT_DEBOUNCE_MS);
+    }
+
+    public LiveAnalysisHelper(NLPAnalyzer nlpAnalyzer, long debounceMs) {
+        this.analyzer = new IncrementalAnalyzer(nlpAnalyzer);
+        this.debounceMs = debounceMs;
+    }
+
+    public void setOnLiveAnalysisListener(OnLiveAnalysisListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Начинает следить за полем. Уже введенный текст не анализируется, пока его не изменят.
+     */
+    public void attach(EditText editText) {
+        detach();
+        this.editText = editText;
+        editText.addTextChangedListener(textWatcher);
+    }
+
+    public void detach() {
+        mainHandler.removeCallbacks(analyzeRunnable);
+        if (editText != null) {
+            editText.removeTextChangedListener(textWatcher);
+            editText = null;
+        }
+        generation++;
+    }
+
+    public void destroy() {
+        detach();
+        listener = null;
+        executor.shutdownNow();
+    }
+
+    private void scheduleAnalysis() {
+        // Результаты для прежних версий текста больше не нужны
+        generation++;
+        mainHandler.removeCallbacks(analyzeRunnable);
+        mainHandler.postDelayed(analyzeRunnable, debounceMs);
+    }
+
+    private void analyzeNow() {
+        if (editText == null || executor.isShutdown()) {
+            return;
+        }
+        String text = editText.getText().toString();
+        int requestGeneration = generation;
+
+        executor.execute(() -> {
+            IncrementalAnalyzer.Result result = analyzer.update(text);
+            mainHandler.post(() -> {
+                if (requestGeneration == generation && listener != null) {
+                    listener.onLiveAnalysis(result);
+                }
+            });
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package com.lionido.dreams_track.utils;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+
+import androidx.annotation.NonNull;
+
+import com.lionido.dreams_track.database.AppDatabase;
+import com.lionido.dreams_track.database.PendingAnalysisStore;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Очередь снов, запрошенный анализ LLM которых не удался при сохранении. Задания хранятся в pending_analysis и разбираются
+ * {@link PendingAnalysisWorker} при появлении сети, после запуска приложения и по таймеру повтора.
+ */
+public class PendingAnalysisQueue {
+
+    private static volatile PendingAnalysisQueue INSTANCE;
+
+    private final PendingAnalysisWorker worker;
+
+    private PendingAnalysisQueue(Context context) {
+        Context appContext = context.getApplicationContext();
+        PendingAnalysisStore store = new PendingAnalysisStore(AppDatabase.getDatabase(appContext));
+        OpenRouterAnalyzer analyzer = new OpenRouterAnalyzer(new AssetResourceLoader(appContext),
+                appContext.getFilesDir());
+        ConnectivityManager connectivity = appContext.getSystemService(ConnectivityManager.class);
+        worker = new PendingAnalysisWorker(store, analyzer, () -> isOnline(connectivity));
+
+        connectivity.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            // Сети, уже прошедшие проверку; вызовы идут из одного потока ConnectivityManager
+            private final Set<Network> validated = new HashSet<>();
+
+            @Override
+            public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities capabilities) {
+                // Остальные изменения (сила сигнала, скорость) приходят часто и очередь не касаются
+                if (!capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED)) {
+                    validated.remove(network);
+                } else if (validated.add(network)) {
+                    worker.wake();
+                }
+            }
+
+            @Override
+            public void onLost(@NonNull Network network) {
+                validated.remove(network);
+            }
+        });
+    }
+
+    public static PendingAnalysisQueue getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (PendingAnalysisQueue.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new PendingAnalysisQueue(context);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Разбирает задания, оставшиеся с прошлого запуска или только что записанные в базу
+     * через {@link PendingAnalysisStore#enqueue}.
+     */
+    public void start() {
+        worker.wake();
+    }
+
+    private static boolean isOnline(ConnectivityManager connectivity) {
+        NetworkCapabilities capabilities = connectivity.getNetworkCapabilities(connectivity.getActiveNetwork());
+        return capabilities != null
+                && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED);
+    }
+}
@@ -0,0 +1,137 @@
+package com.lionido.dreams_track.database;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Планы выполнения всех запросов @Query из DAO пакета database.
+ * Схема берется из экспорта Room ({@link ExportedSchema}), запросы — из исходников DAO.
+ * Полный просмотр таблицы запрещен; проход по индексу допустим, он нужен запросам, которые и так читают все строки.
+ */
+public class DaoQueryPlanTest {
+
+    private static final File DAO_DIR = new File("src/main/java/com/lionido/dreams_track/database");
+
+    // "SCAN dreams" в новых версиях SQLite, "SCAN TABLE dreams" в старых; без USING INDEX и VIRTUAL TABLE
+    private static final Pattern FULL_SCAN = Pattern.compile("^SCAN (TABLE )?\\S+( AS \\S+)?$");
+    private static final Pattern QUERY_ANNOTATION = Pattern.compile("@Query\\(");
+    private static final Pattern METHOD_NAME = Pattern.compile("(\\w+)\\s*\\(");
+    private static final Pattern BIND_PARAMETER = Pattern.compile(":\\w+");
+
+    private static Connection connection;
+
+    @BeforeClass
+    public static void createSchema() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        ExportedSchema.create(connection);
+    }
+
+    @AfterClass
+    public static void closeDatabase() throws SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void daoQueries_doNotScanTables() throws Exception {
+        List<String> failures = new ArrayList<>();
+        int checked = 0;
+        File[] daoFiles = DAO_DIR.listFiles((dir, name) -> name.endsWith("Dao.java"));
+        assertNotNull("Нет каталога " + DAO_DIR.getAbsolutePath(), daoFiles);
+
+        for (File daoFile : daoFiles) {
+            String source = readFile(daoFile);
+            Matcher annotation = QUERY_ANNOTATION.matcher(source);
+            while (annotation.find()) {
+                String dao = daoFile.getName().replace(".java", "");
+                int[] end = new int[1];
+                String sql = parseSql(source, annotation.end(), dao, end);
+                Matcher method = METHOD_NAME.matcher(source);
+                String name = dao + "." + (method.find(end[0]) ? method.group(1) : "?");
+
+                for (String step : queryPlan(BIND_PARAMETER.matcher(sql).replaceAll("?"))) {
+                    if (FULL_SCAN.matcher(step).matches()) {
+                        failures.add(name + ": " + step);
+                    }
+                }
+                checked++;
+            }
+        }
+
+        assertTrue("Не найдено ни одного запроса @Query", checked > 0);
+        assertTrue("Полный просмотр таблицы:\n" + String.join("\n", failures), failures.isEmpty());
+    }
+
+    private static List<String> queryPlan(String sql) throws SQLException {
+        List<String> steps = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN QUERY PLAN " + sql);
+             ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                steps.add(rows.getString("detail"));
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * Значение аннотации: строковые литералы и константы вида Class.FIELD или FIELD самого DAO, соединенные через +.
+     * В end[0] возвращается позиция после закрывающей скобки.
+     */
+    private static String parseSql(String source, int start, String dao, int[] end)
+            throws ReflectiveOperationException {
+        StringBuilder sql = new StringBuilder();
+        int i = start;
+        while (source.charAt(i) != ')') {
+            char c = source.charAt(i);
+            if (c == '"') {
+                i++;
+                while (source.charAt(i) != '"') {
+                    if (source.charAt(i) == '\\') {
+                        i++;
+                    }
+                    sql.append(source.charAt(i++));
+                }
+                i++;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int tokenStart = i;
+                while (Character.isJavaIdentifierPart(source.charAt(i)) || source.charAt(i) == '.') {
+                    i++;
+                }
+                String reference = source.substring(tokenStart, i);
+                sql.append(constant(reference.indexOf('.') < 0 ? dao + "." + reference : reference));
+            } else {
+                i++;
+            }
+        }
+        end[0] = i + 1;
+        return sql.toString();
+    }
+
+    private static Object constant(String reference) throws ReflectiveOperationException {
+        int dot = reference.lastIndexOf('.');
+        Class<?> owner = Class.forName(DaoQueryPlanTest.class.getPackage().getName() + "." + reference.substring(0, dot));
+        return owner.getField(reference.substring(dot + 1)).get(null);
+    }
+
+    private static String readFile(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
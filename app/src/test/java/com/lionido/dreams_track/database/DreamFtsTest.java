@@ -0,0 +1,87 @@
+package com.lionido.dreams_track.database;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Запрос MATCH, фрагменты и ранжирование полнотекстового поиска без базы данных.
+ */
+public class DreamFtsTest {
+
+    @Test
+    public void toMatchQuery_searchesWordStemsByPrefix() {
+        assertEquals("вод*", DreamFts.toMatchQuery("Вода"));
+        assertEquals("лета* мор*", DreamFts.toMatchQuery("летал, морем!"));
+        assertEquals("nasa* 2024*", DreamFts.toMatchQuery("NASA 2024"));
+    }
+
+    @Test
+    public void toMatchQuery_addsSpellingWithoutYo() {
+        assertEquals("ёлк* OR елк*", DreamFts.toMatchQuery("ёлки"));
+    }
+
+    @Test
+    public void toMatchQuery_ignoresFtsSyntax() {
+        assertEquals("вод* огон*", DreamFts.toMatchQuery("\"вода\" -огонь*"));
+        assertNull(DreamFts.toMatchQuery(" ,.; "));
+        assertNull(DreamFts.toMatchQuery(null));
+    }
+
+    @Test
+    public void snippet_highlightsMatchesAroundFirstHit() {
+        String text = "Мне снилось, что я долго шёл по берегу, потом плыл по тёмной воде под проливным дождём, "
+                + "а вдали горели огни маяка.";
+
+        String snippet = readable(DreamFts.snippet(text, "вода"));
+
+        assertEquals("…плыл по тёмной [воде] под проливным дождём, а вдали горели огни маяка.", snippet);
+    }
+
+    @Test
+    public void snippet_matchesYoAndYe() {
+        assertEquals("Короткий сон про [ёлку].", readable(DreamFts.snippet("Короткий сон про ёлку.", "елка")));
+    }
+
+    @Test
+    public void snippet_returnsNullWithoutMatches() {
+        assertNull(DreamFts.snippet("Короткий сон про ёлку.", "зеркало"));
+        assertNull(DreamFts.snippet(null, "зеркало"));
+    }
+
+    @Test
+    public void rank_prefersMoreHitsAndShorterTexts() {
+        List<DreamMatch> matches = Arrays.asList(
+                match(1, 1, 40),   // одно попадание в длинном тексте
+                match(2, 3, 40),   // три попадания
+                match(3, 1, 10),   // одно попадание в коротком тексте
+                match(4, 1, 40));  // как первый, но новее
+
+        assertEquals(Arrays.asList(2, 3, 4, 1), DreamFts.rank(matches, 10));
+        assertEquals(Arrays.asList(2, 3), DreamFts.rank(matches, 2));
+    }
+
+    // matchinfo 'pcnalx' для одной фразы и двух колонок (текст, интерпретация) в базе из 100 строк
+    private static DreamMatch match(int id, int hits, int length) {
+        ByteBuffer buffer = ByteBuffer.allocate(4 * (3 + 2 + 2 + 3 * 2)).order(ByteOrder.nativeOrder());
+        buffer.putInt(1).putInt(2).putInt(100);
+        buffer.putInt(30).putInt(10);       // средние длины колонок
+        buffer.putInt(length).putInt(0);    // длины колонок этой строки
+        buffer.putInt(hits).putInt(50).putInt(20);
+        buffer.putInt(0).putInt(0).putInt(0);
+
+        DreamMatch match = new DreamMatch();
+        match.id = id;
+        match.matchInfo = buffer.array();
+        return match;
+    }
+
+    private static String readable(String snippet) {
+        return snippet.replace(DreamFts.HIGHLIGHT_START, "[").replace(DreamFts.HIGHLIGHT_END, "]");
+    }
+}
@@ -0,0 +1,99 @@
+package com.lionido.dreams_track.database;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Триггеры, которые ведут копию текста сна и интерпретации из dream_analysis в dreams_fts:
+ * после любых изменений индекс совпадает с полным пересчетом {@link DreamFts#REBUILD_SQL}.
+ */
+public class DreamFtsTriggersTest {
+
+    private Connection connection;
+    private Statement statement;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        ExportedSchema.create(connection);
+        statement = connection.createStatement();
+        statement.execute("PRAGMA foreign_keys = ON");
+        for (String trigger : DreamFts.SYNC_TRIGGERS_SQL) {
+            statement.execute(trigger);
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void analysisSavedAfterDream_isSearchable() throws SQLException {
+        statement.execute("INSERT INTO dreams (id, text, timestamp) VALUES (1, 'Плыл по реке', 0)");
+        assertEquals(List.of(1), match("рек*"));
+        assertEquals(List.of(), match("вод*"));
+
+        statement.execute("INSERT INTO dream_analysis (dream_id, interpretation) VALUES (1, 'Вода — символ чувств')");
+        assertEquals(List.of(1), match("вод*"));
+
+        statement.execute("UPDATE dream_analysis SET interpretation = 'Огонь — символ перемен' WHERE dream_id = 1");
+        assertEquals(List.of(), match("вод*"));
+        assertEquals(List.of(1), match("огон*"));
+    }
+
+    @Test
+    public void changesAndCascadeDelete_matchFullRebuild() throws SQLException {
+        statement.execute("INSERT INTO dreams (id, text, timestamp) VALUES (1, 'Летал над городом', 0), "
+                + "(2, 'Плыл по реке', 0), (3, 'Горел дом', 0)");
+        statement.execute("INSERT INTO dream_analysis (dream_id, interpretation) VALUES (1, 'Свобода'), "
+                + "(2, 'Чувства'), (3, 'Перемены')");
+        statement.execute("UPDATE dreams SET text = 'Летал над морем' WHERE id = 1");
+        statement.execute("UPDATE dreams SET emotion = 'calm' WHERE id = 2");
+        statement.execute("DELETE FROM dream_analysis WHERE dream_id = 2");
+        statement.execute("DELETE FROM dreams WHERE id = 3");
+
+        assertEquals(List.of(1), match("мор*"));
+        assertEquals(List.of(), match("город*"));
+        assertEquals(List.of(), match("чувств*"));
+        assertEquals(List.of(), match("перемен*"));
+
+        List<String> indexed = rows();
+        statement.execute("DELETE FROM dreams_fts");
+        statement.execute(DreamFts.REBUILD_SQL);
+        assertEquals(indexed, rows());
+    }
+
+    private List<Integer> match(String query) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (ResultSet rows = statement.executeQuery(
+                "SELECT docid FROM dreams_fts WHERE dreams_fts MATCH '" + query + "' ORDER BY docid")) {
+            while (rows.next()) {
+                ids.add(rows.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    private List<String> rows() throws SQLException {
+        List<String> values = new ArrayList<>();
+        try (ResultSet rows = statement.executeQuery(
+                "SELECT docid, text, interpretation FROM dreams_fts ORDER BY docid")) {
+            while (rows.next()) {
+                values.add(rows.getInt(1) + ": " + rows.getString(2) + " | " + rows.getString(3));
+            }
+        }
+        return values;
+    }
+}
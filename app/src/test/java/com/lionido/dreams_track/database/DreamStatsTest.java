@@ -0,0 +1,175 @@
+package com.lionido.dreams_track.database;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Триггеры статистики на схеме Room: после любой последовательности изменений счетчики совпадают
+ * с полным пересчетом {@link DreamStats#REBUILD_SQL}.
+ */
+public class DreamStatsTest {
+
+    private static final ZoneId MOSCOW = ZoneId.of("Europe/Moscow");
+
+    private Connection connection;
+    private Statement statement;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        ExportedSchema.create(connection);
+        statement = connection.createStatement();
+        // Room включает внешние ключи, если они есть в схеме
+        statement.execute("PRAGMA foreign_keys = ON");
+        for (String trigger : DreamStats.TRIGGERS_SQL) {
+            statement.execute(trigger);
+        }
+        statement.execute("INSERT INTO symbol (id, keyword, code) VALUES (1, 'вода', 'water'), (2, 'огонь', 'fire')");
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void insert_countsDreamsEmotionsDaysAndSymbols() throws SQLException {
+        insertDream(1, "2024-03-01T08:00", "fear", "Толкование");
+        insertDream(2, "2024-03-01T09:00", "fear", null);
+        insertDream(3, "2024-03-02T08:00", null, null);
+        linkSymbol(1, 1);
+        linkSymbol(2, 1);
+        linkSymbol(2, 2);
+
+        Map<String, Long> counters = counters();
+        assertEquals(3L, (long) counters.get(DreamStats.COUNTER_DREAMS));
+        assertEquals(1L, (long) counters.get(DreamStats.COUNTER_ANALYZED_DREAMS));
+        assertEquals(3L, (long) counters.get(DreamStats.COUNTER_SYMBOLS));
+        assertEquals(2L, (long) counters.get(DreamStats.COUNTER_DISTINCT_SYMBOLS));
+        assertEquals(2L, (long) counters.get(DreamStats.EMOTION_PREFIX + "fear"));
+
+        Map<String, Integer> days = days(MOSCOW);
+        assertEquals(2, (int) days.get("2024-03-01"));
+        assertEquals(1, (int) days.get("2024-03-02"));
+    }
+
+    @Test
+    public void days_followZoneOfReader() throws SQLException {
+        // 23:30 в Москве — 20:30 UTC и уже 02:00 следующего дня в Индии (UTC+5:30)
+        insertDream(1, "2024-03-01T23:30", null, null);
+        insertDream(2, "2024-03-01T12:00", null, null);
+
+        assertEquals(Map.of("2024-03-01", 2), days(MOSCOW));
+        assertEquals(Map.of("2024-03-01", 2), days(ZoneId.of("UTC")));
+        assertEquals(Map.of("2024-03-01", 1, "2024-03-02", 1), days(ZoneId.of("Asia/Kolkata")));
+
+        // Удаление после смены пояса вычитает сон из того же слота, в который он был добавлен
+        statement.execute("DELETE FROM dreams WHERE id = 1");
+        assertEquals(Map.of("2024-03-01", 1), days(ZoneId.of("Asia/Kolkata")));
+    }
+
+    @Test
+    public void updateAndCascadeDelete_matchFullRebuild() throws SQLException {
+        insertDream(1, "2024-03-01T08:00", "fear", null);
+        insertDream(2, "2024-03-01T09:00", "joy", null);
+        insertDream(3, "2024-03-05T08:00", "fear", null);
+        linkSymbol(1, 1);
+        linkSymbol(2, 1);
+        linkSymbol(3, 2);
+
+        statement.execute("UPDATE dreams SET emotion = 'calm' WHERE id = 1");
+        statement.execute("INSERT INTO dream_analysis (dream_id, interpretation) VALUES (1, 'Толкование')");
+        statement.execute("INSERT INTO dream_analysis (dream_id, interpretation) VALUES (2, 'Толкование')");
+        statement.execute("UPDATE dream_analysis SET interpretation = '' WHERE dream_id = 2");
+        statement.execute("INSERT INTO dream_analysis (dream_id, analysis) VALUES (3, x'00414243')");
+        statement.execute("UPDATE dreams SET timestamp = timestamp + 86400000 WHERE id = 2");
+        statement.execute("UPDATE dreams SET text = 'без изменений в статистике' WHERE id = 3");
+        // Связи и анализ удаляются каскадом, их триггеры тоже срабатывают
+        statement.execute("DELETE FROM dreams WHERE id = 3");
+
+        Map<String, Long> counters = counters();
+        Map<String, Long> slots = slots();
+        assertEquals(0L, (long) counters.get(DreamStats.EMOTION_PREFIX + "fear"));
+        assertEquals(1L, (long) counters.get(DreamStats.COUNTER_ANALYZED_DREAMS));
+        assertEquals(1L, (long) counters.get(DreamStats.COUNTER_DISTINCT_SYMBOLS));
+
+        for (String sql : DreamStats.REBUILD_SQL) {
+            statement.execute(sql);
+        }
+        assertEquals(withoutZeros(counters), withoutZeros(counters()));
+        assertEquals(withoutZeros(slots), withoutZeros(slots()));
+    }
+
+    // Время сна по Москве
+    private void insertDream(int id, String localTime, String emotion, String interpretation) throws SQLException {
+        long timestamp = LocalDateTime.parse(localTime).atZone(MOSCOW).toInstant().toEpochMilli();
+        statement.execute("INSERT INTO dreams (id, text, timestamp, emotion) VALUES (" + id + ", 'сон', "
+                + timestamp + ", " + quote(emotion) + ")");
+        if (interpretation != null) {
+            statement.execute("INSERT INTO dream_analysis (dream_id, interpretation) VALUES (" + id + ", "
+                    + quote(interpretation) + ")");
+        }
+    }
+
+    private void linkSymbol(int dreamId, int symbolId) throws SQLException {
+        statement.execute("INSERT INTO dream_symbol (dream_id, symbol_id, timestamp) "
+                + "SELECT id, " + symbolId + ", timestamp FROM dreams WHERE id = " + dreamId);
+    }
+
+    private Map<String, Long> counters() throws SQLException {
+        return read("SELECT name, value FROM stats_counter");
+    }
+
+    private Map<String, Long> slots() throws SQLException {
+        return read("SELECT slot, count FROM stats_slot");
+    }
+
+    private Map<String, Integer> days(ZoneId zone) throws SQLException {
+        List<StatsSlotEntity> slots = new ArrayList<>();
+        try (ResultSet rows = statement.executeQuery("SELECT slot, count FROM stats_slot")) {
+            while (rows.next()) {
+                StatsSlotEntity slot = new StatsSlotEntity();
+                slot.setSlot(rows.getLong(1));
+                slot.setCount(rows.getInt(2));
+                slots.add(slot);
+            }
+        }
+        return DreamStats.toDailyCounts(slots, zone);
+    }
+
+    private Map<String, Long> read(String sql) throws SQLException {
+        Map<String, Long> values = new TreeMap<>();
+        try (ResultSet rows = statement.executeQuery(sql)) {
+            while (rows.next()) {
+                values.put(rows.getString(1), rows.getLong(2));
+            }
+        }
+        return values;
+    }
+
+    // Триггеры оставляют нулевые счетчики, пересчет их не создает
+    private static Map<String, Long> withoutZeros(Map<String, Long> values) {
+        Map<String, Long> result = new TreeMap<>(values);
+        result.values().removeIf(value -> value == 0);
+        return result;
+    }
+
+    private static String quote(String value) {
+        return value == null ? "NULL" : "'" + value + "'";
+    }
+}
@@ -0,0 +1,78 @@
+package com.lionido.dreams_track.database;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Схема базы из последнего JSON, который Room экспортирует в app/schemas при сборке:
+ * таблицы, индексы и триггеры FTS в том виде, в каком их создает Room.
+ */
+final class ExportedSchema {
+
+    private static final File SCHEMA_DIR = new File("schemas/com.lionido.dreams_track.database.AppDatabase");
+
+    private ExportedSchema() {
+    }
+
+    static void create(Connection connection) throws Exception {
+        File schema = latestSchema();
+        JsonObject database = JsonParser.parseString(new String(Files.readAllBytes(schema.toPath()), StandardCharsets.UTF_8))
+                .getAsJsonObject().getAsJsonObject("database");
+        try (Statement statement = connection.createStatement()) {
+            for (JsonElement element : database.getAsJsonArray("entities")) {
+                JsonObject entity = element.getAsJsonObject();
+                String table = entity.get("tableName").getAsString();
+                statement.execute(withTable(entity.get("createSql").getAsString(), table));
+                for (String sql : strings(entity.getAsJsonArray("indices"), "createSql")) {
+                    statement.execute(withTable(sql, table));
+                }
+                for (String sql : strings(entity.getAsJsonArray("contentSyncTriggers"), null)) {
+                    statement.execute(sql);
+                }
+            }
+        }
+    }
+
+    private static File latestSchema() {
+        File[] schemas = SCHEMA_DIR.listFiles((dir, name) -> name.matches("\\d+\\.json"));
+        assertNotNull("Нет экспортированной схемы Room в " + SCHEMA_DIR.getAbsolutePath(), schemas);
+        File latest = null;
+        for (File schema : schemas) {
+            if (latest == null || version(schema) > version(latest)) {
+                latest = schema;
+            }
+        }
+        assertNotNull("Нет экспортированной схемы Room в " + SCHEMA_DIR.getAbsolutePath(), latest);
+        return latest;
+    }
+
+    private static int version(File schema) {
+        return Integer.parseInt(schema.getName().replace(".json", ""));
+    }
+
+    private static List<String> strings(JsonArray array, String field) {
+        List<String> values = new ArrayList<>();
+        if (array != null) {
+            for (JsonElement element : array) {
+                values.add(field == null ? element.getAsString() : element.getAsJsonObject().get(field).getAsString());
+            }
+        }
+        return values;
+    }
+
+    private static String withTable(String sql, String table) {
+        return sql.replace("${TABLE_NAME}", table);
+    }
+}
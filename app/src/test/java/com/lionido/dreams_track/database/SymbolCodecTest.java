@@ -0,0 +1,62 @@
+package com.lionido.dreams_track.database;
+
+import com.lionido.dreams_track.model.Symbol;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Двоичный формат колонки symbols: id на границах длины varint и список, который берет символы из источника.
+ */
+public class SymbolCodecTest {
+
+    @Test
+    public void encodeDecode_roundTripsIdsOfEveryLength() {
+        int[] ids = {1, 127, 128, 16383, 16384, 2097152, Integer.MAX_VALUE};
+        byte[] data = SymbolCodec.encode(ids, ids.length);
+
+        // Версия, 1 + 1 + 2 + 2 + 3 + 4 + 5 байт
+        assertEquals(19, data.length);
+        assertArrayEquals(ids, SymbolCodec.decode(data));
+    }
+
+    @Test
+    public void encode_writesOnlyCountedIds() {
+        byte[] data = SymbolCodec.encode(new int[]{5, 6, 7}, 2);
+
+        assertArrayEquals(new byte[]{SymbolCodec.FORMAT_VERSION, 5, 6}, data);
+        assertArrayEquals(new int[0], SymbolCodec.decode(SymbolCodec.encode(new int[0], 0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_rejectsUnknownVersion() {
+        SymbolCodec.decode(new byte[]{(byte) (SymbolCodec.FORMAT_VERSION + 1), 1});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_rejectsTruncatedId() {
+        SymbolCodec.decode(new byte[]{SymbolCodec.FORMAT_VERSION, 1, (byte) 0x80});
+    }
+
+    @Test
+    public void encodedList_sharesSymbolsAndReencodesOnlyForItsSource() {
+        Map<Integer, Symbol> rows = new HashMap<>();
+        rows.put(3, new Symbol("вода", "water", "Символ эмоций", "emotional_flow"));
+        rows.put(300, new Symbol("дракон", "dragon", "Сила и угроза", "fear", "shadow"));
+        SymbolCodec.SymbolSource source = rows::get;
+        byte[] data = SymbolCodec.encode(new int[]{300, 3, 300}, 3);
+
+        EncodedSymbolList symbols = new EncodedSymbolList(SymbolCodec.decode(data), source);
+
+        assertEquals(3, symbols.size());
+        assertEquals("dragon", symbols.get(0).getSymbol());
+        assertEquals("water", symbols.get(1).getSymbol());
+        assertSame(symbols.get(0), symbols.get(2));
+        assertArrayEquals(data, symbols.encodeIfBackedBy(source));
+        assertNull(symbols.encodeIfBackedBy(id -> null));
+    }
+}
@@ -0,0 +1,53 @@
+package com.lionido.dreams_track.database;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Формат сжатого текста в dream_analysis: выбор между deflate и текстом как есть, пустые и поврежденные данные.
+ */
+public class TextCompressionTest {
+
+    @Test
+    public void longText_isDeflatedAndRestored() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            text.append("Вода во сне отражает эмоциональное состояние. Абзац ").append(i).append(".\n\n");
+        }
+
+        byte[] data = TextCompression.compress(text.toString());
+
+        assertEquals(TextCompression.FORMAT_DEFLATE, data[0]);
+        assertTrue(data.length < text.length());
+        assertEquals(text.toString(), TextCompression.decompress(data));
+    }
+
+    @Test
+    public void shortText_isStoredAsIs() {
+        byte[] data = TextCompression.compress("Сон");
+
+        assertEquals(TextCompression.FORMAT_PLAIN, data[0]);
+        assertEquals("Сон", TextCompression.decompress(data));
+    }
+
+    @Test
+    public void emptyText_isNull() {
+        assertNull(TextCompression.compress(""));
+        assertNull(TextCompression.compress(null));
+        assertNull(TextCompression.decompress(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decompress_rejectsUnknownFormat() {
+        TextCompression.decompress(new byte[]{7, 1, 2});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decompress_rejectsTruncatedData() {
+        byte[] data = TextCompression.compress(String.join(" ", java.util.Collections.nCopies(200, "сон")));
+        TextCompression.decompress(Arrays.copyOf(data, data.length / 2));
+    }
+}
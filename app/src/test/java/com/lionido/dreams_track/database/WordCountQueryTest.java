@@ -0,0 +1,107 @@
+package com.lionido.dreams_track.database;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.*;
+
+/**
+ * Подсчет снов со словами одним запросом MATCH дает те же числа, что отдельный COUNT по каждому слову.
+ */
+public class WordCountQueryTest {
+
+    private static final String[] WORDS = {"вода", "огонь", "ёлка", "дом", "зеркало", "старый дом", " ,. "};
+
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        ExportedSchema.create(connection);
+        try (Statement statement = connection.createStatement()) {
+            for (String trigger : DreamFts.SYNC_TRIGGERS_SQL) {
+                statement.execute(trigger);
+            }
+            statement.execute("INSERT INTO dreams (id, text, emotion, timestamp) VALUES "
+                    + "(1, 'Плыл по воде к старому дому, вода была теплой', 'calm', 0), "
+                    + "(2, 'Горел огонь у елки', 'fear', 0), "
+                    + "(3, 'Под ёлкой стоял дом', 'calm', 0), "
+                    + "(4, 'Ничего не помню', 'calm', 0), "
+                    + "(5, 'Дом у воды', 'joy', 0)");
+            // Совпадение только в интерпретации не считается
+            statement.execute("INSERT INTO dream_analysis (dream_id, interpretation) VALUES (4, 'Огонь и вода')");
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void countTextWords_matchesCountPerWord() throws SQLException {
+        DreamFts.WordCountQuery query = new DreamFts.WordCountQuery(WORDS);
+
+        assertArrayEquals(new int[]{2, 1, 2, 3, 0, 1, 0}, countTextWords(query, null));
+        assertArrayEquals(new int[]{1, 0, 1, 2, 0, 1, 0}, countTextWords(query, "calm"));
+        for (String emotion : new String[]{null, "calm", "fear", "joy"}) {
+            int[] counts = countTextWords(query, emotion);
+            for (int i = 0; i < WORDS.length; i++) {
+                assertEquals(WORDS[i] + ", " + emotion, countTextMatches(WORDS[i], emotion), counts[i]);
+            }
+        }
+    }
+
+    @Test
+    public void wordCountQuery_withoutWords_hasNoQuery() {
+        DreamFts.WordCountQuery query = new DreamFts.WordCountQuery(new String[]{"", "—"});
+
+        assertNull(query.matchQuery);
+        assertEquals(2, query.getWordCount());
+    }
+
+    // Как DreamDao.countTextWords
+    private int[] countTextWords(DreamFts.WordCountQuery query, String emotion) throws SQLException {
+        int[] counts = new int[query.getWordCount()];
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT matchinfo(dreams_fts, '" + DreamFts.WORD_HITS_MATCHINFO_FORMAT + "') FROM dreams_fts "
+                        + "JOIN dreams ON dreams.id = dreams_fts.docid "
+                        + "WHERE dreams_fts.text MATCH ? AND (? IS NULL OR dreams.emotion = ?)")) {
+            statement.setString(1, query.matchQuery);
+            statement.setString(2, emotion);
+            statement.setString(3, emotion);
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    query.countRow(rows.getBytes(1), counts);
+                }
+            }
+        }
+        return counts;
+    }
+
+    // Прежний запрос: отдельный COUNT по каждому слову
+    private int countTextMatches(String word, String emotion) throws SQLException {
+        String matchQuery = DreamFts.toMatchQuery(word);
+        if (matchQuery == null) {
+            return 0;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT COUNT(*) FROM dreams_fts JOIN dreams ON dreams.id = dreams_fts.docid "
+                        + "WHERE dreams_fts.text MATCH ? AND (? IS NULL OR dreams.emotion = ?)")) {
+            statement.setString(1, matchQuery);
+            statement.setString(2, emotion);
+            statement.setString(3, emotion);
+            try (ResultSet rows = statement.executeQuery()) {
+                return rows.next() ? rows.getInt(1) : 0;
+            }
+        }
+    }
+}
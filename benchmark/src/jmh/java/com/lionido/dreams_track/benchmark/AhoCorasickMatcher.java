@@ -0,0 +1,218 @@
+package com.lionido.dreams_track.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Автомат Ахо-Корасик для поиска множества ключевых слов за один проход по тексту.
+ * Строится один раз из словаря, после чего неизменяем и безопасен для использования из нескольких потоков.
+ * Анализаторы ищут слова по основам ({@link com.lionido.dreams_track.utils.LemmaIndex}); автомат остается
+ * точкой сравнения для поиска подстрок в {@link KeywordMatcherBenchmark}.
+ */
+final class AhoCorasickMatcher {
+
+    public static final class Match {
+        public final int patternIndex;
+        public final int start; // включительно
+        public final int end;   // исключительно
+
+        Match(int patternIndex, int start, int end) {
+            this.patternIndex = patternIndex;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public String toString() {
+            return "Match{pattern=" + patternIndex + ", start=" + start + ", end=" + end + '}';
+        }
+    }
+
+    public interface MatchListener {
+        void onMatch(int patternIndex, int start, int end);
+    }
+
+    private final String[] patterns;
+
+    // Переходы узла хранятся в отсортированных массивах и ищутся бинарным поиском
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] failure;
+    // Ближайший по цепочке failure узел, в котором заканчивается какой-либо шаблон
+    private final int[] outputLink;
+    // Первый шаблон, заканчивающийся в узле, и цепочка следующих (дубликаты словаря)
+    private final int[] firstPattern;
+    private final int[] nextPattern;
+
+    public AhoCorasickMatcher(List<String> patterns) {
+        this(Trie.fromPatterns(patterns.toArray(new String[0])));
+    }
+
+    private AhoCorasickMatcher(Trie trie) {
+        this.patterns = trie.patterns;
+        this.edgeChars = trie.edgeChars;
+        this.edgeTargets = trie.edgeTargets;
+        this.firstPattern = trie.firstPattern;
+        this.nextPattern = trie.nextPattern;
+
+        failure = new int[edgeChars.length];
+        outputLink = new int[edgeChars.length];
+        buildFailureLinks();
+    }
+
+    private void buildFailureLinks() {
+        int[] queue = new int[failure.length];
+        int head = 0;
+        int tail = 0;
+
+        outputLink[0] = -1;
+        for (int target : edgeTargets[0]) {
+            failure[target] = 0;
+            outputLink[target] = -1;
+            queue[tail++] = target;
+        }
+
+        while (head < tail) {
+            int node = queue[head++];
+            char[] chars = edgeChars[node];
+            int[] targets = edgeTargets[node];
+            for (int i = 0; i < chars.length; i++) {
+                int child = targets[i];
+                int f = failure[node];
+                int next;
+                while ((next = step(f, chars[i])) == -1 && f != 0) {
+                    f = failure[f];
+                }
+                failure[child] = next == -1 ? 0 : next;
+                int fail = failure[child];
+                outputLink[child] = firstPattern[fail] != -1 ? fail : outputLink[fail];
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    private int step(int node, char c) {
+        int index = Arrays.binarySearch(edgeChars[node], c);
+        return index >= 0 ? edgeTargets[node][index] : -1;
+    }
+
+    /**
+     * Проходит по тексту один раз и сообщает о каждом вхождении каждого шаблона.
+     */
+    public void scan(CharSequence text, MatchListener listener) {
+        int node = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next;
+            while ((next = step(node, c)) == -1 && node != 0) {
+                node = failure[node];
+            }
+            node = next == -1 ? 0 : next;
+
+            int out = firstPattern[node] != -1 ? node : outputLink[node];
+            while (out != -1) {
+                for (int p = firstPattern[out]; p != -1; p = nextPattern[p]) {
+                    listener.onMatch(p, i + 1 - patterns[p].length(), i + 1);
+                }
+                out = outputLink[out];
+            }
+        }
+    }
+
+    public List<Match> findAll(CharSequence text) {
+        List<Match> matches = new ArrayList<>();
+        scan(text, (patternIndex, start, end) -> matches.add(new Match(patternIndex, start, end)));
+        return matches;
+    }
+
+    /**
+     * Отмечает шаблоны, встретившиеся в тексте хотя бы один раз. Эквивалент
+     * {@code text.contains(pattern)} для каждого шаблона, но за один проход.
+     */
+    public boolean[] findPresent(CharSequence text) {
+        boolean[] present = new boolean[patterns.length];
+        scan(text, (patternIndex, start, end) -> present[patternIndex] = true);
+        return present;
+    }
+
+    public int getPatternCount() {
+        return patterns.length;
+    }
+
+    public String getPattern(int index) {
+        return patterns[index];
+    }
+
+    private static final class Trie {
+        final String[] patterns;
+        final char[][] edgeChars;
+        final int[][] edgeTargets;
+        final int[] firstPattern;
+        final int[] nextPattern;
+
+        Trie(String[] patterns, char[][] edgeChars, int[][] edgeTargets, int[] firstPattern, int[] nextPattern) {
+            this.patterns = patterns;
+            this.edgeChars = edgeChars;
+            this.edgeTargets = edgeTargets;
+            this.firstPattern = firstPattern;
+            this.nextPattern = nextPattern;
+        }
+
+        static Trie fromPatterns(String[] patterns) {
+            int[] nextPattern = new int[patterns.length];
+            Arrays.fill(nextPattern, -1);
+
+            // Строим бор на изменяемых структурах, затем упаковываем в массивы
+            List<Map<Character, Integer>> trie = new ArrayList<>();
+            List<Integer> ends = new ArrayList<>();
+            trie.add(new HashMap<>());
+            ends.add(-1);
+
+            for (int p = 0; p < patterns.length; p++) {
+                String pattern = patterns[p];
+                if (pattern == null || pattern.isEmpty()) {
+                    continue;
+                }
+                int node = 0;
+                for (int i = 0; i < pattern.length(); i++) {
+                    char c = pattern.charAt(i);
+                    Integer next = trie.get(node).get(c);
+                    if (next == null) {
+                        next = trie.size();
+                        trie.add(new HashMap<>());
+                        ends.add(-1);
+                        trie.get(node).put(c, next);
+                    }
+                    node = next;
+                }
+                nextPattern[p] = ends.get(node);
+                ends.set(node, p);
+            }
+
+            int nodeCount = trie.size();
+            char[][] edgeChars = new char[nodeCount][];
+            int[][] edgeTargets = new int[nodeCount][];
+            int[] firstPattern = new int[nodeCount];
+            for (int n = 0; n < nodeCount; n++) {
+                Map<Character, Integer> edges = trie.get(n);
+                char[] chars = new char[edges.size()];
+                int i = 0;
+                for (Character c : edges.keySet()) {
+                    chars[i++] = c;
+                }
+                Arrays.sort(chars);
+                int[] targets = new int[chars.length];
+                for (int j = 0; j < chars.length; j++) {
+                    targets[j] = edges.get(chars[j]);
+                }
+                edgeChars[n] = chars;
+                edgeTargets[n] = targets;
+                firstPattern[n] = ends.get(n);
+            }
+            return new Trie(patterns, edgeChars, edgeTargets, firstPattern, nextPattern);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.lionido.dreams_track.benchmark;
+
+import com.lionido.dreams_track.model.Symbol;
+import com.lionido.dreams_track.utils.EmotionDetector;
+import com.lionido.dreams_track.utils.NLPAnalyzer;
+import com.lionido.dreams_track.utils.ResourceLoader;
+import com.lionido.dreams_track.utils.SymbolAnalyzer;
+import com.lionido.dreams_track.utils.SymbolDictionary;
+import com.lionido.dreams_track.utils.TextTokenizer;
+import com.lionido.dreams_track.utils.TokenizedText;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Пропускная способность SymbolAnalyzer, EmotionDetector и всех публичных методов NLPAnalyzer
+ * на текстах разной длины.
+ */
+@State(Scope.Benchmark)
+public class AnalyzerBenchmark {
+
+    @Param({"SHORT", "MEDIUM", "LONG"})
+    public DreamCorpus.Size size;
+
+    private String text;
+    private TokenizedText tokens;
+    private List<Symbol> symbols;
+    private NLPAnalyzer.TextFeatures features;
+
+    private NLPAnalyzer nlpAnalyzer;
+    private SymbolAnalyzer symbolAnalyzer;
+    private EmotionDetector emotionDetector;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        SymbolDictionary dictionary = loadDictionary();
+        nlpAnalyzer = new NLPAnalyzer(dictionary);
+        symbolAnalyzer = new SymbolAnalyzer(dictionary);
+        emotionDetector = new EmotionDetector();
+
+        text = DreamCorpus.generate(size);
+        tokens = TextTokenizer.tokenize(text);
+        features = nlpAnalyzer.extractFeatures(tokens);
+        symbols = nlpAnalyzer.findSymbols(features);
+    }
+
+    static SymbolDictionary loadDictionary() throws IOException, JSONException {
+        try (InputStream is = ResourceLoader.classpath().open("dream_symbols.json")) {
+            return SymbolDictionary.fromJson(is);
+        }
+    }
+
+    // SymbolAnalyzer и EmotionDetector
+
+    @Benchmark
+    public List<Symbol> symbolAnalyzer_findSymbolsInText() {
+        return symbolAnalyzer.findSymbolsInText(text);
+    }
+
+    @Benchmark
+    public String emotionDetector_detectEmotion() {
+        return emotionDetector.detectEmotion(text);
+    }
+
+    // NLPAnalyzer: методы по исходному тексту
+
+    @Benchmark
+    public NLPAnalyzer.AnalysisResult nlp_analyze() {
+        return nlpAnalyzer.analyze(text);
+    }
+
+    @Benchmark
+    public List<Symbol> nlp_findSymbolsAdvanced() {
+        return nlpAnalyzer.findSymbolsAdvanced(text);
+    }
+
+    @Benchmark
+    public List<Symbol> nlp_extractSymbols() {
+        return nlpAnalyzer.extractSymbols(text);
+    }
+
+    @Benchmark
+    public String nlp_detectEmotionAdvanced() {
+        return nlpAnalyzer.detectEmotionAdvanced(text);
+    }
+
+    @Benchmark
+    public List<String> nlp_extractKeyPhrases() {
+        return nlpAnalyzer.extractKeyPhrases(text);
+    }
+
+    @Benchmark
+    public double nlp_calculateTextComplexity() {
+        return nlpAnalyzer.calculateTextComplexity(text);
+    }
+
+    @Benchmark
+    public Map<String, Integer> nlp_getWordFrequency() {
+        return nlpAnalyzer.getWordFrequency(text);
+    }
+
+    // NLPAnalyzer: методы по готовой токенизации и признакам.
+    // Основы слов кэшируются в TokenizedText при первом обращении, как при общем вызове analyze()
+
+    @Benchmark
+    public TokenizedText tokenize() {
+        return TextTokenizer.tokenize(text);
+    }
+
+    @Benchmark
+    public NLPAnalyzer.TextFeatures nlp_extractFeatures() {
+        return nlpAnalyzer.extractFeatures(tokens);
+    }
+
+    @Benchmark
+    public List<Symbol> nlp_findSymbols_tokens() {
+        return nlpAnalyzer.findSymbols(tokens);
+    }
+
+    @Benchmark
+    public List<Symbol> nlp_findSymbols_features() {
+        return nlpAnalyzer.findSymbols(features);
+    }
+
+    @Benchmark
+    public String nlp_detectEmotion_tokens() {
+        return nlpAnalyzer.detectEmotion(tokens, symbols);
+    }
+
+    @Benchmark
+    public String nlp_detectEmotion_features() {
+        return nlpAnalyzer.detectEmotion(features, symbols);
+    }
+
+    @Benchmark
+    public List<String> nlp_extractKeyPhrases_tokens() {
+        return nlpAnalyzer.extractKeyPhrases(tokens);
+    }
+
+    @Benchmark
+    public double nlp_calculateTextComplexity_tokens() {
+        return nlpAnalyzer.calculateTextComplexity(tokens);
+    }
+
+    @Benchmark
+    public Map<String, Integer> nlp_getWordFrequency_tokens() {
+        return nlpAnalyzer.getWordFrequency(tokens);
+    }
+}
@@ -0,0 +1,82 @@
+package com.lionido.dreams_track.benchmark;
+
+import com.lionido.dreams_track.database.Converters;
+import com.lionido.dreams_track.database.EncodedSymbolList;
+import com.lionido.dreams_track.database.SymbolCodec;
+import com.lionido.dreams_track.model.Symbol;
+import com.lionido.dreams_track.utils.SymbolDictionary;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Колонка symbols таблицы dreams: прежний JSON против двоичного списка id symbol_entry ({@link SymbolCodec}).
+ * Чтение включает обход всех символов, как при показе сна. Строки symbol_entry заменены массивом,
+ * как в кэше SymbolTable после первого чтения. Размер колонки печатается при подготовке.
+ */
+@State(Scope.Benchmark)
+public class ConvertersBenchmark {
+
+    @Param({"3", "10", "48"})
+    public int symbolCount;
+
+    private List<Symbol> symbols;
+    private String json;
+    private int[] ids;
+    private byte[] binary;
+    private SymbolCodec.SymbolSource symbolRows;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        SymbolDictionary dictionary = AnalyzerBenchmark.loadDictionary();
+        // id строк symbol_entry начинаются с 1
+        Symbol[] rows = new Symbol[dictionary.size() + 1];
+        for (int i = 0; i < dictionary.size(); i++) {
+            rows[i + 1] = dictionary.get(i);
+        }
+        symbolRows = id -> rows[id];
+
+        symbols = new ArrayList<>();
+        ids = new int[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            symbols.add(dictionary.get(i % dictionary.size()));
+            ids[i] = i % dictionary.size() + 1;
+        }
+        json = Converters.fromSymbolList(symbols);
+        binary = SymbolCodec.encode(ids, ids.length);
+        System.out.println("symbols (" + symbolCount + "): JSON " + json.getBytes("UTF-8").length
+                + " байт, двоичный формат " + binary.length + " байт");
+    }
+
+    @Benchmark
+    public String encodeJson() {
+        return Converters.fromSymbolList(symbols);
+    }
+
+    @Benchmark
+    public void decodeJson(Blackhole blackhole) {
+        for (Symbol symbol : Converters.toSymbolList(json)) {
+            blackhole.consume(symbol);
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return SymbolCodec.encode(ids, ids.length);
+    }
+
+    @Benchmark
+    public void decodeBinary(Blackhole blackhole) {
+        for (Symbol symbol : new EncodedSymbolList(SymbolCodec.decode(binary), symbolRows)) {
+            blackhole.consume(symbol);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.lionido.dreams_track.benchmark;
+
+import java.util.Random;
+
+/**
+ * Воспроизводимый синтетический корпус русских текстов снов. Тексты собираются из фраз
+ * с символами словаря в разных словоформах, эмоциональными словами и нейтральным заполнением;
+ * одно и то же зерно всегда дает один и тот же текст.
+ */
+public final class DreamCorpus {
+
+    public enum Size {
+        SHORT(3),      // пара предложений, как быстрая заметка после пробуждения
+        MEDIUM(25),    // обычная запись сна
+        LONG(600);     // очень длинный текст, например несколько снов одной записью
+
+        final int sentences;
+
+        Size(int sentences) {
+            this.sentences = sentences;
+        }
+    }
+
+    public static final long DEFAULT_SEED = 20240101L;
+
+    private static final String[] OPENINGS = {
+            "Мне снилось, что", "Сначала", "Потом", "Вдруг", "Неожиданно", "Помню, что", "В какой-то момент",
+            "Когда стемнело,", "Уже под утро", "Кажется,"
+    };
+
+    private static final String[] SUBJECTS = {
+            "я", "мы с другом", "моя сестра", "незнакомый человек", "старая собака", "черная кошка",
+            "маленький ребёнок", "голос за спиной", "кто-то в темноте", "учитель из школы"
+    };
+
+    private static final String[] ACTIONS = {
+            "падал с высокой башни", "летела над облаками", "бежал по длинной дороге", "искал ключ от двери",
+            "поднимался по лестнице", "плыл по тёмной воде", "стоял на старом мосту", "смотрел в зеркало",
+            "прятался в глубокой пещере", "ждал поезда на станции", "открывал тяжёлую дверь",
+            "держал в руках горящий огонь", "потерял телефон в лесу", "читал странную книгу",
+            "разглядывал карту замка", "садился в машину без водителя", "видел своё отражение в окне",
+            "слышал, как падают часы", "выходил из горящего дома", "чувствовал, что зубы крошатся"
+    };
+
+    private static final String[] DETAILS = {
+            "под проливным дождём", "при свете луны", "среди падающего снега", "на сильном ветру",
+            "под яркими звёздами", "в полной темноте", "в лучах солнца", "рядом с огромной змеёй",
+            "над тихим морем", "возле корабля у берега", "в пустой школе", "на старой работе",
+            "и птица кружила рядом", "и цветок распускался у ног", "и тень шла следом"
+    };
+
+    private static final String[] FEELINGS = {
+            "Мне было страшно, началась паника.", "Я чувствовал радость и восторг.", "Стало очень грустно и одиноко.",
+            "Меня охватила злость.", "Было спокойно, вокруг тишина.", "Я не мог пошевелиться и звал на помощь.",
+            "Всё казалось прекрасно и удивительно.", "Я ощущал тревогу и тоску.", "Это было похоже на кошмар!",
+            "Почему-то было смешно?"
+    };
+
+    private DreamCorpus() {
+    }
+
+    public static String generate(Size size) {
+        return generate(size, DEFAULT_SEED);
+    }
+
+    public static String generate(Size size, long seed) {
+        Random random = new Random(seed ^ size.ordinal());
+        StringBuilder text = new StringBuilder(size.sentences * 90);
+        for (int i = 0; i < size.sentences; i++) {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            if (random.nextInt(4) == 0) {
+                text.append(pick(FEELINGS, random));
+                continue;
+            }
+            text.append(pick(OPENINGS, random)).append(' ')
+                    .append(pick(SUBJECTS, random)).append(' ')
+                    .append(pick(ACTIONS, random));
+            if (random.nextBoolean()) {
+                text.append(' ').append(pick(DETAILS, random));
+            }
+            text.append(random.nextInt(6) == 0 ? "!" : ".");
+        }
+        return text.toString();
+    }
+
+    private static String pick(String[] values, Random random) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,162 @@
+package com.lionido.dreams_track.benchmark;
+
+import com.lionido.dreams_track.database.DreamFts;
+import com.lionido.dreams_track.database.DreamStats;
+import com.lionido.dreams_track.database.SymbolCodec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Запись 100 000 снов по 5 символов в файл базы со схемой приложения: индексы dreams, связи dream_symbol,
+ * синхронизация dreams_fts и триггеры статистики. Транзакция на каждый сон, как при вызовах DreamDao.insert в цикле, против пакетов
+ * DreamDao.insertAll / DreamBatchWriter, в журнале отката и в WAL с настройками AppDatabase.
+ * Одна операция — вся запись в новую базу.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class DreamInsertBenchmark {
+
+    static final int ROW_COUNT = 100_000;
+    private static final int SYMBOL_COUNT = 48;
+    private static final int SYMBOLS_PER_DREAM = 5;
+    // Как AppDatabase.WAL_AUTOCHECKPOINT_PAGES и WAL_SIZE_LIMIT_BYTES
+    private static final int WAL_AUTOCHECKPOINT_PAGES = 1000;
+    private static final long WAL_SIZE_LIMIT_BYTES = 4L * 1024 * 1024;
+
+    @Param({"DELETE", "WAL"})
+    public String journalMode;
+
+    // 1 — транзакция на каждый сон; 500 — размер пакета DreamBatchWriter по умолчанию
+    @Param({"1", "500", "5000"})
+    public int batchSize;
+
+    private String[] texts;
+    private int[][] symbolIds;
+    private byte[][] symbols;
+    private File directory;
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void prepareRows() {
+        texts = new String[ROW_COUNT];
+        symbolIds = new int[ROW_COUNT][SYMBOLS_PER_DREAM];
+        symbols = new byte[ROW_COUNT][];
+        for (int i = 0; i < ROW_COUNT; i++) {
+            texts[i] = DreamCorpus.generate(DreamCorpus.Size.SHORT, i);
+            for (int j = 0; j < SYMBOLS_PER_DREAM; j++) {
+                symbolIds[i][j] = (i * 7 + j * 13) % SYMBOL_COUNT + 1;
+            }
+            symbols[i] = SymbolCodec.encode(symbolIds[i], SYMBOLS_PER_DREAM);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void openDatabase() throws IOException, SQLException {
+        directory = Files.createTempDirectory("dream-insert").toFile();
+        connection = DriverManager.getConnection("jdbc:sqlite:" + new File(directory, "dreams.db").getAbsolutePath());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA journal_mode = " + journalMode);
+            if (journalMode.equals("WAL")) {
+                statement.execute("PRAGMA wal_autocheckpoint = " + WAL_AUTOCHECKPOINT_PAGES);
+                statement.execute("PRAGMA journal_size_limit = " + WAL_SIZE_LIMIT_BYTES);
+            }
+            statement.execute("CREATE TABLE IF NOT EXISTS `dreams` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`text` TEXT, `audioPath` TEXT, `timestamp` INTEGER NOT NULL, `symbols` BLOB, `emotion` TEXT, "
+                    + "`inputMethod` TEXT)");
+            statement.execute("CREATE INDEX IF NOT EXISTS `index_dreams_timestamp` ON `dreams` (`timestamp`)");
+            statement.execute("CREATE INDEX IF NOT EXISTS `index_dreams_emotion_timestamp` "
+                    + "ON `dreams` (`emotion`, `timestamp`)");
+            statement.execute("CREATE TABLE IF NOT EXISTS `dream_analysis` (`dream_id` INTEGER NOT NULL, "
+                    + "`interpretation` TEXT, `analysis` BLOB, PRIMARY KEY(`dream_id`), "
+                    + "FOREIGN KEY(`dream_id`) REFERENCES `dreams`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            statement.execute(DreamFts.CREATE_TABLE_SQL);
+            for (String trigger : DreamFts.SYNC_TRIGGERS_SQL) {
+                statement.execute(trigger);
+            }
+            statement.execute("CREATE TABLE IF NOT EXISTS `symbol` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`keyword` TEXT NOT NULL, `code` TEXT)");
+            statement.execute("CREATE TABLE IF NOT EXISTS `dream_symbol` (`dream_id` INTEGER NOT NULL, "
+                    + "`symbol_id` INTEGER NOT NULL, `timestamp` INTEGER NOT NULL, PRIMARY KEY(`dream_id`, `symbol_id`), "
+                    + "FOREIGN KEY(`dream_id`) REFERENCES `dreams`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE , "
+                    + "FOREIGN KEY(`symbol_id`) REFERENCES `symbol`(`id`) ON UPDATE NO ACTION ON DELETE NO ACTION )");
+            statement.execute("CREATE INDEX IF NOT EXISTS `index_dream_symbol_symbol_id` ON `dream_symbol` (`symbol_id`)");
+            statement.execute("CREATE INDEX IF NOT EXISTS `index_dream_symbol_timestamp_symbol_id` "
+                    + "ON `dream_symbol` (`timestamp`, `symbol_id`)");
+            for (int i = 1; i <= SYMBOL_COUNT; i++) {
+                statement.execute("INSERT INTO symbol (id, keyword, code) VALUES (" + i + ", 'символ" + i + "', 's" + i + "')");
+            }
+            statement.execute(DreamStats.CREATE_COUNTER_TABLE_SQL);
+            statement.execute(DreamStats.CREATE_SLOT_TABLE_SQL);
+            for (String trigger : DreamStats.TRIGGERS_SQL) {
+                statement.execute(trigger);
+            }
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeDatabase() throws SQLException {
+        connection.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public int insert() throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO dreams "
+                + "(text, timestamp, symbols, emotion, inputMethod) VALUES (?, ?, ?, ?, 'text')");
+             PreparedStatement link = connection.prepareStatement(
+                     "INSERT OR IGNORE INTO dream_symbol (dream_id, symbol_id, timestamp) VALUES (?, ?, ?)")) {
+            long start = 1_600_000_000_000L;
+            for (int i = 0; i < ROW_COUNT; i++) {
+                long timestamp = start + i * 3_600_000L;
+                insert.setString(1, texts[i]);
+                insert.setLong(2, timestamp);
+                insert.setBytes(3, symbols[i]);
+                insert.setString(4, i % 2 == 0 ? "fear" : "calm");
+                insert.executeUpdate();
+                // Связи dream_symbol, как в DreamDao.replaceDreamSymbols
+                for (int symbolId : symbolIds[i]) {
+                    link.setInt(1, i + 1);
+                    link.setInt(2, symbolId);
+                    link.setLong(3, timestamp);
+                    link.executeUpdate();
+                }
+                if ((i + 1) % batchSize == 0) {
+                    connection.commit();
+                }
+            }
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+        return ROW_COUNT;
+    }
+}
@@ -0,0 +1,133 @@
+package com.lionido.dreams_track.benchmark;
+
+import com.lionido.dreams_track.database.TextCompression;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Списки снов, когда интерпретация и анализ LLM лежат в строке dreams (inline, схема до версии 8),
+ * и когда они вынесены в dream_analysis со сжатым анализом (separate).
+ * Запросы те же, что DreamDao.getAllDreams и getDreamsByEmotion: все колонки dreams.
+ */
+@State(Scope.Benchmark)
+public class DreamListBenchmark {
+
+    static final int ROW_COUNT = 5_000;
+    private static final String[] EMOTIONS = {"fear", "joy", "sadness", "anger", "surprise", "calm", "neutral"};
+
+    @Param({"inline", "separate"})
+    public String layout;
+
+    private Connection connection;
+    private PreparedStatement allDreams;
+    private PreparedStatement dreamsByEmotion;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        boolean inline = layout.equals("inline");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE `dreams` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`text` TEXT, `audioPath` TEXT, `timestamp` INTEGER NOT NULL, `symbols` BLOB, `emotion` TEXT, "
+                    + "`inputMethod` TEXT" + (inline ? ", `interpretation` TEXT, `analysis` TEXT)" : ")"));
+            statement.execute("CREATE INDEX `index_dreams_timestamp` ON `dreams` (`timestamp`)");
+            statement.execute("CREATE INDEX `index_dreams_emotion_timestamp` ON `dreams` (`emotion`, `timestamp`)");
+            statement.execute("CREATE TABLE `dream_analysis` (`dream_id` INTEGER NOT NULL, "
+                    + "`interpretation` TEXT, `analysis` BLOB, PRIMARY KEY(`dream_id`))");
+        }
+        populate(inline);
+
+        try (Statement statement = connection.createStatement();
+             ResultSet pages = statement.executeQuery("SELECT SUM(pgsize) FROM dbstat WHERE name = 'dreams'")) {
+            if (pages.next()) {
+                System.out.println("dreams: " + pages.getLong(1) / 1024 + " КБ");
+            }
+        } catch (SQLException e) {
+            // dbstat есть не во всех сборках SQLite
+        }
+
+        allDreams = connection.prepareStatement("SELECT * FROM dreams ORDER BY timestamp DESC");
+        dreamsByEmotion = connection.prepareStatement(
+                "SELECT * FROM dreams WHERE emotion = ? ORDER BY timestamp DESC");
+    }
+
+    private void populate(boolean inline) throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(inline
+                ? "INSERT INTO dreams (id, text, timestamp, emotion, inputMethod, interpretation, analysis) "
+                + "VALUES (?, ?, ?, ?, 'text', ?, ?)"
+                : "INSERT INTO dreams (id, text, timestamp, emotion, inputMethod) VALUES (?, ?, ?, ?, 'text')");
+             PreparedStatement insertAnalysis = connection.prepareStatement(
+                     "INSERT INTO dream_analysis (dream_id, interpretation, analysis) VALUES (?, ?, ?)")) {
+            long timestamp = 1_600_000_000_000L;
+            for (int i = 0; i < ROW_COUNT; i++) {
+                // Анализ LLM — несколько абзацев, заметно длиннее самого сна
+                String interpretation = DreamCorpus.generate(DreamCorpus.Size.MEDIUM, -i);
+                String analysis = DreamCorpus.generate(DreamCorpus.Size.MEDIUM, i + ROW_COUNT)
+                        + "\n\n" + DreamCorpus.generate(DreamCorpus.Size.MEDIUM, i + 2 * ROW_COUNT)
+                        + "\n\n" + DreamCorpus.generate(DreamCorpus.Size.MEDIUM, i + 3 * ROW_COUNT);
+                insert.setInt(1, i + 1);
+                insert.setString(2, DreamCorpus.generate(DreamCorpus.Size.SHORT, i));
+                insert.setLong(3, timestamp + i * 3_600_000L);
+                insert.setString(4, EMOTIONS[i % EMOTIONS.length]);
+                if (inline) {
+                    insert.setString(5, interpretation);
+                    insert.setString(6, analysis);
+                } else {
+                    insertAnalysis.setInt(1, i + 1);
+                    insertAnalysis.setString(2, interpretation);
+                    insertAnalysis.setBytes(3, TextCompression.compress(analysis));
+                    insertAnalysis.addBatch();
+                }
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            insertAnalysis.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public int allDreams() throws SQLException {
+        return readAll(allDreams);
+    }
+
+    @Benchmark
+    public int dreamsByEmotion() throws SQLException {
+        dreamsByEmotion.setString(1, "fear");
+        return readAll(dreamsByEmotion);
+    }
+
+    private static int readAll(PreparedStatement query) throws SQLException {
+        int count = 0;
+        try (ResultSet rows = query.executeQuery()) {
+            int columns = rows.getMetaData().getColumnCount();
+            while (rows.next()) {
+                for (int column = 1; column <= columns; column++) {
+                    rows.getObject(column);
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,162 @@
+package com.lionido.dreams_track.benchmark;
+
+import com.lionido.dreams_track.database.DreamFts;
+import com.lionido.dreams_track.database.DreamMatch;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Поиск по 50 000 снов: прежний LIKE по text против FTS4 с ранжированием BM25.
+ * Схема и SQL те же, что у Room (DreamFts, запросы DreamDao), но база открывается через sqlite-jdbc.
+ */
+@State(Scope.Benchmark)
+public class DreamSearchBenchmark {
+
+    static final int ROW_COUNT = 50_000;
+    static final int RESULT_LIMIT = 20;
+
+    // Частое слово, редкое слово и запрос из двух слов
+    @Param({"вода", "зеркало", "лестница поезд"})
+    public String query;
+
+    private Connection connection;
+    private PreparedStatement likeStatement;
+    private PreparedStatement matchStatement;
+    private String ftsQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS `dreams` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`text` TEXT, `audioPath` TEXT, `timestamp` INTEGER NOT NULL, `symbols` BLOB, `emotion` TEXT, "
+                    + "`inputMethod` TEXT)");
+            statement.execute("CREATE TABLE IF NOT EXISTS `dream_analysis` (`dream_id` INTEGER NOT NULL, "
+                    + "`interpretation` TEXT, `analysis` BLOB, PRIMARY KEY(`dream_id`), "
+                    + "FOREIGN KEY(`dream_id`) REFERENCES `dreams`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            statement.execute(DreamFts.CREATE_TABLE_SQL);
+            for (String trigger : DreamFts.SYNC_TRIGGERS_SQL) {
+                statement.execute(trigger);
+            }
+        }
+        populate(connection, ROW_COUNT);
+
+        likeStatement = connection.prepareStatement("SELECT * FROM dreams WHERE text LIKE ? ORDER BY timestamp DESC");
+        matchStatement = connection.prepareStatement("SELECT docid AS id, matchinfo(dreams_fts, '"
+                + DreamFts.MATCHINFO_FORMAT + "') AS matchInfo FROM dreams_fts WHERE dreams_fts MATCH ?");
+        ftsQuery = DreamFts.toMatchQuery(query);
+    }
+
+    static void populate(Connection connection, int rows) throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO dreams (id, text, timestamp, emotion, inputMethod) VALUES (?, ?, ?, ?, 'text')");
+             PreparedStatement insertAnalysis = connection.prepareStatement(
+                     "INSERT INTO dream_analysis (dream_id, interpretation) VALUES (?, ?)")) {
+            long timestamp = 1_600_000_000_000L;
+            for (int i = 0; i < rows; i++) {
+                insert.setInt(1, i + 1);
+                insert.setString(2, DreamCorpus.generate(DreamCorpus.Size.SHORT, i));
+                insert.setLong(3, timestamp + i * 3_600_000L);
+                insert.setString(4, "neutral");
+                insert.addBatch();
+                if (i % 3 == 0) {
+                    insertAnalysis.setInt(1, i + 1);
+                    insertAnalysis.setString(2, DreamCorpus.generate(DreamCorpus.Size.SHORT, -i));
+                    insertAnalysis.addBatch();
+                }
+            }
+            insert.executeBatch();
+            insertAnalysis.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    /**
+     * Прежний DreamDao.searchDreams: полный просмотр таблицы, все совпадения без ранжирования.
+     * Слова ищутся как есть, без словоформ, поэтому находит меньше, чем FTS.
+     */
+    @Benchmark
+    public int like_search() throws SQLException {
+        likeStatement.setString(1, "%" + query + "%");
+        int count = 0;
+        try (ResultSet rows = likeStatement.executeQuery()) {
+            while (rows.next()) {
+                rows.getString("text");
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * DreamDao.searchDreamsRanked: совпадения из индекса, BM25, чтение лучших строк и фрагменты с подсветкой.
+     */
+    @Benchmark
+    public int fts_searchRanked() throws SQLException {
+        List<DreamMatch> matches = new ArrayList<>();
+        matchStatement.setString(1, ftsQuery);
+        try (ResultSet rows = matchStatement.executeQuery()) {
+            while (rows.next()) {
+                DreamMatch match = new DreamMatch();
+                match.id = rows.getInt(1);
+                match.matchInfo = rows.getBytes(2);
+                matches.add(match);
+            }
+        }
+        List<Integer> ids = DreamFts.rank(matches, RESULT_LIMIT);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < ids.size(); i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+        int count = 0;
+        try (PreparedStatement results = connection.prepareStatement(
+                "SELECT * FROM dreams WHERE id IN (" + placeholders + ")");
+             PreparedStatement interpretation = connection.prepareStatement(
+                     "SELECT interpretation FROM dreams_fts WHERE docid = ?")) {
+            for (int i = 0; i < ids.size(); i++) {
+                results.setInt(i + 1, ids.get(i));
+            }
+            try (ResultSet rows = results.executeQuery()) {
+                while (rows.next()) {
+                    String snippet = DreamFts.snippet(rows.getString("text"), query);
+                    if (snippet == null) {
+                        interpretation.setInt(1, rows.getInt("id"));
+                        try (ResultSet indexed = interpretation.executeQuery()) {
+                            snippet = indexed.next() ? DreamFts.snippet(indexed.getString(1), query) : null;
+                        }
+                    }
+                    if (snippet != null) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+}
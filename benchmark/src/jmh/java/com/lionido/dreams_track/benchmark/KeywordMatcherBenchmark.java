@@ -0,0 +1,83 @@
+package com.lionido.dreams_track.benchmark;
+
+import com.lionido.dreams_track.utils.LemmaIndex;
+import com.lionido.dreams_track.utils.TextTokenizer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Поиск ключевых слов на случайном словаре и тексте из 2000 слов: прежний цикл String.contains,
+ * автомат Ахо-Корасик по подстрокам и LemmaIndex, которым пользуются анализаторы (вместе с токенизацией текста).
+ */
+@State(Scope.Benchmark)
+public class KeywordMatcherBenchmark {
+
+    @Param({"500", "5000"})
+    public int keywordCount;
+
+    private List<String> keywords;
+    private String text;
+    private AhoCorasickMatcher matcher;
+    private LemmaIndex lemmaIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(DreamCorpus.DEFAULT_SEED);
+        keywords = new ArrayList<>(keywordCount);
+        for (int i = 0; i < keywordCount; i++) {
+            keywords.add(randomWord(random, 3 + random.nextInt(7)));
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            // Примерно каждое двадцатое слово — из словаря
+            if (random.nextInt(20) == 0) {
+                builder.append(keywords.get(random.nextInt(keywords.size())));
+            } else {
+                builder.append(randomWord(random, 2 + random.nextInt(8)));
+            }
+        }
+        text = builder.toString();
+        matcher = new AhoCorasickMatcher(keywords);
+        lemmaIndex = new LemmaIndex(keywords);
+    }
+
+    @Benchmark
+    public boolean[] containsLoop() {
+        boolean[] present = new boolean[keywords.size()];
+        for (int i = 0; i < present.length; i++) {
+            present[i] = text.contains(keywords.get(i));
+        }
+        return present;
+    }
+
+    @Benchmark
+    public boolean[] ahoCorasick_findPresent() {
+        return matcher.findPresent(text);
+    }
+
+    @Benchmark
+    public boolean[] lemmaIndex_findPresent() {
+        return lemmaIndex.findPresent(TextTokenizer.tokenize(text));
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('а' + random.nextInt(32)));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package com.lionido.dreams_track.benchmark;
+
+import com.lionido.dreams_track.model.Symbol;
+import com.lionido.dreams_track.utils.OpenRouterAnalyzer;
+import com.lionido.dreams_track.utils.SymbolDictionary;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Разбор ответа OpenRouter: внешний JSON chat completion, очистка markdown и JSON анализа внутри content.
+ */
+@State(Scope.Benchmark)
+public class OpenRouterResponseBenchmark {
+
+    @Param({"3", "10", "30"})
+    public int symbolCount;
+
+    private OpenRouterAnalyzer analyzer;
+    private String response;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // Сеть и файлы не используются: ключ передается явно, ресурсы не читаются
+        analyzer = new OpenRouterAnalyzer(null, null, "benchmark");
+        response = buildResponse(AnalyzerBenchmark.loadDictionary(), symbolCount);
+    }
+
+    static String buildResponse(SymbolDictionary dictionary, int symbolCount) throws Exception {
+        JSONArray symbols = new JSONArray();
+        for (int i = 0; i < symbolCount; i++) {
+            Symbol symbol = dictionary.get(i % dictionary.size());
+            symbols.put(new JSONObject()
+                    .put("keyword", symbol.getKeyword())
+                    .put("symbol", symbol.getSymbol())
+                    .put("interpretation", symbol.getInterpretation())
+                    .put("emotion", symbol.getEmotion())
+                    .put("archetype", "Тень"));
+        }
+        JSONObject analysis = new JSONObject()
+                .put("symbols", symbols)
+                .put("dominant_emotion", "fear")
+                .put("interpretation", DreamCorpus.generate(DreamCorpus.Size.MEDIUM))
+                .put("personal_growth", DreamCorpus.generate(DreamCorpus.Size.SHORT))
+                .put("actionable_advice", DreamCorpus.generate(DreamCorpus.Size.SHORT));
+
+        // Модели часто оборачивают JSON в блок markdown
+        String content = "```json\n" + analysis.toString(2) + "\n```";
+        JSONObject message = new JSONObject().put("role", "assistant").put("content", content);
+        JSONObject choice = new JSONObject().put("index", 0).put("message", message).put("finish_reason", "stop");
+        return new JSONObject()
+                .put("id", "gen-benchmark")
+                .put("model", "benchmark")
+                .put("choices", new JSONArray().put(choice))
+                .toString();
+    }
+
+    @Benchmark
+    public OpenRouterAnalyzer.DreamAnalysisResult parseOpenRouterResponse() throws Exception {
+        return analyzer.parseOpenRouterResponse(response);
+    }
+}
@@ -0,0 +1,141 @@
+package com.lionido.dreams_track.benchmark;
+
+import com.lionido.dreams_track.model.Symbol;
+import com.lionido.dreams_track.utils.EmotionDetector;
+import com.lionido.dreams_track.utils.NLPAnalyzer;
+import com.lionido.dreams_track.utils.SymbolAnalyzer;
+import com.lionido.dreams_track.utils.SymbolDictionary;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Анализ журнала из 10 000 снов так, как его делает DreamReanalyzer: страницы по 256 снов, каждая делится
+ * в ForkJoinPool до кусков по 16. Одна операция — весь проход. Запись страниц пакетами измеряет DreamInsertBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ReanalysisBenchmark {
+
+    static final int DREAM_COUNT = 10_000;
+    // Как DreamReanalyzer.PAGE_SIZE и SPLIT_THRESHOLD
+    private static final int PAGE_SIZE = 256;
+    private static final int SPLIT_THRESHOLD = 16;
+
+    // Размер пула; DreamReanalyzer берет число ядер минус одно
+    @Param({"1", "2", "4"})
+    public int parallelism;
+
+    private String[] texts;
+    private NLPAnalyzer nlpAnalyzer;
+    private SymbolAnalyzer symbolAnalyzer;
+    private EmotionDetector emotionDetector;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        SymbolDictionary dictionary = AnalyzerBenchmark.loadDictionary();
+        nlpAnalyzer = new NLPAnalyzer(dictionary);
+        symbolAnalyzer = new SymbolAnalyzer(dictionary);
+        emotionDetector = new EmotionDetector();
+        pool = new ForkJoinPool(parallelism);
+
+        DreamCorpus.Size[] sizes = DreamCorpus.Size.values();
+        texts = new String[DREAM_COUNT];
+        for (int i = 0; i < DREAM_COUNT; i++) {
+            texts[i] = DreamCorpus.generate(sizes[i % sizes.length], i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Result[] reanalyzeAll() {
+        Result[] results = new Result[DREAM_COUNT];
+        for (int from = 0; from < DREAM_COUNT; from += PAGE_SIZE) {
+            pool.invoke(new AnalyzePageTask(results, from, Math.min(from + PAGE_SIZE, DREAM_COUNT)));
+        }
+        return results;
+    }
+
+    // Как DreamReanalyzer.reanalyze
+    private Result reanalyze(String text) {
+        NLPAnalyzer.AnalysisResult result = nlpAnalyzer.analyze(text);
+        List<Symbol> symbols = new ArrayList<>(result.symbols);
+        for (Symbol symbol : symbolAnalyzer.findSymbolsInText(text)) {
+            if (!containsKeyword(symbols, symbol.getKeyword())) {
+                symbols.add(symbol);
+            }
+        }
+        String emotion = result.emotion;
+        if (emotion.equals("neutral")) {
+            emotion = emotionDetector.detectEmotion(text);
+        }
+        return new Result(symbols, emotion);
+    }
+
+    private static boolean containsKeyword(List<Symbol> symbols, String keyword) {
+        for (Symbol symbol : symbols) {
+            if (symbol.getKeyword().equals(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static final class Result {
+        public final List<Symbol> symbols;
+        public final String emotion;
+
+        Result(List<Symbol> symbols, String emotion) {
+            this.symbols = symbols;
+            this.emotion = emotion;
+        }
+    }
+
+    private final class AnalyzePageTask extends RecursiveAction {
+        private final Result[] results;
+        private final int from;
+        private final int to;
+
+        AnalyzePageTask(Result[] results, int from, int to) {
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    results[i] = reanalyze(texts[i]);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new AnalyzePageTask(results, from, mid), new AnalyzePageTask(results, mid, to));
+        }
+    }
+}
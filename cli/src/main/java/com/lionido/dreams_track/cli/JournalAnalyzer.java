@@ -0,0 +1,144 @@
+package com.lionido.dreams_track.cli;
+
+import com.lionido.dreams_track.model.Symbol;
+import com.lionido.dreams_track.utils.NLPAnalyzer;
+import com.lionido.dreams_track.utils.ResourceLoader;
+import com.lionido.dreams_track.utils.SymbolDictionary;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Пакетный анализ экспортированного дневника снов.
+ * Читает JSON-массив записей из ExportUtils.exportDreamsToJson, прогоняет текст каждой записи через NLPAnalyzer
+ * и выводит результат JSON-массивом; сводка по эмоциям и символам печатается в stderr.
+ */
+public final class JournalAnalyzer {
+
+    private static final String USAGE =
+            "Использование: cli <dreams_export.json> [--out <файл.json>] [--assets <каталог со словарем>]";
+    private static final int TOP_SYMBOLS = 10;
+
+    private JournalAnalyzer() {
+    }
+
+    public static void main(String[] args) {
+        String input = null;
+        String output = null;
+        String assetsDir = null;
+        for (int i = 0; i < args.length; i++) {
+            if ("--out".equals(args[i]) && i + 1 < args.length) {
+                output = args[++i];
+            } else if ("--assets".equals(args[i]) && i + 1 < args.length) {
+                assetsDir = args[++i];
+            } else if (input == null && !args[i].startsWith("--")) {
+                input = args[i];
+            } else {
+                System.err.println(USAGE);
+                System.exit(2);
+            }
+        }
+        if (input == null) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        try {
+            ResourceLoader resources = assetsDir != null ?
+                    ResourceLoader.directory(new File(assetsDir)) : ResourceLoader.classpath();
+            SymbolDictionary dictionary = loadDictionary(resources);
+
+            JSONArray dreams = new JSONArray(new String(Files.readAllBytes(new File(input).toPath()), StandardCharsets.UTF_8));
+            long started = System.nanoTime();
+            JSONArray results = analyze(new NLPAnalyzer(dictionary), dreams);
+            long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+            if (output != null) {
+                Files.write(new File(output).toPath(), results.toString(2).getBytes(StandardCharsets.UTF_8));
+            } else {
+                PrintStream out = new PrintStream(System.out, true, "UTF-8");
+                out.println(results.toString(2));
+            }
+            printSummary(results, elapsedMs);
+        } catch (IOException | JSONException e) {
+            System.err.println("Ошибка: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    static SymbolDictionary loadDictionary(ResourceLoader resources) throws IOException, JSONException {
+        try (InputStream is = resources.open("dream_symbols.json")) {
+            return SymbolDictionary.fromJson(is);
+        }
+    }
+
+    /**
+     * Анализирует записи параллельно; NLPAnalyzer потокобезопасен, порядок результатов совпадает с порядком записей.
+     */
+    static JSONArray analyze(NLPAnalyzer analyzer, JSONArray dreams) {
+        JSONObject[] results = new JSONObject[dreams.length()];
+        IntStream.range(0, dreams.length()).parallel().forEach(i -> {
+            JSONObject dream = dreams.getJSONObject(i);
+            String text = dream.optString("text", "");
+            NLPAnalyzer.AnalysisResult analysis = analyzer.analyze(text);
+
+            JSONArray symbols = new JSONArray();
+            for (Symbol symbol : analysis.symbols) {
+                symbols.put(symbol.getSymbol());
+            }
+            results[i] = new JSONObject()
+                    .put("id", dream.optInt("id"))
+                    .put("timestamp", dream.optLong("timestamp"))
+                    .put("emotion", analysis.emotion)
+                    .put("storedEmotion", dream.optString("emotion", ""))
+                    .put("symbols", symbols)
+                    .put("keyPhrases", new JSONArray(analysis.keyPhrases))
+                    .put("complexity", analysis.complexity);
+        });
+        return new JSONArray(results);
+    }
+
+    private static void printSummary(JSONArray results, long elapsedMs) {
+        Map<String, Integer> emotions = new TreeMap<>();
+        Map<String, Integer> symbols = new TreeMap<>();
+        int changed = 0;
+        for (int i = 0; i < results.length(); i++) {
+            JSONObject result = results.getJSONObject(i);
+            String emotion = result.getString("emotion");
+            emotions.merge(emotion, 1, Integer::sum);
+            String storedEmotion = result.getString("storedEmotion");
+            if (!storedEmotion.isEmpty() && !emotion.equals(storedEmotion)) {
+                changed++;
+            }
+            JSONArray found = result.getJSONArray("symbols");
+            for (int j = 0; j < found.length(); j++) {
+                symbols.merge(found.getString(j), 1, Integer::sum);
+            }
+        }
+
+        List<Map.Entry<String, Integer>> topSymbols = new ArrayList<>(symbols.entrySet());
+        topSymbols.sort((a, b) -> b.getValue() - a.getValue());
+
+        System.err.println("Проанализировано снов: " + results.length() + " за " + elapsedMs + " мс");
+        System.err.println("Эмоция отличается от сохраненной: " + changed);
+        System.err.println("Эмоции: " + emotions);
+        System.err.print("Частые символы:");
+        for (int i = 0; i < Math.min(TOP_SYMBOLS, topSymbols.size()); i++) {
+            System.err.print(" " + topSymbols.get(i).getKey() + "=" + topSymbols.get(i).getValue());
+        }
+        System.err.println();
+    }
+}
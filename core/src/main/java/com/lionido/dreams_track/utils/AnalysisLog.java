@@ -0,0 +1,55 @@
+package com.lionido.dreams_track.utils;
+
+/**
+ * Журнал модуля анализа без зависимости от android.util.Log.
+ * Приложение подключает свой {@link Logger} при старте; по умолчанию предупреждения и ошибки пишутся в stderr.
+ */
+public final class AnalysisLog {
+    // Значения совпадают с приоритетами android.util.Log
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+
+    public interface Logger {
+        void log(int priority, String tag, String message, Throwable error);
+    }
+
+    private static final Logger STDERR = (priority, tag, message, error) -> {
+        if (priority < WARN) {
+            return;
+        }
+        System.err.println((priority == ERROR ? "E/" : "W/") + tag + ": " + message);
+        if (error != null) {
+            error.printStackTrace();
+        }
+    };
+
+    private static volatile Logger logger = STDERR;
+
+    private AnalysisLog() {
+    }
+
+    /**
+     * Заменяет получателя журнала; null возвращает вывод в stderr.
+     */
+    public static void setLogger(Logger newLogger) {
+        logger = newLogger != null ? newLogger : STDERR;
+    }
+
+    public static void d(String tag, String message) {
+        logger.log(DEBUG, tag, message, null);
+    }
+
+    public static void i(String tag, String message) {
+        logger.log(INFO, tag, message, null);
+    }
+
+    public static void w(String tag, String message, Throwable error) {
+        logger.log(WARN, tag, message, error);
+    }
+
+    public static void e(String tag, String message, Throwable error) {
+        logger.log(ERROR, tag, message, error);
+    }
+}
@@ -0,0 +1,162 @@
+package com.lionido.dreams_track.utils;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Разбор JSON анализа по мере прихода текста от модели. Сообщает слушателю о каждом символе из массива
+ * symbols, об эмоции и об интерпретации, как только соответствующее значение закрыто, не дожидаясь конца ответа.
+ * Текст до первой «{», например разметка ```json, пропускается. Весь ответ все равно разбирается в конце
+ * через {@link OpenRouterAnalyzer#parseAnalysis(String)}; здесь только ранние уведомления.
+ * Не потокобезопасен: один экземпляр на один ответ.
+ */
+final class AnalysisStreamParser {
+    private static final String TAG = "AnalysisStreamParser";
+
+    private final OpenRouterAnalyzer.OnAnalysisCompleteListener listener;
+    // Весь полученный текст: значения полей вырезаются из него по позициям
+    private final StringBuilder text = new StringBuilder();
+
+    private boolean started;
+    private boolean complete;
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+
+    // Состояние на верхнем уровне объекта
+    private boolean expectKey;
+    private int keyStart = -1;
+    private String key;
+    private int valueStart = -1;
+    // Начало текущего элемента массива symbols
+    private int symbolStart = -1;
+
+    AnalysisStreamParser(OpenRouterAnalyzer.OnAnalysisCompleteListener listener) {
+        this.listener = listener;
+    }
+
+    void feed(CharSequence chunk) {
+        for (int i = 0; i < chunk.length() && !complete; i++) {
+            char c = chunk.charAt(i);
+            if (!started) {
+                if (c != '{') {
+                    continue;
+                }
+                started = true;
+            }
+            text.append(c);
+            accept(c, text.length() - 1);
+        }
+    }
+
+    boolean isComplete() {
+        return complete;
+    }
+
+    private void accept(char c, int position) {
+        if (inString) {
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == '"') {
+                inString = false;
+                if (depth == 1 && keyStart >= 0) {
+                    key = text.substring(keyStart + 1, position);
+                    keyStart = -1;
+                } else if (depth == 1 && valueStart >= 0) {
+                    endValue(position + 1);
+                }
+            }
+            return;
+        }
+
+        switch (c) {
+            case '"':
+                inString = true;
+                if (depth == 1) {
+                    if (expectKey) {
+                        keyStart = position;
+                        expectKey = false;
+                    } else if (key != null && valueStart < 0) {
+                        valueStart = position;
+                    }
+                }
+                break;
+            case '{':
+            case '[':
+                if (depth == 1 && key != null && valueStart < 0) {
+                    valueStart = position;
+                } else if (c == '{' && depth == 2 && "symbols".equals(key) && text.charAt(valueStart) == '[') {
+                    symbolStart = position;
+                }
+                depth++;
+                if (depth == 1) {
+                    expectKey = true;
+                }
+                break;
+            case '}':
+            case ']':
+                depth--;
+                if (depth == 2 && c == '}' && symbolStart >= 0) {
+                    emitSymbol(text.substring(symbolStart, position + 1));
+                    symbolStart = -1;
+                }
+                if (depth == 1 && valueStart >= 0) {
+                    endValue(position + 1);
+                } else if (depth == 0) {
+                    // Число, true или null последним полем заканчиваются закрывающей скобкой
+                    if (valueStart >= 0) {
+                        endValue(position);
+                    }
+                    complete = true;
+                }
+                break;
+            case ',':
+                if (depth == 1) {
+                    if (valueStart >= 0) {
+                        endValue(position);
+                    }
+                    expectKey = true;
+                }
+                break;
+            default:
+                if (depth == 1 && key != null && valueStart < 0 && c != ':' && !Character.isWhitespace(c)) {
+                    valueStart = position;
+                }
+                break;
+        }
+    }
+
+    private void endValue(int end) {
+        String raw = text.substring(valueStart, end).trim();
+        String name = key;
+        valueStart = -1;
+        key = null;
+        if (!raw.startsWith("\"")) {
+            return;
+        }
+        String value;
+        try {
+            value = new JSONArray("[" + raw + "]").getString(0);
+        } catch (JSONException e) {
+            AnalysisLog.w(TAG, "Не удалось разобрать поле " + name, e);
+            return;
+        }
+        if ("dominant_emotion".equals(name)) {
+            listener.onEmotion(value);
+        } else if ("interpretation".equals(name)) {
+            listener.onInterpretation(value);
+        }
+    }
+
+    private void emitSymbol(String raw) {
+        try {
+            listener.onSymbol(OpenRouterAnalyzer.parseSymbol(new JSONObject(raw)));
+        } catch (JSONException e) {
+            // Неполный символ пропускаем: итоговый разбор всего ответа решит, что с ним делать
+            AnalysisLog.w(TAG, "Не удалось разобрать символ", e);
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package com.lionido.dreams_track.utils;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class EmotionDetector {
 
     private Map<String, String> emotionKeywords;
+    private LemmaIndex keywordIndex;
+    private String[] keywordEmotions;
 
     public EmotionDetector() {
         initializeEmotionKeywords();
+        initializeMatcher();
     }
 
     private void initializeEmotionKeywords() {
@@ -81,13 +86,23 @@ public class EmotionDetector {
         emotionKeywords.put("безвыходность", "despair");
     }
 
+    private void initializeMatcher() {
+        List<String> words = new ArrayList<>(emotionKeywords.keySet());
+        keywordEmotions = new String[words.size()];
+        for (int i = 0; i < words.size(); i++) {
+            keywordEmotions[i] = emotionKeywords.get(words.get(i));
+        }
+        keywordIndex = new LemmaIndex(words);
+    }
+
     public String detectEmotion(String text) {
-        text = text.toLowerCase();
         Map<String, Integer> scores = new HashMap<>();
 
-        for (String word : emotionKeywords.keySet()) {
-            if (text.contains(word)) {
-                String emo = emotionKeywords.get(word);
+        // Слова сравниваются по основам, так что «паники» засчитывается наравне с «паника»
+        boolean[] present = keywordIndex.findPresent(TextTokenizer.tokenize(text));
+        for (int i = 0; i < present.length; i++) {
+            if (present[i]) {
+                String emo = keywordEmotions[i];
                 scores.put(emo, scores.getOrDefault(emo, 0) + 1);
             }
         }
@@ -98,7 +113,7 @@ public class EmotionDetector {
             .orElse("neutral");
     }
 
-    public String getEmotionDisplayName(String emotion) {
+    public static String getEmotionDisplayName(String emotion) {
         switch (emotion) {
             case "fear": return "Страх";
             case "joy": return "Радость";
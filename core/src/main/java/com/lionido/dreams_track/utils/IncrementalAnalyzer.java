@@ -0,0 +1,171 @@
+package com.lionido.dreams_track.utils;
+
+import com.lionido.dreams_track.model.Symbol;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Инкрементальный анализ текста по мере набора. Текст хранится как последовательность предложений
+ * с закэшированными признаками {@link NLPAnalyzer.TextFeatures}; при изменении заново токенизируются
+ * только предложения, которые задела правка, остальные лишь сдвигаются.
+ * Не потокобезопасен: вызовы должны идти из одного потока (см. {@link LiveAnalysisHelper}).
+ */
+public class IncrementalAnalyzer {
+
+    public static class Result {
+        public List<Symbol> symbols;
+        public String emotion;
+        public int sentenceCount;
+        public int reanalyzedSentences;
+
+        public Result() {
+            symbols = new ArrayList<>();
+            emotion = "neutral";
+        }
+    }
+
+    private static final class Sentence {
+        int start; // включительно, в текущем тексте
+        int end;   // исключительно
+        final NLPAnalyzer.TextFeatures features;
+
+        Sentence(int start, int end, NLPAnalyzer.TextFeatures features) {
+            this.start = start;
+            this.end = end;
+            this.features = features;
+        }
+    }
+
+    private final NLPAnalyzer analyzer;
+    private String text = "";
+    private final List<Sentence> sentences = new ArrayList<>();
+
+    public IncrementalAnalyzer(NLPAnalyzer analyzer) {
+        this.analyzer = analyzer;
+    }
+
+    /**
+     * Анализирует новую версию текста. Измененная область находится по общему началу и концу
+     * с предыдущей версией, поэтому несколько правок между вызовами объединяются сами собой.
+     */
+    public Result update(String newText) {
+        if (newText == null) {
+            newText = "";
+        }
+        int oldLength = text.length();
+        int newLength = newText.length();
+        int limit = Math.min(oldLength, newLength);
+
+        int prefix = 0;
+        while (prefix < limit && text.charAt(prefix) == newText.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < limit - prefix
+                && text.charAt(oldLength - 1 - suffix) == newText.charAt(newLength - 1 - suffix)) {
+            suffix++;
+        }
+        return applyChange(newText, prefix, oldLength - suffix, newLength - suffix);
+    }
+
+    /**
+     * Применяет правку в терминах TextWatcher: с позиции {@code start} {@code before} символов
+     * заменены на {@code inserted}.
+     */
+    public Result applyDelta(int start, int before, String inserted) {
+        String newText = text.substring(0, start) + inserted + text.substring(start + before);
+        return applyChange(newText, start, start + before, start + inserted.length());
+    }
+
+    /**
+     * Участок [changeStart, oldChangeEnd) прежнего текста заменен участком [changeStart, newChangeEnd) нового.
+     */
+    private Result applyChange(String newText, int changeStart, int oldChangeEnd, int newChangeEnd) {
+        int delta = newChangeEnd - oldChangeEnd;
+        int reanalyzed = 0;
+
+        if (!newText.equals(text) || sentences.isEmpty()) {
+            // Первое и последнее предложения, которые задела правка. Берем и предложение перед точкой правки:
+            // удаление знака конца предложения склеивает его со следующим.
+            int first = sentences.isEmpty() ? 0 : indexOfSentence(Math.max(changeStart - 1, 0));
+            int last = sentences.isEmpty() ? -1 : indexOfSentence(Math.min(oldChangeEnd, text.length() - 1));
+            int regionStart = sentences.isEmpty() ? 0 : sentences.get(first).start;
+            int regionEnd = sentences.isEmpty() ? newText.length() : sentences.get(last).end + delta;
+
+            List<Sentence> replacement = new ArrayList<>();
+            int sentenceStart = regionStart;
+            while (sentenceStart < regionEnd) {
+                int sentenceEnd = findSentenceEnd(newText, sentenceStart, regionEnd);
+                TokenizedText tokens = TextTokenizer.tokenize(newText.substring(sentenceStart, sentenceEnd));
+                replacement.add(new Sentence(sentenceStart, sentenceEnd, analyzer.extractFeatures(tokens)));
+                sentenceStart = sentenceEnd;
+            }
+            reanalyzed = replacement.size();
+
+            // Предложения после правки не изменились, только сдвинулись
+            for (int i = last + 1; i < sentences.size(); i++) {
+                Sentence sentence = sentences.get(i);
+                sentence.start += delta;
+                sentence.end += delta;
+            }
+            if (!sentences.isEmpty()) {
+                sentences.subList(first, last + 1).clear();
+            }
+            sentences.addAll(first, replacement);
+            text = newText;
+        }
+
+        return buildResult(reanalyzed);
+    }
+
+    private int indexOfSentence(int position) {
+        int low = 0;
+        int high = sentences.size() - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sentences.get(mid).end <= position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Предложение заканчивается после серии знаков . ! ? — так же делит текст {@link TextTokenizer}.
+     */
+    private static int findSentenceEnd(String text, int from, int limit) {
+        int i = from;
+        while (i < limit && !isTerminator(text.charAt(i))) {
+            i++;
+        }
+        while (i < limit && isTerminator(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isTerminator(char c) {
+        return c == '.' || c == '!' || c == '?';
+    }
+
+    private Result buildResult(int reanalyzed) {
+        NLPAnalyzer.TextFeatures total = new NLPAnalyzer.TextFeatures();
+        for (Sentence sentence : sentences) {
+            total.add(sentence.features);
+        }
+
+        Result result = new Result();
+        result.symbols = analyzer.findSymbols(total);
+        result.emotion = analyzer.detectEmotion(total, result.symbols);
+        result.sentenceCount = sentences.size();
+        result.reanalyzedSentences = reanalyzed;
+        return result;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
@@ -0,0 +1,142 @@
+package com.lionido.dreams_track.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Индекс ключевых слов и фраз по основам. Поиск в тексте — по одному обращению к хеш-таблице на токен,
+ * совпадения всегда целыми словами в любой словоформе: «падал» находит «падать», а «мираж» не находит «мир».
+ * Слово с глагольной приставкой, основы которого нет в индексе, ищется еще и без приставки: «убежал» находит «бежать».
+ * Формы, до которых не доходят ни стемминг, ни отбрасывание приставки (чередование в корне: «упала» при «падать»),
+ * передаются шаблону списком форм, например из словаря символов.
+ * Индексы шаблонов совпадают с порядком списка при создании. Неизменяем и безопасен для нескольких потоков.
+ */
+public final class LemmaIndex {
+
+    private static final int[] NO_PATTERNS = new int[0];
+    // Короче остаток не проверяется: «сад» без приставки «с» не должен находить «ад»
+    private static final int MIN_ROOT_LENGTH = 3;
+
+    private final String[] patterns;
+    // Варианты шаблонов: сам шаблон и его формы. Основы варианта и индекс его шаблона
+    private final String[][] variantLemmas;
+    private final int[] variantPattern;
+    // Первая основа варианта → индексы вариантов, начинающихся с нее
+    private final Map<String, int[]> byFirstLemma;
+
+    public interface MatchListener {
+        void onMatch(int patternIndex, int start, int end);
+    }
+
+    public LemmaIndex(List<String> patterns) {
+        this(patterns, Collections.emptyList());
+    }
+
+    /**
+     * @param forms другие формы шаблона с тем же индексом; список может быть короче списка шаблонов,
+     *              элементы могут быть null
+     */
+    public LemmaIndex(List<String> patterns, List<List<String>> forms) {
+        this(patterns, forms, Lemmatizer.getInstance());
+    }
+
+    LemmaIndex(List<String> patterns, List<List<String>> forms, Lemmatizer lemmatizer) {
+        this.patterns = patterns.toArray(new String[0]);
+        this.byFirstLemma = new HashMap<>();
+
+        List<String[]> lemmas = new ArrayList<>(this.patterns.length);
+        List<Integer> owners = new ArrayList<>(this.patterns.length);
+        for (int p = 0; p < this.patterns.length; p++) {
+            addVariant(lemmatizer, this.patterns[p], p, lemmas, owners);
+            List<String> patternForms = p < forms.size() ? forms.get(p) : null;
+            if (patternForms != null) {
+                for (String form : patternForms) {
+                    addVariant(lemmatizer, form, p, lemmas, owners);
+                }
+            }
+        }
+        this.variantLemmas = lemmas.toArray(new String[0][]);
+        this.variantPattern = new int[owners.size()];
+        for (int v = 0; v < variantPattern.length; v++) {
+            variantPattern[v] = owners.get(v);
+            int[] ids = byFirstLemma.get(variantLemmas[v][0]);
+            int[] extended = ids == null ? new int[1] : Arrays.copyOf(ids, ids.length + 1);
+            extended[extended.length - 1] = v;
+            byFirstLemma.put(variantLemmas[v][0], extended);
+        }
+    }
+
+    private static void addVariant(Lemmatizer lemmatizer, String phrase, int pattern,
+                                   List<String[]> lemmas, List<Integer> owners) {
+        String[] phraseLemmas = phrase != null ? lemmatizer.lemmatizePhrase(phrase) : new String[0];
+        if (phraseLemmas.length > 0) {
+            lemmas.add(phraseLemmas);
+            owners.add(pattern);
+        }
+    }
+
+    /**
+     * Сообщает о каждом вхождении каждого шаблона; {@code start} и {@code end} — индексы токенов
+     * (конец исключительно). Вхождение нескольких форм одного шаблона на том же месте сообщается каждое.
+     */
+    public void scan(TokenizedText tokens, MatchListener listener) {
+        String[] lemmas = tokens.getLemmas();
+        for (int i = 0; i < lemmas.length; i++) {
+            int[] candidates = byFirstLemma.get(lemmas[i]);
+            if (candidates == null) {
+                candidates = findWithoutPrefix(lemmas[i]);
+            }
+            for (int v : candidates) {
+                if (matchesAt(variantLemmas[v], lemmas, i)) {
+                    listener.onMatch(variantPattern[v], i, i + variantLemmas[v].length);
+                }
+            }
+        }
+    }
+
+    // Приставка отбрасывается, только если остаток — основа из индекса
+    private int[] findWithoutPrefix(String lemma) {
+        for (String prefix : Lemmatizer.VERB_PREFIXES) {
+            if (lemma.length() - prefix.length() >= MIN_ROOT_LENGTH && lemma.startsWith(prefix)) {
+                int[] ids = byFirstLemma.get(lemma.substring(prefix.length()));
+                if (ids != null) {
+                    return ids;
+                }
+            }
+        }
+        return NO_PATTERNS;
+    }
+
+    private static boolean matchesAt(String[] pattern, String[] lemmas, int offset) {
+        if (offset + pattern.length > lemmas.length) {
+            return false;
+        }
+        for (int k = 1; k < pattern.length; k++) {
+            if (!pattern[k].equals(lemmas[offset + k])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Отмечает шаблоны, встретившиеся в тексте хотя бы один раз.
+     */
+    public boolean[] findPresent(TokenizedText tokens) {
+        boolean[] present = new boolean[patterns.length];
+        scan(tokens, (patternIndex, start, end) -> present[patternIndex] = true);
+        return present;
+    }
+
+    public int getPatternCount() {
+        return patterns.length;
+    }
+
+    public String getPattern(int index) {
+        return patterns[index];
+    }
+}
@@ -0,0 +1,90 @@
+package com.lionido.dreams_track.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Приведение слов к основе через {@link RussianStemmer} с ограниченным LRU-кэшем слово→основа.
+ * В снах одни и те же слова повторяются постоянно, поэтому большинство обращений обходятся без стемминга.
+ * Стеммер сохраняет приставки; основу без приставки {@link LemmaIndex} проверяет по своим шаблонам
+ * (см. VERB_PREFIXES).
+ * Общий для процесса экземпляр потокобезопасен.
+ */
+public final class Lemmatizer {
+
+    static final int DEFAULT_CACHE_SIZE = 4096;
+
+    // Глагольные приставки, длинные раньше коротких: «вы» проверяется до «в»
+    static final String[] VERB_PREFIXES = {
+            "пере", "недо", "пред", "обо", "ото", "без", "бес", "воз", "вос", "над", "под", "пре", "при", "про",
+            "раз", "рас", "вз", "вс", "во", "вы", "до", "за", "из", "ис", "на", "об", "от", "по", "со",
+            "в", "о", "с", "у",
+    };
+
+    private static volatile Lemmatizer instance;
+
+    private final Map<String, String> cache;
+
+    Lemmatizer(int cacheSize) {
+        this.cache = new LinkedHashMap<String, String>(cacheSize * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public static Lemmatizer getInstance() {
+        if (instance == null) {
+            synchronized (Lemmatizer.class) {
+                if (instance == null) {
+                    instance = new Lemmatizer(DEFAULT_CACHE_SIZE);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Основа одного слова в нижнем регистре.
+     */
+    public String lemma(String word) {
+        synchronized (cache) {
+            String cached = cache.get(word);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        // Стемминг вне блокировки: повторное вычисление в гонке дает тот же результат
+        String stem = RussianStemmer.stem(word);
+        synchronized (cache) {
+            cache.put(word, stem);
+        }
+        return stem;
+    }
+
+    /**
+     * Основы всех токенов текста, по индексу токена.
+     */
+    public String[] lemmatize(TokenizedText tokens) {
+        String[] lemmas = new String[tokens.getTokenCount()];
+        for (int i = 0; i < lemmas.length; i++) {
+            lemmas[i] = lemma(tokens.getToken(i));
+        }
+        return lemmas;
+    }
+
+    /**
+     * Основы слов фразы; пустой массив, если во фразе нет русских слов.
+     */
+    public String[] lemmatizePhrase(String phrase) {
+        return lemmatize(TextTokenizer.tokenize(phrase));
+    }
+
+    int cacheSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package com.lionido.dreams_track.utils;
+
+import com.lionido.dreams_track.model.Symbol;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class NLPAnalyzer {
+
+    private static final int MAX_SYMBOLS = 10;
+
+    private ResourceLoader resources;
+    private SymbolDictionary dictionary;
+    private Map<String, List<String>> synonyms;
+    private Set<String> stopWords;
+    private Map<String, Double> emotionWeights;
+    private Map<String, List<String>> contextWords;
+    private volatile SymbolScoringModel scoringModel;
+    private LemmaIndex emotionWordIndex;
+    private LemmaIndex emotionalContextIndex;
+    private String[] emotionalContextCategories;
+
+    public NLPAnalyzer(ResourceLoader resources) {
+        this.resources = resources;
+        // Словарь общий для всех анализаторов и грузится в фоне; ждем его только при первом анализе
+        SymbolDictionary.preload(resources);
+        initializeTables();
+    }
+
+    public NLPAnalyzer(SymbolDictionary dictionary) {
+        this.dictionary = dictionary;
+        initializeTables();
+    }
+
+    private void initializeTables() {
+        initializeSynonyms();
+        initializeStopWords();
+        initializeEmotionWeights();
+        initializeContextWords();
+        emotionWordIndex = new LemmaIndex(new ArrayList<>(emotionWeights.keySet()));
+        initializeEmotionalContext();
+    }
+
+    private void initializeSynonyms() {
+        synonyms = new HashMap<>();
+
+        // Вода и связанные понятия
+        synonyms.put("вода", Arrays.asList("река", "озеро", "море", "океан", "дождь", "ливень", "поток", "волна", "течение"));
+        synonyms.put("падать", Arrays.asList("падение", "упасть", "сваливаться", "рухнуть", "скатиться", "провалиться"));
+        synonyms.put("летать", Arrays.asList("полет", "лететь", "парить", "взлетать", "планировать", "витать"));
+        synonyms.put("огонь", Arrays.asList("пламя", "костер", "пожар", "горение", "жар", "жжение"));
+        synonyms.put("дом", Arrays.asList("жилище", "квартира", "здание", "постройка", "кров", "обитель"));
+        synonyms.put("смерть", Arrays.asList("кончина", "гибель", "умирание", "конец", "погибель"));
+        synonyms.put("страх", Arrays.asList("ужас", "боязнь", "трепет", "паника", "испуг", "тревога", "боюсь"));
+        synonyms.put("преследование", Arrays.asList("погоня", "охота", "гонка", "преследовать", "гнаться", "следовать"));
+        synonyms.put("темнота", Arrays.asList("тьма", "мрак", "темно", "черный", "непроглядный"));
+        synonyms.put("свет", Arrays.asList("яркость", "освещение", "блеск", "сияние", "луч"));
+
+        // Добавляем обратные связи
+        Map<String, List<String>> reverseSynonyms = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : synonyms.entrySet()) {
+            String mainWord = entry.getKey();
+            for (String synonym : entry.getValue()) {
+                if (!reverseSynonyms.containsKey(synonym)) {
+                    reverseSynonyms.put(synonym, new ArrayList<>());
+                }
+                reverseSynonyms.get(synonym).add(mainWord);
+            }
+        }
+        synonyms.putAll(reverseSynonyms);
+    }
+
+    private void initializeStopWords() {
+        stopWords = new HashSet<>(Arrays.asList(
+                "и", "в", "на", "с", "по", "для", "от", "до", "при", "за", "над", "под", "между",
+                "я", "мы", "ты", "вы", "он", "она", "оно", "они", "мой", "твой", "его", "её", "наш", "ваш", "их",
+                "это", "то", "что", "где", "когда", "как", "почему", "который", "которая", "которое",
+                "был", "была", "было", "были", "есть", "буду", "будешь", "будет", "будем", "будете", "будут",
+                "а", "но", "или", "если", "хотя", "потому", "что", "чтобы", "так", "тот", "тем", "том"
+        ));
+    }
+
+    private void initializeEmotionWeights() {
+        emotionWeights = new HashMap<>();
+
+        // Страх
+        emotionWeights.put("страх", 3.0);
+        emotionWeights.put("ужас", 4.0);
+        emotionWeights.put("боюсь", 3.5);
+        emotionWeights.put("паника", 4.5);
+        emotionWeights.put("кошмар", 4.0);
+        emotionWeights.put("тревога", 2.5);
+
+        // Радость
+        emotionWeights.put("радость", 3.0);
+        emotionWeights.put("счастье", 3.5);
+        emotionWeights.put("веселье", 2.5);
+        emotionWeights.put("восторг", 4.0);
+
+        // Грусть
+        emotionWeights.put("грусть", 3.0);
+        emotionWeights.put("печаль", 3.5);
+        emotionWeights.put("тоска", 4.0);
+        emotionWeights.put("депрессия", 4.5);
+
+        // Злость
+        emotionWeights.put("злость", 3.0);
+        emotionWeights.put("гнев", 4.0);
+        emotionWeights.put("ярость", 4.5);
+        emotionWeights.put("бешенство", 5.0);
+    }
+
+    private void initializeContextWords() {
+        // Контекстуальные слова для каждого типа символа
+        contextWords = new HashMap<>();
+
+        contextWords.put("water", Arrays.asList("мокрый", "плавать", "тонуть", "брызги", "капли", "течь"));
+        contextWords.put("falling", Arrays.asList("высота", "глубина", "вниз", "пропасть", "обрыв", "лететь"));
+        contextWords.put("flying", Arrays.asList("небо", "облака", "крылья", "высоко", "парить", "взлетать"));
+        contextWords.put("fire", Arrays.asList("жар", "дым", "горячий", "сжигать", "пепел", "искры"));
+        contextWords.put("chase", Arrays.asList("бежать", "убегать", "догонять", "быстро", "скорость", "спасаться"));
+        contextWords.put("death", Arrays.asList("гроб", "похороны", "умирать", "мертвый", "кладбище", "душа"));
+        contextWords.put("darkness", Arrays.asList("ночь", "черный", "мрак", "тени", "не видно", "слепой"));
+        contextWords.put("light", Arrays.asList("солнце", "лампа", "яркий", "светлый", "освещать", "сияние"));
+    }
+
+    private void initializeEmotionalContext() {
+        // Контекстуальные индикаторы эмоций; фразы сравниваются по основам слов
+        Map<String, List<String>> indicators = new LinkedHashMap<>();
+        indicators.put("fear", Arrays.asList("не мог", "помощь", "спасаться", "убегать"));
+        indicators.put("joy", Arrays.asList("красиво", "прекрасно", "удивительно", "чудесно", "восхитительно"));
+        indicators.put("sadness", Arrays.asList("потерял", "одиноко", "пусто", "грустно"));
+        indicators.put("anger", Arrays.asList("злой", "сердитый", "раздражает", "бесит", "ненавижу"));
+
+        List<String> phrases = new ArrayList<>();
+        List<String> categories = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : indicators.entrySet()) {
+            for (String phrase : entry.getValue()) {
+                phrases.add(phrase);
+                categories.add(entry.getKey());
+            }
+        }
+        emotionalContextIndex = new LemmaIndex(phrases);
+        emotionalContextCategories = categories.toArray(new String[0]);
+    }
+
+    private SymbolScoringModel scoringModel() {
+        SymbolScoringModel model = scoringModel;
+        if (model == null) {
+            synchronized (this) {
+                model = scoringModel;
+                if (model == null) {
+                    SymbolDictionary symbols = dictionary != null ? dictionary : SymbolDictionary.getInstance(resources);
+                    // Модель весов компилируется один раз: все таблицы сводятся к целочисленным id терминов
+                    model = new SymbolScoringModel(symbols.getSymbols(), synonyms, contextWords);
+                    if (!symbols.isEmpty()) {
+                        scoringModel = model;
+                    }
+                }
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Полный анализ текста за одну токенизацию: символы, эмоция, ключевые фразы, частоты слов и сложность.
+     */
+    public AnalysisResult analyze(String text) {
+        TokenizedText tokens = TextTokenizer.tokenize(text);
+
+        AnalysisResult result = new AnalysisResult();
+        TextFeatures features = extractFeatures(tokens);
+        result.symbols = findSymbols(features);
+        result.emotion = detectEmotion(features, result.symbols);
+        result.keyPhrases = extractKeyPhrases(tokens);
+        result.wordFrequency = getWordFrequency(tokens);
+        result.complexity = calculateTextComplexity(tokens);
+        return result;
+    }
+
+    public List<Symbol> findSymbolsAdvanced(String text) {
+        return findSymbols(TextTokenizer.tokenize(text));
+    }
+
+    public List<Symbol> findSymbols(TokenizedText tokens) {
+        // Берем наиболее релевантные символы по весу
+        return scoringModel().findTopSymbols(tokens, MAX_SYMBOLS);
+    }
+
+    /**
+     * Признаки текста, из которых складываются символы и эмоция. Признаки отдельных предложений
+     * можно объединять через {@link TextFeatures#add(TextFeatures)}, не анализируя текст заново.
+     */
+    public TextFeatures extractFeatures(TokenizedText tokens) {
+        TextFeatures features = new TextFeatures();
+        scoringModel().collectTerms(tokens, features.symbolTerms);
+        collectEmotionFeatures(tokens, features);
+        return features;
+    }
+
+    private void collectEmotionFeatures(TokenizedText tokens, TextFeatures features) {
+        emotionWordIndex.scan(tokens, (pattern, start, end) -> features.emotionWords.set(pattern));
+        emotionalContextIndex.scan(tokens, (pattern, start, end) -> features.emotionalContext.set(pattern));
+    }
+
+    public List<Symbol> findSymbols(TextFeatures features) {
+        return scoringModel().findTopSymbols(features.symbolTerms, MAX_SYMBOLS);
+    }
+
+    public String detectEmotionAdvanced(String text) {
+        TokenizedText tokens = TextTokenizer.tokenize(text);
+        return detectEmotion(tokens, findSymbols(tokens));
+    }
+
+    public String detectEmotion(TokenizedText tokens, List<Symbol> foundSymbols) {
+        TextFeatures features = new TextFeatures();
+        collectEmotionFeatures(tokens, features);
+        return detectEmotion(features, foundSymbols);
+    }
+
+    public String detectEmotion(TextFeatures features, List<Symbol> foundSymbols) {
+        Map<String, Double> emotionScores = new HashMap<>();
+
+        // Анализируем эмоциональные слова с весами
+        BitSet emotionWords = features.emotionWords;
+        for (int i = emotionWords.nextSetBit(0); i >= 0; i = emotionWords.nextSetBit(i + 1)) {
+            String emotionWord = emotionWordIndex.getPattern(i);
+            String emotionCategory = getEmotionCategory(emotionWord);
+            emotionScores.put(emotionCategory,
+                    emotionScores.getOrDefault(emotionCategory, 0.0) + emotionWeights.get(emotionWord));
+        }
+
+        // Анализируем символы для определения эмоций
+        for (Symbol symbol : foundSymbols) {
+            String symbolEmotion = symbol.getEmotion();
+            String emotionCategory = mapSymbolEmotionToCategory(symbolEmotion);
+            emotionScores.put(emotionCategory,
+                    emotionScores.getOrDefault(emotionCategory, 0.0) + 1.0);
+        }
+
+        // Контекстуальный анализ эмоций
+        emotionScores = analyzeEmotionalContext(features.emotionalContext, emotionScores);
+
+        // Возвращаем эмоцию с наибольшим весом
+        return emotionScores.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse("neutral");
+    }
+
+    private String getEmotionCategory(String emotionWord) {
+        if (Arrays.asList("страх", "ужас", "боюсь", "паника", "кошмар", "тревога").contains(emotionWord)) {
+            return "fear";
+        } else if (Arrays.asList("радость", "счастье", "веселье", "восторг").contains(emotionWord)) {
+            return "joy";
+        } else if (Arrays.asList("грусть", "печаль", "тоска", "депрессия").contains(emotionWord)) {
+            return "sadness";
+        } else if (Arrays.asList("злость", "гнев", "ярость", "бешенство").contains(emotionWord)) {
+            return "anger";
+        }
+        return "neutral";
+    }
+
+    private String mapSymbolEmotionToCategory(String symbolEmotion) {
+        switch (symbolEmotion) {
+            case "fear":
+            case "anxiety":
+            case "despair":
+                return "fear";
+            case "joy":
+            case "hope":
+            case "love":
+                return "joy";
+            case "sadness":
+            case "shame":
+                return "sadness";
+            case "anger":
+                return "anger";
+            default:
+                return "neutral";
+        }
+    }
+
+    private Map<String, Double> analyzeEmotionalContext(BitSet indicators, Map<String, Double> emotionScores) {
+        // Каждая эмоция получает бонус один раз, сколько бы ее индикаторов ни встретилось
+        Set<String> matchedCategories = new HashSet<>();
+        for (int i = indicators.nextSetBit(0); i >= 0; i = indicators.nextSetBit(i + 1)) {
+            matchedCategories.add(emotionalContextCategories[i]);
+        }
+
+        for (String category : matchedCategories) {
+            emotionScores.put(category, emotionScores.getOrDefault(category, 0.0) + 1.5);
+        }
+
+        return emotionScores;
+    }
+
+    // Дополнительные методы для расширенного анализа
+
+    public List<String> extractKeyPhrases(String text) {
+        return extractKeyPhrases(TextTokenizer.tokenize(text));
+    }
+
+    public List<String> extractKeyPhrases(TokenizedText tokens) {
+        List<String> keyPhrases = new ArrayList<>();
+
+        // Простой алгоритм выделения ключевых фраз: короткие предложения без стоп-слов
+        for (int sentence = 0; sentence < tokens.getSentenceCount(); sentence++) {
+            int first = tokens.getSentenceFirstToken(sentence);
+            int end = tokens.getSentenceEndToken(sentence);
+            int words = end - first;
+            if (words >= 2 && words <= 4) {
+                StringBuilder phrase = new StringBuilder();
+                for (int i = first; i < end; i++) {
+                    if (isSignificantWord(tokens, i)) {
+                        if (phrase.length() > 0) phrase.append(" ");
+                        phrase.append(tokens.getNormalizedText(), tokens.getTokenStart(i), tokens.getTokenEnd(i));
+                    }
+                }
+                if (phrase.length() > 0) {
+                    keyPhrases.add(phrase.toString());
+                }
+            }
+        }
+
+        return keyPhrases;
+    }
+
+    public double calculateTextComplexity(String text) {
+        return calculateTextComplexity(TextTokenizer.tokenize(text));
+    }
+
+    public double calculateTextComplexity(TokenizedText tokens) {
+        if (tokens.isEmpty()) return 0.0;
+
+        double avgWordsPerSentence = (double) tokens.getTokenCount() / tokens.getSentenceCount();
+        double avgCharsPerWord = tokens.getLetterCount() / (double) tokens.getTokenCount();
+
+        // Простая формула сложности
+        return (avgWordsPerSentence * 0.6) + (avgCharsPerWord * 0.4);
+    }
+
+    public Map<String, Integer> getWordFrequency(String text) {
+        return getWordFrequency(TextTokenizer.tokenize(text));
+    }
+
+    public Map<String, Integer> getWordFrequency(TokenizedText tokens) {
+        Map<String, Integer> frequency = new HashMap<>();
+
+        for (int i = 0; i < tokens.getTokenCount(); i++) {
+            if (isSignificantWord(tokens, i)) {
+                String word = tokens.getToken(i);
+                frequency.put(word, frequency.getOrDefault(word, 0) + 1);
+            }
+        }
+
+        return frequency;
+    }
+
+    private boolean isSignificantWord(TokenizedText tokens, int index) {
+        // Стоп-слова не длиннее 2 букв отсекаются по длине без обращения к множеству
+        return tokens.getTokenLength(index) > 2 && !stopWords.contains(tokens.getToken(index));
+    }
+
+    // Добавляем метод extractSymbols как псевдоним для findSymbolsAdvanced
+    public List<Symbol> extractSymbols(String text) {
+        return findSymbolsAdvanced(text);
+    }
+
+    /**
+     * Какие термины символов, эмоциональные слова и контекстные индикаторы встретились во фрагменте текста.
+     */
+    public static final class TextFeatures {
+        final BitSet symbolTerms = new BitSet();
+        final BitSet emotionWords = new BitSet();
+        final BitSet emotionalContext = new BitSet();
+
+        public void add(TextFeatures other) {
+            symbolTerms.or(other.symbolTerms);
+            emotionWords.or(other.emotionWords);
+            emotionalContext.or(other.emotionalContext);
+        }
+    }
+
+    public static class AnalysisResult {
+        public List<Symbol> symbols;
+        public String emotion;
+        public List<String> keyPhrases;
+        public Map<String, Integer> wordFrequency;
+        public double complexity;
+
+        public AnalysisResult() {
+            symbols = new ArrayList<>();
+            emotion = "neutral";
+            keyPhrases = new ArrayList<>();
+            wordFrequency = new HashMap<>();
+            complexity = 0.0;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,684 @@
+package com.lionido.dreams_track.utils;
+
+import com.lionido.dreams_track.model.Symbol;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+public class OpenRouterAnalyzer {
+    private static final String TAG = "OpenRouterAnalyzer";
+    private static final String API_BASE_URL = "https://openrouter.ai/api/v1/chat/completions";
+    private static final String LOG_FILE_NAME = "openrouter_logs.txt";
+    private static final String API_KEY_FILE = "openrouter_api_key.txt";
+    private static final String HTTP_REFERER = "com.lionido.dreams_track";
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    static final String MODEL_ID = "tngtech/deepseek-r1t2-chimera:free";
+    // Увеличивается при любом изменении промпта: ответы на прежний промпт перестают находиться в кэше
+    static final int PROMPT_VERSION = 2;
+    // Весь запрос анализа, от соединения до последнего байта ответа: длинный ответ модели может идти минуты
+    static final long ANALYSIS_CALL_TIMEOUT_SECONDS = 120;
+    // Предел ответа на один сон; пакетный запрос получает его на каждый сон пакета
+    static final int MAX_TOKENS_PER_DREAM = 2000;
+
+    private String apiKey;
+    private ResourceLoader resources;
+    private File logDir;
+    private final OkHttpClient httpClient;
+    private final String apiUrl;
+    private volatile AnalysisCache cache;
+    private volatile int contextTokenBudget = PromptContextSelector.DEFAULT_TOKEN_BUDGET;
+    private volatile PromptContextSelector contextSelector;
+
+    public interface OnAnalysisCompleteListener {
+        void onSuccess(List<Symbol> symbols, String emotion, String interpretation, String personalGrowth, String actionableAdvice);
+        void onError(String error);
+
+        // Промежуточные результаты потокового ответа, до onSuccess. Вызываются из фонового потока
+
+        default void onSymbol(Symbol symbol) {
+        }
+
+        default void onEmotion(String emotion) {
+        }
+
+        default void onInterpretation(String interpretation) {
+        }
+
+        // Анализ LLM не получен (нет сети, ошибка API), следом onSuccess с резервным анализом.
+        // Сохраненный сон можно поставить в очередь PendingAnalysisWorker
+        default void onDeferred(String error) {
+        }
+    }
+
+    /**
+     * Хранилище готовых анализов. Ключ — {@link #cacheKey(String)}, значение — JSON анализа из ответа модели.
+     * Вызывается из фонового потока анализа.
+     */
+    public interface AnalysisCache {
+        /** @return JSON анализа или null, если его нет или он устарел */
+        String get(String key);
+
+        void put(String key, String analysisJson);
+    }
+
+    public static class DreamAnalysisResult {
+        public List<Symbol> symbols;
+        public String emotion;
+        public String interpretation;
+        public String personalGrowth;
+        public String actionableAdvice;
+
+        public DreamAnalysisResult() {
+            symbols = new ArrayList<>();
+            emotion = "neutral";
+            interpretation = "";
+            personalGrowth = "";
+            actionableAdvice = "";
+        }
+    }
+
+    /**
+     * @param resources источник ключа API и словаря символов
+     * @param logDir каталог для журнала запросов; null — текущий каталог
+     */
+    public OpenRouterAnalyzer(ResourceLoader resources, File logDir) {
+        this.resources = resources;
+        this.logDir = logDir;
+        this.httpClient = SharedHttpClient.get();
+        this.apiUrl = API_BASE_URL;
+        this.apiKey = loadApiKeyFromFile();
+        SymbolDictionary.preload(resources);
+    }
+
+    /**
+     * Анализатор с заданным ключом API, без чтения ключа из ресурсов.
+     * Без источника ресурсов словарь для промпта загрузится из classpath при первом запросе.
+     */
+    public OpenRouterAnalyzer(ResourceLoader resources, File logDir, String apiKey) {
+        this(resources, logDir, apiKey, SharedHttpClient.get(), API_BASE_URL);
+    }
+
+    // Для тестов: свой клиент и адрес API, например локального сервера
+    OpenRouterAnalyzer(ResourceLoader resources, File logDir, String apiKey, OkHttpClient httpClient, String apiUrl) {
+        this.resources = resources;
+        this.logDir = logDir;
+        this.apiKey = apiKey;
+        this.httpClient = httpClient;
+        this.apiUrl = apiUrl;
+        if (resources != null) {
+            SymbolDictionary.preload(resources);
+        }
+    }
+
+    /**
+     * Повторный анализ того же текста сна берется из кэша без обращения к сети.
+     */
+    public void setCache(AnalysisCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Предел описания символов в промпте, в оценочных токенах. Ответы при другом пределе кэшируются отдельно.
+     */
+    public void setContextTokenBudget(int tokens) {
+        if (tokens < 0) {
+            throw new IllegalArgumentException("Бюджет токенов не может быть отрицательным: " + tokens);
+        }
+        contextTokenBudget = tokens;
+        contextSelector = null;
+    }
+
+    private String loadApiKeyFromFile() {
+        try {
+            InputStream inputStream = resources.open(API_KEY_FILE);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
+            StringBuilder apiKey = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                apiKey.append(line);
+            }
+            reader.close();
+            inputStream.close();
+            return apiKey.toString().trim();
+        } catch (IOException e) {
+            AnalysisLog.e(TAG, "Не удалось загрузить API ключ из файла", e);
+            return null;
+        }
+    }
+
+    public void analyzeDreamAsync(String dreamText, OnAnalysisCompleteListener listener) {
+        CompletableFuture.runAsync(() -> {
+            try {
+                DreamAnalysisResult result = analyzeDream(dreamText, listener);
+                listener.onSuccess(result.symbols, result.emotion, result.interpretation, result.personalGrowth, result.actionableAdvice);
+            } catch (Exception e) {
+                AnalysisLog.e(TAG, "Ошибка анализа сна с OpenRouter", e);
+                logOpenRouterInteraction("Ошибка анализа", "dreamText: " + dreamText, "error: " + e.getMessage());
+                listener.onDeferred(String.valueOf(e.getMessage()));
+                // Fallback к базовому анализу
+                DreamAnalysisResult fallbackResult = getFallbackAnalysis(dreamText);
+                listener.onSuccess(fallbackResult.symbols, fallbackResult.emotion, fallbackResult.interpretation, fallbackResult.personalGrowth, fallbackResult.actionableAdvice);
+            }
+        });
+    }
+
+    DreamAnalysisResult analyzeDream(String dreamText) throws IOException, JSONException {
+        return analyzeDream(dreamText, null);
+    }
+
+    /**
+     * Анализ с потоковым ответом: символы, эмоция и интерпретация передаются в {@code progress}, как только
+     * модель их допишет. Без слушателя ответ читается целиком.
+     */
+    DreamAnalysisResult analyzeDream(String dreamText, OnAnalysisCompleteListener progress)
+            throws IOException, JSONException {
+        AnalysisCache cache = this.cache;
+        String key = cache != null ? cacheKey(MODEL_ID, PROMPT_VERSION, contextTokenBudget, dreamText) : null;
+        if (cache != null) {
+            String cached = readCache(cache, key);
+            if (cached != null) {
+                return parseAnalysis(cached);
+            }
+        }
+
+        String prompt = createAnalysisPrompt(dreamText);
+        String analysisJson;
+        if (progress != null) {
+            String content = streamOpenRouterRequest(prompt, progress);
+            logOpenRouterInteraction("Потоковый запрос отправлен", "prompt: " + prompt, "content: " + content);
+            analysisJson = cleanAnalysisText(content);
+        } else {
+            String response = sendOpenRouterRequest(prompt);
+            logOpenRouterInteraction("Запрос отправлен", "prompt: " + prompt, "response: " + response);
+            analysisJson = extractAnalysisJson(response);
+        }
+        DreamAnalysisResult result = parseAnalysis(analysisJson);
+        // В кэш попадает только ответ, который удалось разобрать
+        if (cache != null) {
+            try {
+                cache.put(key, analysisJson);
+            } catch (RuntimeException e) {
+                AnalysisLog.e(TAG, "Не удалось сохранить анализ в кэш", e);
+            }
+        }
+        return result;
+    }
+
+    private static String readCache(AnalysisCache cache, String key) {
+        try {
+            String cached = cache.get(key);
+            if (cached != null) {
+                // Проверяем, что сохраненный JSON разбирается; иначе анализируем заново
+                new JSONObject(cached);
+            }
+            return cached;
+        } catch (RuntimeException e) {
+            AnalysisLog.e(TAG, "Не удалось прочитать анализ из кэша", e);
+            return null;
+        }
+    }
+
+    /**
+     * Ключ кэша: SHA-256 от модели, версии промпта, бюджета контекста и нормализованного текста сна.
+     * Регистр, «ё», знаки препинания и пробелы на ключ не влияют, поэтому мелкая правка текста
+     * не требует нового запроса. Здесь бюджет контекста по умолчанию.
+     */
+    public static String cacheKey(String dreamText) {
+        return cacheKey(MODEL_ID, PROMPT_VERSION, PromptContextSelector.DEFAULT_TOKEN_BUDGET, dreamText);
+    }
+
+    static String cacheKey(String model, int promptVersion, int contextTokenBudget, String dreamText) {
+        String source = model + "\n" + promptVersion + "\n" + contextTokenBudget + "\n" + normalizeForCache(dreamText);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 обязателен для любой Java-платформы
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Слова текста в нижнем регистре через один пробел, «ё» как «е»
+    static String normalizeForCache(String dreamText) {
+        if (dreamText == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(dreamText.length());
+        boolean space = false;
+        for (int i = 0; i < dreamText.length(); i++) {
+            char c = dreamText.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                space = false;
+                c = Character.toLowerCase(c);
+                normalized.append(c == 'ё' ? 'е' : c);
+            } else {
+                space = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    public String createAnalysisPrompt(String dreamText) {
+        String symbolsContext = loadDreamSymbolsContext(dreamText);
+
+        return "Ты - опытный психоаналитик, специализирующийся на интерпретации снов согласно методам Карла Юнга, Зигмунда Фрейда и современной психологии сна. Проанализируй следующий сон с точки зрения глубинной психологии.\n\n" +
+                "ТЕКСТ СНА: \"" + dreamText + "\"\n\n" +
+                "КОНТЕКСТ СИМВОЛОВ ИЗ БАЗЫ ЗНАНИЙ:\n" + symbolsContext + "\n\n" +
+                "МЕТОДОЛОГИЧЕСКИЙ ПОДХОД:\n" +
+                "1. ЮНГИАНСКИЙ АНАЛИЗ: Рассматривай архетипы (Анима/Анимус, Тень, Самость, Мудрый Старец), коллективное бессознательное, процесс индивидуации\n" +
+                "2. ФРЕЙДИСТСКИЙ АНАЛИЗ: Учитывай механизмы сгущения, смещения, символизации, латентное содержание за манифестным\n" +
+                "3. СОВРЕМЕННАЯ ПСИХОЛОГИЯ: Рассматривай сон как обработку эмоций, консолидацию памяти, решение проблем\n" +
+                "4. ЭКЗИСТЕНЦИАЛЬНЫЙ ПОДХОД: Выявляй темы свободы, ответственности, смысла, аутентичности\n\n" +
+                "КРИТЕРИИ АНАЛИЗА СИМВОЛОВ:\n" +
+                "- Контекст символа в сне (как он появляется, взаимодействия)\n" +
+                "- Эмоциональная окраска символа\n" +
+                "- Личные ассоциации (предполагаемые)\n" +
+                "- Архетипическое значение\n" +
+                "- Культурное значение\n" +
+                "- Возможная компенсаторная функция\n\n" +
+                "ОПРЕДЕЛЕНИЕ ДОМИНИРУЮЩЕЙ ЭМОЦИИ:\n" +
+                "Анализируй не только явные эмоции, но и:\n" +
+                "- Скрытые эмоциональные темы\n" +
+                "- Защитные механизмы\n" +
+                "- Эмоциональные конфликты\n" +
+                "- Подавленные чувства\n\n" +
+                "ЗАДАЧИ АНАЛИЗА:\n" +
+                "1. Найди 3-7 наиболее значимых символов в сне\n" +
+                "2. Определи доминирующую эмоцию с учетом скрытых аспектов\n" +
+                "3. Дай психоаналитическую интерпретацию\n" +
+                "4. Определи возможное значение для личностного роста\n" +
+                "5. Предложи практические рекомендации\n\n" +
+                "СТРОГИЙ ФОРМАТ ОТВЕТА (ТОЛЬКО JSON):\n" +
+                "{\n" +
+                "  \"symbols\": [\n" +
+                "    {\n" +
+                "      \"keyword\": \"ключевое_слово_из_сна\",\n" +
+                "      \"symbol\": \"symbol_name_english\",\n" +
+                "      \"interpretation\": \"Психологическая интерпретация символа в контексте сна (до 25 слов)\",\n" +
+                "      \"emotion\": \"fear|joy|sadness|anger|surprise|calm|love|shame|despair|anxiety|confusion|empowerment|neutral\",\n" +
+                "      \"archetype\": \"связанный_архетип_или_комплекс\"\n" +
+                "    }\n" +
+                "  ],\n" +
+                "  \"dominant_emotion\": \"основная_эмоция_сна\",\n" +
+                "  \"emotional_undertone\": \"скрытая_эмоциональная_тема\",\n" +
+                "  \"interpretation\": \"Глубокая психоаналитическая интерпретация сна: что он говорит о внутреннем мире человека, какие бессознательные процессы отражает, какие внутренние конфликты может выражать (3-4 предложения)\",\n" +
+                "  \"personal_growth\": \"Что этот сон может означать для личностного развития и самопознания человека. Какие аспекты личности требуют внимания (2-3 предложения)\",\n" +
+                "  \"actionable_advice\": \"Конкретные практические рекомендации на основе анализа сна: что можно сделать в реальной жизни, на что обратить внимание, какие вопросы себе задать (2-3 предложения)\"\n" +
+                "}\n\n" +
+                "ПРИНЦИПЫ ИНТЕРПРЕТАЦИИ:\n" +
+                "- Каждый символ имеет множественные значения\n" +
+                "- Сон компенсирует однобокость сознательной установки\n" +
+                "- Обращай внимание на противоположности и парадоксы\n" +
+                "- Учитывай стадию жизни и возрастные задачи\n" +
+                "- Ищи связи с процессом индивидуации\n" +
+                "- Рассматривай защитные механизмы и сопротивления\n\n" +
+                "КРИТИЧЕСКИ ВАЖНО:\n" +
+                "- Отвечай ТОЛЬКО в формате JSON\n" +
+                "- Не добавляй объяснения вне JSON\n" +
+                "- Интерпретация должна быть профессиональной, но понятной\n" +
+                "- Избегай категоричных утверждений, используй \"возможно\", \"может указывать на\"\n" +
+                "- Фокусируйся на потенциале роста, а не на патологии\n" +
+                "- Каждое поле JSON должно быть заполнено\n" +
+                "- Символы должны быть действительно значимыми для понимания сна\n" +
+                "- В поле archetype указывай юнгианские архетипы, комплексы или психологические темы\n\n" +
+                "ПРИМЕРЫ АРХЕТИПОВ/КОМПЛЕКСОВ:\n" +
+                "- Анима/Анимус (внутренний образ противоположного пола)\n" +
+                "- Тень (отвергаемые аспекты личности)\n" +
+                "- Самость (целостность личности)\n" +
+                "- Мудрый Старец/Великая Мать (руководящие принципы)\n" +
+                "- Материнский/Отцовский комплекс\n" +
+                "- Комплекс неполноценности\n" +
+                "- Комплекс власти\n" +
+                "- Герой (преодоление препятствий)\n" +
+                "- Трикстер (нарушение правил, хаос)\n\n" +
+                "Помни: сон - это письмо от бессознательного к сознанию. Твоя задача - расшифровать это послание с максимальной психологической точностью.";
+    }
+
+    /**
+     * Анализ нескольких снов одним запросом, например отложенных без сети. Ключи — id снов.
+     * Сны, которых нет в ответе или анализ которых не разобрался, в результат не попадают.
+     */
+    public Map<Integer, DreamAnalysisResult> analyzeBatch(Map<Integer, String> dreams) throws IOException, JSONException {
+        String prompt = createBatchAnalysisPrompt(dreams);
+        String response = sendOpenRouterRequest(prompt, MAX_TOKENS_PER_DREAM * dreams.size());
+        logOpenRouterInteraction("Пакетный запрос отправлен", "prompt: " + prompt, "response: " + response);
+
+        JSONArray analyses = new JSONObject(extractAnalysisJson(response)).optJSONArray("analyses");
+        Map<Integer, DreamAnalysisResult> results = new LinkedHashMap<>();
+        for (int i = 0; analyses != null && i < analyses.length(); i++) {
+            JSONObject analysis = analyses.optJSONObject(i);
+            int id = analysis != null ? analysis.optInt("id", -1) : -1;
+            if (!dreams.containsKey(id)) {
+                continue;
+            }
+            try {
+                results.put(id, parseAnalysis(analysis.toString()));
+            } catch (JSONException e) {
+                AnalysisLog.w(TAG, "Не удалось разобрать анализ сна " + id + " из пакета", e);
+            }
+        }
+        return results;
+    }
+
+    String createBatchAnalysisPrompt(Map<Integer, String> dreams) {
+        StringBuilder texts = new StringBuilder();
+        StringBuilder allText = new StringBuilder();
+        for (Map.Entry<Integer, String> dream : dreams.entrySet()) {
+            texts.append("СОН id=").append(dream.getKey()).append(": \"").append(dream.getValue()).append("\"\n\n");
+            allText.append(dream.getValue()).append('\n');
+        }
+        return "Ты - опытный психоаналитик, специализирующийся на интерпретации снов согласно методам Карла Юнга, Зигмунда Фрейда и современной психологии сна. Проанализируй каждый из следующих снов отдельно с точки зрения глубинной психологии.\n\n" +
+                texts +
+                "КОНТЕКСТ СИМВОЛОВ ИЗ БАЗЫ ЗНАНИЙ:\n" + loadDreamSymbolsContext(allText.toString()) + "\n\n" +
+                "ЗАДАЧИ АНАЛИЗА ДЛЯ КАЖДОГО СНА:\n" +
+                "1. Найди 3-7 наиболее значимых символов в сне\n" +
+                "2. Определи доминирующую эмоцию с учетом скрытых аспектов\n" +
+                "3. Дай психоаналитическую интерпретацию (3-4 предложения)\n" +
+                "4. Определи возможное значение для личностного роста (2-3 предложения)\n" +
+                "5. Предложи практические рекомендации (2-3 предложения)\n\n" +
+                "СТРОГИЙ ФОРМАТ ОТВЕТА (ТОЛЬКО JSON), по одному элементу analyses на каждый сон с его id:\n" +
+                "{\n" +
+                "  \"analyses\": [\n" +
+                "    {\n" +
+                "      \"id\": 0,\n" +
+                "      \"symbols\": [{\"keyword\": \"ключевое_слово_из_сна\", \"symbol\": \"symbol_name_english\", \"interpretation\": \"до 25 слов\", \"emotion\": \"fear|joy|sadness|anger|surprise|calm|love|shame|despair|anxiety|confusion|empowerment|neutral\", \"archetype\": \"связанный_архетип_или_комплекс\"}],\n" +
+                "      \"dominant_emotion\": \"основная_эмоция_сна\",\n" +
+                "      \"interpretation\": \"...\",\n" +
+                "      \"personal_growth\": \"...\",\n" +
+                "      \"actionable_advice\": \"...\"\n" +
+                "    }\n" +
+                "  ]\n" +
+                "}\n\n" +
+                "КРИТИЧЕСКИ ВАЖНО:\n" +
+                "- Отвечай ТОЛЬКО в формате JSON\n" +
+                "- Не смешивай сны: символы и выводы каждого элемента относятся только к сну с этим id\n" +
+                "- Избегай категоричных утверждений, используй \"возможно\", \"может указывать на\"\n" +
+                "- Фокусируйся на потенциале роста, а не на патологии";
+    }
+
+    private String loadDreamSymbolsContext(String dreamText) {
+        // Словарь общий для процесса, JSON не перечитывается на каждый запрос
+        SymbolDictionary dictionary = SymbolDictionary.getInstance(resources);
+        if (dictionary.isEmpty()) {
+            return "Ошибка при загрузке контекста символов";
+        }
+        PromptContextSelector selector = contextSelector;
+        if (selector == null) {
+            selector = new PromptContextSelector(dictionary, contextTokenBudget,
+                    PromptContextSelector.DEFAULT_MAX_NEIGHBOURS);
+            contextSelector = selector;
+        }
+        // В промпт идут только символы этого сна и их соседи, а не весь словарь
+        PromptContextSelector.Selection selection = selector.select(dreamText);
+        AnalysisLog.i(TAG, "Контекст символов: " + selection.symbolCount + " из " + selection.fullSymbolCount
+                + ", ~" + selection.tokens + " из ~" + selection.fullTokens + " токенов");
+        if (selection.symbolCount == 0) {
+            return "Известных символов в тексте не найдено";
+        }
+        return selection.context;
+    }
+
+    public String sendOpenRouterRequest(String prompt) throws IOException, JSONException {
+        return sendOpenRouterRequest(prompt, MAX_TOKENS_PER_DREAM);
+    }
+
+    private String sendOpenRouterRequest(String prompt, int maxTokens) throws IOException, JSONException {
+        // Пакет из нескольких снов получает время на каждый сон
+        Call call = httpClient.newCall(buildChatRequest(prompt, false, maxTokens));
+        call.timeout().timeout(ANALYSIS_CALL_TIMEOUT_SECONDS * (maxTokens / MAX_TOKENS_PER_DREAM), TimeUnit.SECONDS);
+
+        // Тело читается целиком, после чего соединение возвращается в пул
+        try (Response response = call.execute()) {
+            ResponseBody body = response.body();
+            String text = body != null ? body.string() : "";
+            if (!response.isSuccessful()) {
+                throw new IOException("OpenRouter API error " + response.code() + ": " + text);
+            }
+            return text;
+        }
+    }
+
+    /**
+     * Запрос с "stream": true. Ответ приходит событиями SSE с частями сообщения, которые сразу
+     * разбирает {@link AnalysisStreamParser}. Возвращает все содержимое сообщения.
+     */
+    String streamOpenRouterRequest(String prompt, OnAnalysisCompleteListener progress)
+            throws IOException, JSONException {
+        Call call = httpClient.newCall(buildChatRequest(prompt, true, MAX_TOKENS_PER_DREAM));
+        call.timeout().timeout(ANALYSIS_CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        try (Response response = call.execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful()) {
+                throw new IOException("OpenRouter API error " + response.code() + ": "
+                        + (body != null ? body.string() : ""));
+            }
+            if (body == null) {
+                throw new IOException("OpenRouter API: пустой ответ");
+            }
+            AnalysisStreamParser parser = new AnalysisStreamParser(progress);
+            StringBuilder content = new StringBuilder();
+            ServerSentEvents.read(body.source(), data -> {
+                if ("[DONE]".equals(data)) {
+                    return false;
+                }
+                JSONObject event = new JSONObject(data);
+                // Ошибка после начала ответа приходит событием, статус уже 200
+                JSONObject error = event.optJSONObject("error");
+                if (error != null) {
+                    throw new IOException("OpenRouter API error: " + error.optString("message", error.toString()));
+                }
+                JSONArray choices = event.optJSONArray("choices");
+                JSONObject delta = choices != null && choices.length() > 0
+                        ? choices.getJSONObject(0).optJSONObject("delta") : null;
+                String part = delta != null ? delta.optString("content", "") : "";
+                content.append(part);
+                parser.feed(part);
+                return true;
+            });
+            return content.toString();
+        }
+    }
+
+    private Request buildChatRequest(String prompt, boolean stream, int maxTokens) throws JSONException {
+        JSONObject requestBody = new JSONObject();
+        requestBody.put("model", MODEL_ID);
+
+        JSONArray messagesArray = new JSONArray();
+        JSONObject systemMessage = new JSONObject();
+        systemMessage.put("role", "system");
+        systemMessage.put("content", "Ты - профессиональный психоаналитик с глубокими знаниями в области психологии снов. Твоя задача - дать точную, профессиональную, но понятную интерпретацию снов, основанную на принципах глубинной психологии. Отвечай строго в формате JSON без дополнительных комментариев.");
+        messagesArray.put(systemMessage);
+
+        JSONObject userMessage = new JSONObject();
+        userMessage.put("role", "user");
+        userMessage.put("content", prompt);
+        messagesArray.put(userMessage);
+
+        requestBody.put("messages", messagesArray);
+        requestBody.put("temperature", 0.7); // Баланс между креативностью и точностью
+        requestBody.put("max_tokens", maxTokens); // Увеличено для более подробного анализа
+        if (stream) {
+            requestBody.put("stream", true);
+        }
+
+        Request.Builder request = new Request.Builder()
+                .url(apiUrl)
+                .header("Authorization", "Bearer " + (apiKey != null ? apiKey : ""))
+                .header("HTTP-Referer", HTTP_REFERER)
+                .post(RequestBody.create(requestBody.toString(), JSON));
+        if (stream) {
+            request.header("Accept", "text/event-stream");
+        }
+        return request.build();
+    }
+
+    public DreamAnalysisResult parseOpenRouterResponse(String response) throws JSONException {
+        return parseAnalysis(extractAnalysisJson(response));
+    }
+
+    // JSON анализа из ответа chat/completions: содержимое сообщения без разметки и текста вокруг
+    static String extractAnalysisJson(String response) throws JSONException {
+        JSONObject jsonResponse = new JSONObject(response);
+
+        JSONArray choices = jsonResponse.getJSONArray("choices");
+        JSONObject choice = choices.getJSONObject(0);
+        JSONObject message = choice.getJSONObject("message");
+        return cleanAnalysisText(message.getString("content"));
+    }
+
+    // Содержимое сообщения модели без разметки и текста вокруг JSON
+    static String cleanAnalysisText(String text) {
+        text = text.replaceAll("```json", "")
+                .replaceAll("```", "")
+                .replaceAll("^\\s+", "")
+                .replaceAll("\\s+$", "")
+                .trim();
+
+        // Поиск JSON в тексте
+        int firstBrace = text.indexOf("{");
+        int lastBrace = text.lastIndexOf("}");
+        if (firstBrace != -1 && lastBrace != -1 && lastBrace > firstBrace) {
+            text = text.substring(firstBrace, lastBrace + 1);
+        }
+        // Иногда модель экранирует весь JSON целиком; кавычки внутри строк обычного JSON не трогаем
+        if (text.startsWith("{\\\"")) {
+            text = text.replace("\\\"", "\"");
+        }
+        return text;
+    }
+
+    static DreamAnalysisResult parseAnalysis(String text) throws JSONException {
+        JSONObject analysisJson = new JSONObject(text);
+        DreamAnalysisResult result = new DreamAnalysisResult();
+
+        // Парсинг символов
+        result.symbols = new ArrayList<>();
+        if (analysisJson.has("symbols")) {
+            JSONArray symbolsArray = analysisJson.getJSONArray("symbols");
+            for (int i = 0; i < symbolsArray.length(); i++) {
+                result.symbols.add(parseSymbol(symbolsArray.getJSONObject(i)));
+            }
+        }
+
+        result.emotion = analysisJson.optString("dominant_emotion", "neutral");
+        result.interpretation = analysisJson.optString("interpretation", "Интерпретация недоступна");
+        result.personalGrowth = analysisJson.optString("personal_growth", "");
+        result.actionableAdvice = analysisJson.optString("actionable_advice", "");
+
+        return result;
+    }
+
+    static Symbol parseSymbol(JSONObject symbolObj) throws JSONException {
+        Symbol symbol = new Symbol(
+                symbolObj.getString("keyword"),
+                symbolObj.getString("symbol"),
+                symbolObj.getString("interpretation"),
+                symbolObj.getString("emotion")
+        );
+        // Добавляем архетип, если он есть
+        if (symbolObj.has("archetype")) {
+            symbol.setArchetype(symbolObj.getString("archetype"));
+        }
+        return symbol;
+    }
+
+    public DreamAnalysisResult getFallbackAnalysis(String dreamText) {
+        AnalysisLog.i(TAG, "Используется резервный анализ");
+
+        DreamAnalysisResult result = new DreamAnalysisResult();
+        result.symbols = new ArrayList<>();
+        result.emotion = "neutral";
+        result.interpretation = "Не удалось получить анализ от ИИ. Попробуйте еще раз.";
+        result.personalGrowth = "Ведение дневника снов само по себе способствует самопознанию.";
+        result.actionableAdvice = "Запишите свои первые впечатления от сна и подумайте о связях с вашей текущей жизненной ситуацией.";
+
+        return result;
+    }
+
+    // Остальные методы остаются без изменений
+    public void logOpenRouterInteraction(String action, String request, String response) {
+        try {
+            String timestamp = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(new Date());
+            String logEntry = String.format("[%s] %s\nRequest: %s\nResponse: %s\n\n", timestamp, action, request, response);
+
+            File logFile = new File(logDir != null ? logDir : new File("."), LOG_FILE_NAME);
+            FileOutputStream fos = new FileOutputStream(logFile, true);
+            fos.write(logEntry.getBytes(StandardCharsets.UTF_8));
+            fos.close();
+        } catch (IOException e) {
+            AnalysisLog.e(TAG, "Ошибка при записи лога OpenRouter", e);
+        }
+    }
+
+    public String getOpenRouterLogs() {
+        try {
+            File logFile = new File(logDir != null ? logDir : new File("."), LOG_FILE_NAME);
+            if (!logFile.exists()) {
+                return "Логи отсутствуют";
+            }
+
+            Scanner scanner = new Scanner(logFile);
+            StringBuilder logs = new StringBuilder();
+            while (scanner.hasNextLine()) {
+                logs.append(scanner.nextLine()).append("\n");
+            }
+            scanner.close();
+            return logs.toString();
+        } catch (IOException e) {
+            AnalysisLog.e(TAG, "Ошибка при чтении логов OpenRouter", e);
+            return "Ошибка при чтении логов: " + e.getMessage();
+        }
+    }
+
+    public void clearOpenRouterLogs() {
+        try {
+            File logFile = new File(logDir != null ? logDir : new File("."), LOG_FILE_NAME);
+            if (logFile.exists()) {
+                logFile.delete();
+            }
+        } catch (Exception e) {
+            AnalysisLog.e(TAG, "Ошибка при очистке логов OpenRouter", e);
+        }
+    }
+
+    public static String getUsageInfo() {
+        return "Для анализа снов используется OpenRouter API с психоаналитическим подходом на основе методов Юнга и Фрейда.";
+    }
+}
\ No newline at end of file
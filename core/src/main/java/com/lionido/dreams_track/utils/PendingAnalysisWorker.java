@@ -0,0 +1,195 @@
+package com.lionido.dreams_track.utils;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Фоновая обработка снов, анализ LLM для которых не удался, например без сети. Задания лежат в хранилище
+ * ({@link Store}, в приложении — таблица pending_analysis), поэтому переживают перезапуск процесса.
+ *
+ * Готовые задания берутся пакетами до BATCH_SIZE снов и анализируются одним запросом
+ * ({@link OpenRouterAnalyzer#analyzeBatch}). После ошибки задание откладывается с экспоненциальной
+ * задержкой и случайным разбросом, чтобы несколько устройств не повторяли запросы одновременно.
+ * Без сети очередь не разбирается: ее будит {@link #wake()} при появлении соединения.
+ */
+public class PendingAnalysisWorker {
+    private static final String TAG = "PendingAnalysisWorker";
+
+    static final int BATCH_SIZE = 4;
+    static final long BASE_DELAY_MS = TimeUnit.SECONDS.toMillis(30);
+    static final long MAX_DELAY_MS = TimeUnit.HOURS.toMillis(6);
+    // После стольких неудач подряд задание снимается: скорее всего, модель не может разобрать этот сон
+    static final int MAX_ATTEMPTS = 12;
+
+    /**
+     * Хранилище заданий. Вызывается только из потока очереди.
+     */
+    public interface Store {
+        /** Задания с nextAttemptAt не позже now, ранние первыми */
+        List<Job> getDue(long now, int limit);
+
+        /** Время ближайшего задания или null, если очередь пуста */
+        Long getNextAttemptAt();
+
+        /**
+         * Записывает анализ в сон и удаляет задание, если текст сна все еще равен job.text.
+         * Если текст изменили, пока шел запрос, анализ отбрасывается, задание остается в очереди
+         * и возвращается false.
+         */
+        boolean complete(Job job, OpenRouterAnalyzer.DreamAnalysisResult result);
+
+        void retryLater(int dreamId, int attempts, long nextAttemptAt, String error);
+
+        void remove(int dreamId);
+    }
+
+    // Заполняется хранилищем; в приложении Room читает его прямо из запроса
+    public static class Job {
+        public int dreamId;
+        public String text;
+        public int attempts;
+    }
+
+    private final Store store;
+    private final OpenRouterAnalyzer analyzer;
+    private final BooleanSupplier online;
+    private final LongSupplier clock;
+    private final Random random;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pending-analysis");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Защищено this
+    private ScheduledFuture<?> scheduledDrain;
+
+    public PendingAnalysisWorker(Store store, OpenRouterAnalyzer analyzer, BooleanSupplier online) {
+        this(store, analyzer, online, System::currentTimeMillis, new Random());
+    }
+
+    // Для тестов: свои часы и генератор разброса
+    PendingAnalysisWorker(Store store, OpenRouterAnalyzer analyzer, BooleanSupplier online,
+                          LongSupplier clock, Random random) {
+        this.store = store;
+        this.analyzer = analyzer;
+        this.online = online;
+        this.clock = clock;
+        this.random = random;
+    }
+
+    /**
+     * Разбирает очередь в фоновом потоке сейчас: после добавления задания или появления сети.
+     */
+    public void wake() {
+        synchronized (this) {
+            if (scheduledDrain != null) {
+                scheduledDrain.cancel(false);
+                scheduledDrain = null;
+            }
+        }
+        executor.execute(this::drainAndSchedule);
+    }
+
+    private void drainAndSchedule() {
+        Long next;
+        try {
+            drain();
+            next = store.getNextAttemptAt();
+        } catch (RuntimeException e) {
+            // Ошибка базы: задания остаются в очереди до следующего пробуждения
+            AnalysisLog.e(TAG, "Ошибка обработки очереди анализа", e);
+            return;
+        }
+        // Без сети таймер не нужен: очередь разбудит появление соединения
+        if (next == null || !online.getAsBoolean()) {
+            return;
+        }
+        long delay = Math.max(0, next - clock.getAsLong());
+        synchronized (this) {
+            scheduledDrain = executor.schedule(this::drainAndSchedule, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Один проход по готовым заданиям. Останавливается на первом неудачном запросе: скорее всего,
+     * следующий пакет сейчас тоже не пройдет.
+     *
+     * @return число снов, анализ которых записан
+     */
+    int drain() {
+        int completed = 0;
+        while (online.getAsBoolean()) {
+            List<Job> jobs = store.getDue(clock.getAsLong(), BATCH_SIZE);
+            if (jobs.isEmpty()) {
+                break;
+            }
+            Map<Integer, String> texts = new LinkedHashMap<>();
+            for (Job job : jobs) {
+                texts.put(job.dreamId, job.text);
+            }
+
+            Map<Integer, OpenRouterAnalyzer.DreamAnalysisResult> results;
+            try {
+                results = analyzer.analyzeBatch(texts);
+            } catch (IOException | JSONException e) {
+                AnalysisLog.w(TAG, "Пакет из " + jobs.size() + " снов отложен", e);
+                for (Job job : jobs) {
+                    retry(job, e.getMessage());
+                }
+                break;
+            }
+
+            for (Job job : jobs) {
+                OpenRouterAnalyzer.DreamAnalysisResult result = results.get(job.dreamId);
+                if (result == null) {
+                    retry(job, "Нет анализа в ответе");
+                } else if (store.complete(job, result)) {
+                    completed++;
+                } else {
+                    // Задание уже готово к повтору и уйдет со следующим пакетом с новым текстом
+                    AnalysisLog.w(TAG, "Текст сна " + job.dreamId + " изменился во время анализа", null);
+                }
+            }
+        }
+        return completed;
+    }
+
+    private void retry(Job job, String error) {
+        int attempts = job.attempts + 1;
+        if (attempts >= MAX_ATTEMPTS) {
+            AnalysisLog.w(TAG, "Анализ сна " + job.dreamId + " снят после " + attempts + " попыток: " + error, null);
+            store.remove(job.dreamId);
+            return;
+        }
+        store.retryLater(job.dreamId, attempts, clock.getAsLong() + backoffDelay(attempts), error);
+    }
+
+    /**
+     * Задержка перед попыткой номер attempts + 1: BASE_DELAY_MS, удваиваясь до MAX_DELAY_MS,
+     * из которой случайна верхняя половина.
+     */
+    long backoffDelay(int attempts) {
+        long delay = BASE_DELAY_MS << Math.min(Math.max(attempts - 1, 0), 30);
+        if (delay <= 0 || delay > MAX_DELAY_MS) {
+            delay = MAX_DELAY_MS;
+        }
+        long half = delay / 2;
+        return half + (long) (random.nextDouble() * (half + 1));
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,107 @@
+package com.lionido.dreams_track.utils;
+
+import com.lionido.dreams_track.model.Symbol;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Контекст символов для промпта LLM только по этому сну. Локальный {@link NLPAnalyzer} находит символы текста,
+ * к ним добавляется несколько соседей с той же эмоцией, пока описание укладывается в бюджет токенов.
+ * Весь словарь в промпт больше не попадает.
+ * Неизменяем и безопасен для нескольких потоков.
+ */
+public final class PromptContextSelector {
+
+    public static final int DEFAULT_TOKEN_BUDGET = 400;
+    static final int DEFAULT_MAX_NEIGHBOURS = 3;
+    // Грубая оценка для русского текста в BPE-токенизаторах моделей: около трех символов на токен
+    static final int CHARS_PER_TOKEN = 3;
+
+    private final SymbolDictionary dictionary;
+    private final NLPAnalyzer matcher;
+    private final int tokenBudget;
+    private final int maxNeighbours;
+    private final int fullContextTokens;
+
+    public PromptContextSelector(SymbolDictionary dictionary) {
+        this(dictionary, DEFAULT_TOKEN_BUDGET, DEFAULT_MAX_NEIGHBOURS);
+    }
+
+    public PromptContextSelector(SymbolDictionary dictionary, int tokenBudget, int maxNeighbours) {
+        if (tokenBudget < 0 || maxNeighbours < 0) {
+            throw new IllegalArgumentException("Бюджет и число соседей не могут быть отрицательными");
+        }
+        this.dictionary = dictionary;
+        this.matcher = new NLPAnalyzer(dictionary);
+        this.tokenBudget = tokenBudget;
+        this.maxNeighbours = maxNeighbours;
+        this.fullContextTokens = estimateTokens(dictionary.getPromptContext());
+    }
+
+    /**
+     * Контекст символов и его размер рядом с размером полного словаря.
+     */
+    public static class Selection {
+        public String context;
+        public int symbolCount;
+        public int matchedCount;
+        public int tokens;
+        public int fullSymbolCount;
+        public int fullTokens;
+    }
+
+    public Selection select(String dreamText) {
+        List<Symbol> matched = matcher.findSymbolsAdvanced(dreamText != null ? dreamText : "");
+
+        // Сначала найденные в тексте по убыванию веса, затем соседи в порядке словаря
+        Set<Symbol> candidates = new LinkedHashSet<>(matched);
+        Set<Symbol> neighbours = new LinkedHashSet<>();
+        for (Symbol symbol : dictionary.getSymbols()) {
+            for (Symbol found : matched) {
+                if (symbol.getEmotion().equals(found.getEmotion())) {
+                    neighbours.add(symbol);
+                    break;
+                }
+            }
+        }
+        neighbours.removeAll(candidates);
+        int added = 0;
+        for (Symbol symbol : neighbours) {
+            if (added++ == maxNeighbours) {
+                break;
+            }
+            candidates.add(symbol);
+        }
+
+        Selection selection = new Selection();
+        StringBuilder context = new StringBuilder();
+        StringBuilder line = new StringBuilder();
+        int tokens = 0;
+        for (Symbol symbol : candidates) {
+            line.setLength(0);
+            SymbolDictionary.appendPromptLine(line, symbol);
+            int lineTokens = estimateTokens(line);
+            if (tokens + lineTokens > tokenBudget) {
+                break;
+            }
+            context.append(line);
+            tokens += lineTokens;
+            selection.symbolCount++;
+            if (selection.symbolCount <= matched.size()) {
+                selection.matchedCount++;
+            }
+        }
+
+        selection.context = context.toString();
+        selection.tokens = tokens;
+        selection.fullSymbolCount = dictionary.size();
+        selection.fullTokens = fullContextTokens;
+        return selection;
+    }
+
+    static int estimateTokens(CharSequence text) {
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+}
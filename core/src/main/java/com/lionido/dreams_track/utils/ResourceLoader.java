@@ -0,0 +1,42 @@
+package com.lionido.dreams_track.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Источник файлов данных анализа: словаря символов, ключа API.
+ * В приложении это assets, на обычной JVM — ресурсы classpath или каталог на диске.
+ */
+public interface ResourceLoader {
+
+    /**
+     * Открывает ресурс по имени файла, например dream_symbols.json.
+     * Поток закрывает вызывающий код.
+     *
+     * @throws IOException если ресурса нет или его нельзя прочитать
+     */
+    InputStream open(String name) throws IOException;
+
+    /**
+     * Ресурсы classpath из каталога assets/, как их раскладывают модули для JVM.
+     */
+    static ResourceLoader classpath() {
+        return name -> {
+            InputStream is = ResourceLoader.class.getClassLoader().getResourceAsStream("assets/" + name);
+            if (is == null) {
+                throw new FileNotFoundException("assets/" + name + " не найден в classpath");
+            }
+            return is;
+        };
+    }
+
+    /**
+     * Файлы из каталога на диске, например из распакованных assets приложения.
+     */
+    static ResourceLoader directory(File dir) {
+        return name -> new FileInputStream(new File(dir, name));
+    }
+}
@@ -0,0 +1,196 @@
+package com.lionido.dreams_track.utils;
+
+/**
+ * Стеммер русского языка по алгоритму Snowball (Портера): отсекает окончания и формообразующие суффиксы,
+ * так что «вода», «воды», «водой» сводятся к одной основе «вод».
+ * Работает на переиспользуемом буфере потока. Приставки не отбрасываются («убежал» → «убежа»):
+ * основу без приставки ищет {@link LemmaIndex}.
+ */
+public final class RussianStemmer {
+
+    private static final String[] PERFECTIVE_GERUND_1 = {"вшись", "вши", "в"};
+    private static final String[] PERFECTIVE_GERUND_2 = {"ившись", "ывшись", "ивши", "ывши", "ив", "ыв"};
+    private static final String[] ADJECTIVE = {
+            "ими", "ыми", "его", "ого", "ему", "ому",
+            "ее", "ие", "ые", "ое", "ей", "ий", "ый", "ой", "ем", "им", "ым", "ом",
+            "их", "ых", "ую", "юю", "ая", "яя", "ою", "ею"};
+    private static final String[] PARTICIPLE_1 = {"ем", "нн", "вш", "ющ", "щ"};
+    private static final String[] PARTICIPLE_2 = {"ивш", "ывш", "ующ"};
+    private static final String[] REFLEXIVE = {"ся", "сь"};
+    private static final String[] VERB_1 = {
+            "ете", "йте", "ешь", "нно",
+            "ла", "на", "ли", "ем", "ло", "но", "ет", "ют", "ны", "ть", "й", "л", "н"};
+    private static final String[] VERB_2 = {
+            "ейте", "уйте",
+            "ила", "ыла", "ена", "ите", "или", "ыли", "ило", "ыло", "ено", "ует", "уют", "ены", "ить", "ыть", "ишь",
+            "ей", "уй", "ил", "ыл", "им", "ым", "ен", "ят", "ит", "ыт", "ую", "ю"};
+    private static final String[] NOUN = {
+            "иями", "ями", "ами", "ией", "иям", "ием", "иях",
+            "ев", "ов", "ие", "ье", "еи", "ии", "ей", "ой", "ий", "ям", "ем", "ам", "ом", "ах", "ях", "ию", "ью", "ия", "ья",
+            "а", "е", "и", "й", "о", "у", "ы", "ь", "ю", "я"};
+    private static final String[] SUPERLATIVE = {"ейше", "ейш"};
+    private static final String[] DERIVATIONAL = {"ость", "ост"};
+
+    private static final ThreadLocal<Buffer> BUFFER = ThreadLocal.withInitial(Buffer::new);
+
+    private RussianStemmer() {
+    }
+
+    /**
+     * Основа слова в нижнем регистре. Ожидает одно слово из русских букв, «ё» приравнивается к «е».
+     */
+    public static String stem(CharSequence word) {
+        Buffer b = BUFFER.get();
+        b.load(word);
+        b.stem();
+        return new String(b.chars, 0, b.length);
+    }
+
+    private static boolean isVowel(char c) {
+        switch (c) {
+            case 'а': case 'е': case 'и': case 'о': case 'у':
+            case 'ы': case 'э': case 'ю': case 'я':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Слово в изменяемом массиве символов; окончания отсекаются уменьшением длины.
+     */
+    private static final class Buffer {
+        char[] chars = new char[32];
+        int length;
+        // Начала областей RV и R2 по Snowball
+        int rv;
+        int r2;
+
+        void load(CharSequence word) {
+            if (chars.length < word.length()) {
+                chars = new char[word.length() * 2];
+            }
+            length = word.length();
+            for (int i = 0; i < length; i++) {
+                char c = Character.toLowerCase(word.charAt(i));
+                chars[i] = c == 'ё' ? 'е' : c;
+            }
+            computeRegions();
+        }
+
+        private void computeRegions() {
+            rv = length;
+            r2 = length;
+            int i = 0;
+            while (i < length && !isVowel(chars[i])) i++;
+            if (i == length) return;
+            rv = i + 1;
+
+            // R1 — после первой согласной, идущей за гласной; R2 — то же самое внутри R1
+            int r1 = regionAfter(rv - 1);
+            r2 = regionAfter(r1);
+        }
+
+        private int regionAfter(int from) {
+            int i = from;
+            while (i < length && !isVowel(chars[i])) i++;
+            while (i < length && isVowel(chars[i])) i++;
+            return i < length ? i + 1 : length;
+        }
+
+        void stem() {
+            if (rv >= length) {
+                return;
+            }
+
+            // Шаг 1
+            if (!removeGerund()) {
+                removeLongest(REFLEXIVE, rv);
+                if (!removeAdjectival() && !removeGrouped(VERB_1, VERB_2)) {
+                    removeLongest(NOUN, rv);
+                }
+            }
+
+            // Шаг 2
+            if (length > rv && chars[length - 1] == 'и') {
+                length--;
+            }
+
+            // Шаг 3
+            removeLongest(DERIVATIONAL, r2);
+
+            // Шаг 4
+            if (endsWith("нн", rv)) {
+                length--;
+            } else if (removeLongest(SUPERLATIVE, rv)) {
+                if (endsWith("нн", rv)) {
+                    length--;
+                }
+            } else if (length > rv && chars[length - 1] == 'ь') {
+                length--;
+            }
+        }
+
+        private boolean removeGerund() {
+            return removeGrouped(PERFECTIVE_GERUND_1, PERFECTIVE_GERUND_2);
+        }
+
+        private boolean removeAdjectival() {
+            if (!removeLongest(ADJECTIVE, rv)) {
+                return false;
+            }
+            removeGrouped(PARTICIPLE_1, PARTICIPLE_2);
+            return true;
+        }
+
+        /**
+         * Отсекает самое длинное окончание из двух групп. Окончания первой группы
+         * отсекаются только после «а» или «я» (сама буква остается).
+         */
+        private boolean removeGrouped(String[] afterAOrYa, String[] plain) {
+            int first = longestMatch(afterAOrYa, rv);
+            int second = longestMatch(plain, rv);
+            if (second >= first && second > 0) {
+                length -= second;
+                return true;
+            }
+            if (first > 0) {
+                int before = length - first - 1;
+                if (before >= rv && (chars[before] == 'а' || chars[before] == 'я')) {
+                    length -= first;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean removeLongest(String[] suffixes, int regionStart) {
+            int matched = longestMatch(suffixes, regionStart);
+            length -= matched;
+            return matched > 0;
+        }
+
+        private int longestMatch(String[] suffixes, int regionStart) {
+            int best = 0;
+            for (String suffix : suffixes) {
+                if (suffix.length() > best && endsWith(suffix, regionStart)) {
+                    best = suffix.length();
+                }
+            }
+            return best;
+        }
+
+        private boolean endsWith(String suffix, int regionStart) {
+            int start = length - suffix.length();
+            if (start < regionStart) {
+                return false;
+            }
+            for (int i = 0; i < suffix.length(); i++) {
+                if (chars[start + i] != suffix.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.lionido.dreams_track.utils;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+
+import okio.BufferedSource;
+
+/**
+ * Чтение потока text/event-stream. Строки data: одного события склеиваются через перевод строки,
+ * событие заканчивается пустой строкой. Комментарии (OpenRouter шлет ": OPENROUTER PROCESSING"
+ * пока модель думает) и поля event, id, retry пропускаются.
+ */
+final class ServerSentEvents {
+
+    interface Handler {
+        /** @return false, чтобы перестать читать поток */
+        boolean onData(String data) throws IOException, JSONException;
+    }
+
+    private ServerSentEvents() {
+    }
+
+    static void read(BufferedSource source, Handler handler) throws IOException, JSONException {
+        StringBuilder data = new StringBuilder();
+        boolean hasData = false;
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (line.isEmpty()) {
+                if (hasData && !handler.onData(data.toString())) {
+                    return;
+                }
+                data.setLength(0);
+                hasData = false;
+            } else if (line.startsWith("data:")) {
+                if (hasData) {
+                    data.append('\n');
+                }
+                data.append(line, line.startsWith("data: ") ? 6 : 5, line.length());
+                hasData = true;
+            }
+        }
+        // Поток оборвался без пустой строки после последнего события
+        if (hasData) {
+            handler.onData(data.toString());
+        }
+    }
+}
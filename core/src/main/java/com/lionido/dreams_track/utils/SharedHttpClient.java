@@ -0,0 +1,48 @@
+package com.lionido.dreams_track.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * HTTP-клиент, общий для процесса. Соединения с сервером остаются в пуле между запросами, поэтому
+ * повторный анализ не открывает TCP и TLS заново; по HTTP/2 запросы идут параллельно по одному соединению.
+ * Ответы в gzip OkHttp запрашивает и распаковывает сам.
+ *
+ * Таймауты клиента — общие пределы; отдельный вызов задает свой через Call.timeout().
+ * Свои настройки вызывающий код получает через get().newBuilder(): пул и потоки при этом общие.
+ */
+public final class SharedHttpClient {
+    // Простаивающие соединения: OpenRouter и запас на редкие параллельные запросы
+    static final int MAX_IDLE_CONNECTIONS = 4;
+    static final long KEEP_ALIVE_MINUTES = 5;
+    static final long CONNECT_TIMEOUT_SECONDS = 15;
+    static final long READ_TIMEOUT_SECONDS = 90;
+    static final long WRITE_TIMEOUT_SECONDS = 30;
+
+    private static volatile OkHttpClient instance;
+
+    private SharedHttpClient() {
+    }
+
+    public static OkHttpClient get() {
+        if (instance == null) {
+            synchronized (SharedHttpClient.class) {
+                if (instance == null) {
+                    instance = new OkHttpClient.Builder()
+                            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                            // HTTP/2 выбирается при TLS-рукопожатии, если его поддерживает сервер
+                            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                            .connectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                            .readTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                            .writeTimeout(WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                            .build();
+                }
+            }
+        }
+        return instance;
+    }
+}
@@ -0,0 +1,51 @@
+package com.lionido.dreams_track.utils;
+
+import com.lionido.dreams_track.model.Symbol;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SymbolAnalyzer {
+
+    private ResourceLoader resources;
+    private volatile SymbolDictionary dictionary;
+
+    public SymbolAnalyzer(ResourceLoader resources) {
+        this.resources = resources;
+        // Словарь общий для всех анализаторов и грузится в фоне; ждем его только при первом анализе
+        SymbolDictionary.preload(resources);
+    }
+
+    public SymbolAnalyzer(SymbolDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    private SymbolDictionary dictionary() {
+        SymbolDictionary result = dictionary;
+        if (result == null) {
+            result = SymbolDictionary.getInstance(resources);
+            if (!result.isEmpty()) {
+                dictionary = result;
+            }
+        }
+        return result;
+    }
+
+    public List<Symbol> findSymbolsInText(String text) {
+        List<Symbol> found = new ArrayList<>();
+
+        // Ищем по основам слов; индексы шаблонов совпадают с индексами символов, порядок словаря сохраняется
+        SymbolDictionary symbols = dictionary();
+        boolean[] present = symbols.getKeywordIndex().findPresent(TextTokenizer.tokenize(text));
+        for (int i = 0; i < present.length; i++) {
+            if (present[i]) {
+                found.add(symbols.get(i));
+            }
+        }
+        return found;
+    }
+
+    public List<Symbol> getAllSymbols() {
+        return new ArrayList<>(dictionary().getSymbols());
+    }
+}
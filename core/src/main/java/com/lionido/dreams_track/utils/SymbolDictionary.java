@@ -0,0 +1,268 @@
+package com.lionido.dreams_track.utils;
+
+import com.lionido.dreams_track.model.Symbol;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Общий для всего процесса словарь символов из dream_symbols.json.
+ * Загружается один раз в фоновом потоке и дальше используется всеми анализаторами.
+ * Словарь неизменяем; возвращаемые объекты {@link Symbol} разделяются между потоками и не должны изменяться.
+ */
+public final class SymbolDictionary {
+    private static final String TAG = "SymbolDictionary";
+    static final String ASSET_NAME = "dream_symbols.json";
+    // Собирается задачей compileSymbolDictionary в app/build.gradle
+    static final String BINARY_ASSET_NAME = "dream_symbols.bin";
+    private static final int BINARY_MAGIC = 0x44534D42;
+    private static final int BINARY_FORMAT_VERSION = 3;
+
+    private static volatile FutureTask<SymbolDictionary> loader;
+
+    private final List<Symbol> symbols;
+    private final Map<String, List<Symbol>> byKeyword;
+    private final Map<String, Symbol> bySymbolCode;
+    private final LemmaIndex keywordIndex;
+    private volatile String promptContext;
+
+    SymbolDictionary(List<Symbol> symbols) {
+        this(symbols, Collections.emptyList());
+    }
+
+    /**
+     * @param forms формы ключевого слова, до которых не доходит стемминг, по индексу символа (поле forms в JSON)
+     */
+    SymbolDictionary(List<Symbol> symbols, List<List<String>> forms) {
+        this.symbols = Collections.unmodifiableList(new ArrayList<>(symbols));
+
+        Map<String, List<Symbol>> keywordIndex = new HashMap<>();
+        Map<String, Symbol> codeIndex = new HashMap<>();
+        List<String> keywords = new ArrayList<>(symbols.size());
+        for (Symbol symbol : this.symbols) {
+            String keyword = symbol.getKeyword().toLowerCase();
+            keywords.add(keyword);
+            List<Symbol> sameKeyword = keywordIndex.get(keyword);
+            if (sameKeyword == null) {
+                sameKeyword = new ArrayList<>(1);
+                keywordIndex.put(keyword, sameKeyword);
+            }
+            sameKeyword.add(symbol);
+            codeIndex.put(symbol.getSymbol(), symbol);
+        }
+        for (Map.Entry<String, List<Symbol>> entry : keywordIndex.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+
+        this.byKeyword = keywordIndex;
+        this.bySymbolCode = codeIndex;
+        this.keywordIndex = new LemmaIndex(keywords, forms);
+    }
+
+    /**
+     * Запускает фоновую загрузку словаря, если она еще не начата. Удобно вызывать при старте экрана.
+     * Без источника ресурсов словарь читается из classpath.
+     */
+    public static void preload(ResourceLoader resources) {
+        getLoader(resources);
+    }
+
+    /**
+     * Возвращает загруженный словарь, при необходимости дожидаясь окончания фоновой загрузки.
+     * Не следует вызывать из UI-потока до завершения {@link #preload(ResourceLoader)}.
+     */
+    public static SymbolDictionary getInstance(ResourceLoader resources) {
+        FutureTask<SymbolDictionary> task = getLoader(resources);
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new SymbolDictionary(Collections.emptyList());
+        } catch (ExecutionException e) {
+            AnalysisLog.e(TAG, "Ошибка загрузки словаря символов", e.getCause());
+            return new SymbolDictionary(Collections.emptyList());
+        }
+    }
+
+    private static FutureTask<SymbolDictionary> getLoader(ResourceLoader resources) {
+        if (loader == null) {
+            synchronized (SymbolDictionary.class) {
+                if (loader == null) {
+                    ResourceLoader source = resources != null ? resources : ResourceLoader.classpath();
+                    FutureTask<SymbolDictionary> task = new FutureTask<>(() -> load(source));
+                    Thread thread = new Thread(task, "symbol-dictionary-loader");
+                    thread.setDaemon(true);
+                    thread.start();
+                    loader = task;
+                }
+            }
+        }
+        return loader;
+    }
+
+    private static SymbolDictionary load(ResourceLoader resources) {
+        // Скомпилированный при сборке словарь читается за один проход без разбора JSON.
+        // Вне приложения его обычно нет, тогда используется исходный JSON
+        try (InputStream is = resources.open(BINARY_ASSET_NAME)) {
+            return fromBinary(is);
+        } catch (IOException e) {
+            AnalysisLog.i(TAG, "Бинарный словарь недоступен, читаем " + ASSET_NAME);
+        }
+
+        try (InputStream is = resources.open(ASSET_NAME)) {
+            return fromJson(is);
+        } catch (IOException | JSONException e) {
+            AnalysisLog.e(TAG, "Ошибка загрузки символов", e);
+            // Неудачную загрузку не кэшируем, чтобы следующий вызов попробовал снова
+            synchronized (SymbolDictionary.class) {
+                loader = null;
+            }
+            return new SymbolDictionary(Collections.emptyList());
+        }
+    }
+
+    public static SymbolDictionary fromJson(InputStream is) throws IOException, JSONException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+
+        JSONArray array = new JSONArray(new String(out.toByteArray(), StandardCharsets.UTF_8));
+        List<Symbol> list = new ArrayList<>(array.length());
+        List<List<String>> forms = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject obj = array.getJSONObject(i);
+            list.add(new Symbol(
+                    obj.getString("word"),
+                    obj.getString("symbol"),
+                    obj.getString("interpretation"),
+                    obj.getString("emotion")
+            ));
+            JSONArray formArray = obj.optJSONArray("forms");
+            List<String> symbolForms = new ArrayList<>(formArray != null ? formArray.length() : 0);
+            for (int j = 0; formArray != null && j < formArray.length(); j++) {
+                symbolForms.add(formArray.getString(j));
+            }
+            forms.add(symbolForms);
+        }
+        return new SymbolDictionary(list, forms);
+    }
+
+    /**
+     * Читает словарь, скомпилированный задачей compileSymbolDictionary: таблица строк и записи символов
+     * с их формами.
+     */
+    public static SymbolDictionary fromBinary(InputStream is) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(is, 16 * 1024));
+        if (in.readInt() != BINARY_MAGIC) {
+            throw new IOException(BINARY_ASSET_NAME + ": неверная сигнатура");
+        }
+        int version = in.readUnsignedShort();
+        if (version != BINARY_FORMAT_VERSION) {
+            throw new IOException(BINARY_ASSET_NAME + ": неподдерживаемая версия " + version);
+        }
+
+        String[] strings = new String[in.readInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = in.readUTF();
+        }
+
+        int count = in.readInt();
+        List<Symbol> list = new ArrayList<>(count);
+        List<List<String>> forms = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String word = strings[in.readInt()];
+            String code = strings[in.readInt()];
+            String interpretation = strings[in.readInt()];
+            String emotion = strings[in.readInt()];
+            list.add(new Symbol(word, code, interpretation, emotion));
+            int formCount = in.readUnsignedShort();
+            List<String> symbolForms = new ArrayList<>(formCount);
+            for (int j = 0; j < formCount; j++) {
+                symbolForms.add(strings[in.readInt()]);
+            }
+            forms.add(symbolForms);
+        }
+        return new SymbolDictionary(list, forms);
+    }
+
+    public List<Symbol> getSymbols() {
+        return symbols;
+    }
+
+    public int size() {
+        return symbols.size();
+    }
+
+    public Symbol get(int index) {
+        return symbols.get(index);
+    }
+
+    public boolean isEmpty() {
+        return symbols.isEmpty();
+    }
+
+    /**
+     * Символы по ключевому слову (одно слово может иметь несколько значений, например «замок»).
+     */
+    public List<Symbol> findByKeyword(String keyword) {
+        List<Symbol> found = byKeyword.get(keyword.toLowerCase());
+        return found != null ? found : Collections.emptyList();
+    }
+
+    public Symbol findBySymbolCode(String symbolCode) {
+        return bySymbolCode.get(symbolCode);
+    }
+
+    /**
+     * Индекс ключевых слов по основам для поиска в любой словоформе; индексы шаблонов совпадают с индексами символов.
+     */
+    public LemmaIndex getKeywordIndex() {
+        return keywordIndex;
+    }
+
+    /**
+     * Описание всех символов для промпта LLM. Строится один раз на процесс.
+     */
+    public String getPromptContext() {
+        String context = promptContext;
+        if (context == null) {
+            StringBuilder contextBuilder = new StringBuilder();
+            for (Symbol symbol : symbols) {
+                appendPromptLine(contextBuilder, symbol);
+            }
+            context = contextBuilder.toString();
+            promptContext = context;
+        }
+        return context;
+    }
+
+    static void appendPromptLine(StringBuilder builder, Symbol symbol) {
+        builder.append("- ")
+                .append(symbol.getKeyword())
+                .append(" (")
+                .append(symbol.getSymbol())
+                .append("): ")
+                .append(symbol.getInterpretation())
+                .append(" [")
+                .append(symbol.getEmotion())
+                .append("]\n");
+    }
+}
@@ -0,0 +1,233 @@
+package com.lionido.dreams_track.utils;
+
+import com.lionido.dreams_track.model.Symbol;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Скомпилированная модель весов символов для {@link NLPAnalyzer}.
+ * Ключевые слова, синонимы и контекстные слова один раз сводятся в таблицу терминов с целыми id,
+ * после чего оценка текста — поиск основ токенов в {@link LemmaIndex} и арифметика по массивам.
+ * Модель неизменяема; временные массивы переиспользуются в пределах потока.
+ */
+final class SymbolScoringModel {
+
+    static final double KEYWORD_WEIGHT = 2.0;
+    static final double WHOLE_WORD_BONUS = 1.0;
+    static final double SYNONYM_WEIGHT = 1.5;
+    static final double CONTEXT_WEIGHT = 0.5;
+
+    private final List<Symbol> symbols;
+    private final LemmaIndex termIndex;
+    private final int[] keywordTerm;
+    private final int[][] synonymTerms;
+    private final int[][] contextTerms;
+
+    private final ThreadLocal<Scratch> scratch;
+
+    SymbolScoringModel(List<Symbol> symbols,
+                       Map<String, List<String>> synonyms,
+                       Map<String, List<String>> contextWords) {
+        this.symbols = new ArrayList<>(symbols);
+
+        Map<String, Integer> termIds = new HashMap<>();
+        List<String> terms = new ArrayList<>();
+        int count = this.symbols.size();
+        keywordTerm = new int[count];
+        synonymTerms = new int[count][];
+        contextTerms = new int[count][];
+
+        for (int i = 0; i < count; i++) {
+            Symbol symbol = this.symbols.get(i);
+            String keyword = symbol.getKeyword().toLowerCase();
+            keywordTerm[i] = termId(keyword, termIds, terms);
+            synonymTerms[i] = termIds(synonyms.get(keyword), termIds, terms);
+            contextTerms[i] = termIds(contextWords.get(symbol.getSymbol()), termIds, terms);
+        }
+
+        termIndex = new LemmaIndex(terms);
+        int termCount = terms.size();
+        scratch = ThreadLocal.withInitial(() -> new Scratch(termCount, count));
+    }
+
+    private static int termId(String term, Map<String, Integer> termIds, List<String> terms) {
+        Integer id = termIds.get(term);
+        if (id == null) {
+            id = terms.size();
+            termIds.put(term, id);
+            terms.add(term);
+        }
+        return id;
+    }
+
+    private static int[] termIds(List<String> words, Map<String, Integer> termIds, List<String> terms) {
+        if (words == null) {
+            return new int[0];
+        }
+        int[] ids = new int[words.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = termId(words.get(i).toLowerCase(), termIds, terms);
+        }
+        return ids;
+    }
+
+    /**
+     * Возвращает до {@code limit} символов с наибольшим весом, по убыванию веса.
+     */
+    List<Symbol> findTopSymbols(TokenizedText tokens, int limit) {
+        Scratch s = scratch.get();
+        s.reset();
+        termIndex.scan(tokens, s);
+        return rankSymbols(s, limit);
+    }
+
+    /**
+     * То же по заранее собранному множеству терминов, например объединенному по нескольким предложениям.
+     */
+    List<Symbol> findTopSymbols(BitSet presentTerms, int limit) {
+        Scratch s = scratch.get();
+        s.reset();
+        for (int term = presentTerms.nextSetBit(0); term >= 0; term = presentTerms.nextSetBit(term + 1)) {
+            s.present[term] = true;
+        }
+        return rankSymbols(s, limit);
+    }
+
+    /**
+     * Отмечает в {@code presentTerms} id терминов, встретившихся в тексте.
+     */
+    void collectTerms(TokenizedText tokens, BitSet presentTerms) {
+        termIndex.scan(tokens, (term, start, end) -> presentTerms.set(term));
+    }
+
+    private List<Symbol> rankSymbols(Scratch s, int limit) {
+        double[] weights = s.weights;
+        for (int i = 0; i < keywordTerm.length; i++) {
+            weights[i] = weightOf(i, s);
+        }
+        if (s.heap.length < limit) {
+            s.heap = new int[limit];
+        }
+        return selectTop(weights, limit, s.heap);
+    }
+
+    private double weightOf(int symbolIndex, Scratch s) {
+        double weight = 0.0;
+
+        // Совпадение по основе всегда целым словом, поэтому бонус за целое слово начисляется сразу
+        if (s.present[keywordTerm[symbolIndex]]) {
+            weight += KEYWORD_WEIGHT + WHOLE_WORD_BONUS;
+        }
+
+        for (int term : synonymTerms[symbolIndex]) {
+            if (s.present[term]) {
+                weight += SYNONYM_WEIGHT;
+            }
+        }
+
+        for (int term : contextTerms[symbolIndex]) {
+            if (s.present[term]) {
+                weight += CONTEXT_WEIGHT;
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Отбор лучших через ограниченную мин-кучу индексов: O(n log k) вместо полной сортировки.
+     * При равенстве весов выше стоит символ, идущий раньше в словаре.
+     */
+    private List<Symbol> selectTop(double[] weights, int limit, int[] heap) {
+        int size = 0;
+        for (int i = 0; i < keywordTerm.length; i++) {
+            if (weights[i] <= 0) {
+                continue;
+            }
+            if (size < limit) {
+                heap[size] = i;
+                siftUp(heap, size++, weights);
+            } else if (limit > 0 && ranksHigher(i, heap[0], weights)) {
+                heap[0] = i;
+                siftDown(heap, size, weights);
+            }
+        }
+
+        // Извлекаем из кучи от худшего к лучшему и заполняем список с конца
+        Symbol[] ordered = new Symbol[size];
+        for (int n = size; n > 0; n--) {
+            ordered[n - 1] = symbols.get(heap[0]);
+            heap[0] = heap[n - 1];
+            siftDown(heap, n - 1, weights);
+        }
+        return new ArrayList<>(Arrays.asList(ordered));
+    }
+
+    private static boolean ranksHigher(int a, int b, double[] weights) {
+        if (weights[a] != weights[b]) {
+            return weights[a] > weights[b];
+        }
+        return a < b;
+    }
+
+    private static void siftUp(int[] heap, int index, double[] weights) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksHigher(heap[parent], heap[index], weights)) {
+                break;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, double[] weights) {
+        int index = 0;
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                break;
+            }
+            int right = left + 1;
+            int worst = right < size && ranksHigher(heap[left], heap[right], weights) ? right : left;
+            if (!ranksHigher(heap[index], heap[worst], weights)) {
+                break;
+            }
+            swap(heap, index, worst);
+            index = worst;
+        }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int tmp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = tmp;
+    }
+
+    /**
+     * Временное состояние одного вызова; заодно слушатель индекса, чтобы не создавать лямбду на каждый текст.
+     */
+    private static final class Scratch implements LemmaIndex.MatchListener {
+        final boolean[] present;
+        final double[] weights;
+        int[] heap = new int[16];
+
+        Scratch(int termCount, int symbolCount) {
+            present = new boolean[termCount];
+            weights = new double[symbolCount];
+        }
+
+        void reset() {
+            Arrays.fill(present, false);
+        }
+
+        @Override
+        public void onMatch(int patternIndex, int start, int end) {
+            present[patternIndex] = true;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.lionido.dreams_track.utils;
+
+import java.util.Arrays;
+
+/**
+ * Токенизатор текста сна за один проход по исходной строке.
+ * Словом считается непрерывная последовательность русских букв, предложения разделяются знаками . ! ?
+ * Заменяет прежнюю предобработку через два replaceAll и повторные split в каждом методе анализа.
+ */
+public final class TextTokenizer {
+
+    private TextTokenizer() {
+    }
+
+    public static TokenizedText tokenize(String text) {
+        if (text == null) {
+            text = "";
+        }
+
+        int capacity = Math.max(8, text.length() / 4);
+        int[] tokenStart = new int[capacity];
+        int[] tokenEnd = new int[capacity];
+        int[] rawStart = new int[capacity];
+        int[] rawEnd = new int[capacity];
+        int[] sentenceFirstToken = new int[8];
+
+        StringBuilder normalized = new StringBuilder(text.length());
+        int tokenCount = 0;
+        int sentenceCount = 0;
+        int letterCount = 0;
+        int currentStart = -1;
+        boolean sentenceOpen = false;
+
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? Character.toLowerCase(text.charAt(i)) : ' ';
+            boolean letter = (c >= 'а' && c <= 'я') || c == 'ё';
+
+            if (letter) {
+                if (currentStart == -1) {
+                    if (tokenCount == tokenStart.length) {
+                        int newCapacity = tokenCount * 2;
+                        tokenStart = Arrays.copyOf(tokenStart, newCapacity);
+                        tokenEnd = Arrays.copyOf(tokenEnd, newCapacity);
+                        rawStart = Arrays.copyOf(rawStart, newCapacity);
+                        rawEnd = Arrays.copyOf(rawEnd, newCapacity);
+                    }
+                    if (!sentenceOpen) {
+                        if (sentenceCount + 1 >= sentenceFirstToken.length) {
+                            sentenceFirstToken = Arrays.copyOf(sentenceFirstToken, sentenceFirstToken.length * 2);
+                        }
+                        sentenceFirstToken[sentenceCount++] = tokenCount;
+                        sentenceOpen = true;
+                    }
+                    if (normalized.length() > 0) {
+                        normalized.append(' ');
+                    }
+                    currentStart = i;
+                    tokenStart[tokenCount] = normalized.length();
+                    rawStart[tokenCount] = i;
+                }
+                normalized.append(c);
+                letterCount++;
+            } else {
+                if (currentStart != -1) {
+                    tokenEnd[tokenCount] = normalized.length();
+                    rawEnd[tokenCount] = i;
+                    tokenCount++;
+                    currentStart = -1;
+                }
+                if (c == '.' || c == '!' || c == '?') {
+                    sentenceOpen = false;
+                }
+            }
+        }
+        sentenceFirstToken[sentenceCount] = tokenCount;
+
+        return new TokenizedText(text, normalized.toString(), tokenCount,
+                tokenStart, tokenEnd, rawStart, rawEnd,
+                sentenceCount, sentenceFirstToken, letterCount);
+    }
+}
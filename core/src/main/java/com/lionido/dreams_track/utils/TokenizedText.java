@@ -0,0 +1,124 @@
+package com.lionido.dreams_track.utils;
+
+/**
+ * Результат однократной токенизации текста сна: нормализованный текст, слова и предложения
+ * со смещениями в исходном тексте. Неизменяем, создается через {@link TextTokenizer}.
+ */
+public final class TokenizedText {
+
+    private final String raw;
+    private final String normalized;
+    private final int tokenCount;
+    private final int[] tokenStart;   // смещения в normalized
+    private final int[] tokenEnd;
+    private final int[] rawStart;     // смещения в исходном тексте
+    private final int[] rawEnd;
+    private final int sentenceCount;
+    private final int[] sentenceFirstToken; // sentenceCount + 1 элементов, последний = tokenCount
+    private final int letterCount;
+    private volatile String[] lemmas;
+
+    TokenizedText(String raw, String normalized, int tokenCount,
+                  int[] tokenStart, int[] tokenEnd, int[] rawStart, int[] rawEnd,
+                  int sentenceCount, int[] sentenceFirstToken, int letterCount) {
+        this.raw = raw;
+        this.normalized = normalized;
+        this.tokenCount = tokenCount;
+        this.tokenStart = tokenStart;
+        this.tokenEnd = tokenEnd;
+        this.rawStart = rawStart;
+        this.rawEnd = rawEnd;
+        this.sentenceCount = sentenceCount;
+        this.sentenceFirstToken = sentenceFirstToken;
+        this.letterCount = letterCount;
+    }
+
+    public String getRawText() {
+        return raw;
+    }
+
+    /**
+     * Текст в нижнем регистре: только русские буквы, слова разделены одним пробелом.
+     */
+    public String getNormalizedText() {
+        return normalized;
+    }
+
+    public int getTokenCount() {
+        return tokenCount;
+    }
+
+    public String getToken(int index) {
+        return normalized.substring(tokenStart[index], tokenEnd[index]);
+    }
+
+    /**
+     * Основы токенов по индексу. Вычисляются при первом обращении и дальше разделяются всеми этапами анализа.
+     */
+    public String[] getLemmas() {
+        String[] result = lemmas;
+        if (result == null) {
+            result = Lemmatizer.getInstance().lemmatize(this);
+            lemmas = result;
+        }
+        return result;
+    }
+
+    public String getLemma(int index) {
+        return getLemmas()[index];
+    }
+
+    public int getTokenLength(int index) {
+        return tokenEnd[index] - tokenStart[index];
+    }
+
+    public int getTokenStart(int index) {
+        return tokenStart[index];
+    }
+
+    public int getTokenEnd(int index) {
+        return tokenEnd[index];
+    }
+
+    public int getRawStart(int index) {
+        return rawStart[index];
+    }
+
+    public int getRawEnd(int index) {
+        return rawEnd[index];
+    }
+
+    public int getSentenceCount() {
+        return sentenceCount;
+    }
+
+    public int getSentenceFirstToken(int sentence) {
+        return sentenceFirstToken[sentence];
+    }
+
+    /**
+     * Индекс токена, следующего за последним токеном предложения.
+     */
+    public int getSentenceEndToken(int sentence) {
+        return sentenceFirstToken[sentence + 1];
+    }
+
+    public int getSentenceRawStart(int sentence) {
+        return rawStart[sentenceFirstToken[sentence]];
+    }
+
+    public int getSentenceRawEnd(int sentence) {
+        return rawEnd[sentenceFirstToken[sentence + 1] - 1];
+    }
+
+    /**
+     * Общее число букв во всех токенах.
+     */
+    public int getLetterCount() {
+        return letterCount;
+    }
+
+    public boolean isEmpty() {
+        return tokenCount == 0;
+    }
+}
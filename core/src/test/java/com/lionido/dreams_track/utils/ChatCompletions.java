@@ -0,0 +1,41 @@
+package com.lionido.dreams_track.utils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Тела ответов chat/completions без потока, как у OpenRouter: content сообщения модели содержит JSON анализа.
+ */
+final class ChatCompletions {
+
+    private ChatCompletions() {
+    }
+
+    // Анализ одного сна
+    static String analysis(String interpretation) {
+        return completion(analysisOf(interpretation));
+    }
+
+    // Пакетный анализ снов с этими id; интерпретация — «Анализ сна <id>»
+    static String batch(int... ids) {
+        JSONArray analyses = new JSONArray();
+        for (int id : ids) {
+            analyses.put(analysisOf("Анализ сна " + id).put("id", id));
+        }
+        return completion(new JSONObject().put("analyses", analyses));
+    }
+
+    private static JSONObject analysisOf(String interpretation) {
+        return new JSONObject()
+                .put("symbols", new JSONArray())
+                .put("dominant_emotion", "calm")
+                .put("interpretation", interpretation);
+    }
+
+    private static String completion(JSONObject content) {
+        JSONObject message = new JSONObject().put("role", "assistant").put("content", content.toString());
+        return new JSONObject()
+                .put("choices", new JSONArray().put(new JSONObject().put("message", message)))
+                .toString();
+    }
+}
@@ -0,0 +1,86 @@
+package com.lionido.dreams_track.utils;
+
+import com.lionido.dreams_track.model.Symbol;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Результат после серии правок совпадает с полным анализом итогового текста,
+ * а заново разбираются только задетые правкой предложения.
+ */
+public class IncrementalAnalyzerTest {
+
+    private static NLPAnalyzer nlpAnalyzer;
+
+    @BeforeClass
+    public static void loadDictionary() throws Exception {
+        try (InputStream is = ResourceLoader.classpath().open("dream_symbols.json")) {
+            nlpAnalyzer = new NLPAnalyzer(SymbolDictionary.fromJson(is));
+        }
+    }
+
+    @Test
+    public void editsThroughUpdate_matchFullReanalysis() {
+        IncrementalAnalyzer analyzer = new IncrementalAnalyzer(nlpAnalyzer);
+        String[] versions = {
+                "Мне снилось море",
+                "Мне снилось море. Я падал",
+                "Мне снилось море. Я падал с башни! Было страшно",
+                // Правка в середине и удаление точки: первые два предложения склеиваются
+                "Мне снилось тёмное море Я падал с башни! Было страшно",
+                "Мне снилось тёмное море Я падал с башни! Было страшно, но потом я летал над городом.",
+                "Я летал над городом."
+        };
+
+        for (String version : versions) {
+            assertSameAnalysis(version, analyzer.update(version));
+        }
+    }
+
+    @Test
+    public void editsThroughApplyDelta_matchFullReanalysis() {
+        IncrementalAnalyzer analyzer = new IncrementalAnalyzer(nlpAnalyzer);
+        analyzer.update("Я шел по лесу. Потом плыл по воде.");
+
+        analyzer.applyDelta(14, 0, " Вдруг появилась змея!");
+        analyzer.applyDelta(0, 1, "Мы");
+        IncrementalAnalyzer.Result result = analyzer.applyDelta(2, 4, " шли");
+
+        assertEquals("Мы шли по лесу. Вдруг появилась змея! Потом плыл по воде.", analyzer.getText());
+        assertSameAnalysis(analyzer.getText(), result);
+    }
+
+    @Test
+    public void editInLastSentence_reanalyzesOnlyThatSentence() {
+        IncrementalAnalyzer analyzer = new IncrementalAnalyzer(nlpAnalyzer);
+        analyzer.update("Я видел дом. Потом пошел дождь. Я бежал");
+
+        IncrementalAnalyzer.Result result = analyzer.update("Я видел дом. Потом пошел дождь. Я бежал к морю");
+
+        assertEquals(3, result.sentenceCount);
+        assertEquals(1, result.reanalyzedSentences);
+    }
+
+    private static void assertSameAnalysis(String text, IncrementalAnalyzer.Result incremental) {
+        TokenizedText tokens = TextTokenizer.tokenize(text);
+        List<Symbol> symbols = nlpAnalyzer.findSymbols(tokens);
+
+        assertEquals(text, codes(symbols), codes(incremental.symbols));
+        assertEquals(text, nlpAnalyzer.detectEmotion(tokens, symbols), incremental.emotion);
+    }
+
+    private static List<String> codes(List<Symbol> symbols) {
+        List<String> codes = new ArrayList<>();
+        for (Symbol symbol : symbols) {
+            codes.add(symbol.getSymbol());
+        }
+        return codes;
+    }
+}
@@ -0,0 +1,80 @@
+package com.lionido.dreams_track.utils;
+
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Поиск ключевых слов по основам: любая словоформа находит слово словаря, а слово,
+ * лишь начинающееся с ключевого, — нет.
+ */
+public class LemmaIndexTest {
+
+    private final LemmaIndex index = new LemmaIndex(Arrays.asList("падать", "мир", "вода", "черная кошка"));
+
+    @Test
+    public void stemmer_reducesInflectedFormsToOneStem() {
+        assertEquals("вод", RussianStemmer.stem("вода"));
+        assertEquals("вод", RussianStemmer.stem("воды"));
+        assertEquals("вод", RussianStemmer.stem("Водой"));
+        assertEquals(RussianStemmer.stem("падать"), RussianStemmer.stem("падал"));
+        assertEquals(RussianStemmer.stem("падать"), RussianStemmer.stem("падающий"));
+    }
+
+    @Test
+    public void findPresent_stripsVerbPrefixWhenRestIsIndexed() {
+        LemmaIndex verbs = new LemmaIndex(Arrays.asList("бежать", "открыть", "ад"));
+
+        assertTrue(verbs.findPresent(TextTokenizer.tokenize("Я убежал из дома"))[0]);
+        assertTrue(verbs.findPresent(TextTokenizer.tokenize("Она прибежала первой"))[0]);
+        assertTrue(verbs.findPresent(TextTokenizer.tokenize("Он приоткрыл дверь"))[1]);
+        // Остаток короче трех букв не проверяется
+        assertFalse(verbs.findPresent(TextTokenizer.tokenize("Мы гуляли в саду"))[2]);
+    }
+
+    @Test
+    public void findPresent_matchesFormsListedInDictionary() throws Exception {
+        SymbolDictionary dictionary;
+        try (InputStream is = ResourceLoader.classpath().open("dream_symbols.json")) {
+            dictionary = SymbolDictionary.fromJson(is);
+        }
+        LemmaIndex keywords = dictionary.getKeywordIndex();
+        int falling = dictionary.getSymbols().indexOf(dictionary.findByKeyword("падать").get(0));
+
+        for (String text : Arrays.asList("Я падал в пропасть", "Она упала с лестницы", "Падающий лист",
+                "Во сне я выпал из окна", "Выпадение зубов")) {
+            assertTrue(text, keywords.findPresent(TextTokenizer.tokenize(text))[falling]);
+        }
+        // Без списка форм чередование в корне не находится
+        assertFalse(present("Она упала с лестницы")[0]);
+    }
+
+    @Test
+    public void findPresent_matchesWholeWordsOnly() {
+        boolean[] present = present("Вдали дрожал мираж");
+
+        assertFalse(present[1]);
+        assertTrue(present("Весь мир спал")[1]);
+    }
+
+    @Test
+    public void scan_reportsPhraseAsTokenRange() {
+        TokenizedText tokens = TextTokenizer.tokenize("Ночью черные кошки бежали к воде");
+        List<int[]> matches = new ArrayList<>();
+
+        index.scan(tokens, (patternIndex, start, end) -> matches.add(new int[]{patternIndex, start, end}));
+
+        assertEquals(2, matches.size());
+        assertArrayEquals(new int[]{3, 1, 3}, matches.get(0));
+        assertArrayEquals(new int[]{2, 5, 6}, matches.get(1));
+    }
+
+    private boolean[] present(String text) {
+        return index.findPresent(TextTokenizer.tokenize(text));
+    }
+}
@@ -0,0 +1,73 @@
+package com.lionido.dreams_track.utils;
+
+import com.lionido.dreams_track.model.Symbol;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Анализ на обычной JVM: словарь читается через ResourceLoader из ресурсов теста.
+ */
+public class NLPAnalyzerTest {
+
+    private static SymbolDictionary dictionary;
+
+    @BeforeClass
+    public static void loadDictionary() throws Exception {
+        try (InputStream is = ResourceLoader.classpath().open("dream_symbols.json")) {
+            dictionary = SymbolDictionary.fromJson(is);
+        }
+    }
+
+    @Test
+    public void analyze_findsSymbolsInInflectedForms() {
+        NLPAnalyzer analyzer = new NLPAnalyzer(dictionary);
+
+        NLPAnalyzer.AnalysisResult result = analyzer.analyze("Мне снилось, что я падал в холодную воду.");
+
+        List<String> codes = symbolCodes(result.symbols);
+        assertTrue(codes.toString(), codes.contains("water"));
+        assertTrue(codes.toString(), codes.contains("falling"));
+    }
+
+    @Test
+    public void analyze_detectsEmotion() {
+        NLPAnalyzer analyzer = new NLPAnalyzer(dictionary);
+
+        assertEquals("joy", analyzer.analyze("Я летал над городом и чувствовал радость").emotion);
+    }
+
+    @Test
+    public void analyze_emptyTextIsNeutral() {
+        NLPAnalyzer.AnalysisResult result = new NLPAnalyzer(dictionary).analyze("");
+
+        assertTrue(result.symbols.isEmpty());
+        assertEquals("neutral", result.emotion);
+    }
+
+    @Test
+    public void symbolAnalyzer_matchesNlpKeywords() {
+        SymbolAnalyzer analyzer = new SymbolAnalyzer(dictionary);
+
+        assertEquals(List.of("flying"), symbolCodes(analyzer.findSymbolsInText("Я летал над городом")));
+    }
+
+    @Test(expected = java.io.FileNotFoundException.class)
+    public void classpathLoader_missingResource() throws Exception {
+        ResourceLoader.classpath().open("missing.json").close();
+    }
+
+    private static List<String> symbolCodes(List<Symbol> symbols) {
+        List<String> codes = new ArrayList<>();
+        for (Symbol symbol : symbols) {
+            codes.add(symbol.getSymbol());
+        }
+        return codes;
+    }
+}
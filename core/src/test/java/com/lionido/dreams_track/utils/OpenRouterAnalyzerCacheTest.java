@@ -0,0 +1,113 @@
+package com.lionido.dreams_track.utils;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Кэш анализов: повторный анализ того же сна не обращается к API, а ключ меняется вместе с моделью и промптом.
+ */
+public class OpenRouterAnalyzerCacheTest {
+
+    @Rule
+    public TemporaryFolder logDir = new TemporaryFolder();
+
+    private MockWebServer server;
+    private final Map<String, String> stored = new HashMap<>();
+    private OpenRouterAnalyzer analyzer;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        analyzer = new OpenRouterAnalyzer(ResourceLoader.classpath(), logDir.getRoot(), "test-key",
+                SharedHttpClient.get(), server.url("/api/v1/chat/completions").toString());
+        analyzer.setCache(new OpenRouterAnalyzer.AnalysisCache() {
+            @Override
+            public String get(String key) {
+                return stored.get(key);
+            }
+
+            @Override
+            public void put(String key, String analysisJson) {
+                stored.put(key, analysisJson);
+            }
+        });
+    }
+
+    @After
+    public void stopServer() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void repeatedAnalysis_isServedFromCacheWithoutRequest() throws Exception {
+        server.enqueue(new MockResponse().setBody(ChatCompletions.analysis("Море — образ бессознательного")));
+
+        OpenRouterAnalyzer.DreamAnalysisResult first = analyzer.analyzeDream("Мне снилось море.");
+        OpenRouterAnalyzer.DreamAnalysisResult second = analyzer.analyzeDream("  мне  снилось МОРЕ ");
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, stored.size());
+        assertEquals(first.interpretation, second.interpretation);
+        assertEquals("calm", second.emotion);
+    }
+
+    @Test
+    public void differentText_goesToNetwork() throws Exception {
+        server.enqueue(new MockResponse().setBody(ChatCompletions.analysis("Первый")));
+        server.enqueue(new MockResponse().setBody(ChatCompletions.analysis("Второй")));
+
+        analyzer.analyzeDream("Мне снилось море");
+        OpenRouterAnalyzer.DreamAnalysisResult other = analyzer.analyzeDream("Мне снился лес");
+
+        assertEquals(2, server.getRequestCount());
+        assertEquals("Второй", other.interpretation);
+    }
+
+    @Test
+    public void brokenCacheEntry_isReplacedByFreshAnalysis() throws Exception {
+        stored.put(OpenRouterAnalyzer.cacheKey("Сон"), "{не json");
+        server.enqueue(new MockResponse().setBody(ChatCompletions.analysis("Свежий анализ")));
+
+        assertEquals("Свежий анализ", analyzer.analyzeDream("Сон").interpretation);
+        assertEquals(1, server.getRequestCount());
+        new JSONObject(stored.get(OpenRouterAnalyzer.cacheKey("Сон")));
+    }
+
+    @Test
+    public void failedRequest_isNotCached() {
+        server.enqueue(new MockResponse().setResponseCode(500));
+
+        assertThrows(IOException.class, () -> analyzer.analyzeDream("Сон"));
+        assertTrue(stored.isEmpty());
+    }
+
+    @Test
+    public void cacheKey_dependsOnNormalizedTextModelAndPrompt() {
+        String key = OpenRouterAnalyzer.cacheKey("Ёлка, и снег!");
+
+        assertEquals(key, OpenRouterAnalyzer.cacheKey("елка и   СНЕГ"));
+        assertEquals(64, key.length());
+        assertNotEquals(key, OpenRouterAnalyzer.cacheKey("елка и дождь"));
+        assertNotEquals(key, OpenRouterAnalyzer.cacheKey(
+                OpenRouterAnalyzer.MODEL_ID, OpenRouterAnalyzer.PROMPT_VERSION + 1,
+                PromptContextSelector.DEFAULT_TOKEN_BUDGET, "елка и снег"));
+        assertNotEquals(key, OpenRouterAnalyzer.cacheKey(
+                "other/model", OpenRouterAnalyzer.PROMPT_VERSION, PromptContextSelector.DEFAULT_TOKEN_BUDGET, "елка и снег"));
+        assertNotEquals(key, OpenRouterAnalyzer.cacheKey(
+                OpenRouterAnalyzer.MODEL_ID, OpenRouterAnalyzer.PROMPT_VERSION, 100, "елка и снег"));
+    }
+}
@@ -0,0 +1,157 @@
+package com.lionido.dreams_track.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ServerSocketFactory;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+import static org.junit.Assert.*;
+
+/**
+ * Запросы OpenRouterAnalyzer к локальному серверу. Новое соединение на сервере обходится в SETUP_DELAY_MS —
+ * так же, как TCP и TLS-рукопожатие с настоящим API, — чтобы было видно, что дает пул соединений.
+ */
+public class OpenRouterAnalyzerHttpTest {
+
+    private static final int ANALYSES = 5;
+    private static final long SETUP_DELAY_MS = 100;
+
+    private MockWebServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        server = new MockWebServer();
+        server.setServerSocketFactory(new SlowAcceptServerSocketFactory());
+        server.start();
+    }
+
+    @After
+    public void stopServer() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void backToBackAnalyses_reuseOnePooledConnection() throws Exception {
+        OpenRouterAnalyzer pooled = analyzer(SharedHttpClient.get());
+        // Для сравнения: без пула, как прежде с HttpURLConnection на каждый анализ
+        OpenRouterAnalyzer unpooled = analyzer(SharedHttpClient.get().newBuilder()
+                .connectionPool(new ConnectionPool(0, 1, TimeUnit.MILLISECONDS))
+                .build());
+
+        long pooledMs = analyzeBackToBack(pooled);
+        for (int i = 0; i < ANALYSES; i++) {
+            assertEquals("Номер запроса на соединении", i, server.takeRequest().getSequenceNumber());
+        }
+        long unpooledMs = analyzeBackToBack(unpooled);
+        for (int i = 0; i < ANALYSES; i++) {
+            assertEquals("Каждый запрос на новом соединении", 0, server.takeRequest().getSequenceNumber());
+        }
+
+        // Пул экономит установку соединения на всех запросах, кроме первого; берем половину запаса от шума
+        long expectedSavingMs = (ANALYSES - 1) * SETUP_DELAY_MS / 2;
+        assertTrue("С пулом " + pooledMs + " мс, без пула " + unpooledMs + " мс",
+                unpooledMs - pooledMs >= expectedSavingMs);
+    }
+
+    @Test
+    public void gzipResponse_isRequestedAndDecoded() throws Exception {
+        Buffer gzipped = new Buffer();
+        try (BufferedSink sink = Okio.buffer(new GzipSink(gzipped))) {
+            sink.writeUtf8(ChatCompletions.analysis("Интерпретация из сжатого ответа"));
+        }
+        server.enqueue(new MockResponse().setHeader("Content-Encoding", "gzip").setBody(gzipped));
+        OpenRouterAnalyzer analyzer = analyzer(SharedHttpClient.get());
+
+        String response = analyzer.sendOpenRouterRequest("Сон про море");
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("gzip", request.getHeader("Accept-Encoding"));
+        assertEquals("Bearer test-key", request.getHeader("Authorization"));
+        assertTrue(request.getHeader("Content-Type").startsWith("application/json"));
+        assertTrue(request.getBody().readUtf8().contains("Сон про море"));
+        assertEquals("Интерпретация из сжатого ответа", analyzer.parseOpenRouterResponse(response).interpretation);
+    }
+
+    @Test
+    public void errorStatus_isReportedWithBody() {
+        server.enqueue(new MockResponse().setResponseCode(429).setBody("{\"error\":\"rate limited\"}"));
+        OpenRouterAnalyzer analyzer = analyzer(SharedHttpClient.get());
+
+        IOException error = assertThrows(IOException.class, () -> analyzer.sendOpenRouterRequest("Сон"));
+
+        assertTrue(error.getMessage(), error.getMessage().contains("429"));
+        assertTrue(error.getMessage(), error.getMessage().contains("rate limited"));
+    }
+
+    private long analyzeBackToBack(OpenRouterAnalyzer analyzer) throws Exception {
+        for (int i = 0; i < ANALYSES; i++) {
+            server.enqueue(new MockResponse().setBody(ChatCompletions.analysis("Интерпретация " + i)));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ANALYSES; i++) {
+            String response = analyzer.sendOpenRouterRequest("Сон номер " + i);
+            assertEquals("Интерпретация " + i, analyzer.parseOpenRouterResponse(response).interpretation);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private OpenRouterAnalyzer analyzer(OkHttpClient client) {
+        return new OpenRouterAnalyzer(null, null, "test-key", client, server.url("/api/v1/chat/completions").toString());
+    }
+
+    // Сервер принимает соединение с задержкой, как после рукопожатия
+    private static final class SlowAcceptServerSocketFactory extends ServerSocketFactory {
+        @Override
+        public ServerSocket createServerSocket() throws IOException {
+            return new SlowAcceptServerSocket();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog, InetAddress address) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class SlowAcceptServerSocket extends ServerSocket {
+        SlowAcceptServerSocket() throws IOException {
+        }
+
+        @Override
+        public Socket accept() throws IOException {
+            Socket socket = super.accept();
+            try {
+                Thread.sleep(SETUP_DELAY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return socket;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.lionido.dreams_track.utils;
+
+import com.lionido.dreams_track.model.Symbol;
+
+import org.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Потоковый анализ через {@link SseStubServer}: поля анализа приходят слушателю до конца ответа.
+ */
+public class OpenRouterAnalyzerStreamTest {
+
+    private static final String ANALYSIS = "```json\n{\"symbols\": ["
+            + "{\"keyword\": \"вода\", \"symbol\": \"water\", \"interpretation\": \"Эмоции {и} \\\"глубина\\\"\", "
+            + "\"emotion\": \"calm\", \"archetype\": \"Самость\"}, "
+            + "{\"keyword\": \"мост\", \"symbol\": \"bridge\", \"interpretation\": \"Переход\", \"emotion\": \"change\"}], "
+            + "\"dominant_emotion\": \"calm\", "
+            + "\"interpretation\": \"Сон о переменах\", "
+            + "\"personal_growth\": \"Принять перемены\", \"actionable_advice\": \"Записывать сны\"}\n```";
+
+    @Rule
+    public TemporaryFolder logDir = new TemporaryFolder();
+
+    @Test
+    public void streamedFields_reachListenerBeforeResponseEnds() throws Exception {
+        int pauseAt = ANALYSIS.indexOf("\"interpretation\": \"Сон");
+        try (SseStubServer server = new SseStubServer(
+                ": OPENROUTER PROCESSING\n\n",
+                SseStubServer.delta(""),
+                SseStubServer.delta(ANALYSIS.substring(0, 40)),
+                SseStubServer.delta(ANALYSIS.substring(40, pauseAt)),
+                SseStubServer.PAUSE,
+                SseStubServer.delta(ANALYSIS.substring(pauseAt, pauseAt + 25)),
+                SseStubServer.delta(ANALYSIS.substring(pauseAt + 25)),
+                "data: [DONE]\n\n")) {
+            RecordingListener listener = new RecordingListener(3);
+            OpenRouterAnalyzer analyzer = analyzer(server);
+
+            CompletableFuture<OpenRouterAnalyzer.DreamAnalysisResult> analysis = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return analyzer.analyzeDream("Я шел по мосту над водой", listener);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+
+            // Сервер еще держит конец ответа, а символы и эмоция уже разобраны
+            assertTrue("Нет ранних событий: " + listener.events,
+                    listener.early.await(10, TimeUnit.SECONDS));
+            assertEquals(List.of("symbol:вода", "symbol:мост", "emotion:calm"), listener.events);
+            assertEquals("Самость", listener.symbols.get(0).getArchetype());
+            assertEquals("Эмоции {и} \"глубина\"", listener.symbols.get(0).getInterpretation());
+            assertFalse(analysis.isDone());
+
+            server.release();
+            OpenRouterAnalyzer.DreamAnalysisResult result = analysis.get(10, TimeUnit.SECONDS);
+            assertEquals("interpretation:Сон о переменах", listener.events.get(3));
+            assertEquals(2, result.symbols.size());
+            assertEquals("Сон о переменах", result.interpretation);
+            assertEquals("Записывать сны", result.actionableAdvice);
+
+            JSONObject request = new JSONObject(server.getRequestBody());
+            assertTrue(request.getBoolean("stream"));
+            assertEquals("text/event-stream", server.getAcceptHeader());
+        }
+    }
+
+    @Test
+    public void errorEvent_failsAnalysis() throws Exception {
+        try (SseStubServer server = new SseStubServer(
+                SseStubServer.delta("{\"symbols\": ["),
+                "data: {\"error\": {\"code\": 502, \"message\": \"Provider disconnected\"}}\n\n")) {
+            OpenRouterAnalyzer analyzer = analyzer(server);
+
+            IOException error = assertThrows(IOException.class,
+                    () -> analyzer.analyzeDream("Сон", new RecordingListener(0)));
+            assertTrue(error.getMessage(), error.getMessage().contains("Provider disconnected"));
+        }
+    }
+
+    @Test
+    public void parser_handlesAnyChunking() {
+        for (int chunk = 1; chunk <= 7; chunk++) {
+            RecordingListener listener = new RecordingListener(0);
+            AnalysisStreamParser parser = new AnalysisStreamParser(listener);
+            for (int i = 0; i < ANALYSIS.length(); i += chunk) {
+                parser.feed(ANALYSIS.substring(i, Math.min(ANALYSIS.length(), i + chunk)));
+            }
+
+            assertTrue(parser.isComplete());
+            assertEquals("Фрагменты по " + chunk,
+                    List.of("symbol:вода", "symbol:мост", "emotion:calm", "interpretation:Сон о переменах"),
+                    listener.events);
+        }
+    }
+
+    private OpenRouterAnalyzer analyzer(SseStubServer server) {
+        return new OpenRouterAnalyzer(ResourceLoader.classpath(), logDir.getRoot(), "test-key",
+                SharedHttpClient.get(), server.url());
+    }
+
+    private static final class RecordingListener implements OpenRouterAnalyzer.OnAnalysisCompleteListener {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final List<Symbol> symbols = new CopyOnWriteArrayList<>();
+        final CountDownLatch early;
+
+        RecordingListener(int earlyEvents) {
+            early = new CountDownLatch(earlyEvents);
+        }
+
+        @Override
+        public void onSuccess(List<Symbol> symbols, String emotion, String interpretation,
+                              String personalGrowth, String actionableAdvice) {
+        }
+
+        @Override
+        public void onError(String error) {
+        }
+
+        @Override
+        public void onSymbol(Symbol symbol) {
+            symbols.add(symbol);
+            record("symbol:" + symbol.getKeyword());
+        }
+
+        @Override
+        public void onEmotion(String emotion) {
+            record("emotion:" + emotion);
+        }
+
+        @Override
+        public void onInterpretation(String interpretation) {
+            record("interpretation:" + interpretation);
+        }
+
+        private void record(String event) {
+            events.add(event);
+            early.countDown();
+        }
+    }
+}
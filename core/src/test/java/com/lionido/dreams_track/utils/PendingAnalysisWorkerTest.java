@@ -0,0 +1,222 @@
+package com.lionido.dreams_track.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Очередь отложенных анализов: пакеты по BATCH_SIZE снов, повтор с растущей задержкой по подменным часам,
+ * без сети запросов нет.
+ */
+public class PendingAnalysisWorkerTest {
+
+    @Rule
+    public TemporaryFolder logDir = new TemporaryFolder();
+
+    private MockWebServer server;
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private boolean online = true;
+    private final FakeStore store = new FakeStore();
+    private PendingAnalysisWorker worker;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        OpenRouterAnalyzer analyzer = new OpenRouterAnalyzer(ResourceLoader.classpath(), logDir.getRoot(), "test-key",
+                SharedHttpClient.get(), server.url("/api/v1/chat/completions").toString());
+        worker = new PendingAnalysisWorker(store, analyzer, () -> online, now::get, new Random(42));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        worker.shutdown();
+        server.shutdown();
+    }
+
+    @Test
+    public void offline_sendsNothing() {
+        online = false;
+        store.add(1, "Мне снилось море");
+
+        assertEquals(0, worker.drain());
+        assertEquals(0, server.getRequestCount());
+        assertEquals(0, store.jobs.get(1).attempts);
+    }
+
+    @Test
+    public void dueJobs_areCoalescedIntoBatches() {
+        for (int id = 1; id <= 6; id++) {
+            store.add(id, "Сон номер " + id);
+        }
+        server.enqueue(new MockResponse().setBody(ChatCompletions.batch(1, 2, 3, 4)));
+        server.enqueue(new MockResponse().setBody(ChatCompletions.batch(5, 6)));
+
+        assertEquals(6, worker.drain());
+
+        assertEquals(2, server.getRequestCount());
+        assertTrue(store.jobs.isEmpty());
+        assertEquals("Анализ сна 5", store.completed.get(5).interpretation);
+        assertEquals("calm", store.completed.get(5).emotion);
+    }
+
+    @Test
+    public void failedBatch_isRetriedAfterBackoff() {
+        store.add(1, "Мне снился лес");
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setBody(ChatCompletions.batch(1)));
+
+        assertEquals(0, worker.drain());
+        FakeStore.Entry job = store.jobs.get(1);
+        assertEquals(1, job.attempts);
+        long delay = job.nextAttemptAt - now.get();
+        assertTrue(delay >= PendingAnalysisWorker.BASE_DELAY_MS / 2 && delay <= PendingAnalysisWorker.BASE_DELAY_MS);
+        assertNotNull(job.error);
+
+        // До срока задание не берется
+        now.addAndGet(delay - 1);
+        assertEquals(0, worker.drain());
+        assertEquals(1, server.getRequestCount());
+
+        now.addAndGet(1);
+        assertEquals(1, worker.drain());
+        assertEquals(2, server.getRequestCount());
+        assertTrue(store.completed.containsKey(1));
+    }
+
+    @Test
+    public void dreamMissingFromResponse_isRetriedAlone() {
+        store.add(1, "Первый сон");
+        store.add(2, "Второй сон");
+        server.enqueue(new MockResponse().setBody(ChatCompletions.batch(2)));
+
+        assertEquals(1, worker.drain());
+
+        assertTrue(store.completed.containsKey(2));
+        assertEquals(1, store.jobs.size());
+        assertEquals(1, store.jobs.get(1).attempts);
+    }
+
+    @Test
+    public void textEditedDuringRequest_isAnalyzedAgain() throws InterruptedException {
+        store.add(1, "Мне снился лес");
+        store.editDuringRequest.put(1, "Мне снилось море");
+        server.enqueue(new MockResponse().setBody(ChatCompletions.batch(1)));
+        server.enqueue(new MockResponse().setBody(ChatCompletions.batch(1)));
+
+        assertEquals(1, worker.drain());
+
+        assertEquals(2, server.getRequestCount());
+        assertTrue(server.takeRequest().getBody().readUtf8().contains("лес"));
+        assertTrue(server.takeRequest().getBody().readUtf8().contains("море"));
+        assertTrue(store.completed.containsKey(1));
+        assertTrue(store.jobs.isEmpty());
+    }
+
+    @Test
+    public void jobIsDroppedAfterMaxAttempts() {
+        store.add(1, "Сон");
+        store.jobs.get(1).attempts = PendingAnalysisWorker.MAX_ATTEMPTS - 1;
+        server.enqueue(new MockResponse().setResponseCode(500));
+
+        worker.drain();
+
+        assertTrue(store.jobs.isEmpty());
+        assertTrue(store.completed.isEmpty());
+    }
+
+    @Test
+    public void backoffDelay_growsAndIsCapped() {
+        for (int attempts = 1; attempts <= 20; attempts++) {
+            long full = Math.min(PendingAnalysisWorker.BASE_DELAY_MS << Math.min(attempts - 1, 30),
+                    PendingAnalysisWorker.MAX_DELAY_MS);
+            long delay = worker.backoffDelay(attempts);
+            assertTrue("attempts=" + attempts, delay >= full / 2 && delay <= full);
+        }
+    }
+
+    private class FakeStore implements PendingAnalysisWorker.Store {
+        final Map<Integer, Entry> jobs = new LinkedHashMap<>();
+        final Map<Integer, OpenRouterAnalyzer.DreamAnalysisResult> completed = new LinkedHashMap<>();
+        // Новый текст сна, сохраненный, пока шел запрос
+        final Map<Integer, String> editDuringRequest = new LinkedHashMap<>();
+
+        class Entry {
+            String text;
+            int attempts;
+            long nextAttemptAt;
+            String error;
+        }
+
+        void add(int dreamId, String text) {
+            Entry entry = new Entry();
+            entry.text = text;
+            entry.nextAttemptAt = now.get();
+            jobs.put(dreamId, entry);
+        }
+
+        @Override
+        public List<PendingAnalysisWorker.Job> getDue(long time, int limit) {
+            List<PendingAnalysisWorker.Job> due = new ArrayList<>();
+            jobs.entrySet().stream()
+                    .filter(e -> e.getValue().nextAttemptAt <= time)
+                    .sorted((a, b) -> Long.compare(a.getValue().nextAttemptAt, b.getValue().nextAttemptAt))
+                    .limit(limit)
+                    .forEach(e -> {
+                        PendingAnalysisWorker.Job job = new PendingAnalysisWorker.Job();
+                        job.dreamId = e.getKey();
+                        job.text = e.getValue().text;
+                        job.attempts = e.getValue().attempts;
+                        due.add(job);
+                    });
+            return due;
+        }
+
+        @Override
+        public Long getNextAttemptAt() {
+            return jobs.values().stream().map(e -> e.nextAttemptAt).min(Long::compare).orElse(null);
+        }
+
+        @Override
+        public boolean complete(PendingAnalysisWorker.Job job, OpenRouterAnalyzer.DreamAnalysisResult result) {
+            String edit = editDuringRequest.remove(job.dreamId);
+            if (edit != null) {
+                jobs.get(job.dreamId).text = edit;
+            }
+            if (!jobs.get(job.dreamId).text.equals(job.text)) {
+                return false;
+            }
+            completed.put(job.dreamId, result);
+            jobs.remove(job.dreamId);
+            return true;
+        }
+
+        @Override
+        public void retryLater(int dreamId, int attempts, long nextAttemptAt, String error) {
+            Entry entry = jobs.get(dreamId);
+            entry.attempts = attempts;
+            entry.nextAttemptAt = nextAttemptAt;
+            entry.error = error;
+        }
+
+        @Override
+        public void remove(int dreamId) {
+            jobs.remove(dreamId);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.lionido.dreams_track.utils;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.InputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Контекст символов для промпта: символы сна и соседи в пределах бюджета вместо всего словаря.
+ */
+public class PromptContextSelectorTest {
+
+    private static SymbolDictionary dictionary;
+
+    @BeforeClass
+    public static void loadDictionary() throws Exception {
+        try (InputStream is = ResourceLoader.classpath().open("dream_symbols.json")) {
+            dictionary = SymbolDictionary.fromJson(is);
+        }
+    }
+
+    @Test
+    public void select_includesMatchedSymbolsAndNeighbours() {
+        PromptContextSelector selector = new PromptContextSelector(dictionary);
+
+        PromptContextSelector.Selection selection = selector.select("Я падал в темную пещеру и звал на помощь");
+
+        assertTrue(selection.context, selection.context.contains("(falling)"));
+        assertTrue(selection.context, selection.context.contains("(cave)"));
+        assertEquals(2, selection.matchedCount);
+        // Соседи — символы страха из того же словаря
+        assertEquals(selection.matchedCount + PromptContextSelector.DEFAULT_MAX_NEIGHBOURS, selection.symbolCount);
+        assertTrue(selection.context, selection.context.contains("(shadow)"));
+        assertFalse(selection.context, selection.context.contains("(flying)"));
+    }
+
+    @Test
+    public void select_keepsAllMeaningsOfKeywordAndLimitsNeighbours() {
+        PromptContextSelector selector = new PromptContextSelector(dictionary, 1000, 1);
+
+        PromptContextSelector.Selection selection = selector.select("Я видел замок на горе");
+
+        // «Замок» в словаре дважды: изоляция и преграда; сосед один — башня, тоже изоляция
+        assertEquals(2, selection.matchedCount);
+        assertEquals(3, selection.symbolCount);
+        assertTrue(selection.context, selection.context.contains("замок (castle)"));
+        assertTrue(selection.context, selection.context.contains("замок (lock)"));
+        assertTrue(selection.context, selection.context.contains("башня (tower)"));
+    }
+
+    @Test
+    public void select_staysWithinTokenBudget() {
+        PromptContextSelector selector = new PromptContextSelector(dictionary, 60, 10);
+
+        PromptContextSelector.Selection selection = selector.select("Вода, огонь, лес, дорога, мост и поезд");
+
+        assertTrue(selection.tokens <= 60);
+        assertEquals(selection.tokens, PromptContextSelector.estimateTokens(selection.context));
+        assertTrue(selection.symbolCount > 0);
+        // Найденные в тексте идут первыми, поэтому в урезанном контексте только они
+        assertEquals(selection.symbolCount, selection.matchedCount);
+    }
+
+    @Test
+    public void select_withoutKnownSymbols_isEmpty() {
+        PromptContextSelector.Selection selection = new PromptContextSelector(dictionary).select("Ничего не помню");
+
+        assertEquals("", selection.context);
+        assertEquals(0, selection.symbolCount);
+        assertEquals(0, selection.tokens);
+    }
+
+    @Test
+    public void select_isMuchSmallerThanFullDictionary() {
+        PromptContextSelector selector = new PromptContextSelector(dictionary);
+        String[] dreams = {
+                "Мне снилось, что я летал над морем, а потом упал в холодную воду.",
+                "Я бежал по лесу от огромной собаки и не мог найти дорогу домой.",
+                "Опаздывал на поезд, часы спешили, а в школе ждал экзамен.",
+        };
+
+        for (String dream : dreams) {
+            PromptContextSelector.Selection selection = selector.select(dream);
+            assertEquals(dictionary.size(), selection.fullSymbolCount);
+            assertTrue(selection.tokens + " из " + selection.fullTokens, selection.tokens * 4 < selection.fullTokens);
+            assertTrue(selection.tokens <= PromptContextSelector.DEFAULT_TOKEN_BUDGET);
+        }
+    }
+}
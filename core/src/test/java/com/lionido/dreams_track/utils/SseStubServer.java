@@ -0,0 +1,107 @@
+package com.lionido.dreams_track.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Локальный сервер, отвечающий на запрос chat/completions потоком SSE по сценарию. Каждая строка сценария
+ * отправляется отдельным фрагментом; на {@link #PAUSE} сервер ждет {@link #release()}, чтобы тест мог
+ * проверить, что пришло до конца ответа.
+ */
+final class SseStubServer implements Closeable {
+
+    static final String PAUSE = "\u0000pause";
+
+    private final HttpServer server;
+    private final String[] script;
+    private final CountDownLatch released = new CountDownLatch(1);
+    private volatile String requestBody;
+    private volatile String acceptHeader;
+
+    SseStubServer(String... script) throws IOException {
+        this.script = script;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::respond);
+        server.start();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v1/chat/completions";
+    }
+
+    void release() {
+        released.countDown();
+    }
+
+    String getRequestBody() {
+        return requestBody;
+    }
+
+    String getAcceptHeader() {
+        return acceptHeader;
+    }
+
+    @Override
+    public void close() {
+        release();
+        server.stop(0);
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        requestBody = readAll(exchange.getRequestBody());
+        acceptHeader = exchange.getRequestHeaders().getFirst("Accept");
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        // Длина 0 — ответ по частям, каждый фрагмент уходит клиенту сразу после flush
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (String step : script) {
+                if (PAUSE.equals(step)) {
+                    await();
+                    continue;
+                }
+                out.write(step.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        }
+    }
+
+    private void await() {
+        try {
+            released.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    // Событие с частью сообщения модели, как у OpenRouter
+    static String delta(String content) {
+        JSONObject delta = new JSONObject().put("content", content);
+        JSONObject event = new JSONObject()
+                .put("choices", new JSONArray().put(new JSONObject().put("index", 0).put("delta", delta)));
+        return "data: " + event + "\n\n";
+    }
+}